@@ -0,0 +1,113 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.benchmark.support.SlowAuthorizerServer;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.service.PaymentService;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sixteen clients deposit through a local authorizer stub that answers after
+ * {@code authorizerDelayMillis}, against a pool of four connections, while one client runs a short
+ * read. {@code holdConnection = true} wraps each deposit in an outer transaction, reproducing the
+ * previous behaviour of holding a connection across the authorizer call; the {@code read} latency
+ * and the peak number of threads waiting for a connection show whether the pool drains. Runs
+ * against the database configured by {@code SPRING_DATASOURCE_URL}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class AuthorizerPoolBenchmark {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+  @Param({"false", "true"})
+  public boolean holdConnection;
+
+  @Param({"200"})
+  public long authorizerDelayMillis;
+
+  private SlowAuthorizerServer authorizer;
+  private DatabaseFixture database;
+  private PaymentService paymentService;
+  private UserRepository userRepository;
+  private TransactionTemplate transactionTemplate;
+  private HikariDataSource dataSource;
+  private Long readerId;
+  private final AtomicInteger peakAwaitingConnection = new AtomicInteger();
+
+  @State(Scope.Thread)
+  public static class Depositor {
+
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp(AuthorizerPoolBenchmark benchmark) {
+      userId = benchmark.database.createUser(BigDecimal.ZERO).getId();
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    authorizer = new SlowAuthorizerServer(authorizerDelayMillis);
+    database = new DatabaseFixture(
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "external.authorizer.payment.url=" + authorizer.url());
+    paymentService = database.bean(PaymentService.class);
+    userRepository = database.bean(UserRepository.class);
+    transactionTemplate = database.bean(TransactionTemplate.class);
+    dataSource = database.bean(DataSource.class).unwrap(HikariDataSource.class);
+    readerId = database.createUser(BigDecimal.ZERO).getId();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%nholdConnection=%s peak threads awaiting a connection: %d%n",
+        holdConnection, peakAwaitingConnection.get());
+    database.close();
+    authorizer.close();
+  }
+
+  @Benchmark
+  @Group("pool")
+  @GroupThreads(16)
+  public boolean deposit(Depositor depositor) {
+    if (holdConnection) {
+      return transactionTemplate.execute(status -> paymentService.deposit(depositor.userId, AMOUNT));
+    }
+    return paymentService.deposit(depositor.userId, AMOUNT);
+  }
+
+  @Benchmark
+  @Group("pool")
+  @GroupThreads(1)
+  public boolean read() {
+    peakAwaitingConnection.accumulateAndGet(
+        dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+    return userRepository.existsById(readerId);
+  }
+}
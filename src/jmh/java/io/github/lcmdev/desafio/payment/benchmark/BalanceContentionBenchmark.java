@@ -0,0 +1,115 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.benchmark.support.ReadModifyWriteBalanceStrategy;
+import io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceStrategyConfig;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Many threads paying into one hot account through each balance strategy, against the database
+ * configured by {@code SPRING_DATASOURCE_URL} (use a disposable PostgreSQL, the benchmark writes
+ * fixture users). At the end of each trial the hot account balance is compared with the number of
+ * successful transfers and the difference is printed as lost updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class BalanceContentionBenchmark {
+
+  private static final String READ_MODIFY_WRITE = "READ_MODIFY_WRITE";
+  private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+  @Param({READ_MODIFY_WRITE, "CONDITIONAL_UPDATE", "OPTIMISTIC", "PESSIMISTIC", "LEDGER"})
+  public String strategy;
+
+  @Param({"16"})
+  public int payers;
+
+  private DatabaseFixture database;
+  private AccountRepository accountRepository;
+  private TransactionTemplate transactionTemplate;
+  private BalanceMutationStrategy balanceMutationStrategy;
+  private Long hotAccountId;
+  private List<Long> payerAccountIds;
+  private final AtomicLong transfers = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    database = new DatabaseFixture();
+    accountRepository = database.bean(AccountRepository.class);
+    transactionTemplate = database.bean(TransactionTemplate.class);
+    var entityManager = database.bean(EntityManager.class);
+    balanceMutationStrategy = READ_MODIFY_WRITE.equals(strategy)
+        ? new ReadModifyWriteBalanceStrategy(entityManager)
+        : BalanceStrategyConfig.create(BalanceStrategyEnum.valueOf(strategy), 16, accountRepository,
+            entityManager, database.bean(JdbcTemplate.class));
+
+    hotAccountId = database.createAccount(INITIAL_BALANCE);
+    payerAccountIds = new ArrayList<>();
+    for (int i = 1; i <= payers; i++) {
+      payerAccountIds.add(database.createAccount(INITIAL_BALANCE));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    var expected = INITIAL_BALANCE.add(AMOUNT.multiply(BigDecimal.valueOf(transfers.get())));
+    var actual = balanceMutationStrategy.balanceOf(accountRepository.findById(hotAccountId).orElseThrow());
+    var lostUpdates = expected.subtract(actual).divide(AMOUNT).longValueExact();
+    System.out.printf("%n[%s] transfers=%d lostUpdates=%d%n", strategy, transfers.get(), lostUpdates);
+    database.close();
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcomes {
+    public long transferred;
+    public long conflicts;
+  }
+
+  @Benchmark
+  public void transferToHotAccount(Outcomes outcomes) {
+    var payerId = payerAccountIds.get(ThreadLocalRandom.current().nextInt(payerAccountIds.size()));
+    try {
+      transactionTemplate.executeWithoutResult(status -> balanceMutationStrategy.transfer(
+          accountRepository.findById(payerId).orElseThrow(),
+          accountRepository.findById(hotAccountId).orElseThrow(),
+          AMOUNT, false));
+      transfers.incrementAndGet();
+      outcomes.transferred++;
+    } catch (IllegalStateException ex) {
+      outcomes.conflicts++;
+    }
+  }
+}
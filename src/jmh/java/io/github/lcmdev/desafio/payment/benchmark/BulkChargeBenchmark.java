@@ -0,0 +1,86 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
+import io.github.lcmdev.desafio.payment.service.PaymentService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Month-end billing of {@code charges} customers, one {@code createCharge} per item
+ * ({@code bulk=false}) against {@code createCharges} in chunks of 1000. Runs against the database
+ * configured by {@code SPRING_DATASOURCE_URL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkChargeBenchmark {
+
+  private static final int CHUNK_SIZE = 1000;
+  private static final BigDecimal AMOUNT = new BigDecimal("19.90");
+
+  @Param({"10000"})
+  public int charges;
+
+  @Param({"false", "true"})
+  public boolean bulk;
+
+  private DatabaseFixture database;
+  private PaymentService paymentService;
+  private Long merchantId;
+  private List<CreateChargeRequestDTO> requests;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    database = new DatabaseFixture();
+    paymentService = database.bean(PaymentService.class);
+    merchantId = database.createUser(BigDecimal.ZERO).getId();
+    requests = new ArrayList<>(charges);
+    for (int i = 0; i < charges; i++) {
+      var customer = database.createUser(BigDecimal.ZERO);
+      requests.add(new CreateChargeRequestDTO(customer.getCpf(), AMOUNT, "Mensalidade"));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public int createCharges() {
+    var created = 0;
+    if (bulk) {
+      for (int from = 0; from < requests.size(); from += CHUNK_SIZE) {
+        var chunk = requests.subList(from, Math.min(from + CHUNK_SIZE, requests.size()));
+        created += (int) paymentService.createCharges(merchantId, chunk, from).stream()
+            .filter(result -> result.id() != null)
+            .count();
+      }
+    } else {
+      for (var request : requests) {
+        paymentService.createCharge(merchantId, request.destinationCpf(), request.amount(), request.description());
+        created++;
+      }
+    }
+    return created;
+  }
+}
@@ -0,0 +1,33 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import io.github.lcmdev.desafio.payment.validation.CPFValidator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CPFValidatorBenchmark {
+
+  @Param({"52998224725", "529.982.247-25", "52998224724", "11111111111"})
+  private String cpf;
+
+  private final CPFValidator validator = new CPFValidator();
+
+  @Benchmark
+  public boolean isValid() {
+    return validator.isValid(cpf, null);
+  }
+}
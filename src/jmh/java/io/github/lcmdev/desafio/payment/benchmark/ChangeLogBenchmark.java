@@ -0,0 +1,76 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent appends of charge records to the change log, as handed over by committing payments. The queue is
+ * bounded, so once it fills the throughput is the rate the writer sustains into the memory-mapped segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class ChangeLogBenchmark {
+
+  private Path directory;
+  private ChangeLog changeLog;
+  private List<Charge> charges;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("change-log-benchmark");
+    changeLog = new ChangeLog(ChangeLogProperties.of(directory), new SimpleMeterRegistry());
+    changeLog.start();
+    charges = List.of(Charge.builder()
+        .id(1L)
+        .origin(User.builder().id(1L).build())
+        .destination(User.builder().id(2L).build())
+        .amount(new BigDecimal("100.00"))
+        .status(PENDING)
+        .build());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    changeLog.stop();
+    System.out.printf("%n%d records appended%n", changeLog.endOffset());
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void created() {
+    changeLog.created(charges);
+  }
+}
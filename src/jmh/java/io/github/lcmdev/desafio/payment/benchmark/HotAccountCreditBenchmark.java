@@ -0,0 +1,86 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceStrategyConfig;
+import io.github.lcmdev.desafio.payment.service.balance.ShardedBalanceStrategy;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Concurrent credits to one merchant account, as a single {@code tb_accounts} row
+ * ({@code shards = 0}) and promoted to {@code tb_account_shards} sub-rows. Runs against the
+ * database configured by {@code SPRING_DATASOURCE_URL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class HotAccountCreditBenchmark {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+  @Param({"CONDITIONAL_UPDATE", "PESSIMISTIC"})
+  public BalanceStrategyEnum strategy;
+
+  @Param({"0", "4", "16"})
+  public int shards;
+
+  private DatabaseFixture database;
+  private AccountRepository accountRepository;
+  private TransactionTemplate transactionTemplate;
+  private BalanceMutationStrategy balanceMutationStrategy;
+  private Long merchantAccountId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    database = new DatabaseFixture();
+    accountRepository = database.bean(AccountRepository.class);
+    transactionTemplate = database.bean(TransactionTemplate.class);
+    var entityManager = database.bean(EntityManager.class);
+    var jdbcTemplate = database.bean(JdbcTemplate.class);
+    var rowStrategy = BalanceStrategyConfig.create(strategy, 16, accountRepository, entityManager, jdbcTemplate);
+
+    merchantAccountId = database.createAccount(BigDecimal.ZERO);
+    if (shards == 0) {
+      balanceMutationStrategy = rowStrategy;
+    } else {
+      var sharded = new ShardedBalanceStrategy(rowStrategy, jdbcTemplate, entityManager);
+      sharded.promote(merchantAccountId, shards);
+      balanceMutationStrategy = sharded;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public void creditMerchant() {
+    transactionTemplate.executeWithoutResult(status -> balanceMutationStrategy.credit(
+        accountRepository.findById(merchantAccountId).orElseThrow(), AMOUNT));
+  }
+}
@@ -0,0 +1,59 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code validateAndGetUserId} serves a repeated token from the verified-token cache;
+ * {@code verifyWithNewParser} is the previous path, building a parser and verifying on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+  private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+  private JwtUtil jwtUtil;
+  private Key key;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtUtil = new JwtUtil(SECRET, 86_400_000L, 10_000, new SimpleMeterRegistry());
+    key = Keys.hmacShaKeyFor(SECRET.getBytes());
+    token = jwtUtil.generateToken(42L);
+  }
+
+  @Benchmark
+  public Long validateAndGetUserId() {
+    return jwtUtil.validateAndGetUserId(token);
+  }
+
+  @Benchmark
+  public Long verifyWithNewParser() {
+    return Long.parseLong(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject());
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtUtil.generateToken(42L);
+  }
+}
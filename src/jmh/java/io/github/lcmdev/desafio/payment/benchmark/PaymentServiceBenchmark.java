@@ -0,0 +1,104 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.InMemoryBalanceStrategy;
+import io.github.lcmdev.desafio.payment.benchmark.support.InMemoryRepositories;
+import io.github.lcmdev.desafio.payment.benchmark.support.StubAuthorizerClient;
+import io.github.lcmdev.desafio.payment.benchmark.support.StubChargeSummaryService;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.service.PaymentService;
+import io.github.lcmdev.desafio.payment.service.UserIdCache;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLogProperties;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceBenchmark {
+
+  private static final Long RECEIVER_ID = 1L;
+  private static final Long PAYER_ID = 2L;
+  private static final String PAYER_CPF = "52998224725";
+  private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+  private PaymentService paymentService;
+  private Charge pendingCharge;
+
+  @Setup
+  public void setUp() {
+    var repositories = new InMemoryRepositories();
+    var receiver = repositories.addUser(user(RECEIVER_ID, "74770769008", "receiver@bench.io"));
+    var payer = repositories.addUser(user(PAYER_ID, PAYER_CPF, "payer@bench.io"));
+
+    pendingCharge = repositories.addCharge(Charge.builder()
+        .origin(receiver)
+        .destination(payer)
+        .amount(AMOUNT)
+        .description("benchmark charge")
+        .status(PENDING)
+        .createdAt(Instant.now())
+        .build());
+
+    var userIdCache = new UserIdCache(repositories.userRepository(), new SimpleMeterRegistry(), 1000,
+        Duration.ofMinutes(10));
+    var chargeArchive = new ChargeArchive(new JdbcTemplate(), repositories.userRepository(), new SimpleMeterRegistry(),
+        Path.of("target", "charge-archive"), 1 << 20);
+    paymentService = new PaymentService(repositories.userRepository(), userIdCache,
+        repositories.chargeRepository(), new StubChargeSummaryService(), chargeArchive,
+        new ChargeEventBus(new SimpleMeterRegistry(), 1024, 256, Duration.ofMinutes(30)),
+        new ChangeLog(new ChangeLogProperties(false, null, null, null, null, null, null, null), new SimpleMeterRegistry()),
+        new StubAuthorizerClient(true),
+        new InMemoryBalanceStrategy(), TransactionOperations.withoutTransaction());
+  }
+
+  @Benchmark
+  public Charge createCharge() {
+    return paymentService.createCharge(RECEIVER_ID, PAYER_CPF, AMOUNT, "benchmark charge");
+  }
+
+  @Benchmark
+  public Charge payByBalance() {
+    pendingCharge.setStatus(PENDING);
+    return paymentService.payByBalance(PAYER_ID, pendingCharge.getId());
+  }
+
+  private static User user(Long id, String cpf, String email) {
+    var user = User.builder()
+        .id(id)
+        .name("Benchmark " + id)
+        .cpf(cpf)
+        .email(email)
+        .passwordHash("hash")
+        .createdAt(LocalDateTime.now())
+        .build();
+    user.setAccount(new Account(id, new BigDecimal("1000000000000.00"), user, 0L));
+    return user;
+  }
+}
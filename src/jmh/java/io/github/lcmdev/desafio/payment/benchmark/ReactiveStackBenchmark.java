@@ -0,0 +1,173 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.benchmark.support.SlowAuthorizerServer;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Same {@value #CONCURRENCY}-request {@code pay/card} burst as {@link VirtualThreadPayCardBenchmark},
+ * served either by Spring MVC on Tomcat platform threads or by the {@code reactive} profile (WebFlux
+ * on Netty, R2DBC and the non-blocking authorizer call). Besides the time per request, the trial
+ * prints requests per second per core and the peak heap growth and thread count per in-flight
+ * request, sampled every {@value #SAMPLE_MILLIS} ms during each burst. The reactive stack reads
+ * {@code SPRING_R2DBC_URL}, which must point at the same database as {@code SPRING_DATASOURCE_URL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class ReactiveStackBenchmark {
+
+  private static final int CONCURRENCY = 1000;
+  private static final long SAMPLE_MILLIS = 5;
+  private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+  private static final String CARD = """
+      {"cardNumber":"4111111111111111","expiry":"12/30","cvv":"123"}""";
+
+  @Param({"servlet", "reactive"})
+  public String stack;
+
+  @Param({"200"})
+  public long authorizerDelayMillis;
+
+  private SlowAuthorizerServer authorizer;
+  private DatabaseFixture database;
+  private ChargeRepository chargeRepository;
+  private ExecutorService clientExecutor;
+  private ScheduledExecutorService sampler;
+  private HttpClient httpClient;
+  private User payer;
+  private final List<User> merchants = new ArrayList<>();
+  private List<Long> chargeIds;
+  private String token;
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong elapsedNanos = new AtomicLong();
+  private final AtomicLong peakHeapGrowth = new AtomicLong();
+  private final AtomicLong peakThreads = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    authorizer = new SlowAuthorizerServer(authorizerDelayMillis);
+    var properties = new ArrayList<>(List.of(
+        "external.authorizer.payment.url=" + authorizer.url(),
+        "external.authorizer.payment.read-timeout=30s",
+        "external.authorizer.payment.pool.pending-acquire-timeout=30s",
+        "external.authorizer.payment.pool.max-connections=" + CONCURRENCY,
+        "external.authorizer.payment.bulkhead.max-concurrent-calls=" + CONCURRENCY,
+        "external.authorizer.payment.bulkhead.max-wait=5s"));
+    if (stack.equals("reactive")) {
+      properties.add("spring.profiles.active=reactive");
+    }
+    database = new DatabaseFixture(properties.toArray(String[]::new));
+    chargeRepository = database.bean(ChargeRepository.class);
+    payer = database.createUser(BigDecimal.ZERO);
+    token = database.bean(JwtUtil.class).generateToken(payer.getId());
+    IntStream.range(0, CONCURRENCY).forEach(i -> merchants.add(database.createUser(BigDecimal.ZERO)));
+    clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    sampler = Executors.newSingleThreadScheduledExecutor();
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+  }
+
+  @Setup(Level.Invocation)
+  public void createCharges() {
+    chargeIds = chargeRepository.saveAll(merchants.stream()
+        .map(merchant -> Charge.builder()
+            .origin(merchant)
+            .destination(payer)
+            .amount(AMOUNT)
+            .description("benchmark charge")
+            .status(PENDING)
+            .build())
+        .toList()).stream().map(Charge::getId).toList();
+    System.gc();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    var cores = Runtime.getRuntime().availableProcessors();
+    var seconds = elapsedNanos.get() / 1e9;
+    System.out.printf("%nstack=%s non-200 responses: %d%n", stack, failures.get());
+    System.out.printf("stack=%s requests/s per core: %.1f (%d cores)%n", stack, requests.get() / seconds / cores, cores);
+    System.out.printf("stack=%s peak heap growth per in-flight request: %.1f KiB, peak threads: %d%n",
+        stack, peakHeapGrowth.get() / 1024.0 / CONCURRENCY, peakThreads.get());
+    httpClient.close();
+    clientExecutor.close();
+    sampler.shutdownNow();
+    database.close();
+    authorizer.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CONCURRENCY)
+  public long payByCard() {
+    var memory = ManagementFactory.getMemoryMXBean();
+    var threads = ManagementFactory.getThreadMXBean();
+    var baseline = memory.getHeapMemoryUsage().getUsed();
+    var sampling = sampler.scheduleAtFixedRate(() -> {
+      peakHeapGrowth.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+      peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+    }, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+    var start = System.nanoTime();
+    var responses = chargeIds.stream()
+        .map(id -> httpClient.sendAsync(payRequest(id), BodyHandlers.discarding()))
+        .toList();
+    var paid = responses.stream()
+        .map(CompletableFuture::join)
+        .filter(response -> response.statusCode() == 200)
+        .count();
+    elapsedNanos.addAndGet(System.nanoTime() - start);
+    sampling.cancel(false);
+
+    requests.addAndGet(responses.size());
+    failures.addAndGet(responses.size() - paid);
+    return paid;
+  }
+
+  private HttpRequest payRequest(Long chargeId) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + database.port()
+            + "/api/v1/charges/" + chargeId + "/pay/card"))
+        .header("Authorization", "Bearer " + token)
+        .header("Content-Type", "application/json")
+        .POST(BodyPublishers.ofString(CARD))
+        .build();
+  }
+}
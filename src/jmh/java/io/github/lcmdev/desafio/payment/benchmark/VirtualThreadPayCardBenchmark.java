@@ -0,0 +1,142 @@
+package io.github.lcmdev.desafio.payment.benchmark;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+
+import io.github.lcmdev.desafio.payment.benchmark.support.DatabaseFixture;
+import io.github.lcmdev.desafio.payment.benchmark.support.SlowAuthorizerServer;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fires {@value #CONCURRENCY} concurrent {@code POST /api/v1/charges/{id}/pay/card} requests over
+ * HTTP against an authorizer stub answering after {@code authorizerDelayMillis}, with Tomcat on
+ * platform threads (200 by default) or on virtual threads. The score is the time per request of a
+ * whole burst, so lower means more requests in flight at once. Runs against the database
+ * configured by {@code SPRING_DATASOURCE_URL}; start the JVM with
+ * {@code -Djdk.tracePinnedThreads=short} or enable the pinning monitor to spot pinned carriers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class VirtualThreadPayCardBenchmark {
+
+  private static final int CONCURRENCY = 1000;
+  private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+  private static final String CARD = """
+      {"cardNumber":"4111111111111111","expiry":"12/30","cvv":"123"}""";
+
+  @Param({"false", "true"})
+  public boolean virtualThreads;
+
+  @Param({"200"})
+  public long authorizerDelayMillis;
+
+  private SlowAuthorizerServer authorizer;
+  private DatabaseFixture database;
+  private ChargeRepository chargeRepository;
+  private ExecutorService clientExecutor;
+  private HttpClient httpClient;
+  private User payer;
+  private final List<User> merchants = new ArrayList<>();
+  private List<Long> chargeIds;
+  private String token;
+  private final AtomicLong failures = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    authorizer = new SlowAuthorizerServer(authorizerDelayMillis);
+    database = new DatabaseFixture(
+        "spring.threads.virtual.enabled=" + virtualThreads,
+        "payment.virtual-threads.pinning-monitor.enabled=" + virtualThreads,
+        "external.authorizer.payment.url=" + authorizer.url(),
+        "external.authorizer.payment.read-timeout=30s",
+        "external.authorizer.payment.pool.pending-acquire-timeout=30s",
+        "external.authorizer.payment.pool.max-connections=" + CONCURRENCY,
+        "external.authorizer.payment.bulkhead.max-concurrent-calls=" + CONCURRENCY,
+        "external.authorizer.payment.bulkhead.max-wait=5s");
+    chargeRepository = database.bean(ChargeRepository.class);
+    payer = database.createUser(BigDecimal.ZERO);
+    token = database.bean(JwtUtil.class).generateToken(payer.getId());
+    IntStream.range(0, CONCURRENCY).forEach(i -> merchants.add(database.createUser(BigDecimal.ZERO)));
+    clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+  }
+
+  @Setup(Level.Invocation)
+  public void createCharges() {
+    chargeIds = chargeRepository.saveAll(merchants.stream()
+        .map(merchant -> Charge.builder()
+            .origin(merchant)
+            .destination(payer)
+            .amount(AMOUNT)
+            .description("benchmark charge")
+            .status(PENDING)
+            .build())
+        .toList()).stream().map(Charge::getId).toList();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%nvirtualThreads=%s non-200 responses: %d%n", virtualThreads, failures.get());
+    httpClient.close();
+    clientExecutor.close();
+    database.close();
+    authorizer.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CONCURRENCY)
+  public long payByCard() {
+    var responses = chargeIds.stream()
+        .map(id -> httpClient.sendAsync(payRequest(id), BodyHandlers.discarding()))
+        .toList();
+    var paid = responses.stream()
+        .map(CompletableFuture::join)
+        .filter(response -> response.statusCode() == 200)
+        .count();
+    failures.addAndGet(responses.size() - paid);
+    return paid;
+  }
+
+  private HttpRequest payRequest(Long chargeId) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + database.port()
+            + "/api/v1/charges/" + chargeId + "/pay/card"))
+        .header("Authorization", "Bearer " + token)
+        .header("Content-Type", "application/json")
+        .POST(BodyPublishers.ofString(CARD))
+        .build();
+  }
+}
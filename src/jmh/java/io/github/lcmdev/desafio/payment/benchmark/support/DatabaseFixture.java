@@ -0,0 +1,70 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.PaymentGatewayApplication;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application against the database configured by {@code SPRING_DATASOURCE_URL} for
+ * benchmarks that need real row locks, and creates uniquely named fixture accounts in it. Properties
+ * are passed as command line arguments so they take precedence over {@code application.yml}.
+ */
+public final class DatabaseFixture implements AutoCloseable {
+
+  private static final String[] DEFAULTS = {"server.port=0", "spring.datasource.hikari.maximum-pool-size=32"};
+
+  private final ConfigurableApplicationContext context;
+  private final String run = UUID.randomUUID().toString().substring(0, 8);
+  private final String cpfPrefix = String.format("%06d", ThreadLocalRandom.current().nextInt(1_000_000));
+  private int accounts;
+
+  public DatabaseFixture(String... properties) {
+    var overrides = new LinkedHashMap<String, String>();
+    Stream.concat(Stream.of(DEFAULTS), Stream.of(properties))
+        .map(property -> property.split("=", 2))
+        .forEach(property -> overrides.put(property[0], property[1]));
+    this.context = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+        .run(overrides.entrySet().stream()
+            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+            .toArray(String[]::new));
+  }
+
+  public int port() {
+    return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+  }
+
+  public <T> T bean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  public Long createAccount(BigDecimal balance) {
+    return createUser(balance).getAccount().getId();
+  }
+
+  public User createUser(BigDecimal balance) {
+    var index = ++accounts;
+    var user = new User();
+    var account = new Account();
+    user.setName("Benchmark " + index);
+    user.setCpf(cpfPrefix + String.format("%05d", index));
+    user.setEmail(run + "-" + index + "@bench.io");
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    account.setBalance(balance);
+    user.setAccount(account);
+    return bean(UserRepository.class).save(user);
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+}
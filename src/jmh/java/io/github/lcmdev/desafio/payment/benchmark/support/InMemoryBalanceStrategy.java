@@ -0,0 +1,25 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import java.math.BigDecimal;
+
+/**
+ * Applies balance changes directly to the in-memory accounts, for benchmarks that run without a
+ * database and therefore measure only the service logic.
+ */
+public class InMemoryBalanceStrategy implements BalanceMutationStrategy {
+
+  @Override
+  public void credit(Account account, BigDecimal amount) {
+    account.setBalance(account.getBalance().add(amount));
+  }
+
+  @Override
+  public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+    if (!allowOverdraft && account.getBalance().compareTo(amount) < 0) {
+      throw new IllegalArgumentException("Insufficient balance");
+    }
+    account.setBalance(account.getBalance().subtract(amount));
+  }
+}
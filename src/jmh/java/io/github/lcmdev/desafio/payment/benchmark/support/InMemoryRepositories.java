@@ -0,0 +1,111 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.IdByCpf;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-ins for the Spring Data repositories used by the benchmarks. Only the methods
+ * exercised by the benchmarked code paths are implemented; anything else fails fast so a benchmark
+ * never silently measures a no-op. Newly saved charges get an id but are not retained, so
+ * long-running creation benchmarks do not grow the heap; use {@link #addCharge(Charge)} to register
+ * fixtures that must be found again.
+ */
+public final class InMemoryRepositories {
+
+  private final Map<Long, User> usersById = new ConcurrentHashMap<>();
+  private final Map<String, User> usersByCpf = new ConcurrentHashMap<>();
+  private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+  private final Map<Long, Charge> chargesById = new ConcurrentHashMap<>();
+  private final AtomicLong chargeSequence = new AtomicLong();
+
+  private final UserRepository userRepository;
+  private final ChargeRepository chargeRepository;
+
+  public InMemoryRepositories() {
+    this.userRepository = proxy(UserRepository.class, userHandler());
+    this.chargeRepository = proxy(ChargeRepository.class, chargeHandler());
+  }
+
+  public UserRepository userRepository() {
+    return userRepository;
+  }
+
+  public ChargeRepository chargeRepository() {
+    return chargeRepository;
+  }
+
+  public User addUser(User user) {
+    usersById.put(user.getId(), user);
+    usersByCpf.put(user.getCpf(), user);
+    usersByEmail.put(user.getEmail(), user);
+    return user;
+  }
+
+  public Charge addCharge(Charge charge) {
+    charge.setId(chargeSequence.incrementAndGet());
+    chargesById.put(charge.getId(), charge);
+    return charge;
+  }
+
+  private InvocationHandler userHandler() {
+    return (proxy, method, args) -> switch (method.getName()) {
+      case "findById" -> Optional.ofNullable(usersById.get((Long) args[0]));
+      case "existsById" -> usersById.containsKey((Long) args[0]);
+      case "getReferenceById" -> usersById.get((Long) args[0]);
+      case "findIdByCpf" -> Optional.ofNullable(usersByCpf.get((String) args[0]))
+          .map(user -> new IdByCpf(user.getId(), user.getCpf()));
+      case "findByCpf" -> Optional.ofNullable(usersByCpf.get((String) args[0]));
+      case "findByEmail" -> Optional.ofNullable(usersByEmail.get((String) args[0]));
+      case "save" -> addUser((User) args[0]);
+      case "incrementChargesVersion" -> ((Collection<?>) args[0]).size();
+      default -> unsupported(proxy, method.getName(), args);
+    };
+  }
+
+  private InvocationHandler chargeHandler() {
+    return (proxy, method, args) -> switch (method.getName()) {
+      case "findById" -> Optional.ofNullable(chargesById.get((Long) args[0]));
+      case "save" -> {
+        var charge = (Charge) args[0];
+        if (charge.getId() == null) {
+          charge.setId(chargeSequence.incrementAndGet());
+        }
+        yield charge;
+      }
+      case "transition" -> {
+        var charge = chargesById.get((Long) args[0]);
+        if (charge == null || charge.getStatus() != args[1]) {
+          yield 0;
+        }
+        charge.setStatus((ChargeStatusEnum) args[2]);
+        yield 1;
+      }
+      default -> unsupported(proxy, method.getName(), args);
+    };
+  }
+
+  private static Object unsupported(Object proxy, String method, Object[] args) {
+    return switch (method) {
+      case "hashCode" -> System.identityHashCode(proxy);
+      case "equals" -> proxy == args[0];
+      case "toString" -> "InMemoryRepository";
+      default -> throw new UnsupportedOperationException(method + " is not supported in benchmarks");
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+  }
+}
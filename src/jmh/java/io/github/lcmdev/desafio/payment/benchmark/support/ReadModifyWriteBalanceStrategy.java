@@ -0,0 +1,45 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Baseline reproducing the unprotected read, change in Java, write back cycle the service used
+ * before balance strategies existed. It bypasses the account version on purpose, so concurrent
+ * writers overwrite each other and the contention benchmark can count the lost updates.
+ */
+@RequiredArgsConstructor
+public class ReadModifyWriteBalanceStrategy implements BalanceMutationStrategy {
+
+  private final EntityManager entityManager;
+
+  @Override
+  public void credit(Account account, BigDecimal amount) {
+    write(account, read(account).add(amount));
+  }
+
+  @Override
+  public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+    var balance = read(account);
+    if (!allowOverdraft && balance.compareTo(amount) < 0) {
+      throw new IllegalArgumentException("Insufficient balance");
+    }
+    write(account, balance.subtract(amount));
+  }
+
+  private BigDecimal read(Account account) {
+    return (BigDecimal) entityManager.createNativeQuery("select balance from tb_accounts where id = ?1")
+        .setParameter(1, account.getId())
+        .getSingleResult();
+  }
+
+  private void write(Account account, BigDecimal balance) {
+    entityManager.createNativeQuery("update tb_accounts set balance = ?1 where id = ?2")
+        .setParameter(1, balance)
+        .setParameter(2, account.getId())
+        .executeUpdate();
+  }
+}
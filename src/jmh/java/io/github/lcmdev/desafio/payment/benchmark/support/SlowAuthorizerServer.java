@@ -0,0 +1,50 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the external authorizer that approves every request after a fixed delay, so
+ * benchmarks can reproduce a slow dependency without leaving the machine.
+ */
+public final class SlowAuthorizerServer implements AutoCloseable {
+
+  private static final byte[] APPROVED = "{\"status\":\"authorized\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  public SlowAuthorizerServer(long delayMillis) {
+    try {
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    server.createContext("/", exchange -> {
+      try (exchange) {
+        Thread.sleep(delayMillis);
+        exchange.sendResponseHeaders(200, APPROVED.length);
+        exchange.getResponseBody().write(APPROVED);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public String url() {
+    return "http://localhost:" + server.getAddress().getPort() + "/authorizer";
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,20 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.client.AuthorizerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class StubAuthorizerClient extends AuthorizerClient {
+
+  private final boolean approved;
+
+  public StubAuthorizerClient(boolean approved) {
+    super(AuthorizerProperties.of("http://localhost"), new SimpleMeterRegistry());
+    this.approved = approved;
+  }
+
+  @Override
+  public boolean authorize() {
+    return approved;
+  }
+}
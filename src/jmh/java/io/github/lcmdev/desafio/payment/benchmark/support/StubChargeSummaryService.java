@@ -0,0 +1,23 @@
+package io.github.lcmdev.desafio.payment.benchmark.support;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.service.ChargeSummaryService;
+import java.util.Collection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+public class StubChargeSummaryService extends ChargeSummaryService {
+
+  public StubChargeSummaryService() {
+    super(new JdbcTemplate(), TransactionOperations.withoutTransaction(), 1, 1);
+  }
+
+  @Override
+  public void created(Collection<Charge> charges) {
+  }
+
+  @Override
+  public void moved(Collection<Charge> charges, ChargeStatusEnum from, ChargeStatusEnum to) {
+  }
+}
@@ -1,34 +1,144 @@
 package io.github.lcmdev.desafio.payment.client;
 
-import static java.util.Objects.nonNull;
-
-import java.time.Duration;
-import org.springframework.beans.factory.annotation.Value;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+/**
+ * Calls the external authorizer through a bounded connection pool, a bulkhead that caps concurrent
+ * calls and a circuit breaker that fails fast while the authorizer is failing, probing it again in
+ * half-open state after {@code circuit-breaker.wait-in-open-state}. Every call is timed into
+ * {@code authorizer.requests}, tagged by outcome. A 4xx answer is a denial, not an authorizer failure.
+ */
 @Component
 public class AuthorizerClient {
 
+  static final String METRIC = "authorizer.requests";
+
+  enum Outcome { APPROVED, DENIED, TIMEOUT, ERROR, REJECTED }
+
   private final WebClient webClient;
+  private final Bulkhead bulkhead;
+  private final CircuitBreaker circuitBreaker;
+  private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+  private final MeterRegistry meterRegistry;
 
-  public AuthorizerClient(@Value("${external.authorizer.payment.url}") String baseUrl) {
+  public AuthorizerClient(AuthorizerProperties properties, MeterRegistry meterRegistry) {
+    var provider = ConnectionProvider.builder("authorizer")
+        .maxConnections(properties.pool().maxConnections())
+        .pendingAcquireTimeout(properties.pool().pendingAcquireTimeout())
+        .maxIdleTime(properties.pool().maxIdleTime())
+        .build();
+    var httpClient = HttpClient.create(provider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(properties.connectTimeout().toMillis()))
+        .responseTimeout(properties.readTimeout());
     this.webClient = WebClient.builder()
-        .baseUrl(baseUrl)
+        .baseUrl(properties.url())
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
         .build();
+
+    this.bulkhead = Bulkhead.of("authorizer", BulkheadConfig.custom()
+        .maxConcurrentCalls(properties.bulkhead().maxConcurrentCalls())
+        .maxWaitDuration(properties.bulkhead().maxWait())
+        .build());
+    this.circuitBreaker = CircuitBreaker.of("authorizer", CircuitBreakerConfig.custom()
+        .failureRateThreshold(properties.circuitBreaker().failureRateThreshold())
+        .slidingWindowSize(properties.circuitBreaker().slidingWindowSize())
+        .minimumNumberOfCalls(properties.circuitBreaker().minimumNumberOfCalls())
+        .waitDurationInOpenState(properties.circuitBreaker().waitInOpenState())
+        .permittedNumberOfCallsInHalfOpenState(properties.circuitBreaker().permittedCallsInHalfOpenState())
+        .build());
+
+    this.meterRegistry = meterRegistry;
+    Arrays.stream(Outcome.values()).forEach(outcome -> timers.put(outcome, Timer.builder(METRIC)
+        .tag("outcome", outcome.name().toLowerCase())
+        .publishPercentileHistogram()
+        .register(meterRegistry)));
   }
 
   public boolean authorize() {
+    var sample = Timer.start(meterRegistry);
+    var outcome = Outcome.ERROR;
     try {
-      String response = webClient.get()
-          .retrieve()
-          .bodyToMono(String.class)
-          .timeout(Duration.ofSeconds(5))
-          .block();
-      return nonNull(response) && (response.toLowerCase().contains("authorized")
-          || response.toLowerCase().contains("approved"));
+      var approved = bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(() -> request().block()));
+      outcome = approved ? Outcome.APPROVED : Outcome.DENIED;
+      return approved;
     } catch (Exception e) {
+      outcome = outcomeOf(e);
       return false;
+    } finally {
+      sample.stop(timers.get(outcome));
+    }
+  }
+
+  /**
+   * Non-blocking variant sharing the same pool, circuit breaker, bulkhead and metrics. The reactive
+   * bulkhead does not queue: a call beyond {@code max-concurrent-calls} is rejected at once.
+   */
+  public Mono<Boolean> authorizeAsync() {
+    return Mono.defer(() -> {
+      var sample = Timer.start(meterRegistry);
+      return request()
+          .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+          .transformDeferred(BulkheadOperator.of(bulkhead))
+          .doOnNext(approved -> sample.stop(timers.get(approved ? Outcome.APPROVED : Outcome.DENIED)))
+          .onErrorResume(e -> {
+            sample.stop(timers.get(outcomeOf(e)));
+            return Mono.just(false);
+          });
+    });
+  }
+
+  public CircuitBreaker.State circuitState() {
+    return circuitBreaker.getState();
+  }
+
+  private Mono<Boolean> request() {
+    return webClient.get()
+        .retrieve()
+        .bodyToMono(String.class)
+        .map(response -> response.toLowerCase().contains("authorized")
+            || response.toLowerCase().contains("approved"))
+        .defaultIfEmpty(false)
+        .onErrorResume(WebClientResponseException.class, e -> e.getStatusCode().is4xxClientError()
+            ? Mono.just(false) : Mono.error(e));
+  }
+
+  private static Outcome outcomeOf(Throwable error) {
+    if (error instanceof BulkheadFullException || error instanceof CallNotPermittedException) {
+      return Outcome.REJECTED;
+    }
+    return isTimeout(error) ? Outcome.TIMEOUT : Outcome.ERROR;
+  }
+
+  private static boolean isTimeout(Throwable error) {
+    for (var cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException || cause instanceof ReadTimeoutException
+          || cause instanceof ConnectTimeoutException) {
+        return true;
+      }
     }
+    return false;
   }
-}
\ No newline at end of file
+}
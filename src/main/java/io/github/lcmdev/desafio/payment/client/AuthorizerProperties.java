@@ -0,0 +1,63 @@
+package io.github.lcmdev.desafio.payment.client;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "external.authorizer.payment")
+public record AuthorizerProperties(
+    String url,
+    Duration connectTimeout,
+    Duration readTimeout,
+    Pool pool,
+    Bulkhead bulkhead,
+    CircuitBreaker circuitBreaker
+) {
+
+  public AuthorizerProperties {
+    connectTimeout = requireNonNullElse(connectTimeout, Duration.ofSeconds(1));
+    readTimeout = requireNonNullElse(readTimeout, Duration.ofSeconds(2));
+    pool = requireNonNullElse(pool, new Pool(null, null, null));
+    bulkhead = requireNonNullElse(bulkhead, new Bulkhead(null, null));
+    circuitBreaker = requireNonNullElse(circuitBreaker, new CircuitBreaker(null, null, null, null, null));
+  }
+
+  public static AuthorizerProperties of(String url) {
+    return new AuthorizerProperties(url, null, null, null, null, null);
+  }
+
+  public record Pool(Integer maxConnections, Duration pendingAcquireTimeout, Duration maxIdleTime) {
+
+    public Pool {
+      maxConnections = requireNonNullElse(maxConnections, 50);
+      pendingAcquireTimeout = requireNonNullElse(pendingAcquireTimeout, Duration.ofMillis(500));
+      maxIdleTime = requireNonNullElse(maxIdleTime, Duration.ofSeconds(30));
+    }
+  }
+
+  public record Bulkhead(Integer maxConcurrentCalls, Duration maxWait) {
+
+    public Bulkhead {
+      maxConcurrentCalls = requireNonNullElse(maxConcurrentCalls, 25);
+      maxWait = requireNonNullElse(maxWait, Duration.ofMillis(100));
+    }
+  }
+
+  public record CircuitBreaker(
+      Float failureRateThreshold,
+      Integer slidingWindowSize,
+      Integer minimumNumberOfCalls,
+      Duration waitInOpenState,
+      Integer permittedCallsInHalfOpenState
+  ) {
+
+    public CircuitBreaker {
+      failureRateThreshold = requireNonNullElse(failureRateThreshold, 50f);
+      slidingWindowSize = requireNonNullElse(slidingWindowSize, 20);
+      minimumNumberOfCalls = requireNonNullElse(minimumNumberOfCalls, 10);
+      waitInOpenState = requireNonNullElse(waitInOpenState, Duration.ofSeconds(10));
+      permittedCallsInHalfOpenState = requireNonNullElse(permittedCallsInHalfOpenState, 3);
+    }
+  }
+}
@@ -1,19 +1,27 @@
 package io.github.lcmdev.desafio.payment.controller;
 
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+
 import io.github.lcmdev.desafio.payment.controller.dto.request.LoginRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.RevokeTokenRequestDTO;
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
 import io.github.lcmdev.desafio.payment.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = SERVLET)
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
 public class AuthController {
@@ -39,4 +47,31 @@ public class AuthController {
       return ResponseEntity.status(401).body(Map.of("error", ex.getMessage()));
     }
   }
-}
\ No newline at end of file
+
+  @PostMapping("/logout")
+  public ResponseEntity<?> logout(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+    try {
+      authService.logout(bearerToken(authorization));
+      return ResponseEntity.noContent().build();
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.status(401).body(Map.of("error", ex.getMessage()));
+    }
+  }
+
+  @PostMapping("/revoke")
+  public ResponseEntity<?> revoke(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+      @RequestBody @Valid RevokeTokenRequestDTO requestDTO) {
+    try {
+      authService.revoke(bearerToken(authorization), requestDTO.token());
+      return ResponseEntity.noContent().build();
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.status(401).body(Map.of("error", ex.getMessage()));
+    }
+  }
+
+  private static String bearerToken(String authorization) {
+    return JwtUtil.bearerToken(authorization).orElseThrow(() -> new IllegalArgumentException("Invalid token"));
+  }
+}
@@ -1,32 +1,92 @@
 package io.github.lcmdev.desafio.payment.controller;
 
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.controller.dto.response.BatchPaymentResponseDTO.toBatchPaymentResponse;
+import static io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResponseDTO.toBulkChargeResponse;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.VARY;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.github.lcmdev.desafio.payment.controller.dto.request.CardPaymentRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeExportRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.DepositRequestDTO;
-import io.github.lcmdev.desafio.payment.controller.dto.response.ChargeResponseDTO;
-import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.controller.dto.request.PayChargesRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResultDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargeSummaryResponseDTO;
+import io.github.lcmdev.desafio.payment.enums.ExportFormatEnum;
+import io.github.lcmdev.desafio.payment.service.ChargeExportService;
+import io.github.lcmdev.desafio.payment.service.ChargeSummaryService;
+import io.github.lcmdev.desafio.payment.service.IdempotencyService;
 import io.github.lcmdev.desafio.payment.service.PaymentService;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.github.lcmdev.desafio.payment.util.ContentCodings;
 import io.github.lcmdev.desafio.payment.util.SecurityUtil;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+@Slf4j
 @RestController
+@ConditionalOnWebApplication(type = SERVLET)
 @RequestMapping("/api/v1/charges")
 @RequiredArgsConstructor
 public class ChargeController {
 
+  private static final CacheControl LISTING_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+  private static final int BULK_CHUNK_SIZE = 1000;
+
+  private static final int EXPORT_BUFFER_SIZE = 1 << 16;
+
+  private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+  private static final MediaType TEXT_CSV = new MediaType("text", "csv", UTF_8);
+
   private final PaymentService paymentService;
+  private final ChargeSummaryService chargeSummaryService;
+  private final ChargeExportService chargeExportService;
+  private final ChargeEventBus chargeEventBus;
+  private final IdempotencyService idempotencyService;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   public ResponseEntity<?> createCharge(@RequestBody @Valid CreateChargeRequestDTO requestDTO) {
@@ -37,70 +97,206 @@ public class ChargeController {
     return ResponseEntity.created(null).body(Map.of("id", charge.getId()));
   }
 
-  @GetMapping("/sent")
-  public ResponseEntity<List<ChargeResponseDTO>> sent(
-      @RequestParam(required = false) String status) {
+  /**
+   * Accepts a JSON array or NDJSON and reads it as a stream, creating the charges in chunks of
+   * {@value #BULK_CHUNK_SIZE}, each committed on its own. A malformed item ends the request after the
+   * items read before it, and is reported as the last result. A chunk the database rejects also ends
+   * it, with every item of that chunk reported as failed after the results of the committed ones.
+   */
+  @PostMapping(path = "/bulk", consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<BulkChargeResponseDTO> createCharges(InputStream body) throws IOException {
     var userId = SecurityUtil.getCurrentUserId();
-    var chargeStatus = Optional.ofNullable(status).map(String::toUpperCase)
-        .map(ChargeStatusEnum::valueOf);
-    var charges = paymentService.listChargesSent(userId, chargeStatus);
+    var results = new ArrayList<BulkChargeResultDTO>();
+    var chunk = new ArrayList<CreateChargeRequestDTO>(BULK_CHUNK_SIZE);
+
+    try (MappingIterator<CreateChargeRequestDTO> requests =
+        objectMapper.readerFor(CreateChargeRequestDTO.class).readValues(body)) {
+      while (true) {
+        CreateChargeRequestDTO request;
+        try {
+          if (!requests.hasNextValue()) {
+            break;
+          }
+          request = requests.nextValue();
+        } catch (JsonProcessingException ex) {
+          if (createChunk(userId, chunk, results)) {
+            results.add(BulkChargeResultDTO.failed(results.size(), "Malformed charge"));
+          }
+          return ResponseEntity.ok(toBulkChargeResponse(results));
+        }
+        chunk.add(request);
+        if (chunk.size() == BULK_CHUNK_SIZE && !createChunk(userId, chunk, results)) {
+          return ResponseEntity.ok(toBulkChargeResponse(results));
+        }
+      }
+    }
+    createChunk(userId, chunk, results);
+    return ResponseEntity.ok(toBulkChargeResponse(results));
+  }
 
-    if (charges.isEmpty()) {
-      return ResponseEntity.noContent().build();
+  private boolean createChunk(Long userId, List<CreateChargeRequestDTO> chunk, List<BulkChargeResultDTO> results) {
+    if (chunk.isEmpty()) {
+      return true;
+    }
+    try {
+      results.addAll(paymentService.createCharges(userId, chunk, results.size()));
+      return true;
+    } catch (DataAccessException | TransactionException ex) {
+      log.warn("Bulk chunk starting at item {} was rejected by the database", results.size(), ex);
+      for (int i = 0; i < chunk.size(); i++) {
+        results.add(BulkChargeResultDTO.failed(results.size(), "Charge could not be created"));
+      }
+      return false;
+    } finally {
+      chunk.clear();
     }
-    return ResponseEntity.ok(paymentService.listChargesSent(userId, chargeStatus));
+  }
+
+  @GetMapping("/sent")
+  public ResponseEntity<ChargePageResponseDTO> sent(ChargeFilterRequestDTO filter,
+      WebRequest request) {
+    var userId = SecurityUtil.getCurrentUserId();
+    var eTag = paymentService.chargesETag(userId, SENT, filter);
+    if (request.checkNotModified(eTag)) {
+      return notModified(eTag);
+    }
+
+    var charges = paymentService.listChargesSent(userId, filter);
+    return listing(charges, eTag);
   }
 
   @GetMapping("/received")
-  public ResponseEntity<List<ChargeResponseDTO>> received(
-      @RequestParam(required = false) String status) {
+  public ResponseEntity<ChargePageResponseDTO> received(ChargeFilterRequestDTO filter,
+      WebRequest request) {
     var userId = SecurityUtil.getCurrentUserId();
-    var chargeStatus = Optional.ofNullable(status).map(String::toUpperCase)
-        .map(ChargeStatusEnum::valueOf);
-    var chargesReceivedList = paymentService.listChargesReceived(userId, chargeStatus);
+    var eTag = paymentService.chargesETag(userId, RECEIVED, filter);
+    if (request.checkNotModified(eTag)) {
+      return notModified(eTag);
+    }
+
+    var chargesReceivedList = paymentService.listChargesReceived(userId, filter);
+    return listing(chargesReceivedList, eTag);
+  }
+
+  @GetMapping("/summary")
+  public ResponseEntity<ChargeSummaryResponseDTO> summary() {
+    var userId = SecurityUtil.getCurrentUserId();
+    return ResponseEntity.ok(chargeSummaryService.summaryOf(userId));
+  }
+
+  /**
+   * Pushes the charges created for or changed with the current user as Server-Sent Events, replacing the polling of
+   * the listings. A reconnecting client sends {@code Last-Event-ID} to resume; a {@code reset} event means events were
+   * missed and the listings must be reloaded.
+   */
+  @GetMapping(path = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId) {
+    return chargeEventBus.subscribe(SecurityUtil.getCurrentUserId(), lastEventId);
+  }
+
+  /**
+   * Streams the full history of one direction as CSV (default) or NDJSON, gzipped when the client accepts it. The
+   * parameters are parsed before the body is returned, so a bad one is still answered with a 400.
+   */
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> export(ChargeExportRequestDTO request,
+      @RequestHeader(name = ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    var userId = SecurityUtil.getCurrentUserId();
+    var direction = request.chargeDirection();
+    var format = request.exportFormat();
+    request.chargeStatus();
+    var gzip = ContentCodings.accepts(acceptEncoding, "gzip");
 
-    if (chargesReceivedList.isEmpty()) {
-      return ResponseEntity.noContent().build();
+    StreamingResponseBody body = out -> {
+      if (gzip) {
+        var compressed = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE);
+        chargeExportService.export(userId, request, compressed);
+        compressed.finish();
+      } else {
+        chargeExportService.export(userId, request, out);
+      }
+    };
+    var fileName = "charges-%s.%s".formatted(direction.name().toLowerCase(), format.name().toLowerCase());
+    var response = ResponseEntity.ok()
+        .contentType(format == ExportFormatEnum.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+        .header(CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+        .header(VARY, ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(CONTENT_ENCODING, "gzip");
     }
-    return ResponseEntity.ok(paymentService.listChargesReceived(userId, chargeStatus));
+    return response.body(body);
+  }
+
+  private ResponseEntity<ChargePageResponseDTO> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(eTag)
+        .cacheControl(LISTING_CACHE_CONTROL)
+        .build();
+  }
+
+  private ResponseEntity<ChargePageResponseDTO> listing(ChargePageResponseDTO charges, String eTag) {
+    if (charges.charges().isEmpty()) {
+      return ResponseEntity.noContent().eTag(eTag).cacheControl(LISTING_CACHE_CONTROL).build();
+    }
+    return ResponseEntity.ok().eTag(eTag).cacheControl(LISTING_CACHE_CONTROL).body(charges);
   }
 
   @PostMapping("/{id}/pay/balance")
-  public ResponseEntity<?> payByBalance(@PathVariable Long id) {
+  public ResponseEntity<?> payByBalance(@PathVariable Long id,
+      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     var userId = SecurityUtil.getCurrentUserId();
-    var billingPayment = paymentService.payByBalance(userId, id);
+    return idempotencyService.execute(userId, idempotencyKey, "pay/balance " + id, () -> {
+      var billingPayment = paymentService.payByBalance(userId, id);
+      return ResponseEntity.ok(Map.of("status", billingPayment.getStatus()));
+    });
+  }
 
-    return ResponseEntity.ok(Map.of("status", billingPayment.getStatus()));
+  @PostMapping("/pay/balance")
+  public ResponseEntity<?> payByBalance(@RequestBody @Valid PayChargesRequestDTO requestDTO,
+      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+    var userId = SecurityUtil.getCurrentUserId();
+    return idempotencyService.execute(userId, idempotencyKey, "pay/balance " + requestDTO, () -> {
+      var results = paymentService.payByBalance(userId, requestDTO.chargeIds(), requestDTO.atomicOrDefault());
+      return ResponseEntity.ok(toBatchPaymentResponse(results));
+    });
   }
 
   @PostMapping("/{id}/pay/card")
   public ResponseEntity<?> payByCard(@PathVariable Long id,
-      @RequestBody @Valid CardPaymentRequestDTO requestDTO) {
+      @RequestBody @Valid CardPaymentRequestDTO requestDTO,
+      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     var userId = SecurityUtil.getCurrentUserId();
-    var pay = paymentService.payByCard(
-        userId,
-        id,
-        requestDTO.cardNumber(),
-        requestDTO.expiry(),
-        requestDTO.cvv()
-    );
-    return pay ? ResponseEntity.ok(Map.of("paid", true))
-        : ResponseEntity.status(402).body(Map.of("paid", false));
+    return idempotencyService.execute(userId, idempotencyKey, "pay/card " + id + " " + requestDTO.fingerprint(), () -> {
+      var pay = paymentService.payByCard(
+          userId,
+          id,
+          requestDTO.cardNumber(),
+          requestDTO.expiry(),
+          requestDTO.cvv()
+      );
+      return pay ? ResponseEntity.ok(Map.of("paid", true))
+          : ResponseEntity.status(402).body(Map.of("paid", false));
+    });
   }
 
   @PostMapping("/{id}/cancel")
-  public ResponseEntity<?> cancel(@PathVariable Long id) {
+  public ResponseEntity<?> cancel(@PathVariable Long id,
+      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     var userId = SecurityUtil.getCurrentUserId();
-    var charge = paymentService.cancelCharge(userId, id);
-
-    return ResponseEntity.ok(Map.of("status", charge.getStatus()));
+    return idempotencyService.execute(userId, idempotencyKey, "cancel " + id, () -> {
+      var charge = paymentService.cancelCharge(userId, id);
+      return ResponseEntity.ok(Map.of("status", charge.getStatus()));
+    });
   }
 
   @PostMapping("/deposit")
-  public ResponseEntity<?> deposit(@RequestBody @Valid DepositRequestDTO requestDTO) {
+  public ResponseEntity<?> deposit(@RequestBody @Valid DepositRequestDTO requestDTO,
+      @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
     var userId = SecurityUtil.getCurrentUserId();
-    var deposited = paymentService.deposit(userId, requestDTO.amount());
-    return deposited ? ResponseEntity.ok(Map.of("deposited", true))
-        : ResponseEntity.status(402).body(Map.of("deposited", false));
+    return idempotencyService.execute(userId, idempotencyKey, "deposit " + requestDTO, () -> {
+      var deposited = paymentService.deposit(userId, requestDTO.amount());
+      return deposited ? ResponseEntity.ok(Map.of("deposited", true))
+          : ResponseEntity.status(402).body(Map.of("deposited", false));
+    });
   }
 }
\ No newline at end of file
@@ -6,4 +6,26 @@ public record CardPaymentRequestDTO(
         @NotBlank String cardNumber,
         @NotBlank String expiry,
         @NotBlank String cvv
-) {}
\ No newline at end of file
+) {
+
+    /**
+     * Identifies the card for idempotency matching by its last four digits and expiry only. The full
+     * PAN and the CVV must never reach anything that is stored or logged, hashed or not.
+     */
+    public String fingerprint() {
+        return "*" + lastFour() + " " + expiry;
+    }
+
+    @Override
+    public String toString() {
+        return "CardPaymentRequestDTO[cardNumber=*" + lastFour() + ", expiry=" + expiry + ", cvv=***]";
+    }
+
+    private String lastFour() {
+        if (cardNumber == null) {
+            return "";
+        }
+        var digits = cardNumber.replaceAll("\\D", "");
+        return digits.length() <= 4 ? digits : digits.substring(digits.length() - 4);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.lcmdev.desafio.payment.controller.dto.request;
+
+import static java.util.Objects.isNull;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.ExportFormatEnum;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+
+public record ChargeExportRequestDTO(
+    String direction,
+    String format,
+    String status,
+    @DateTimeFormat(iso = ISO.DATE_TIME) Instant from,
+    @DateTimeFormat(iso = ISO.DATE_TIME) Instant to
+) {
+
+  public ChargeDirectionEnum chargeDirection() {
+    if (isNull(direction)) {
+      throw new IllegalArgumentException("Direction is required");
+    }
+    return ChargeDirectionEnum.valueOf(direction.toUpperCase());
+  }
+
+  public ExportFormatEnum exportFormat() {
+    return isNull(format) ? ExportFormatEnum.CSV : ExportFormatEnum.valueOf(format.toUpperCase());
+  }
+
+  public Optional<ChargeStatusEnum> chargeStatus() {
+    return Optional.ofNullable(status).map(String::toUpperCase).map(ChargeStatusEnum::valueOf);
+  }
+
+  public Instant fromOrDefault() {
+    return isNull(from) ? ChargeFilterRequestDTO.MIN_CREATED_AT : from;
+  }
+
+  public Instant toOrDefault() {
+    return isNull(to) ? ChargeFilterRequestDTO.MAX_CREATED_AT : to;
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.lcmdev.desafio.payment.controller.dto.request;
+
+import static java.util.Objects.isNull;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+
+public record ChargeFilterRequestDTO(
+    String status,
+    @DateTimeFormat(iso = ISO.DATE_TIME) Instant from,
+    @DateTimeFormat(iso = ISO.DATE_TIME) Instant to,
+    String next,
+    Integer limit
+) {
+
+  public static final int DEFAULT_LIMIT = 50;
+  public static final int MAX_LIMIT = 200;
+  public static final Instant MIN_CREATED_AT = Instant.EPOCH;
+  public static final Instant MAX_CREATED_AT = Instant.parse("9999-12-31T23:59:59Z");
+
+  public static ChargeFilterRequestDTO empty() {
+    return new ChargeFilterRequestDTO(null, null, null, null, null);
+  }
+
+  public Optional<ChargeStatusEnum> chargeStatus() {
+    return Optional.ofNullable(status).map(String::toUpperCase).map(ChargeStatusEnum::valueOf);
+  }
+
+  public Instant fromOrDefault() {
+    return isNull(from) ? MIN_CREATED_AT : from;
+  }
+
+  public Instant toOrDefault() {
+    return isNull(to) ? MAX_CREATED_AT : to;
+  }
+
+  public int limitOrDefault() {
+    return isNull(limit) ? DEFAULT_LIMIT : Math.clamp(limit, 1, MAX_LIMIT);
+  }
+
+  /**
+   * Builds the listing ETag from the user's charges version, the user's account balance shown in the
+   * listing and a canonical encoding of every filter field, so equivalent queries share a tag and
+   * different queries can never collide.
+   */
+  public String eTag(ChargeDirectionEnum direction, Long userId, long chargesVersion, BigDecimal balance) {
+    var cursor = Optional.ofNullable(next).map(ChargeCursor::decode).map(ChargeCursor::encode).orElse("");
+    return "\"%s-%d-%d-%s-%s-%s-%s-%d-%s\"".formatted(direction.name().toLowerCase(), userId, chargesVersion,
+        balance.stripTrailingZeros().toPlainString(), chargeStatus().map(Enum::name).orElse("ALL"), fromOrDefault(),
+        toOrDefault(), limitOrDefault(), cursor);
+  }
+}
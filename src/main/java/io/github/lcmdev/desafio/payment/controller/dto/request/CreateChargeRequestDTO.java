@@ -1,5 +1,6 @@
 package io.github.lcmdev.desafio.payment.controller.dto.request;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -7,6 +8,17 @@ import java.math.BigDecimal;
 
 public record CreateChargeRequestDTO(
         @NotBlank String destinationCpf,
-        @NotNull BigDecimal amount,
+        @NotNull @Digits(integer = AMOUNT_INTEGER_DIGITS, fraction = AMOUNT_FRACTION_DIGITS) BigDecimal amount,
         String description
-) {}
+) {
+    /** Digits that fit {@code tb_charges.amount}, a {@code NUMERIC(19,2)}. */
+    public static final int AMOUNT_INTEGER_DIGITS = 17;
+    public static final int AMOUNT_FRACTION_DIGITS = 2;
+
+    /** The {@code @Digits} check, for bulk items that are read without bean validation. */
+    public boolean amountFitsColumn() {
+        var stripped = amount.stripTrailingZeros();
+        return Math.max(stripped.scale(), 0) <= AMOUNT_FRACTION_DIGITS
+                && stripped.precision() - stripped.scale() <= AMOUNT_INTEGER_DIGITS;
+    }
+}
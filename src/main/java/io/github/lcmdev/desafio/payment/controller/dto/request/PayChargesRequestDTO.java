@@ -0,0 +1,17 @@
+package io.github.lcmdev.desafio.payment.controller.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record PayChargesRequestDTO(
+    @NotEmpty @Size(max = PayChargesRequestDTO.MAX_CHARGES) List<Long> chargeIds,
+    Boolean atomic
+) {
+
+  public static final int MAX_CHARGES = 500;
+
+  public boolean atomicOrDefault() {
+    return atomic == null || atomic;
+  }
+}
@@ -0,0 +1,5 @@
+package io.github.lcmdev.desafio.payment.controller.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RevokeTokenRequestDTO(@NotBlank String token) {}
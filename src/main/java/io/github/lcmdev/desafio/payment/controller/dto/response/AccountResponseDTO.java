@@ -13,4 +13,4 @@ public record AccountResponseDTO(
         account.getBalance()
     );
   }
-}
\ No newline at end of file
+}
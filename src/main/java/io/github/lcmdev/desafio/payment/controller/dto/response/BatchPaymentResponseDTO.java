@@ -0,0 +1,15 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import java.util.List;
+
+public record BatchPaymentResponseDTO(
+    int paid,
+    int failed,
+    List<BatchPaymentResultDTO> results
+) {
+
+  public static BatchPaymentResponseDTO toBatchPaymentResponse(List<BatchPaymentResultDTO> results) {
+    var paid = (int) results.stream().filter(BatchPaymentResultDTO::paid).count();
+    return new BatchPaymentResponseDTO(paid, results.size() - paid, results);
+  }
+}
@@ -0,0 +1,19 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchPaymentResultDTO(
+    Long chargeId,
+    boolean paid,
+    String error
+) {
+
+  public static BatchPaymentResultDTO paid(Long chargeId) {
+    return new BatchPaymentResultDTO(chargeId, true, null);
+  }
+
+  public static BatchPaymentResultDTO failed(Long chargeId, String error) {
+    return new BatchPaymentResultDTO(chargeId, false, error);
+  }
+}
@@ -0,0 +1,15 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import java.util.List;
+
+public record BulkChargeResponseDTO(
+    int created,
+    int failed,
+    List<BulkChargeResultDTO> results
+) {
+
+  public static BulkChargeResponseDTO toBulkChargeResponse(List<BulkChargeResultDTO> results) {
+    var created = (int) results.stream().filter(result -> result.id() != null).count();
+    return new BulkChargeResponseDTO(created, results.size() - created, results);
+  }
+}
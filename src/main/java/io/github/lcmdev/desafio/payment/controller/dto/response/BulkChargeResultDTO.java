@@ -0,0 +1,19 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkChargeResultDTO(
+    int index,
+    Long id,
+    String error
+) {
+
+  public static BulkChargeResultDTO created(int index, Long id) {
+    return new BulkChargeResultDTO(index, id, null);
+  }
+
+  public static BulkChargeResultDTO failed(int index, String error) {
+    return new BulkChargeResultDTO(index, null, error);
+  }
+}
@@ -0,0 +1,22 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import static io.github.lcmdev.desafio.payment.controller.dto.response.ChargeResponseDTO.toChargeResponse;
+
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
+import java.util.List;
+
+public record ChargePageResponseDTO(
+    List<ChargeResponseDTO> charges,
+    String next
+) {
+
+  public static ChargePageResponseDTO toChargePageResponse(List<Charge> charges, int limit) {
+    if (charges.size() <= limit) {
+      return new ChargePageResponseDTO(toChargeResponse(charges), null);
+    }
+    var page = charges.subList(0, limit);
+    return new ChargePageResponseDTO(toChargeResponse(page),
+        ChargeCursor.of(page.get(limit - 1)).encode());
+  }
+}
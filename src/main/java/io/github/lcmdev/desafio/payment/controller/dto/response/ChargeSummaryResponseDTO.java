@@ -0,0 +1,10 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import java.util.Map;
+
+public record ChargeSummaryResponseDTO(
+    Map<ChargeStatusEnum, StatusSummaryDTO> sent,
+    Map<ChargeStatusEnum, StatusSummaryDTO> received
+) {
+}
@@ -0,0 +1,11 @@
+package io.github.lcmdev.desafio.payment.controller.dto.response;
+
+import java.math.BigDecimal;
+
+public record StatusSummaryDTO(
+    long count,
+    BigDecimal total
+) {
+
+  public static final StatusSummaryDTO EMPTY = new StatusSummaryDTO(0, BigDecimal.ZERO.setScale(2));
+}
@@ -0,0 +1,78 @@
+package io.github.lcmdev.desafio.payment.controller.reactive;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.controller.dto.request.LoginRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.RevokeTokenRequestDTO;
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import io.github.lcmdev.desafio.payment.service.AuthService;
+import jakarta.validation.Valid;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Registration, login and revocation stay on JPA, JDBC and BCrypt, all blocking, so they run on the bounded elastic
+ * scheduler instead of the event loop.
+ */
+@RestController
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+  private final AuthService authService;
+
+  @PostMapping("/register")
+  public Mono<ResponseEntity<?>> register(@RequestBody @Valid RegisterRequestDTO requestDTO) {
+    return Mono.fromCallable(() -> authService.register(requestDTO))
+        .subscribeOn(Schedulers.boundedElastic())
+        .<ResponseEntity<?>>map(user -> ResponseEntity.ok(Map.of("id", user.getId())))
+        .onErrorResume(IllegalArgumentException.class,
+            ex -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()))));
+  }
+
+  @PostMapping("/login")
+  public Mono<ResponseEntity<?>> login(@RequestBody @Valid LoginRequestDTO loginRequestDTO) {
+    return Mono.fromCallable(() -> authService.login(loginRequestDTO.login(), loginRequestDTO.password()))
+        .subscribeOn(Schedulers.boundedElastic())
+        .<ResponseEntity<?>>map(token -> ResponseEntity.ok(Map.of("token", token)))
+        .onErrorResume(IllegalArgumentException.class,
+            ex -> Mono.just(ResponseEntity.status(401).body(Map.of("error", ex.getMessage()))));
+  }
+
+  @PostMapping("/logout")
+  public Mono<ResponseEntity<?>> logout(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+    return Mono.fromRunnable(() -> authService.logout(bearerToken(authorization)))
+        .subscribeOn(Schedulers.boundedElastic())
+        .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.noContent().build()))
+        .onErrorResume(IllegalArgumentException.class,
+            ex -> Mono.just(ResponseEntity.status(401).body(Map.of("error", ex.getMessage()))));
+  }
+
+  @PostMapping("/revoke")
+  public Mono<ResponseEntity<?>> revoke(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+      @RequestBody @Valid RevokeTokenRequestDTO requestDTO) {
+    return Mono.fromRunnable(() -> authService.revoke(bearerToken(authorization), requestDTO.token()))
+        .subscribeOn(Schedulers.boundedElastic())
+        .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.noContent().build()))
+        .onErrorResume(IllegalArgumentException.class,
+            ex -> Mono.just(ResponseEntity.status(401).body(Map.of("error", ex.getMessage()))));
+  }
+
+  private static String bearerToken(String authorization) {
+    return JwtUtil.bearerToken(authorization).orElseThrow(() -> new IllegalArgumentException("Invalid token"));
+  }
+}
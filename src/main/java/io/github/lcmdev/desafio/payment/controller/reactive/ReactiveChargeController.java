@@ -0,0 +1,112 @@
+package io.github.lcmdev.desafio.payment.controller.reactive;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.controller.dto.request.CardPaymentRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.DepositRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.service.reactive.ReactivePaymentService;
+import jakarta.validation.Valid;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@RestController
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequestMapping("/api/v1/charges")
+@RequiredArgsConstructor
+public class ReactiveChargeController {
+
+  private static final CacheControl LISTING_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+  private final ReactivePaymentService paymentService;
+
+  @PostMapping
+  public Mono<ResponseEntity<?>> createCharge(@AuthenticationPrincipal Long userId,
+      @RequestBody @Valid CreateChargeRequestDTO requestDTO) {
+    return paymentService.createCharge(userId, requestDTO.destinationCpf(), requestDTO.amount(),
+            requestDTO.description())
+        .<ResponseEntity<?>>map(id -> ResponseEntity.created(null).body(Map.of("id", id)));
+  }
+
+  @GetMapping("/sent")
+  public Mono<ResponseEntity<ChargePageResponseDTO>> sent(@AuthenticationPrincipal Long userId,
+      ChargeFilterRequestDTO filter, ServerWebExchange exchange) {
+    return listing(userId, SENT, filter, exchange);
+  }
+
+  @GetMapping("/received")
+  public Mono<ResponseEntity<ChargePageResponseDTO>> received(@AuthenticationPrincipal Long userId,
+      ChargeFilterRequestDTO filter, ServerWebExchange exchange) {
+    return listing(userId, RECEIVED, filter, exchange);
+  }
+
+  private Mono<ResponseEntity<ChargePageResponseDTO>> listing(Long userId,
+      ChargeDirectionEnum direction, ChargeFilterRequestDTO filter, ServerWebExchange exchange) {
+    return paymentService.chargesETag(userId, direction, filter)
+        .flatMap(eTag -> exchange.checkNotModified(eTag)
+            ? Mono.just(notModified(eTag))
+            : paymentService.listCharges(userId, direction, filter).map(charges -> listing(charges, eTag)));
+  }
+
+  private ResponseEntity<ChargePageResponseDTO> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(eTag)
+        .cacheControl(LISTING_CACHE_CONTROL)
+        .build();
+  }
+
+  private ResponseEntity<ChargePageResponseDTO> listing(ChargePageResponseDTO charges, String eTag) {
+    if (charges.charges().isEmpty()) {
+      return ResponseEntity.noContent().eTag(eTag).cacheControl(LISTING_CACHE_CONTROL).build();
+    }
+    return ResponseEntity.ok().eTag(eTag).cacheControl(LISTING_CACHE_CONTROL).body(charges);
+  }
+
+  @PostMapping("/{id}/pay/balance")
+  public Mono<ResponseEntity<?>> payByBalance(@AuthenticationPrincipal Long userId,
+      @PathVariable Long id) {
+    return paymentService.payByBalance(userId, id)
+        .<ResponseEntity<?>>map(status -> ResponseEntity.ok(Map.of("status", status)));
+  }
+
+  @PostMapping("/{id}/pay/card")
+  public Mono<ResponseEntity<?>> payByCard(@AuthenticationPrincipal Long userId,
+      @PathVariable Long id, @RequestBody @Valid CardPaymentRequestDTO requestDTO) {
+    return paymentService.payByCard(userId, id)
+        .<ResponseEntity<?>>map(paid -> paid ? ResponseEntity.ok(Map.of("paid", true))
+            : ResponseEntity.status(402).body(Map.of("paid", false)));
+  }
+
+  @PostMapping("/{id}/cancel")
+  public Mono<ResponseEntity<?>> cancel(@AuthenticationPrincipal Long userId,
+      @PathVariable Long id) {
+    return paymentService.cancelCharge(userId, id)
+        .<ResponseEntity<?>>map(status -> ResponseEntity.ok(Map.of("status", status)));
+  }
+
+  @PostMapping("/deposit")
+  public Mono<ResponseEntity<?>> deposit(@AuthenticationPrincipal Long userId,
+      @RequestBody @Valid DepositRequestDTO requestDTO) {
+    return paymentService.deposit(userId, requestDTO.amount())
+        .<ResponseEntity<?>>map(deposited -> deposited ? ResponseEntity.ok(Map.of("deposited", true))
+            : ResponseEntity.status(402).body(Map.of("deposited", false)));
+  }
+}
@@ -0,0 +1,6 @@
+package io.github.lcmdev.desafio.payment.enums;
+
+public enum BalanceStrategyEnum {
+
+    CONDITIONAL_UPDATE, OPTIMISTIC, PESSIMISTIC, LEDGER
+}
@@ -2,5 +2,5 @@ package io.github.lcmdev.desafio.payment.enums;
 
 public enum ChargeStatusEnum {
 
-    PENDING, PAID, CANCELED
+    PENDING, AUTHORIZING, PAID, REFUNDING, CANCELED
 }
@@ -0,0 +1,8 @@
+package io.github.lcmdev.desafio.payment.exception;
+
+public class ArchiveUnavailableException extends RuntimeException {
+
+    public ArchiveUnavailableException() {
+        super("Archived charges in this range are unavailable, try again later");
+    }
+}
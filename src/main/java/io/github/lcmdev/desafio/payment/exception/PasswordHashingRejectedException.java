@@ -0,0 +1,8 @@
+package io.github.lcmdev.desafio.payment.exception;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException() {
+        super("Too many authentication requests, try again later");
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.lcmdev.desafio.payment.exception;
+
+/**
+ * A conflict detected after the request had already moved money, so it must be answered like a completed
+ * request and never run again on retry.
+ */
+public class RequestAppliedException extends IllegalStateException {
+
+    public RequestAppliedException(String message) {
+        super(message);
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -32,4 +33,7 @@ public class Account {
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     @JsonBackReference
     private User user;
+
+    @Version
+    private Long version;
 }
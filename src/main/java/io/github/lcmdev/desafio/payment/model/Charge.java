@@ -21,7 +21,8 @@ import java.time.Instant;
 public class Charge {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_charges")
+    @SequenceGenerator(name = "seq_charges", sequenceName = "seq_charges", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -46,4 +47,7 @@ public class Charge {
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
+
+    @Column(name = "status_updated_at", insertable = false, updatable = false)
+    private Instant statusUpdatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package io.github.lcmdev.desafio.payment.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in process. A virtual thread that blocks
+ * while holding a monitor (a {@code synchronized} section in the JDBC driver, the pool or Hibernate)
+ * pins its carrier thread, which silently caps request concurrency at the number of carriers. Each
+ * pin longer than {@code payment.virtual-threads.pinning-monitor.threshold} is logged and timed
+ * into {@code jvm.threads.virtual.pinned}, tagged with the innermost non-JDK frame.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.virtual-threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    static final String EVENT = "jdk.VirtualThreadPinned";
+    static final String METRIC = "jvm.threads.virtual.pinned";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+            @Value("${payment.virtual-threads.pinning-monitor.threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::record);
+        stream.startAsync();
+    }
+
+    @Override
+    public synchronized void stop() {
+        stream.close();
+        stream = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    private void record(RecordedEvent event) {
+        var frame = culprit(event);
+        Timer.builder(METRIC)
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+    }
+
+    private static String culprit(RecordedEvent event) {
+        var stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        return stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .filter(method -> !method.startsWith("java.") && !method.startsWith("jdk.") && !method.startsWith("sun."))
+                .findFirst()
+                .orElse("unknown");
+    }
+}
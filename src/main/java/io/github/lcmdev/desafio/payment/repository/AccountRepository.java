@@ -0,0 +1,28 @@
+package io.github.lcmdev.desafio.payment.repository;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import java.math.BigDecimal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface AccountRepository extends JpaRepository<Account, Long> {
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :id")
+    int addToBalance(Long id, BigDecimal amount);
+
+    @Modifying
+    @Query("""
+        update Account a set a.balance = a.balance - :amount, a.version = a.version + 1
+        where a.id = :id and a.balance >= :amount
+        """)
+    int subtractFromBalanceIfSufficient(Long id, BigDecimal amount);
+
+    @Modifying
+    @Query("""
+        update Account a set a.balance = :balance, a.version = a.version + 1
+        where a.id = :id and a.version = :version
+        """)
+    int compareAndSetBalance(Long id, Long version, BigDecimal balance);
+}
@@ -1,18 +1,88 @@
 package io.github.lcmdev.desafio.payment.repository;
 
 import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
 import io.github.lcmdev.desafio.payment.model.Charge;
-import io.github.lcmdev.desafio.payment.model.User;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 public interface ChargeRepository extends JpaRepository<Charge, Long> {
 
-    List<Charge> findByOrigin(User origin);
+    @Query("""
+        select c from Charge c
+        join fetch c.origin o join fetch o.account
+        join fetch c.destination d join fetch d.account
+        where c.origin.id = :originId
+          and c.createdAt >= :from and c.createdAt < :to
+          and (c.createdAt < :cursorCreatedAt or (c.createdAt = :cursorCreatedAt and c.id < :cursorId))
+        order by c.createdAt desc, c.id desc
+        """)
+    List<Charge> findSentPage(Long originId, Instant from, Instant to, Instant cursorCreatedAt,
+        Long cursorId, Limit limit);
 
-    List<Charge> findByDestination(User destination);
+    @Query("""
+        select c from Charge c
+        join fetch c.origin o join fetch o.account
+        join fetch c.destination d join fetch d.account
+        where c.origin.id = :originId and c.status = :status
+          and c.createdAt >= :from and c.createdAt < :to
+          and (c.createdAt < :cursorCreatedAt or (c.createdAt = :cursorCreatedAt and c.id < :cursorId))
+        order by c.createdAt desc, c.id desc
+        """)
+    List<Charge> findSentPageByStatus(Long originId, ChargeStatusEnum status, Instant from, Instant to,
+        Instant cursorCreatedAt, Long cursorId, Limit limit);
 
-    List<Charge> findByOriginAndStatus(User origin, ChargeStatusEnum status);
+    @Query("""
+        select c from Charge c
+        join fetch c.origin o join fetch o.account
+        join fetch c.destination d join fetch d.account
+        where c.destination.id = :destinationId
+          and c.createdAt >= :from and c.createdAt < :to
+          and (c.createdAt < :cursorCreatedAt or (c.createdAt = :cursorCreatedAt and c.id < :cursorId))
+        order by c.createdAt desc, c.id desc
+        """)
+    List<Charge> findReceivedPage(Long destinationId, Instant from, Instant to,
+        Instant cursorCreatedAt, Long cursorId, Limit limit);
 
-    List<Charge> findByDestinationAndStatus(User destination, ChargeStatusEnum status);
-}
\ No newline at end of file
+    @Query("""
+        select c from Charge c
+        join fetch c.origin o join fetch o.account
+        join fetch c.destination d join fetch d.account
+        where c.destination.id = :destinationId and c.status = :status
+          and c.createdAt >= :from and c.createdAt < :to
+          and (c.createdAt < :cursorCreatedAt or (c.createdAt = :cursorCreatedAt and c.id < :cursorId))
+        order by c.createdAt desc, c.id desc
+        """)
+    List<Charge> findReceivedPageByStatus(Long destinationId, ChargeStatusEnum status, Instant from,
+        Instant to, Instant cursorCreatedAt, Long cursorId, Limit limit);
+
+    @Query("""
+        select c from Charge c
+        join fetch c.origin o join fetch o.account
+        join fetch c.destination d join fetch d.account
+        where c.id in :ids
+        """)
+    List<Charge> findWithAccountsByIdIn(Collection<Long> ids);
+
+    List<Charge> findByStatusInAndStatusUpdatedAtBefore(Collection<ChargeStatusEnum> statuses, Instant before);
+
+    @Modifying
+    @Query("""
+        update Charge c set c.status = :to, c.statusUpdatedAt = :now
+        where c.id = :id and c.status = :from
+        """)
+    int transition(Long id, ChargeStatusEnum from, ChargeStatusEnum to, Instant now);
+
+    @Modifying
+    @Query("""
+        update Charge c set c.status = :to, c.paymentMethod = :paymentMethod, c.statusUpdatedAt = :now
+        where c.id in :ids and c.status = :from
+        """)
+    int transitionAll(Collection<Long> ids, ChargeStatusEnum from, ChargeStatusEnum to,
+        PaymentMethodEnum paymentMethod, Instant now);
+}
@@ -1,12 +1,66 @@
 package io.github.lcmdev.desafio.payment.repository;
 
 import io.github.lcmdev.desafio.payment.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByCpf(String cpf);
 
     Optional<User> findByEmail(String email);
+
+    record Credentials(Long id, String passwordHash) {}
+
+    @Query("""
+        select new io.github.lcmdev.desafio.payment.repository.UserRepository$Credentials(u.id, u.passwordHash)
+        from User u where u.cpf = :cpf
+        """)
+    Optional<Credentials> findCredentialsByCpf(String cpf);
+
+    @Query("""
+        select new io.github.lcmdev.desafio.payment.repository.UserRepository$Credentials(u.id, u.passwordHash)
+        from User u where u.email = :email
+        """)
+    Optional<Credentials> findCredentialsByEmail(String email);
+
+    record IdByCpf(Long id, String cpf) {}
+
+    @Query("""
+        select new io.github.lcmdev.desafio.payment.repository.UserRepository$IdByCpf(u.id, u.cpf)
+        from User u where u.cpf in :cpfs
+        """)
+    List<IdByCpf> findIdsByCpfIn(Collection<String> cpfs);
+
+    @Query("""
+        select new io.github.lcmdev.desafio.payment.repository.UserRepository$IdByCpf(u.id, u.cpf)
+        from User u where u.cpf = :cpf
+        """)
+    Optional<IdByCpf> findIdByCpf(String cpf);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.passwordHash = :passwordHash where u.id = :id")
+    int updatePasswordHash(Long id, String passwordHash);
+
+    @Query("select u from User u join fetch u.account where u.id in :ids")
+    List<User> findWithAccountsByIdIn(Collection<Long> ids);
+
+    record ListingVersion(Long chargesVersion, BigDecimal balance) {}
+
+    @Query("""
+        select new io.github.lcmdev.desafio.payment.repository.UserRepository$ListingVersion(u.chargesVersion, a.balance)
+        from User u join u.account a where u.id = :id
+        """)
+    Optional<ListingVersion> findListingVersionById(Long id);
+
+    @Modifying
+    @Query("update User u set u.chargesVersion = u.chargesVersion + 1 where u.id in :ids")
+    int incrementChargesVersion(Collection<Long> ids);
 }
\ No newline at end of file
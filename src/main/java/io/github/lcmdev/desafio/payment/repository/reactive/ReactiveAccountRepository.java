@@ -0,0 +1,63 @@
+package io.github.lcmdev.desafio.payment.repository.reactive;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveAccountRepository {
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Returns the given users ordered by their account id, the order in which the servlet strategies touch
+     * accounts, so reactive and servlet transfers between the same accounts cannot deadlock.
+     */
+    public Flux<Long> findUserIdsInAccountOrder(Collection<Long> userIds) {
+        return databaseClient.sql("select user_id from tb_accounts where user_id in (:userIds) order by id")
+                .bind("userIds", userIds)
+                .map(row -> row.get("user_id", Long.class))
+                .all();
+    }
+
+    public Mono<Long> credit(Long userId, BigDecimal amount) {
+        return databaseClient.sql("""
+                update tb_accounts set balance = balance + :amount, version = version + 1
+                where user_id = :userId
+                """)
+                .bind("amount", amount)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> debitIfSufficient(Long userId, BigDecimal amount) {
+        return databaseClient.sql("""
+                update tb_accounts set balance = balance - :amount, version = version + 1
+                where user_id = :userId and balance >= :amount
+                """)
+                .bind("amount", amount)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> debit(Long userId, BigDecimal amount) {
+        return databaseClient.sql("""
+                update tb_accounts set balance = balance - :amount, version = version + 1
+                where user_id = :userId
+                """)
+                .bind("amount", amount)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.lcmdev.desafio.payment.repository.reactive;
+
+import static java.time.ZoneOffset.UTC;
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveChargeRepository {
+    private static final String PAGE_QUERY = """
+            select c.id, c.amount, c.description, c.status, c.payment_method, c.created_at,
+                   o.id o_id, o.name o_name, o.cpf o_cpf, o.email o_email, o.password_hash o_password_hash,
+                   o.created_at o_created_at, oa.id oa_id, oa.balance oa_balance,
+                   d.id d_id, d.name d_name, d.cpf d_cpf, d.email d_email, d.password_hash d_password_hash,
+                   d.created_at d_created_at, da.id da_id, da.balance da_balance
+            from tb_charges c
+            join tb_users o on o.id = c.origin_id join tb_accounts oa on oa.user_id = o.id
+            join tb_users d on d.id = c.destination_id join tb_accounts da on da.user_id = d.id
+            where c.%s = :userId %s
+              and c.created_at >= :from and c.created_at < :to
+              and (c.created_at < :cursorCreatedAt or (c.created_at = :cursorCreatedAt and c.id < :cursorId))
+            order by c.created_at desc, c.id desc
+            limit :limit
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public record ChargeRow(Long id, Long originId, Long destinationId, BigDecimal amount,
+                            ChargeStatusEnum status, PaymentMethodEnum paymentMethod) {
+
+        public ChargeRow withStatus(ChargeStatusEnum status) {
+            return new ChargeRow(id, originId, destinationId, amount, status, paymentMethod);
+        }
+    }
+
+    public Mono<Long> insert(Long originId, Long destinationId, BigDecimal amount, String description) {
+        var spec = databaseClient.sql("""
+                        insert into tb_charges (origin_id, destination_id, amount, description, status)
+                        values (:originId, :destinationId, :amount, :description, 'PENDING')
+                        """)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .bind("originId", originId)
+                .bind("destinationId", destinationId)
+                .bind("amount", amount);
+        spec = description == null ? spec.bindNull("description", String.class) : spec.bind("description", description);
+        return spec.map(row -> row.get("id", Long.class)).one();
+    }
+
+    public Mono<ChargeRow> findById(Long id) {
+        return databaseClient.sql("""
+                        select id, origin_id, destination_id, amount, status, payment_method
+                        from tb_charges where id = :id
+                        """)
+                .bind("id", id)
+                .map(row -> new ChargeRow(
+                        row.get("id", Long.class),
+                        row.get("origin_id", Long.class),
+                        row.get("destination_id", Long.class),
+                        row.get("amount", BigDecimal.class),
+                        ChargeStatusEnum.valueOf(row.get("status", String.class)),
+                        Optional.ofNullable(row.get("payment_method", String.class)).map(PaymentMethodEnum::valueOf).orElse(null)))
+                .one();
+    }
+
+    public Mono<Long> transition(Long id, ChargeStatusEnum from, ChargeStatusEnum to) {
+        return databaseClient.sql("""
+                        update tb_charges set status = :to, status_updated_at = :now
+                        where id = :id and status = :from
+                        """)
+                .bind("to", to.name())
+                .bind("now", OffsetDateTime.now(UTC))
+                .bind("id", id)
+                .bind("from", from.name())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> pay(Long id, ChargeStatusEnum from, PaymentMethodEnum method) {
+        return databaseClient.sql("""
+                        update tb_charges set status = 'PAID', payment_method = :method, status_updated_at = :now
+                        where id = :id and status = :from
+                        """)
+                .bind("method", method.name())
+                .bind("now", OffsetDateTime.now(UTC))
+                .bind("id", id)
+                .bind("from", from.name())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Flux<Charge> findPage(ChargeDirectionEnum direction, Long userId, Optional<ChargeStatusEnum> status,
+                                 Instant from, Instant to, ChargeCursor cursor, int limit) {
+        var column = direction == ChargeDirectionEnum.SENT ? "origin_id" : "destination_id";
+        var spec = databaseClient.sql(PAGE_QUERY.formatted(column, status.isPresent() ? "and c.status = :status" : ""))
+                .bind("userId", userId)
+                .bind("from", from.atOffset(UTC))
+                .bind("to", to.atOffset(UTC))
+                .bind("cursorCreatedAt", cursor.createdAt().atOffset(UTC))
+                .bind("cursorId", cursor.id())
+                .bind("limit", limit);
+        if (status.isPresent()) {
+            spec = spec.bind("status", status.get().name());
+        }
+        return spec.map(row -> Charge.builder()
+                        .id(row.get("id", Long.class))
+                        .origin(userOf(row, "o_", "oa_"))
+                        .destination(userOf(row, "d_", "da_"))
+                        .amount(row.get("amount", BigDecimal.class))
+                        .description(row.get("description", String.class))
+                        .status(ChargeStatusEnum.valueOf(row.get("status", String.class)))
+                        .paymentMethod(Optional.ofNullable(row.get("payment_method", String.class)).map(PaymentMethodEnum::valueOf).orElse(null))
+                        .createdAt(row.get("created_at", OffsetDateTime.class).toInstant())
+                        .build())
+                .all();
+    }
+
+    private static User userOf(Readable row, String user, String account) {
+        var result = User.builder()
+                .id(row.get(user + "id", Long.class))
+                .name(row.get(user + "name", String.class))
+                .cpf(row.get(user + "cpf", String.class))
+                .email(row.get(user + "email", String.class))
+                .passwordHash(row.get(user + "password_hash", String.class))
+                .createdAt(row.get(user + "created_at", LocalDateTime.class))
+                .build();
+        var userAccount = new Account();
+        userAccount.setId(row.get(account + "id", Long.class));
+        userAccount.setBalance(row.get(account + "balance", BigDecimal.class));
+        result.setAccount(userAccount);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.lcmdev.desafio.payment.repository.reactive;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies the {@code tb_charge_summaries} deltas of reactive state changes the way {@code ChargeSummaryService}
+ * does for the servlet ones: rows are touched in key order, and an update that finds no row because a rebuild
+ * replaced it is retried.
+ */
+@Repository
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveChargeSummaryRepository {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Comparator<Delta> KEY_ORDER = Comparator.comparing(Delta::userId)
+            .thenComparing(Delta::direction)
+            .thenComparing(Delta::status);
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Void> moved(Long originId, Long destinationId, BigDecimal amount, ChargeStatusEnum from,
+                            ChargeStatusEnum to) {
+        var deltas = new ArrayList<Delta>(4);
+        deltas.add(new Delta(originId, SENT, to, 1, amount));
+        deltas.add(new Delta(destinationId, RECEIVED, to, 1, amount));
+        if (from != null) {
+            deltas.add(new Delta(originId, SENT, from, -1, amount.negate()));
+            deltas.add(new Delta(destinationId, RECEIVED, from, -1, amount.negate()));
+        }
+        deltas.sort(KEY_ORDER);
+        return Flux.fromIterable(deltas).concatMap(delta -> apply(delta, 1)).then();
+    }
+
+    private Mono<Void> apply(Delta delta, int attempt) {
+        if (attempt > MAX_ATTEMPTS) {
+            return Mono.error(new IllegalStateException("Charge summary could not be updated"));
+        }
+        return databaseClient.sql("""
+                        insert into tb_charge_summaries (user_id, direction, status) values (:userId, :direction, :status)
+                        on conflict do nothing
+                        """)
+                .bind("userId", delta.userId())
+                .bind("direction", delta.direction().name())
+                .bind("status", delta.status().name())
+                .fetch()
+                .rowsUpdated()
+                .then(databaseClient.sql("""
+                                update tb_charge_summaries
+                                set charge_count = charge_count + :count, total_amount = total_amount + :amount
+                                where user_id = :userId and direction = :direction and status = :status
+                                """)
+                        .bind("count", delta.count())
+                        .bind("amount", delta.amount())
+                        .bind("userId", delta.userId())
+                        .bind("direction", delta.direction().name())
+                        .bind("status", delta.status().name())
+                        .fetch()
+                        .rowsUpdated())
+                .flatMap(rows -> rows == 0 ? apply(delta, attempt + 1) : Mono.empty());
+    }
+
+    private record Delta(Long userId, ChargeDirectionEnum direction, ChargeStatusEnum status, long count,
+                         BigDecimal amount) {
+    }
+}
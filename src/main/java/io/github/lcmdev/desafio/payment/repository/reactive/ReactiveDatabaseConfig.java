@@ -0,0 +1,52 @@
+package io.github.lcmdev.desafio.payment.repository.reactive;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * The R2DBC pool is deliberately not a bean: a {@code ConnectionFactory} or a second transaction
+ * manager in the context makes Boot back off the JDBC {@code DataSource} and JPA, which Flyway and
+ * the auth endpoints still need.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = REACTIVE)
+public class ReactiveDatabaseConfig implements DisposableBean {
+    private final ConnectionPool connectionPool;
+
+    public ReactiveDatabaseConfig(@Value("${spring.r2dbc.url}") String url,
+                                  @Value("${spring.r2dbc.username}") String username,
+                                  @Value("${spring.r2dbc.password}") String password,
+                                  @Value("${spring.r2dbc.pool.max-size:10}") int maxSize) {
+        var connectionFactory = ConnectionFactoryBuilder.withUrl(url).username(username).password(password).build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(Math.min(maxSize, 10))
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.lcmdev.desafio.payment.repository.reactive;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.repository.UserRepository.ListingVersion;
+import java.math.BigDecimal;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select 1 from tb_users where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Long> findIdByCpf(String cpf) {
+        return databaseClient.sql("select id from tb_users where cpf = :cpf")
+                .bind("cpf", cpf)
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<ListingVersion> findListingVersionById(Long id) {
+        return databaseClient.sql("""
+                        select u.charges_version, a.balance from tb_users u join tb_accounts a on a.user_id = u.id
+                        where u.id = :id
+                        """)
+                .bind("id", id)
+                .map(row -> new ListingVersion(row.get("charges_version", Long.class), row.get("balance", BigDecimal.class)))
+                .one();
+    }
+
+    public Mono<Long> incrementChargesVersion(Collection<Long> ids) {
+        return databaseClient.sql("update tb_users set charges_version = charges_version + 1 where id in (:ids)")
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -1,9 +1,13 @@
 package io.github.lcmdev.desafio.payment.security;
 
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+
+import io.github.lcmdev.desafio.payment.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -12,25 +16,29 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
+@ConditionalOnWebApplication(type = SERVLET)
 public class JwtAuthFilter extends OncePerRequestFilter {
 
   private final JwtUtil jwtUtil;
+  private final TokenRevocationService tokenRevocationService;
 
-  public JwtAuthFilter(JwtUtil jwtUtil) {
+  public JwtAuthFilter(JwtUtil jwtUtil, TokenRevocationService tokenRevocationService) {
     this.jwtUtil = jwtUtil;
+    this.tokenRevocationService = tokenRevocationService;
   }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
       FilterChain filterChain) throws ServletException, IOException {
-    String header = request.getHeader("Authorization");
-    if (header != null && header.startsWith("Bearer ")) {
-      String token = header.substring(7);
+    var token = JwtUtil.bearerToken(request.getHeader("Authorization"));
+    if (token.isPresent()) {
       try {
-        Long userId = jwtUtil.validateAndGetUserId(token);
-        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userId,
-            null, null);
-        SecurityContextHolder.getContext().setAuthentication(auth);
+        var verified = jwtUtil.verify(token.get());
+        if (!tokenRevocationService.isRevoked(verified.jti())) {
+          UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+              verified.userId(), null, null);
+          SecurityContextHolder.getContext().setAuthentication(auth);
+        }
       } catch (Exception ex) {
         SecurityContextHolder.clearContext();
       }
@@ -1,29 +1,63 @@
 package io.github.lcmdev.desafio.payment.security;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * Verified tokens are cached by their SHA-256 hash until their {@code exp}, so repeated requests with
+ * the same bearer token skip the HMAC check and JSON parsing. Invalid tokens are never cached, and a
+ * cached token can still be revoked: callers check {@code TokenRevocationService} on every request.
+ */
 @Component
 public class JwtUtil {
 
+  public static final String CACHE_NAME = "jwt.verified-tokens";
+  private static final String BEARER_PREFIX = "Bearer ";
+
   private final Key key;
   private final long expirationMs;
+  private final JwtParser parser;
+  private final Cache<String, VerifiedToken> verifiedTokens;
 
   public JwtUtil(
       @Value("${app.jwt.secret:change-this-secret-to-a-long-random-value}") String secret,
-      @Value("${app.jwt.expiration-ms:86400000}") long expirationMs) {
+      @Value("${app.jwt.expiration-ms:86400000}") long expirationMs,
+      @Value("${app.jwt.cache.maximum-size:10000}") long cacheMaximumSize,
+      MeterRegistry meterRegistry) {
     byte[] bytes = secret.getBytes();
     this.key = Keys.hmacShaKeyFor(bytes);
     this.expirationMs = expirationMs;
+    this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    this.verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaximumSize)
+        .expireAfter(Expiry.creating((String hash, VerifiedToken token) -> token.timeToLive()))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, CACHE_NAME);
   }
 
   public String generateToken(Long userId) {
     return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
         .setSubject(String.valueOf(userId))
         .setIssuedAt(new Date())
         .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
@@ -32,8 +66,40 @@ public class JwtUtil {
   }
 
   public Long validateAndGetUserId(String token) {
-    Jws<Claims> claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-    return Long.parseLong(claims.getBody().getSubject());
+    return verify(token).userId();
+  }
+
+  public VerifiedToken verify(String token) {
+    return verifiedTokens.get(hash(token), hash -> parse(token));
+  }
+
+  public static Optional<String> bearerToken(String authorizationHeader) {
+    return Optional.ofNullable(authorizationHeader)
+        .filter(header -> header.startsWith(BEARER_PREFIX))
+        .map(header -> header.substring(BEARER_PREFIX.length()));
   }
-}
 
+  private VerifiedToken parse(String token) {
+    Claims claims = parser.parseClaimsJws(token).getBody();
+    var expiresAt = Optional.ofNullable(claims.getExpiration())
+        .map(Date::toInstant)
+        .orElseGet(() -> Instant.now().plusMillis(expirationMs));
+    return new VerifiedToken(Long.parseLong(claims.getSubject()), claims.getId(), expiresAt);
+  }
+
+  private static String hash(String token) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  public record VerifiedToken(Long userId, String jti, Instant expiresAt) {
+
+    Duration timeToLive() {
+      var remaining = Duration.between(Instant.now(), expiresAt);
+      return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts failed logins per identifier in a fixed table of lock-free stripes, so repeated failures are
+ * rejected before any BCrypt work. Once {@code max-failures} is reached the identifier stays blocked
+ * until {@code window} has passed since its first failure. Each stripe holds a small bucket of
+ * identifiers; when it is full, the identifier with the fewest failures (the most recent one on ties)
+ * makes room, so flooding a stripe with one-off failures cannot push out a counter close to the
+ * limit. The stripe is picked by a per-instance seeded hash, so colliding identifiers cannot be
+ * crafted to target someone else's counter.
+ */
+@Component
+public class LoginFailureCounter {
+
+  private static final int WAYS = 4;
+
+  private record Entry(String login, int failures, long windowStart) {
+  }
+
+  private final AtomicReferenceArray<Entry[]> stripes;
+  private final int mask;
+  private final int maxFailures;
+  private final long windowNanos;
+  private final long seed = new SecureRandom().nextLong();
+  private final LongSupplier nanoClock;
+
+  @Autowired
+  public LoginFailureCounter(
+      @Value("${app.login.max-failures:5}") int maxFailures,
+      @Value("${app.login.failure-window:PT15M}") Duration window,
+      @Value("${app.login.stripes:65536}") int stripes) {
+    this(maxFailures, window, stripes, System::nanoTime);
+  }
+
+  LoginFailureCounter(int maxFailures, Duration window, int stripes, LongSupplier nanoClock) {
+    if (maxFailures <= 0 || stripes <= 0) {
+      throw new IllegalArgumentException("Invalid login failure limits");
+    }
+    var size = Integer.highestOneBit(stripes - 1) << 1;
+    this.stripes = new AtomicReferenceArray<>(Math.max(1, size));
+    this.mask = this.stripes.length() - 1;
+    this.maxFailures = maxFailures;
+    this.windowNanos = window.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  public boolean isBlocked(String login) {
+    var bucket = stripes.get(index(login));
+    if (bucket == null) {
+      return false;
+    }
+    var now = nanoClock.getAsLong();
+    for (var entry : bucket) {
+      if (entry.login().equals(login)) {
+        return entry.failures() >= maxFailures && live(entry, now);
+      }
+    }
+    return false;
+  }
+
+  public void recordFailure(String login) {
+    var index = index(login);
+    while (true) {
+      var current = stripes.get(index);
+      if (stripes.compareAndSet(index, current, withFailure(current, login, nanoClock.getAsLong()))) {
+        return;
+      }
+    }
+  }
+
+  public void reset(String login) {
+    var index = index(login);
+    while (true) {
+      var current = stripes.get(index);
+      if (current == null || Arrays.stream(current).noneMatch(entry -> entry.login().equals(login))) {
+        return;
+      }
+      var next = Arrays.stream(current).filter(entry -> !entry.login().equals(login)).toArray(Entry[]::new);
+      if (stripes.compareAndSet(index, current, next.length == 0 ? null : next)) {
+        return;
+      }
+    }
+  }
+
+  private Entry[] withFailure(Entry[] bucket, String login, long now) {
+    var live = new ArrayList<Entry>(WAYS);
+    if (bucket != null) {
+      for (var entry : bucket) {
+        if (live(entry, now)) {
+          live.add(entry);
+        }
+      }
+    }
+    for (int i = 0; i < live.size(); i++) {
+      var entry = live.get(i);
+      if (entry.login().equals(login)) {
+        live.set(i, new Entry(login, entry.failures() + 1, entry.windowStart()));
+        return live.toArray(Entry[]::new);
+      }
+    }
+    if (live.size() == WAYS) {
+      live.remove(live.stream()
+          .min(Comparator.comparingInt(Entry::failures).thenComparing(Entry::windowStart, Comparator.reverseOrder()))
+          .orElseThrow());
+    }
+    live.add(new Entry(login, 1, now));
+    return live.toArray(Entry[]::new);
+  }
+
+  private boolean live(Entry entry, long now) {
+    return now - entry.windowStart() < windowNanos;
+  }
+  private int index(String login) {
+    var hash = seed;
+    for (int i = 0; i < login.length(); i++) {
+      hash = (hash ^ login.charAt(i)) * 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return (int) hash & mask;
+  }
+}
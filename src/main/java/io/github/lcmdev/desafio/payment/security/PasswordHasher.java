@@ -0,0 +1,102 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import io.github.lcmdev.desafio.payment.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs BCrypt on its own fixed pool with a bounded queue, so a burst of logins cannot take every core
+ * from request threads. When the queue is full the call fails at once with
+ * {@link PasswordHashingRejectedException} (503) instead of waiting. With {@code threads <= 0} the pool
+ * gets half of the available processors.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+
+  static final String EXECUTOR_NAME = "password.hasher";
+  static final String REJECTED_METRIC = "password.hasher.rejected";
+
+  private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+  private final BCryptPasswordEncoder passwordEncoder;
+  private final int strength;
+  private final ThreadPoolExecutor executor;
+  private final Counter rejected;
+
+  public PasswordHasher(
+      BCryptPasswordEncoder passwordEncoder,
+      @Value("${app.password.bcrypt.strength:10}") int strength,
+      @Value("${app.password.hashing.threads:0}") int threads,
+      @Value("${app.password.hashing.queue-capacity:32}") int queueCapacity,
+      MeterRegistry meterRegistry) {
+    var poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    this.passwordEncoder = passwordEncoder;
+    this.strength = strength;
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("password-hasher-", 0).daemon().factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+    this.rejected = Counter.builder(REJECTED_METRIC).register(meterRegistry);
+  }
+
+  public String encode(String rawPassword) {
+    return submit(() -> passwordEncoder.encode(rawPassword));
+  }
+
+  public boolean matches(String rawPassword, String passwordHash) {
+    return submit(() -> passwordEncoder.matches(rawPassword, passwordHash));
+  }
+
+  /**
+   * True when the hash is BCrypt with a cost other than {@code app.password.bcrypt.strength}, raised or lowered.
+   */
+  public boolean needsRehash(String passwordHash) {
+    if (passwordHash == null) {
+      return false;
+    }
+    var cost = BCRYPT_COST.matcher(passwordHash);
+    return cost.find() && Integer.parseInt(cost.group(1)) != strength;
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private <T> T submit(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException ex) {
+      rejected.increment();
+      throw new PasswordHashingRejectedException();
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingRejectedException();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+import io.github.lcmdev.desafio.payment.service.TokenRevocationService;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLogEndpoint;
+import java.util.List;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain reactiveFilterChain(ServerHttpSecurity http, JwtUtil jwtUtil,
+                                                      TokenRevocationService tokenRevocationService) {
+        var jwtFilter = new AuthenticationWebFilter((ReactiveAuthenticationManager) Mono::just);
+        jwtFilter.setServerAuthenticationConverter(exchange -> Mono.justOrEmpty(JwtUtil.bearerToken(exchange.getRequest().getHeaders().getFirst(AUTHORIZATION)))
+                .flatMap(token -> Mono.fromCallable(() -> jwtUtil.verify(token))
+                        .onErrorResume(ex -> Mono.empty()))
+                .filterWhen(verified -> tokenRevocationService.mightBeRevoked(verified.jti())
+                        ? Mono.fromCallable(() -> !tokenRevocationService.isRevoked(verified.jti())).subscribeOn(Schedulers.boundedElastic())
+                        : Mono.just(true))
+                .map(verified -> UsernamePasswordAuthenticationToken.authenticated(verified.userId(), null, List.of())));
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/api/v1/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // The reactive stack does not write to the change log; its records are for the servlet profile.
+                        .matchers(EndpointRequest.to(ChangeLogEndpoint.class)).denyAll()
+                        // Service credentials for the metrics endpoint are only wired in the servlet profile.
+                        .matchers(EndpointRequest.to(MetricsEndpoint.class)).denyAll()
+                        .anyExchange().authenticated()
+                )
+                .exceptionHandling(handling -> handling.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -1,32 +1,90 @@
 package io.github.lcmdev.desafio.payment.security;
 
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.SERVLET;
+
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLogEndpoint;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 public class SecurityConfig {
+    public static final String CHANGELOG_READER = "CHANGELOG_READER";
+    public static final String METRICS_READER = "METRICS_READER";
 
-    private final JwtAuthFilter jwtAuthFilter;
+    @Bean
+    public BCryptPasswordEncoder passwordEncoder(@Value("${app.password.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
-        this.jwtAuthFilter = jwtAuthFilter;
+    /**
+     * {@code /actuator/changelog} exposes every user's balance deltas, so end-user JWTs are not enough: it takes HTTP
+     * Basic credentials of the {@code CHANGELOG_READER} service user, whose BCrypt hash is set in
+     * {@code app.change-log.consumer.password-hash}. Without a hash the endpoint rejects every request.
+     */
+    @Bean
+    @Order(1)
+    @ConditionalOnWebApplication(type = SERVLET)
+    @ConditionalOnProperty(name = "app.change-log.enabled", havingValue = "true")
+    public SecurityFilterChain changeLogFilterChain(HttpSecurity http,
+            @Value("${app.change-log.consumer.username:changelog}") String username,
+            @Value("${app.change-log.consumer.password-hash:}") String passwordHash) throws Exception {
+        return serviceUserFilterChain(http.securityMatcher(EndpointRequest.to(ChangeLogEndpoint.class)), username,
+                passwordHash, CHANGELOG_READER);
     }
 
+    /**
+     * {@code /actuator/metrics} shows traffic, latency and errors of the whole service, so it takes HTTP Basic
+     * credentials of the {@code METRICS_READER} service user, whose BCrypt hash is set in
+     * {@code app.metrics.consumer.password-hash}, the same way as the change log.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Order(2)
+    @ConditionalOnWebApplication(type = SERVLET)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http,
+            @Value("${app.metrics.consumer.username:metrics}") String username,
+            @Value("${app.metrics.consumer.password-hash:}") String passwordHash) throws Exception {
+        return serviceUserFilterChain(http.securityMatcher(EndpointRequest.to(MetricsEndpoint.class)), username,
+                passwordHash, METRICS_READER);
+    }
+
+    private static SecurityFilterChain serviceUserFilterChain(HttpSecurity http, String username, String passwordHash,
+            String role) throws Exception {
+        var consumers = new InMemoryUserDetailsManager();
+        if (!passwordHash.isBlank()) {
+            consumers.createUser(User.withUsername(username).password(passwordHash).roles(role).build());
+        }
+        return http.csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .userDetailsService(consumers)
+                .httpBasic(Customizer.withDefaults())
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasRole(role))
+                .build();
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    @ConditionalOnWebApplication(type = SERVLET)
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
         http.csrf().disable()
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Streaming responses finish on an async dispatch of a request already authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .anyRequest().authenticated()
                 );
@@ -1,48 +1,121 @@
 package io.github.lcmdev.desafio.payment.service;
 
 import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.exception.PasswordHashingRejectedException;
 import io.github.lcmdev.desafio.payment.model.Account;
 import io.github.lcmdev.desafio.payment.model.User;
 import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.Credentials;
 import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import io.github.lcmdev.desafio.payment.security.JwtUtil.VerifiedToken;
+import io.github.lcmdev.desafio.payment.security.LoginFailureCounter;
+import io.github.lcmdev.desafio.payment.security.PasswordHasher;
+import io.github.lcmdev.desafio.payment.util.Identifiers;
+import io.jsonwebtoken.JwtException;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
   private final UserRepository userRepository;
-  private final BCryptPasswordEncoder passwordEncoder;
+  private final PasswordHasher passwordHasher;
+  private final LoginFailureCounter loginFailures;
   private final JwtUtil jwtUtil;
+  private final TokenRevocationService tokenRevocationService;
+  private final UserIdCache userIdCache;
 
   public User register(RegisterRequestDTO requestDTO) {
-    if (userRepository.findByCpf(requestDTO.cpf()).isPresent()) {
-      throw new IllegalArgumentException("CPF already registered");
-    }
-    if (userRepository.findByEmail(requestDTO.email()).isPresent()) {
-      throw new IllegalArgumentException("Email already registered");
-    }
-
     var user = completeUserRegistration(requestDTO);
 
-    return userRepository.save(user);
+    try {
+      return userRepository.save(user);
+    } catch (DataIntegrityViolationException ex) {
+      throw duplicateOf(ex);
+    } finally {
+      userIdCache.evict(user.getCpf());
+    }
   }
 
   public String login(String login, String password) {
-    var user = userRepository.findByCpf(login)
-        .or(() -> userRepository.findByEmail(login));
-
-    if (user.isEmpty()) {
+    var identifier = Identifiers.login(login);
+    if (identifier == null || identifier.isEmpty() || loginFailures.isBlocked(identifier)) {
       throw new IllegalArgumentException("Invalid credentials");
     }
 
-    if (!passwordEncoder.matches(password, user.get().getPasswordHash())) {
+    var credentials = Identifiers.isEmail(login)
+        ? userRepository.findCredentialsByEmail(identifier)
+        : userRepository.findCredentialsByCpf(identifier);
+
+    if (credentials.isEmpty()) {
       throw new IllegalArgumentException("Invalid credentials");
     }
+    if (!passwordHasher.matches(password, credentials.get().passwordHash())) {
+      loginFailures.recordFailure(identifier);
+      throw new IllegalArgumentException("Invalid credentials");
+    }
+
+    loginFailures.reset(identifier);
+    rehashIfNeeded(credentials.get(), password);
+    return jwtUtil.generateToken(credentials.get().id());
+  }
+
+  public void logout(String token) {
+    tokenRevocationService.revoke(verify(token));
+  }
+
+  public void revoke(String callerToken, String token) {
+    var caller = verify(callerToken);
+    var revoked = verify(token);
+    if (!caller.userId().equals(revoked.userId())) {
+      throw new IllegalArgumentException("Invalid token");
+    }
+    tokenRevocationService.revoke(revoked);
+  }
+
+  private VerifiedToken verify(String token) {
+    VerifiedToken verified;
+    try {
+      verified = jwtUtil.verify(token);
+    } catch (JwtException | IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Invalid token");
+    }
+    if (tokenRevocationService.isRevoked(verified.jti())) {
+      throw new IllegalArgumentException("Invalid token");
+    }
+    return verified;
+  }
+
+  private void rehashIfNeeded(Credentials credentials, String password) {
+    if (!passwordHasher.needsRehash(credentials.passwordHash())) {
+      return;
+    }
+    try {
+      userRepository.updatePasswordHash(credentials.id(), passwordHasher.encode(password));
+    } catch (PasswordHashingRejectedException ex) {
+      log.debug("Rehash of user {} postponed, password hasher is saturated", credentials.id());
+    }
+  }
 
-    return jwtUtil.generateToken(user.get().getId());
+  private static RuntimeException duplicateOf(DataIntegrityViolationException ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+        var constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+        if (constraint.contains("index_cpf")) {
+          return new IllegalArgumentException("CPF already registered");
+        }
+        if (constraint.contains("index_email")) {
+          return new IllegalArgumentException("Email already registered");
+        }
+      }
+    }
+    return ex;
   }
 
   private User completeUserRegistration(RegisterRequestDTO dto) {
@@ -50,9 +123,9 @@ public class AuthService {
     var account = new Account();
 
     user.setName(dto.name());
-    user.setCpf(dto.cpf());
-    user.setEmail(dto.email());
-    user.setPasswordHash(passwordEncoder.encode(dto.password()));
+    user.setCpf(Identifiers.cpf(dto.cpf()));
+    user.setEmail(Identifiers.email(dto.email()));
+    user.setPasswordHash(passwordHasher.encode(dto.password()));
 
     account.setUser(user);
     user.setAccount(account);
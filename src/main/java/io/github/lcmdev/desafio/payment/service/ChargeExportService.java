@@ -0,0 +1,242 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeExportRequestDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.ExportFormatEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.util.ChargeRowMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes a user's full charge history, newest first, as CSV or NDJSON. Rows come from a forward-only cursor fetched
+ * {@code app.charge-export.fetch-size} at a time inside a read-only transaction (the PostgreSQL driver only streams
+ * with auto-commit off) and are written as they arrive, merged with the archived charges read a page at a time, so
+ * memory does not grow with the size of the export. The transaction, and its connection, last as long as the client
+ * takes to read the response.
+ */
+@Service
+public class ChargeExportService {
+    private static final int ARCHIVE_PAGE_SIZE = 1000;
+    private static final Comparator<Charge> NEWEST_FIRST = Comparator.comparing(Charge::getCreatedAt)
+            .thenComparing(Charge::getId)
+            .reversed();
+    private static final String SELECT_CHARGES = """
+            select %s from tb_charges
+            where %s = ? and created_at >= ? and created_at < ?%s
+            order by created_at desc, id desc
+            """;
+    private static final String CSV_HEADER =
+            "id,origin_id,destination_id,amount,description,status,payment_method,created_at,status_updated_at\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChargeArchive chargeArchive;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ChargeExportService(JdbcTemplate jdbcTemplate, ChargeArchive chargeArchive, ObjectMapper objectMapper,
+            @Value("${app.charge-export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chargeArchive = chargeArchive;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Writes the charges selected by {@code request} to {@code out}, which is flushed but not closed. */
+    @Transactional(readOnly = true)
+    public long export(Long userId, ChargeExportRequestDTO request, OutputStream out) throws IOException {
+        var direction = request.chargeDirection();
+        var status = request.chargeStatus().orElse(null);
+        var sql = SELECT_CHARGES.formatted(ChargeRowMapper.COLUMNS,
+                direction == ChargeDirectionEnum.SENT ? "origin_id" : "destination_id",
+                status == null ? "" : " and status = ?");
+        var archived = new ArchivedCharges(direction, userId, status, request.fromOrDefault(), request.toOrDefault());
+        var writer = request.exportFormat() == ExportFormatEnum.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        var exported = new long[1];
+
+        try {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, userId);
+                statement.setTimestamp(2, Timestamp.from(request.fromOrDefault()));
+                statement.setTimestamp(3, Timestamp.from(request.toOrDefault()));
+                if (status != null) {
+                    statement.setString(4, status.name());
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                var charge = ChargeRowMapper.INSTANCE.mapRow(rs, 0);
+                try {
+                    while (archived.hasNext() && NEWEST_FIRST.compare(archived.peek(), charge) < 0) {
+                        writer.write(archived.next());
+                        exported[0]++;
+                    }
+                    writer.write(charge);
+                    exported[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        while (archived.hasNext()) {
+            writer.write(archived.next());
+            exported[0]++;
+        }
+        writer.finish();
+        return exported[0];
+    }
+
+    private interface RowWriter {
+
+        void write(Charge charge) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8), 1 << 16);
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(Charge charge) throws IOException {
+            writer.append(String.valueOf(charge.getId())).append(',')
+                    .append(String.valueOf(charge.getOrigin().getId())).append(',')
+                    .append(String.valueOf(charge.getDestination().getId())).append(',')
+                    .append(charge.getAmount().toPlainString()).append(',')
+                    .append(escape(charge.getDescription())).append(',')
+                    .append(charge.getStatus().name()).append(',')
+                    .append(charge.getPaymentMethod() == null ? "" : charge.getPaymentMethod().name()).append(',')
+                    .append(charge.getCreatedAt().toString()).append(',')
+                    .append(charge.getStatusUpdatedAt().toString()).append('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Quotes values per RFC 4180. Descriptions are written by the other party of the charge, so anything a
+         * spreadsheet would evaluate as a formula is prefixed with {@code '} to keep it inert.
+         */
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+                return "\"'" + value.replace("\"", "\"\"") + '"';
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Charge charge) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", charge.getId());
+            generator.writeNumberField("originId", charge.getOrigin().getId());
+            generator.writeNumberField("destinationId", charge.getDestination().getId());
+            generator.writeNumberField("amount", charge.getAmount());
+            generator.writeStringField("description", charge.getDescription());
+            generator.writeStringField("status", charge.getStatus().name());
+            generator.writeStringField("paymentMethod",
+                    charge.getPaymentMethod() == null ? null : charge.getPaymentMethod().name());
+            generator.writeStringField("createdAt", charge.getCreatedAt().toString());
+            generator.writeStringField("statusUpdatedAt", charge.getStatusUpdatedAt().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /** Archived charges of the export, read {@value #ARCHIVE_PAGE_SIZE} at a time. */
+    private final class ArchivedCharges {
+        private final ChargeDirectionEnum direction;
+        private final Long userId;
+        private final ChargeStatusEnum status;
+        private final Instant from;
+        private final Instant to;
+        private Iterator<Charge> page = List.<Charge>of().iterator();
+        private Charge next;
+        private Charge last;
+        private boolean exhausted;
+
+        ArchivedCharges(ChargeDirectionEnum direction, Long userId, ChargeStatusEnum status, Instant from, Instant to) {
+            this.direction = direction;
+            this.userId = userId;
+            this.status = status;
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean hasNext() {
+            return peek() != null;
+        }
+
+        Charge peek() {
+            if (next == null && !page.hasNext() && !exhausted) {
+                var rows = chargeArchive.findRows(direction, userId, status, from, to,
+                        last == null ? to : last.getCreatedAt(), last == null ? Long.MAX_VALUE : last.getId(),
+                        ARCHIVE_PAGE_SIZE);
+                exhausted = rows.size() < ARCHIVE_PAGE_SIZE;
+                page = rows.iterator();
+            }
+            if (next == null && page.hasNext()) {
+                next = page.next();
+            }
+            return next;
+        }
+
+        Charge next() {
+            var charge = peek();
+            next = null;
+            last = charge;
+            return charge;
+        }
+    }
+}
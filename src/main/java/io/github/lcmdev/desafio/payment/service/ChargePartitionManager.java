@@ -0,0 +1,157 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the monthly range partitions of {@code tb_charges} ahead of time: the partitions for the current month and
+ * the next {@code app.charge-partitions.premake-months} are created if missing, so inserts never run out of ranges.
+ * When {@code app.charge-partitions.retention-months} is positive, partitions entirely older than that are detached
+ * and left as standalone tables to be dropped, but only once they hold no rows: every row still in {@code tb_charges}
+ * is either not final or not yet moved by the {@code ChargeArchiver}, and is still served by the API and counted in
+ * {@code tb_charge_summaries}. {@code tb_charges_legacy}, which holds everything before the first monthly partition,
+ * follows the same rule once that first month is past retention. Partitions are identified by their
+ * {@code tb_charges_pYYYYMM} names, and DDL gives up after {@code lock-timeout} instead of queueing queries behind it.
+ * Does nothing on databases other than PostgreSQL, or until {@code tb_charges} is partitioned (migration V13).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.charge-partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class ChargePartitionManager {
+    static final String LEGACY_PARTITION = "tb_charges_legacy";
+    private static final String PARTITION_PREFIX = "tb_charges_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String TRY_LOCK = "select pg_try_advisory_xact_lock(?)";
+    private static final long PARTITIONS_LOCK_KEY = 0x50415254495449L;
+    private static final String IS_PARTITIONED = """
+            select count(*) from pg_partitioned_table p join pg_class c on c.oid = p.partrelid
+            where c.relname = 'tb_charges' and c.relnamespace = current_schema()::regnamespace
+            """;
+    private static final String SELECT_PARTITIONS = """
+            select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = 'tb_charges'::regclass
+            """;
+    private static final String SET_LOCK_TIMEOUT = "select set_config('lock_timeout', ?, true)";
+    private static final String CREATE_PARTITION =
+            "create table if not exists %s partition of tb_charges for values from ('%s') to ('%s')";
+    private static final String DETACH_PARTITION = "alter table tb_charges detach partition %s";
+    private static final String HAS_ROWS = "select exists (select 1 from %s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final long lockTimeoutMillis;
+    private final BooleanSupplier postgres;
+    private volatile Boolean supported;
+
+    @Autowired
+    public ChargePartitionManager(JdbcTemplate jdbcTemplate,
+            @Value("${app.charge-partitions.premake-months:3}") int premakeMonths,
+            @Value("${app.charge-partitions.retention-months:0}") int retentionMonths,
+            @Value("${app.charge-partitions.lock-timeout:5s}") Duration lockTimeout) {
+        this(jdbcTemplate, premakeMonths, retentionMonths, lockTimeout, () -> isPostgres(jdbcTemplate));
+    }
+
+    ChargePartitionManager(JdbcTemplate jdbcTemplate, int premakeMonths, int retentionMonths, Duration lockTimeout,
+            BooleanSupplier postgres) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.lockTimeoutMillis = lockTimeout.toMillis();
+        this.postgres = postgres;
+    }
+
+    @Scheduled(fixedDelayString = "${app.charge-partitions.maintenance-interval:PT1H}")
+    @Transactional
+    public int maintain() {
+        return maintain(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    int maintain(YearMonth current) {
+        if (supported == null) {
+            supported = postgres.getAsBoolean();
+        }
+        if (!supported || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class, PARTITIONS_LOCK_KEY))
+                || jdbcTemplate.queryForObject(IS_PARTITIONED, Long.class) == 0) {
+            return 0;
+        }
+        jdbcTemplate.queryForList(SET_LOCK_TIMEOUT, lockTimeoutMillis + "ms");
+
+        var partitions = jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+        var months = new TreeSet<YearMonth>();
+        for (var partition : partitions) {
+            if (partition.startsWith(PARTITION_PREFIX)) {
+                months.add(YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX));
+            }
+        }
+
+        var created = new ArrayList<String>();
+        for (var month = current; !month.isAfter(current.plusMonths(premakeMonths)); month = month.plusMonths(1)) {
+            if (!months.contains(month) && (months.isEmpty() || month.isAfter(months.first()))) {
+                var name = nameOf(month);
+                jdbcTemplate.execute(CREATE_PARTITION.formatted(name, startOf(month), startOf(month.plusMonths(1))));
+                created.add(name);
+            }
+        }
+
+        var detached = new ArrayList<String>();
+        if (retentionMonths > 0 && !months.isEmpty()) {
+            var oldest = current.minusMonths(retentionMonths);
+            var expired = new ArrayList<String>();
+            if (partitions.contains(LEGACY_PARTITION) && !months.first().isAfter(oldest)) {
+                expired.add(LEGACY_PARTITION);
+            }
+            for (var month : months.headSet(oldest)) {
+                expired.add(nameOf(month));
+            }
+            for (var name : expired) {
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_ROWS.formatted(name), Boolean.class))) {
+                    log.info("Charge partition {} is past retention but still holds unarchived charges", name);
+                    continue;
+                }
+                jdbcTemplate.execute(DETACH_PARTITION.formatted(name));
+                detached.add(name);
+            }
+        }
+
+        if (!created.isEmpty() || !detached.isEmpty()) {
+            log.info("Charge partitions created: {}, detached: {}", created, detached);
+        }
+        return created.size() + detached.size();
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        try {
+            var product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException ex) {
+            log.warn("Could not detect the database, charge partitions will not be maintained", ex);
+            return false;
+        }
+    }
+
+    static String nameOf(YearMonth month) {
+        return PARTITION_PREFIX + SUFFIX.format(month);
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargeSummaryResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.StatusSummaryDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Keeps {@code tb_charge_summaries}, the count and total of charges per user, direction and status, so
+ * the dashboard reads a handful of rows instead of the whole history. Callers apply the deltas of each
+ * state change inside the transaction that makes it; rows are touched in key order so concurrent
+ * transactions cannot deadlock on them. {@link #rebuild()} recomputes the table from {@code tb_charges}
+ * and the totals of archived charges in chunks of user ids, each replaced in its own transaction, to
+ * repair drift from writes that bypass this service.
+ */
+@Slf4j
+@Service
+public class ChargeSummaryService {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long REBUILD_LOCK_KEY = 0x53554d4d00000000L;
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::userId)
+            .thenComparing(Key::direction)
+            .thenComparing(Key::status);
+    private static final String INSERT_SUMMARY = """
+            insert into tb_charge_summaries (user_id, direction, status) values (?, ?, ?) on conflict do nothing
+            """;
+    private static final String APPLY_DELTA = """
+            update tb_charge_summaries set charge_count = charge_count + ?, total_amount = total_amount + ?
+            where user_id = ? and direction = ? and status = ?
+            """;
+    private static final String SELECT_SUMMARY = """
+            select direction, status, charge_count, total_amount from tb_charge_summaries where user_id = ?
+            """;
+    private static final String SELECT_USER_ID_RANGE = "select min(id), max(id) from tb_users";
+    private static final String LOCK_CHUNK = "select pg_advisory_xact_lock(?)";
+    private static final String DELETE_CHUNK = "delete from tb_charge_summaries where user_id between ? and ?";
+    private static final String REBUILD_SENT = """
+            insert into tb_charge_summaries (user_id, direction, status, charge_count, total_amount)
+            select user_id, 'SENT', status, sum(charge_count), sum(total_amount) from (
+                select origin_id as user_id, status, count(*) as charge_count, sum(amount) as total_amount
+                from tb_charges where origin_id between ? and ? group by origin_id, status
+                union all
+                select user_id, status, charge_count, total_amount from tb_charge_archive_totals
+                where direction = 'SENT' and user_id between ? and ?
+            ) totals
+            group by user_id, status
+            """;
+    private static final String REBUILD_RECEIVED = """
+            insert into tb_charge_summaries (user_id, direction, status, charge_count, total_amount)
+            select user_id, 'RECEIVED', status, sum(charge_count), sum(total_amount) from (
+                select destination_id as user_id, status, count(*) as charge_count, sum(amount) as total_amount
+                from tb_charges where destination_id between ? and ? group by destination_id, status
+                union all
+                select user_id, status, charge_count, total_amount from tb_charge_archive_totals
+                where direction = 'RECEIVED' and user_id between ? and ?
+            ) totals
+            group by user_id, status
+            """;
+    private static final String INSERT_ARCHIVE_TOTAL = """
+            insert into tb_charge_archive_totals (user_id, direction, status) values (?, ?, ?) on conflict do nothing
+            """;
+    private static final String APPLY_ARCHIVE_DELTA = """
+            update tb_charge_archive_totals set charge_count = charge_count + ?, total_amount = total_amount + ?
+            where user_id = ? and direction = ? and status = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public ChargeSummaryService(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations,
+            @Value("${app.charge-summary.rebuild.chunk-size:1000}") int chunkSize,
+            @Value("${app.charge-summary.rebuild.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    public void created(Collection<Charge> charges) {
+        apply(charges, null, PENDING);
+    }
+
+    public void moved(Collection<Charge> charges, ChargeStatusEnum from, ChargeStatusEnum to) {
+        apply(charges, from, to);
+    }
+
+    /**
+     * Records charges moved to the cold archive in {@code tb_charge_archive_totals}, in the transaction that
+     * deletes them from {@code tb_charges}, so {@link #rebuild()} still counts them. The summaries themselves
+     * do not change.
+     */
+    public void archived(Collection<Charge> charges) {
+        var deltas = new TreeMap<Key, Delta>(KEY_ORDER);
+        for (var charge : charges) {
+            add(deltas, new Key(charge.getOrigin().getId(), SENT, charge.getStatus()), 1, charge.getAmount());
+            add(deltas, new Key(charge.getDestination().getId(), RECEIVED, charge.getStatus()), 1, charge.getAmount());
+        }
+        write(deltas, INSERT_ARCHIVE_TOTAL, APPLY_ARCHIVE_DELTA);
+    }
+
+    public ChargeSummaryResponseDTO summaryOf(Long userId) {
+        var sent = emptySummary();
+        var received = emptySummary();
+        jdbcTemplate.query(SELECT_SUMMARY, rs -> {
+            var summary = new StatusSummaryDTO(rs.getLong("charge_count"), rs.getBigDecimal("total_amount"));
+            var status = ChargeStatusEnum.valueOf(rs.getString("status"));
+            (SENT.name().equals(rs.getString("direction")) ? sent : received).put(status, summary);
+        }, userId);
+        return new ChargeSummaryResponseDTO(sent, received);
+    }
+
+    /**
+     * Splits the user ids into chunks of {@code app.charge-summary.rebuild.chunk-size} and recomputes them on
+     * {@code parallelism} threads. Each chunk deletes its rows and inserts the aggregates in one transaction:
+     * a concurrent state change either committed before the aggregates were read, or finds the rebuilt rows
+     * and applies its delta on top of them.
+     */
+    @Scheduled(cron = "${app.charge-summary.rebuild.cron:-}")
+    public int rebuild() {
+        var range = jdbcTemplate.queryForObject(SELECT_USER_ID_RANGE,
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[] {rs.getLong(1), rs.getLong(2)});
+        if (range == null) {
+            return 0;
+        }
+        var rebuilt = 0;
+        try (var executor = Executors.newFixedThreadPool(parallelism)) {
+            var chunks = new ArrayList<Future<Integer>>();
+            for (long first = range[0]; first <= range[1]; first += chunkSize) {
+                var from = first;
+                var to = Math.min(first + chunkSize - 1, range[1]);
+                chunks.add(executor.submit(() -> transactionOperations.execute(status -> rebuildChunk(from, to))));
+            }
+            for (var chunk : chunks) {
+                rebuilt += chunk.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Charge summary rebuild failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Charge summary rebuild interrupted", ex);
+        }
+        log.info("Rebuilt {} charge summary rows", rebuilt);
+        return rebuilt;
+    }
+
+    private int rebuildChunk(long from, long to) {
+        jdbcTemplate.queryForList(LOCK_CHUNK, REBUILD_LOCK_KEY + from);
+        jdbcTemplate.update(DELETE_CHUNK, from, to);
+        return jdbcTemplate.update(REBUILD_SENT, from, to, from, to)
+                + jdbcTemplate.update(REBUILD_RECEIVED, from, to, from, to);
+    }
+
+    private void apply(Collection<Charge> charges, ChargeStatusEnum from, ChargeStatusEnum to) {
+        var deltas = new TreeMap<Key, Delta>(KEY_ORDER);
+        for (var charge : charges) {
+            var amount = charge.getAmount();
+            add(deltas, new Key(charge.getOrigin().getId(), SENT, to), 1, amount);
+            add(deltas, new Key(charge.getDestination().getId(), RECEIVED, to), 1, amount);
+            if (from != null) {
+                add(deltas, new Key(charge.getOrigin().getId(), SENT, from), -1, amount.negate());
+                add(deltas, new Key(charge.getDestination().getId(), RECEIVED, from), -1, amount.negate());
+            }
+        }
+        write(deltas, INSERT_SUMMARY, APPLY_DELTA);
+    }
+
+    private void write(Map<Key, Delta> deltas, String insert, String update) {
+        // An update finds no row only when a rebuild replaced it after our insert; the retry sees the new one.
+        List<Map.Entry<Key, Delta>> pending = List.copyOf(deltas.entrySet());
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_ATTEMPTS) {
+                throw new IllegalStateException("Charge summary could not be updated");
+            }
+            jdbcTemplate.batchUpdate(insert, pending.stream()
+                    .map(entry -> entry.getKey().parameters())
+                    .toList());
+            var updated = jdbcTemplate.batchUpdate(update, pending.stream()
+                    .map(entry -> entry.getValue().parameters(entry.getKey()))
+                    .toList());
+            var missing = new ArrayList<Map.Entry<Key, Delta>>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    missing.add(pending.get(i));
+                }
+            }
+            pending = missing;
+        }
+    }
+
+    private static void add(Map<Key, Delta> deltas, Key key, long count, BigDecimal amount) {
+        deltas.merge(key, new Delta(count, amount), Delta::plus);
+    }
+
+    private static Map<ChargeStatusEnum, StatusSummaryDTO> emptySummary() {
+        var summary = new EnumMap<ChargeStatusEnum, StatusSummaryDTO>(ChargeStatusEnum.class);
+        for (var status : ChargeStatusEnum.values()) {
+            summary.put(status, StatusSummaryDTO.EMPTY);
+        }
+        return summary;
+    }
+
+    private record Key(Long userId, ChargeDirectionEnum direction, ChargeStatusEnum status) {
+
+        Object[] parameters() {
+            return new Object[] {userId, direction.name(), status.name()};
+        }
+    }
+
+    private record Delta(long count, BigDecimal amount) {
+
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        Object[] parameters(Key key) {
+            return new Object[] {count, amount, key.userId(), key.direction().name(), key.status().name()};
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import io.github.lcmdev.desafio.payment.exception.GlobalExceptionHandler;
+import io.github.lcmdev.desafio.payment.exception.RequestAppliedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs a request at most once per user and {@code Idempotency-Key}, replaying the stored status and
+ * body to retries within {@code app.idempotency.retention}. The key is claimed by inserting its row
+ * before the request runs, so duplicates on other instances see it in progress and poll until the
+ * response is stored; duplicates on the same instance wait on the in-flight call instead. Completed
+ * responses are also kept in a bounded local cache in front of {@code tb_idempotency_keys}. Only a
+ * plain {@link IllegalArgumentException} or {@link IllegalStateException} releases the key for a retry:
+ * services throw those to reject a request before changing anything, or from a transaction that rolls
+ * back. Any other failure, {@link RequestAppliedException} included, may come after money moved, so its
+ * error response is stored and replayed like a completed one. A key left in progress by a crashed
+ * instance can be taken over after {@code lock-timeout}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String CACHE_NAME = "idempotency.responses";
+    private static final String INSERT_KEY = """
+            insert into tb_idempotency_keys (user_id, idempotency_key, fingerprint, created_at) values (?, ?, ?, ?)
+            """;
+    private static final String TAKE_OVER_KEY = """
+            update tb_idempotency_keys
+            set fingerprint = ?, created_at = ?, status_code = null, response_body = null, completed_at = null
+            where user_id = ? and idempotency_key = ?
+              and ((status_code is null and created_at < ?) or created_at < ?)
+            """;
+    private static final String SELECT_KEY = """
+            select fingerprint, status_code, response_body from tb_idempotency_keys where user_id = ? and idempotency_key = ?
+            """;
+    private static final String COMPLETE_KEY = """
+            update tb_idempotency_keys set status_code = ?, response_body = ?, completed_at = ?
+            where user_id = ? and idempotency_key = ?
+            """;
+    private static final String RELEASE_KEY = """
+            delete from tb_idempotency_keys where user_id = ? and idempotency_key = ? and status_code is null
+            """;
+    private static final String DELETE_EXPIRED = """
+            delete from tb_idempotency_keys where id in (select id from tb_idempotency_keys where created_at < ? limit ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final GlobalExceptionHandler exceptionHandler;
+    private final Duration retention;
+    private final Duration waitTimeout;
+    private final Duration lockTimeout;
+    private final Duration pollInterval;
+    private final int purgeBatchSize;
+    private final Cache<Key, StoredResponse> responses;
+    private final ConcurrentMap<Key, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, GlobalExceptionHandler exceptionHandler,
+            MeterRegistry meterRegistry,
+            @Value("${app.idempotency.retention:PT24H}") Duration retention,
+            @Value("${app.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+            @Value("${app.idempotency.lock-timeout:PT1M}") Duration lockTimeout,
+            @Value("${app.idempotency.poll-interval:50ms}") Duration pollInterval,
+            @Value("${app.idempotency.purge-batch-size:1000}") int purgeBatchSize,
+            @Value("${app.idempotency.cache.maximum-size:10000}") long cacheMaximumSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.exceptionHandler = exceptionHandler;
+        this.retention = retention;
+        this.waitTimeout = waitTimeout;
+        this.lockTimeout = lockTimeout;
+        this.pollInterval = pollInterval;
+        this.purgeBatchSize = purgeBatchSize;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+    }
+
+    public ResponseEntity<?> execute(Long userId, String idempotencyKey, String request, Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Invalid Idempotency-Key");
+        }
+        var key = new Key(userId, idempotencyKey);
+        var fingerprint = fingerprint(request);
+
+        var cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, fingerprint);
+        }
+
+        var call = new CompletableFuture<StoredResponse>();
+        var running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            return replay(await(running), fingerprint);
+        }
+        try {
+            var previous = claim(key, fingerprint);
+            if (previous != null) {
+                responses.put(key, previous);
+                call.complete(previous);
+                return replay(previous, fingerprint);
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException ex) {
+                if (isRejection(ex)) {
+                    jdbcTemplate.update(RELEASE_KEY, userId, idempotencyKey);
+                } else {
+                    try {
+                        complete(key, call, fingerprint, exceptionHandler.responseFor(ex));
+                    } catch (RuntimeException storeFailure) {
+                        ex.addSuppressed(storeFailure);
+                    }
+                }
+                throw ex;
+            }
+            complete(key, call, fingerprint, response);
+            return response;
+        } catch (RuntimeException ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public int purgeExpired() {
+        var before = Timestamp.from(Instant.now().minus(retention));
+        var purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, before, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+        return purged;
+    }
+
+    private StoredResponse claim(Key key, String fingerprint) {
+        var deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            var now = Instant.now();
+            try {
+                jdbcTemplate.update(INSERT_KEY, key.userId(), key.idempotencyKey(), fingerprint, Timestamp.from(now));
+                return null;
+            } catch (DuplicateKeyException ex) {
+                log.debug("Idempotency key {} of user {} already claimed", key.idempotencyKey(), key.userId());
+            }
+            if (jdbcTemplate.update(TAKE_OVER_KEY, fingerprint, Timestamp.from(now), key.userId(), key.idempotencyKey(),
+                    Timestamp.from(now.minus(lockTimeout)), Timestamp.from(now.minus(retention))) > 0) {
+                return null;
+            }
+            var stored = jdbcTemplate.query(SELECT_KEY, rs -> rs.next()
+                    ? new StoredResponse(rs.getString("fingerprint"), rs.getObject("status_code", Integer.class), rs.getString("response_body"))
+                    : null, key.userId(), key.idempotencyKey());
+            if (stored != null && stored.status() != null) {
+                return stored;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+            }
+            sleep(pollInterval);
+        }
+    }
+
+    /**
+     * The request has run by now, so failing to store its response must not fail it: the response is still
+     * replayed by this instance, and the error is logged.
+     */
+    private void complete(Key key, CompletableFuture<StoredResponse> call, String fingerprint, ResponseEntity<?> response) {
+        var stored = new StoredResponse(fingerprint, response.getStatusCode().value(), toJson(response.getBody()));
+        responses.put(key, stored);
+        call.complete(stored);
+        try {
+            jdbcTemplate.update(COMPLETE_KEY, stored.status(), stored.body(), Timestamp.from(Instant.now()),
+                    key.userId(), key.idempotencyKey());
+        } catch (RuntimeException ex) {
+            log.error("Response to Idempotency-Key {} of user {} could not be stored", key.idempotencyKey(), key.userId(), ex);
+        }
+    }
+
+    private static boolean isRejection(RuntimeException ex) {
+        return (ex instanceof IllegalArgumentException || ex instanceof IllegalStateException)
+                && !(ex instanceof RequestAppliedException);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", ex);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stored.body());
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Response cannot be stored for replay", ex);
+        }
+    }
+
+    private static String fingerprint(String request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", ex);
+        }
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String fingerprint, Integer status, String body) {
+    }
+}
@@ -1,72 +1,215 @@
 package io.github.lcmdev.desafio.payment.service;
 
-import static io.github.lcmdev.desafio.payment.controller.dto.response.ChargeResponseDTO.toChargeResponse;
+import static io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO.toChargePageResponse;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.AUTHORIZING;
 import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
 import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
 import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.REFUNDING;
 import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.BALANCE;
 import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.CARD;
 
 import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
-import io.github.lcmdev.desafio.payment.controller.dto.response.ChargeResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.PayChargesRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BatchPaymentResultDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResultDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
 import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.exception.RequestAppliedException;
+import io.github.lcmdev.desafio.payment.model.Account;
 import io.github.lcmdev.desafio.payment.model.Charge;
 import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
 import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy.Credit;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
+import io.github.lcmdev.desafio.payment.util.Identifiers;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
     private final UserRepository userRepository;
+    private final UserIdCache userIdCache;
     private final ChargeRepository chargeRepository;
+    private final ChargeSummaryService chargeSummaryService;
+    private final ChargeArchive chargeArchive;
+    private final ChargeEventBus chargeEventBus;
+    private final ChangeLog changeLog;
     private final AuthorizerClient authorizerClient;
+    private final BalanceMutationStrategy balanceMutationStrategy;
+    private final TransactionOperations transactionOperations;
 
     @Transactional
     public Charge createCharge(Long originId, String destinationCpf, BigDecimal amount, String description) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Value must be positive");
         }
-        var userOrigin = userRepository.findById(originId).orElseThrow(() -> new IllegalArgumentException("Origin user not found"));
-        var userDestination = userRepository.findByCpf(destinationCpf).orElseThrow(() -> new IllegalArgumentException("Destination user not found"));
+        if (!userRepository.existsById(originId)) {
+            throw new IllegalArgumentException("Origin user not found");
+        }
+        var destinationId = userIdCache.findIdByCpf(Identifiers.cpf(destinationCpf)).orElseThrow(() -> new IllegalArgumentException("Destination user not found"));
 
-        if (userOrigin.getId().equals(userDestination.getId())) {
+        if (originId.equals(destinationId)) {
             throw new IllegalArgumentException("Origin and destination cannot be the same");
         }
 
         var charge = Charge.builder()
-                .origin(userOrigin)
-                .destination(userDestination)
+                .origin(userRepository.getReferenceById(originId))
+                .destination(userRepository.getReferenceById(destinationId))
                 .amount(amount)
                 .description(description)
                 .status(PENDING)
                 .paymentMethod(null)
                 .build();
 
-        return chargeRepository.save(charge);
+        var saved = chargeRepository.save(charge);
+        touchChargesVersion(charge);
+        chargeSummaryService.created(List.of(saved));
+        chargeEventBus.created(List.of(saved));
+        changeLog.created(List.of(saved));
+        return saved;
+    }
+
+    /**
+     * Creates one chunk of a bulk request in a single transaction: destination CPFs are resolved with one
+     * {@code in} query and the charges are inserted in JDBC batches. Invalid items are reported in place
+     * without failing the others; {@code firstIndex} is the position of the chunk in the request.
+     */
+    @Transactional
+    public List<BulkChargeResultDTO> createCharges(Long originId, List<CreateChargeRequestDTO> requests, int firstIndex) {
+        if (!userRepository.existsById(originId)) {
+            throw new IllegalArgumentException("Origin user not found");
+        }
+        var cpfs = requests.stream()
+                .map(request -> Identifiers.cpf(request.destinationCpf()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        var destinations = userIdCache.findIdsByCpf(cpfs);
+
+        var results = new BulkChargeResultDTO[requests.size()];
+        var charges = new ArrayList<Charge>(requests.size());
+        var positions = new ArrayList<Integer>(requests.size());
+        var touched = new HashSet<Long>();
+        var origin = userRepository.getReferenceById(originId);
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            var cpf = Identifiers.cpf(request.destinationCpf());
+            var destinationId = cpf == null ? null : destinations.get(cpf);
+            if (request.amount() == null || request.amount().compareTo(BigDecimal.ZERO) <= 0) {
+                results[i] = BulkChargeResultDTO.failed(firstIndex + i, "Value must be positive");
+            } else if (!request.amountFitsColumn()) {
+                results[i] = BulkChargeResultDTO.failed(firstIndex + i, "Value must have at most 17 integer digits and 2 decimals");
+            } else if (destinationId == null) {
+                results[i] = BulkChargeResultDTO.failed(firstIndex + i, "Destination user not found");
+            } else if (destinationId.equals(originId)) {
+                results[i] = BulkChargeResultDTO.failed(firstIndex + i, "Origin and destination cannot be the same");
+            } else {
+                charges.add(Charge.builder()
+                        .origin(origin)
+                        .destination(userRepository.getReferenceById(destinationId))
+                        .amount(request.amount())
+                        .description(request.description())
+                        .status(PENDING)
+                        .build());
+                positions.add(i);
+                touched.add(destinationId);
+            }
+        }
+
+        var saved = chargeRepository.saveAll(charges);
+        for (int i = 0; i < saved.size(); i++) {
+            int position = positions.get(i);
+            results[position] = BulkChargeResultDTO.created(firstIndex + position, saved.get(i).getId());
+        }
+        if (!touched.isEmpty()) {
+            touched.add(originId);
+            userRepository.incrementChargesVersion(touched);
+            chargeSummaryService.created(saved);
+            chargeEventBus.created(saved);
+            changeLog.created(saved);
+        }
+        return List.of(results);
     }
 
-    public List<ChargeResponseDTO> listChargesSent(Long originId, Optional<ChargeStatusEnum> status) {
-        var userOrigin = userRepository.findById(originId).orElseThrow(() -> new IllegalArgumentException("Origin user not found"));
-        return toChargeResponse(status.map(chargeStatus -> chargeRepository.findByOriginAndStatus(userOrigin, chargeStatus))
-                .orElseGet(() -> chargeRepository.findByOrigin(userOrigin)));
+    @Transactional(readOnly = true)
+    public String chargesETag(Long userId, ChargeDirectionEnum direction, ChargeFilterRequestDTO filter) {
+        var version = userRepository.findListingVersionById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return filter.eTag(direction, userId, version.chargesVersion(), version.balance());
     }
 
-    public List<ChargeResponseDTO> listChargesReceived(Long destinationId, Optional<ChargeStatusEnum> status) {
-        var userDestination = userRepository.findById(destinationId).orElseThrow(() -> new IllegalArgumentException("Destination user not found"));
-        return toChargeResponse(status.map(chargeStatus -> chargeRepository.findByDestinationAndStatus(userDestination, chargeStatus))
-                .orElseGet(() -> chargeRepository.findByDestination(userDestination)));
+    @Transactional(readOnly = true)
+    public ChargePageResponseDTO listChargesSent(Long originId, ChargeFilterRequestDTO filter) {
+        if (!userRepository.existsById(originId)) {
+            throw new IllegalArgumentException("Origin user not found");
+        }
+        var cursor = cursorOf(filter);
+        var limit = Limit.of(filter.limitOrDefault() + 1);
+        var charges = filter.chargeStatus()
+                .map(chargeStatus -> chargeRepository.findSentPageByStatus(originId, chargeStatus, filter.fromOrDefault(),
+                        filter.toOrDefault(), cursor.createdAt(), cursor.id(), limit))
+                .orElseGet(() -> chargeRepository.findSentPage(originId, filter.fromOrDefault(), filter.toOrDefault(),
+                        cursor.createdAt(), cursor.id(), limit));
+        return toChargePageResponse(withArchived(ChargeDirectionEnum.SENT, originId, filter, cursor, charges),
+                filter.limitOrDefault());
+    }
+
+    @Transactional(readOnly = true)
+    public ChargePageResponseDTO listChargesReceived(Long destinationId, ChargeFilterRequestDTO filter) {
+        if (!userRepository.existsById(destinationId)) {
+            throw new IllegalArgumentException("Destination user not found");
+        }
+        var cursor = cursorOf(filter);
+        var limit = Limit.of(filter.limitOrDefault() + 1);
+        var charges = filter.chargeStatus()
+                .map(chargeStatus -> chargeRepository.findReceivedPageByStatus(destinationId, chargeStatus, filter.fromOrDefault(),
+                        filter.toOrDefault(), cursor.createdAt(), cursor.id(), limit))
+                .orElseGet(() -> chargeRepository.findReceivedPage(destinationId, filter.fromOrDefault(), filter.toOrDefault(),
+                        cursor.createdAt(), cursor.id(), limit));
+        return toChargePageResponse(withArchived(ChargeDirectionEnum.RECEIVED, destinationId, filter, cursor, charges),
+                filter.limitOrDefault());
+    }
+
+    /** Merges the page read from {@code tb_charges} with the archived charges of the same range, keeping the order. */
+    private List<Charge> withArchived(ChargeDirectionEnum direction, Long userId, ChargeFilterRequestDTO filter,
+            ChargeCursor cursor, List<Charge> charges) {
+        var archived = chargeArchive.findPage(direction, userId, filter.chargeStatus().orElse(null),
+                filter.fromOrDefault(), filter.toOrDefault(), cursor.createdAt(), cursor.id(), filter.limitOrDefault() + 1);
+        return ChargeArchive.merge(charges, archived, filter.limitOrDefault() + 1);
+    }
+
+    private ChargeCursor cursorOf(ChargeFilterRequestDTO filter) {
+        return Optional.ofNullable(filter.next())
+                .map(ChargeCursor::decode)
+                .orElseGet(() -> ChargeCursor.first(filter.toOrDefault()));
     }
 
     @Transactional
     public Charge payByBalance(Long payerId, Long chargeId) {
-        var charge = chargeRepository.findById(chargeId).orElseThrow(() -> new IllegalStateException("Charge not found"));
+        var charge = findCharge(chargeId);
 
         if (!charge.getStatus().equals(PENDING)) {
             throw new IllegalStateException("Charge is not pending");
@@ -78,23 +221,103 @@ public class PaymentService {
         }
 
         var payerAccount = payer.getAccount();
-        if (payerAccount.getBalance().compareTo(charge.getAmount()) < 0) {
+        if (balanceMutationStrategy.balanceOf(payerAccount).compareTo(charge.getAmount()) < 0) {
             throw new IllegalArgumentException("Insufficient balance");
         }
 
-        var receiver = charge.getOrigin();
-        var receiverAccount = receiver.getAccount();
+        transition(charge, PENDING, PAID);
 
-        payerAccount.setBalance(payerAccount.getBalance().subtract(charge.getAmount()));
-        receiverAccount.setBalance(receiverAccount.getBalance().add(charge.getAmount()));
+        var receiverAccount = charge.getOrigin().getAccount();
+        balanceMutationStrategy.transfer(payerAccount, receiverAccount, charge.getAmount(), false);
+        changeLog.transferred(charge, payerAccount, receiverAccount);
 
-        charge.setStatus(PAID);
         charge.setPaymentMethod(BALANCE);
+        touchChargesVersion(charge);
 
         return chargeRepository.save(charge);
     }
 
+    /**
+     * Pays several pending charges of one payer in a single transaction: the charges are loaded with one
+     * query, the total is checked against the balance once and each receiver is credited once with its
+     * aggregated amount. When {@code atomic}, any charge that cannot be paid fails the whole batch;
+     * otherwise it is reported in place and the others are paid in request order while the balance covers them.
+     * The balance is read under the strategy's transfer locks, so it still holds when the transfer runs.
+     */
     @Transactional
+    public List<BatchPaymentResultDTO> payByBalance(Long payerId, List<Long> chargeIds, boolean atomic) {
+        if (chargeIds.isEmpty() || chargeIds.size() > PayChargesRequestDTO.MAX_CHARGES) {
+            throw new IllegalArgumentException("Between 1 and " + PayChargesRequestDTO.MAX_CHARGES + " charges must be informed");
+        }
+        var ids = List.copyOf(new LinkedHashSet<>(chargeIds));
+        var charges = chargeRepository.findWithAccountsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Charge::getId, Function.identity()));
+
+        var results = new BatchPaymentResultDTO[ids.size()];
+        var failures = new RuntimeException[ids.size()];
+        var receivers = new ArrayList<Account>(ids.size());
+        Account payerAccount = null;
+        for (int i = 0; i < ids.size(); i++) {
+            var charge = charges.get(ids.get(i));
+            failures[i] = checkPayable(payerId, charge);
+            if (failures[i] == null) {
+                payerAccount = charge.getDestination().getAccount();
+                receivers.add(charge.getOrigin().getAccount());
+            } else if (atomic) {
+                throw failures[i];
+            }
+        }
+        var balance = payerAccount == null
+                ? BigDecimal.ZERO
+                : balanceMutationStrategy.lockForTransfer(payerAccount, receivers);
+
+        var paid = new ArrayList<Charge>(ids.size());
+        var total = BigDecimal.ZERO;
+        for (int i = 0; i < ids.size(); i++) {
+            var charge = charges.get(ids.get(i));
+            var failure = failures[i];
+            if (failure == null && total.add(charge.getAmount()).compareTo(balance) > 0) {
+                failure = new IllegalArgumentException("Insufficient balance");
+            }
+            if (failure == null) {
+                total = total.add(charge.getAmount());
+                paid.add(charge);
+                results[i] = BatchPaymentResultDTO.paid(charge.getId());
+            } else if (atomic) {
+                throw failure;
+            } else {
+                results[i] = BatchPaymentResultDTO.failed(ids.get(i), failure.getMessage());
+            }
+        }
+        if (paid.isEmpty()) {
+            return List.of(results);
+        }
+
+        var paidIds = paid.stream().map(Charge::getId).toList();
+        if (chargeRepository.transitionAll(paidIds, PENDING, PAID, BALANCE, Instant.now()) != paidIds.size()) {
+            throw new IllegalStateException("Charge is not pending");
+        }
+
+        var credits = new TreeMap<Long, Credit>();
+        for (var charge : paid) {
+            var receiverAccount = charge.getOrigin().getAccount();
+            credits.merge(receiverAccount.getId(), new Credit(receiverAccount, charge.getAmount()),
+                    (credit, other) -> new Credit(credit.account(), credit.amount().add(other.amount())));
+        }
+        balanceMutationStrategy.transfer(payerAccount, List.copyOf(credits.values()), false);
+        for (var charge : paid) {
+            changeLog.transferred(charge, payerAccount, charge.getOrigin().getAccount());
+        }
+
+        var touched = paid.stream().map(charge -> charge.getOrigin().getId()).collect(Collectors.toCollection(HashSet::new));
+        touched.add(payerId);
+        userRepository.incrementChargesVersion(touched);
+        chargeSummaryService.moved(paid, PENDING, PAID);
+        chargeEventBus.moved(paid, PENDING, PAID);
+        changeLog.moved(paid, PENDING, PAID);
+        return List.of(results);
+    }
+
     public boolean deposit(Long userId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Value must be positive");
@@ -104,20 +327,69 @@ public class PaymentService {
             return false;
         }
 
-        var user = userRepository.findById(userId).orElseThrow();
-        var account = user.getAccount();
-        account.setBalance(account.getBalance().add(amount));
-        userRepository.save(user);
+        transactionOperations.executeWithoutResult(status -> {
+            var user = userRepository.findById(userId).orElseThrow();
+            balanceMutationStrategy.credit(user.getAccount(), amount);
+            changeLog.balanceChanged(user.getAccount(), amount, null);
+        });
         return true;
     }
 
-    @Transactional
     public boolean payByCard(Long payerId, Long chargeId, String cardNumber, String expiry, String cvv) {
-        if (!authorizerClient.authorize()) {
-            return false;
+        transactionOperations.executeWithoutResult(status -> reserveCardPayment(payerId, chargeId));
+
+        var authorized = false;
+        var paid = false;
+        try {
+            authorized = authorizerClient.authorize();
+        } finally {
+            var approved = authorized;
+            paid = Boolean.TRUE.equals(transactionOperations.execute(status -> completeCardPayment(chargeId, approved)));
+        }
+        if (authorized && !paid) {
+            throw new RequestAppliedException("Charge is no longer pending, the card payment was credited to the payer balance");
+        }
+        return authorized;
+    }
+
+    public Charge cancelCharge(Long userId, Long chargeId) {
+        var charge = transactionOperations.execute(status -> beginCancel(userId, chargeId));
+        if (charge.getStatus() != REFUNDING) {
+            return charge;
+        }
+
+        var authorized = false;
+        try {
+            authorized = authorizerClient.authorize();
+        } finally {
+            var approved = authorized;
+            charge = transactionOperations.execute(status -> completeCardRefund(chargeId, approved));
+        }
+
+        if (!authorized) {
+            throw new IllegalStateException("Authorizer denied chargeback");
+        }
+        return charge;
+    }
+
+    @Transactional
+    public int releaseStaleAuthorizations(Instant before) {
+        var released = 0;
+        for (var charge : chargeRepository.findByStatusInAndStatusUpdatedAtBefore(List.of(AUTHORIZING, REFUNDING), before)) {
+            var rollbackTo = charge.getStatus() == AUTHORIZING ? PENDING : PAID;
+            if (chargeRepository.transition(charge.getId(), charge.getStatus(), rollbackTo, Instant.now()) > 0) {
+                touchChargesVersion(charge);
+                chargeSummaryService.moved(List.of(charge), charge.getStatus(), rollbackTo);
+                chargeEventBus.moved(List.of(charge), charge.getStatus(), rollbackTo);
+                changeLog.moved(List.of(charge), charge.getStatus(), rollbackTo);
+                released++;
+            }
         }
+        return released;
+    }
 
-        var charge = chargeRepository.findById(chargeId).orElseThrow(() -> new IllegalStateException("Charge not found")  );
+    private void reserveCardPayment(Long payerId, Long chargeId) {
+        var charge = findCharge(chargeId);
 
         if (!charge.getStatus().equals(PENDING)) {
             throw new IllegalStateException("Charge is not pending");
@@ -127,33 +399,118 @@ public class PaymentService {
             throw new IllegalStateException("Invalid paying user");
         }
 
-        charge.setStatus(PAID);
+        transition(charge, PENDING, AUTHORIZING);
+        touchChargesVersion(charge);
+    }
+
+    /**
+     * The {@link StaleAuthorizationSweeper} may have moved the charge back to {@code PENDING} while the
+     * authorizer was answering. An approval then pays it from {@code PENDING}; if it has meanwhile been paid
+     * or canceled some other way, the captured amount is credited to the payer instead of being lost.
+     * Returns whether the charge was paid.
+     */
+    private boolean completeCardPayment(Long chargeId, boolean authorized) {
+        var charge = findCharge(chargeId);
+
+        if (!authorized) {
+            if (tryTransition(charge, AUTHORIZING, PENDING)) {
+                touchChargesVersion(charge);
+            }
+            return false;
+        }
+
+        if (!tryTransition(charge, AUTHORIZING, PAID) && !tryTransition(charge, PENDING, PAID)) {
+            var payerAccount = charge.getDestination().getAccount();
+            balanceMutationStrategy.credit(payerAccount, charge.getAmount());
+            changeLog.balanceChanged(payerAccount, charge.getAmount(), charge);
+            log.warn("Card payment of charge {} approved after it left AUTHORIZING and PENDING (now {}), "
+                    + "credited to the payer balance", chargeId, charge.getStatus());
+            return false;
+        }
         charge.setPaymentMethod(CARD);
 
-        var receiver = charge.getOrigin();
-        var receiverAccount = receiver.getAccount();
-        receiverAccount.setBalance(receiverAccount.getBalance().add(charge.getAmount()));
-        userRepository.save(receiver);
+        balanceMutationStrategy.credit(charge.getOrigin().getAccount(), charge.getAmount());
+        changeLog.balanceChanged(charge.getOrigin().getAccount(), charge.getAmount(), charge);
 
         chargeRepository.save(charge);
-
+        touchChargesVersion(charge);
         return true;
     }
 
-    @Transactional
-    public Charge cancelCharge(Long userId, Long chargeId) {
+    private Charge beginCancel(Long userId, Long chargeId) {
         var charge = chargeRepository.findById(chargeId).orElseThrow();
         authorizeCancel(userId, charge);
 
-        if (charge.getStatus() == CANCELED) {
+        return switch (charge.getStatus()) {
+            case CANCELED -> charge;
+            case AUTHORIZING, REFUNDING -> throw new IllegalStateException("Charge authorization in progress");
+            case PENDING -> cancelPendingCharge(charge);
+            case PAID -> cancelPaidCharge(charge);
+        };
+    }
+
+    /**
+     * Like {@link #completeCardPayment}, an approval that arrives after the sweeper moved the charge back to
+     * {@code PAID} still cancels it from there. A charge that is neither has already been refunded by another
+     * cancel, so the merchant is not debited twice and the duplicate chargeback is logged for reconciliation.
+     */
+    private Charge completeCardRefund(Long chargeId, boolean authorized) {
+        var charge = findCharge(chargeId);
+
+        if (!authorized) {
+            if (tryTransition(charge, REFUNDING, PAID)) {
+                touchChargesVersion(charge);
+            }
             return charge;
         }
 
-        if (charge.getStatus() == PENDING) {
-            return cancelPendingCharge(charge);
+        if (!tryTransition(charge, REFUNDING, CANCELED) && !tryTransition(charge, PAID, CANCELED)) {
+            log.error("Chargeback of charge {} approved after it left REFUNDING and PAID (now {}), "
+                    + "reconcile it with the authorizer", chargeId, charge.getStatus());
+            throw new RequestAppliedException("Charge is not refunding");
+        }
+        balanceMutationStrategy.debit(charge.getOrigin().getAccount(), charge.getAmount(), true);
+        changeLog.balanceChanged(charge.getOrigin().getAccount(), charge.getAmount().negate(), charge);
+        touchChargesVersion(charge);
+        return chargeRepository.save(charge);
+    }
+
+    private Charge findCharge(Long chargeId) {
+        return chargeRepository.findById(chargeId).orElseThrow(() -> new IllegalStateException("Charge not found"));
+    }
+
+    private RuntimeException checkPayable(Long payerId, Charge charge) {
+        if (charge == null) {
+            return new IllegalStateException("Charge not found");
+        }
+        if (charge.getStatus() != PENDING) {
+            return new IllegalStateException("Charge is not pending");
+        }
+        if (!charge.getDestination().getId().equals(payerId)) {
+            return new IllegalStateException("Invalid paying user");
+        }
+        return null;
+    }
+
+    private void transition(Charge charge, ChargeStatusEnum from, ChargeStatusEnum to) {
+        if (!tryTransition(charge, from, to)) {
+            throw new IllegalStateException("Charge is not " + from.name().toLowerCase());
+        }
+    }
+
+    private boolean tryTransition(Charge charge, ChargeStatusEnum from, ChargeStatusEnum to) {
+        if (chargeRepository.transition(charge.getId(), from, to, Instant.now()) == 0) {
+            return false;
         }
+        charge.setStatus(to);
+        chargeSummaryService.moved(List.of(charge), from, to);
+        chargeEventBus.moved(List.of(charge), from, to);
+        changeLog.moved(List.of(charge), from, to);
+        return true;
+    }
 
-        return cancelPaidCharge(charge);
+    private void touchChargesVersion(Charge charge) {
+        userRepository.incrementChargesVersion(List.of(charge.getOrigin().getId(), charge.getDestination().getId()));
     }
 
     private void authorizeCancel(Long userId, Charge charge) {
@@ -163,7 +520,8 @@ public class PaymentService {
     }
 
     private Charge cancelPendingCharge(Charge charge) {
-        charge.setStatus(CANCELED);
+        transition(charge, PENDING, CANCELED);
+        touchChargesVersion(charge);
         return chargeRepository.save(charge);
     }
 
@@ -171,38 +529,23 @@ public class PaymentService {
         if (charge.getPaymentMethod() == BALANCE) {
             return refundBalance(charge);
         } else if (charge.getPaymentMethod() == CARD) {
-            return refundCard(charge);
+            transition(charge, PAID, REFUNDING);
+            touchChargesVersion(charge);
+            return charge;
         }
+        touchChargesVersion(charge);
         return chargeRepository.save(charge);
     }
 
     private Charge refundBalance(Charge charge) {
-        var receiver = charge.getOrigin();
-        var receiverAccount = receiver.getAccount();
-        receiverAccount.setBalance(receiverAccount.getBalance().subtract(charge.getAmount()));
-
-        var payer = charge.getDestination();
-        var payerAccount = payer.getAccount();
-        payerAccount.setBalance(payerAccount.getBalance().add(charge.getAmount()));
-
-        userRepository.save(receiver);
-        userRepository.save(payer);
-
-        charge.setStatus(CANCELED);
-        return chargeRepository.save(charge);
-    }
-
-    private Charge refundCard(Charge charge) {
-        if (!authorizerClient.authorize()) {
-            throw new IllegalStateException("Authorizer denied chargeback");
-        }
+        transition(charge, PAID, CANCELED);
 
-        var receiver = charge.getOrigin();
-        var receiverAccount = receiver.getAccount();
-        receiverAccount.setBalance(receiverAccount.getBalance().subtract(charge.getAmount()));
-        userRepository.save(receiver);
+        var receiverAccount = charge.getOrigin().getAccount();
+        var payerAccount = charge.getDestination().getAccount();
+        balanceMutationStrategy.transfer(receiverAccount, payerAccount, charge.getAmount(), true);
+        changeLog.transferred(charge, receiverAccount, payerAccount);
 
-        charge.setStatus(CANCELED);
+        touchChargesVersion(charge);
         return chargeRepository.save(charge);
     }
-}
\ No newline at end of file
+}
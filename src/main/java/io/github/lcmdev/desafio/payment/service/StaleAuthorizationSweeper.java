@@ -0,0 +1,31 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Card payments and refunds hold a charge in {@code AUTHORIZING}/{@code REFUNDING} while the
+ * authorizer is called outside any transaction. If the instance dies before the second phase runs,
+ * the charge would stay stuck there, so reservations older than {@code payment.authorization.timeout}
+ * are rolled back to the state they came from. An authorizer answer that arrives after the rollback is
+ * still applied by {@code PaymentService}, so a late approval is never lost.
+ */
+@Component
+public class StaleAuthorizationSweeper {
+    private final PaymentService paymentService;
+    private final Duration timeout;
+
+    public StaleAuthorizationSweeper(PaymentService paymentService,
+            @Value("${payment.authorization.timeout:PT1M}") Duration timeout) {
+        this.paymentService = paymentService;
+        this.timeout = timeout;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.authorization.sweep-interval:PT1M}")
+    public int sweep() {
+        return paymentService.releaseStaleAuthorizations(Instant.now().minus(timeout));
+    }
+}
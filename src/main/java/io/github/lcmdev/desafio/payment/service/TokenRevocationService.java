@@ -0,0 +1,119 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import io.github.lcmdev.desafio.payment.security.JwtUtil.VerifiedToken;
+import io.github.lcmdev.desafio.payment.util.BloomFilter;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revoked token ids live in {@code tb_revoked_tokens} until the token expires. Each instance keeps a
+ * Bloom filter of them, so a token that was never revoked is accepted without touching the database;
+ * only filter hits (real revocations and false positives) are confirmed with a query. The filter is
+ * caught up every {@code app.jwt.revocation.refresh-interval} with the rows revoked since the last
+ * {@code revoked_at} seen, minus {@code refresh-overlap} for transactions that committed late, and is
+ * rebuilt from scratch, sized from the number of live revocations, when it fills up or every
+ * {@code rebuild-interval}. Until the first load every check goes to the database.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    private static final String INSERT_REVOCATION = "insert into tb_revoked_tokens (jti, user_id, expires_at) values (?, ?, ?)";
+    private static final String SELECT_ACTIVE = "select jti, revoked_at from tb_revoked_tokens where expires_at > ?";
+    private static final String SELECT_REVOKED_SINCE = """
+            select jti, revoked_at from tb_revoked_tokens where revoked_at > ? and expires_at > ?
+            """;
+    private static final String COUNT_REVOCATION = "select count(*) from tb_revoked_tokens where jti = ?";
+    private static final String DELETE_EXPIRED = "delete from tb_revoked_tokens where expires_at <= ?";
+    private static final int MIN_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration refreshOverlap;
+    private volatile BloomFilter revoked;
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate,
+            @Value("${app.jwt.revocation.refresh-overlap:PT30S}") Duration refreshOverlap) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshOverlap = refreshOverlap;
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null) {
+            throw new IllegalArgumentException("Token cannot be revoked");
+        }
+        try {
+            jdbcTemplate.update(INSERT_REVOCATION, token.jti(), token.userId(), Timestamp.from(token.expiresAt()));
+        } catch (DuplicateKeyException ex) {
+            log.debug("Token {} was already revoked", token.jti());
+        }
+        add(token.jti());
+    }
+
+    public boolean mightBeRevoked(String jti) {
+        var filter = revoked;
+        return jti != null && (filter == null || filter.mightContain(jti));
+    }
+
+    public boolean isRevoked(String jti) {
+        return mightBeRevoked(jti) && jdbcTemplate.queryForObject(COUNT_REVOCATION, Long.class, jti) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        if (revoked == null || revoked.isSaturated()) {
+            rebuild();
+            return;
+        }
+        var filter = revoked;
+        jdbcTemplate.query(SELECT_REVOKED_SINCE, rs -> {
+            filter.put(rs.getString("jti"));
+            watermark = max(watermark, rs.getTimestamp("revoked_at").toInstant());
+        }, Timestamp.from(watermark.minus(refreshOverlap)), Timestamp.from(Instant.now()));
+        if (filter.isSaturated()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.rebuild-interval:PT1H}",
+            initialDelayString = "${app.jwt.revocation.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        var now = Timestamp.from(Instant.now());
+        jdbcTemplate.update(DELETE_EXPIRED, now);
+
+        var jtis = new ArrayList<String>();
+        watermark = Instant.EPOCH;
+        jdbcTemplate.query(SELECT_ACTIVE, rs -> {
+            jtis.add(rs.getString("jti"));
+            watermark = max(watermark, rs.getTimestamp("revoked_at").toInstant());
+        }, now);
+
+        var filter = BloomFilter.create(Math.max(MIN_CAPACITY, jtis.size() * 2), FALSE_POSITIVE_RATE);
+        jtis.forEach(filter::put);
+        revoked = filter;
+        log.info("Token revocation filter rebuilt with {} entries (capacity {})", jtis.size(), filter.expectedInsertions());
+    }
+
+    private synchronized void add(String jti) {
+        var filter = revoked;
+        if (filter == null) {
+            return;
+        }
+        filter.put(jti);
+        if (filter.isSaturated()) {
+            rebuild();
+        }
+    }
+
+    private static Instant max(Instant first, Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
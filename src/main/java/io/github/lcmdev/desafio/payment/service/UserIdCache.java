@@ -0,0 +1,63 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.IdByCpf;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maps normalized CPFs to user ids, so charges can reference the destination without loading the
+ * {@code User}. Concurrent misses for the same CPF share one query, and bulk lookups load all missing
+ * CPFs with a single {@code in} query. Unknown CPFs are not cached, so a user registered on another
+ * instance is found right away; the TTL only bounds how long a removed user can linger.
+ */
+@Service
+public class UserIdCache {
+    private static final String CACHE_NAME = "users.ids-by-cpf";
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> idsByCpf;
+
+    public UserIdCache(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.user-cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.user-cache.ttl:PT10M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.idsByCpf = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByCpf, CACHE_NAME);
+    }
+
+    public Optional<Long> findIdByCpf(String cpf) {
+        if (cpf == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(idsByCpf.get(cpf, key -> userRepository.findIdByCpf(key).map(IdByCpf::id).orElse(null)));
+    }
+
+    public Map<String, Long> findIdsByCpf(Collection<String> cpfs) {
+        if (cpfs.isEmpty()) {
+            return Map.of();
+        }
+        return idsByCpf.getAll(cpfs, missing -> userRepository.findIdsByCpfIn(Set.copyOf(missing)).stream()
+                .collect(Collectors.toMap(IdByCpf::cpf, IdByCpf::id)));
+    }
+
+    public void evict(String cpf) {
+        if (cpf != null) {
+            idsByCpf.invalidate(cpf);
+        }
+    }
+}
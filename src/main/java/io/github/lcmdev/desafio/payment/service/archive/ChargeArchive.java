@@ -0,0 +1,247 @@
+package io.github.lcmdev.desafio.payment.service.archive;
+
+import static io.github.lcmdev.desafio.payment.service.archive.ChargeSegment.GROUP_SIZE;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.exception.ArchiveUnavailableException;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read side of the cold tier: charges settled long ago are moved by {@link ChargeArchiver} from {@code tb_charges}
+ * into {@link ChargeSegment} files under {@code app.charge-archive.directory}, listed in
+ * {@code tb_charge_archive_segments}. Segments are memory-mapped once and inflated groups are kept in a cache
+ * bounded by their decoded size, so paging through a user's history inflates each group at most once.
+ * <p>
+ * The directory must be shared by every instance. A registered segment that cannot be opened here is tracked with
+ * its {@code created_at} range: reads overlapping it fail with {@link ArchiveUnavailableException} instead of silently
+ * leaving its charges out, and the health indicator reports {@code DOWN} until it shows up.
+ */
+@Slf4j
+@Service
+public class ChargeArchive implements HealthIndicator {
+    private static final String CACHE_NAME = "charges.archive-groups";
+    private static final Set<ChargeStatusEnum> ARCHIVED_STATUSES = Set.of(ChargeStatusEnum.PAID, ChargeStatusEnum.CANCELED);
+    private static final String SELECT_SEGMENTS = """
+            select file_name, min_created_at, max_created_at from tb_charge_archive_segments order by id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final Path directory;
+    private final LoadingCache<GroupKey, ChargeSegment.Group> groups;
+    private final Map<String, ChargeSegment> segments = new LinkedHashMap<>();
+    private final Map<String, Range> missing = new LinkedHashMap<>();
+    private volatile List<Range> missingRanges = List.of();
+    private volatile List<ChargeSegment> snapshot = List.of();
+
+    public ChargeArchive(JdbcTemplate jdbcTemplate, UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.charge-archive.directory:data/charge-archive}") Path directory,
+            @Value("${app.charge-archive.cache.maximum-bytes:67108864}") long maximumBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.directory = directory;
+        this.groups = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((GroupKey key, ChargeSegment.Group group) -> group.weight)
+                .recordStats()
+                .build(key -> key.segment().readGroup(key.group()));
+        CaffeineCacheMetrics.monitor(meterRegistry, groups, CACHE_NAME);
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /** Opens the segments registered by other instances; those written here are added on commit. */
+    @Scheduled(fixedDelayString = "${app.charge-archive.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        jdbcTemplate.query(SELECT_SEGMENTS, (RowCallbackHandler) rs -> {
+            var name = rs.getString("file_name");
+            if (segments.containsKey(name)) {
+                return;
+            }
+            var range = new Range(ChargeSegment.micros(rs.getTimestamp("min_created_at").toInstant()),
+                    ChargeSegment.micros(rs.getTimestamp("max_created_at").toInstant()));
+            var path = directory.resolve(name);
+            if (!Files.exists(path)) {
+                if (missing.put(name, range) == null) {
+                    log.error("Archive segment {} is not in {}, reads of its range are refused", name, directory);
+                }
+                return;
+            }
+            try {
+                add(ChargeSegment.open(path));
+                missing.remove(name);
+            } catch (IOException ex) {
+                missing.put(name, range);
+                log.error("Could not open archive segment {}", name, ex);
+            }
+        });
+        missingRanges = List.copyOf(missing.values());
+    }
+
+    @Override
+    public Health health() {
+        var current = missing();
+        return current.isEmpty()
+                ? Health.up().withDetail("segments", snapshot.size()).build()
+                : Health.down().withDetail("directory", directory.toString()).withDetail("missingSegments", current).build();
+    }
+
+    private synchronized List<String> missing() {
+        return List.copyOf(missing.keySet());
+    }
+
+    synchronized void add(ChargeSegment segment) {
+        segments.putIfAbsent(segment.name(), segment);
+        snapshot = List.copyOf(segments.values());
+    }
+
+    /**
+     * Archived charges of {@code userId} in {@code direction} with {@code from <= created_at < to} and a key strictly
+     * below the cursor, newest first, at most {@code limit}. Origin and destination are loaded with their accounts.
+     */
+    public List<Charge> findPage(ChargeDirectionEnum direction, Long userId, ChargeStatusEnum status, Instant from,
+            Instant to, Instant cursorCreatedAt, Long cursorId, int limit) {
+        var page = findRows(direction, userId, status, from, to, cursorCreatedAt, cursorId, limit);
+        if (!page.isEmpty()) {
+            loadUsers(page);
+        }
+        return page;
+    }
+
+    /** Same as {@link #findPage}, with origin and destination holding only their ids. */
+    public List<Charge> findRows(ChargeDirectionEnum direction, Long userId, ChargeStatusEnum status, Instant from,
+            Instant to, Instant cursorCreatedAt, Long cursorId, int limit) {
+        var current = snapshot;
+        var unavailable = missingRanges;
+        if ((current.isEmpty() && unavailable.isEmpty()) || (status != null && !ARCHIVED_STATUSES.contains(status))) {
+            return List.of();
+        }
+        var fromMicros = ceilMicros(from);
+        var bound = Bound.below(to, Long.MIN_VALUE).min(Bound.below(cursorCreatedAt, cursorId));
+        for (var range : unavailable) {
+            if (range.overlaps(fromMicros, bound.createdAt())) {
+                throw new ArchiveUnavailableException();
+            }
+        }
+
+        var rows = new ArrayList<Charge>();
+        for (var segment : current) {
+            if (ChargeSegment.micros(segment.maxCreatedAt()) < fromMicros
+                    || ChargeSegment.micros(segment.minCreatedAt()) > bound.createdAt()) {
+                continue;
+            }
+            var postings = segment.postings(userId, direction);
+            if (postings.start() == postings.end()) {
+                continue;
+            }
+            var firstRow = segment.firstRowBelow(bound.createdAt(), bound.id(), this::group);
+            var found = 0;
+            for (int posting = segment.firstPostingFrom(postings, firstRow); posting < postings.end() && found < limit; posting++) {
+                var row = segment.row(posting);
+                var group = group(segment, row / GROUP_SIZE);
+                var index = row % GROUP_SIZE;
+                if (group.createdAt[index] < fromMicros) {
+                    break;
+                }
+                if (status == null || group.status(index) == status) {
+                    rows.add(group.charge(index));
+                    found++;
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        rows.sort(ChargeSegment.NEWEST_FIRST);
+        return List.copyOf(rows.subList(0, Math.min(limit, rows.size())));
+    }
+
+    /** Merges a page read from {@code tb_charges} with the archived charges of the same range, newest first. */
+    public static List<Charge> merge(List<Charge> charges, List<Charge> archived, int limit) {
+        if (archived.isEmpty()) {
+            return charges;
+        }
+        var merged = new ArrayList<Charge>(charges.size() + archived.size());
+        merged.addAll(charges);
+        merged.addAll(archived);
+        merged.sort(ChargeSegment.NEWEST_FIRST);
+        return List.copyOf(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    private ChargeSegment.Group group(ChargeSegment segment, int group) {
+        return groups.get(new GroupKey(segment, group));
+    }
+
+    private void loadUsers(List<Charge> charges) {
+        var ids = new HashSet<Long>();
+        charges.forEach(charge -> {
+            ids.add(charge.getOrigin().getId());
+            ids.add(charge.getDestination().getId());
+        });
+        var users = userRepository.findWithAccountsByIdIn(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        charges.forEach(charge -> {
+            charge.setOrigin(users.get(charge.getOrigin().getId()));
+            charge.setDestination(users.get(charge.getDestination().getId()));
+        });
+    }
+
+    private static long ceilMicros(Instant instant) {
+        var micros = ChargeSegment.micros(instant);
+        return instant.getNano() % 1000 == 0 || micros == Long.MAX_VALUE ? micros : micros + 1;
+    }
+
+    /** Keys strictly below {@code (createdAt, id)}, in microseconds as stored in the segments. */
+    private record Bound(long createdAt, long id) {
+        private static final Comparator<Bound> ORDER = Comparator.comparingLong(Bound::createdAt)
+                .thenComparingLong(Bound::id);
+
+        static Bound below(Instant createdAt, long id) {
+            var micros = ceilMicros(createdAt);
+            return new Bound(micros, micros == ChargeSegment.micros(createdAt) ? id : Long.MIN_VALUE);
+        }
+
+        Bound min(Bound other) {
+            return ORDER.compare(this, other) <= 0 ? this : other;
+        }
+    }
+
+    /** {@code created_at} range of a registered segment, in microseconds. */
+    private record Range(long minCreatedAt, long maxCreatedAt) {
+        boolean overlaps(long fromMicros, long belowMicros) {
+            return maxCreatedAt >= fromMicros && minCreatedAt <= belowMicros;
+        }
+    }
+
+    private record GroupKey(ChargeSegment segment, int group) {}
+}
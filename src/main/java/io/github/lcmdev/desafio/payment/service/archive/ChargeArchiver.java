@@ -0,0 +1,147 @@
+package io.github.lcmdev.desafio.payment.service.archive;
+
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.service.ChargeSummaryService;
+import io.github.lcmdev.desafio.payment.util.ChargeRowMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Moves charges that have been {@code PAID} or {@code CANCELED} for longer than {@code app.charge-archive.settled-for}
+ * out of {@code tb_charges} into {@link ChargeSegment} files. Each batch writes and syncs its segment first, then
+ * registers it, records the archived totals and deletes the rows in one transaction; if that transaction rolls back
+ * the file is removed, so a charge is never both archived and live once the batch commits.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.charge-archive.enabled", havingValue = "true")
+public class ChargeArchiver {
+    private static final String TRY_LOCK = "select pg_try_advisory_xact_lock(?)";
+    private static final long ARCHIVER_LOCK_KEY = 0x4152434849564500L;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+            .withZone(ZoneOffset.UTC);
+    private static final String SELECT_SETTLED = """
+            select %s from tb_charges
+            where status in ('PAID', 'CANCELED') and status_updated_at < ?
+            order by status_updated_at
+            limit ?
+            for update
+            """.formatted(ChargeRowMapper.COLUMNS);
+    private static final String INSERT_SEGMENT = """
+            insert into tb_charge_archive_segments (file_name, row_count, min_created_at, max_created_at)
+            values (?, ?, ?, ?)
+            """;
+    private static final String DELETE_CHARGE = "delete from tb_charges where id = ? and created_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final ChargeArchive chargeArchive;
+    private final ChargeSummaryService chargeSummaryService;
+    private final Duration settledFor;
+    private final int batchSize;
+
+    public ChargeArchiver(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations,
+            ChargeArchive chargeArchive, ChargeSummaryService chargeSummaryService,
+            @Value("${app.charge-archive.settled-for:P180D}") Duration settledFor,
+            @Value("${app.charge-archive.batch-size:100000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.chargeArchive = chargeArchive;
+        this.chargeSummaryService = chargeSummaryService;
+        this.settledFor = settledFor;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.charge-archive.interval:PT1H}")
+    public int archive() {
+        var archived = 0;
+        int batch;
+        do {
+            batch = transactionOperations.execute(status -> archiveBatch(Instant.now().minus(settledFor)));
+            archived += batch;
+        } while (batch == batchSize);
+        if (archived > 0) {
+            log.info("Archived {} settled charges", archived);
+        }
+        return archived;
+    }
+
+    int archiveBatch(Instant settledBefore) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class, ARCHIVER_LOCK_KEY))) {
+            return 0;
+        }
+        var charges = jdbcTemplate.query(SELECT_SETTLED, ChargeRowMapper.INSTANCE, Timestamp.from(settledBefore), batchSize);
+        if (charges.isEmpty()) {
+            return 0;
+        }
+
+        var path = write(charges);
+        ChargeSegment segment;
+        try {
+            segment = ChargeSegment.open(path);
+        } catch (IOException ex) {
+            delete(path);
+            throw new UncheckedIOException("Could not open archive segment " + path, ex);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    chargeArchive.add(segment);
+                } else {
+                    delete(path);
+                }
+            }
+        });
+
+        jdbcTemplate.update(INSERT_SEGMENT, path.getFileName().toString(), charges.size(),
+                Timestamp.from(charges.stream().map(Charge::getCreatedAt).min(Instant::compareTo).orElseThrow()),
+                Timestamp.from(charges.stream().map(Charge::getCreatedAt).max(Instant::compareTo).orElseThrow()));
+        chargeSummaryService.archived(charges);
+        jdbcTemplate.batchUpdate(DELETE_CHARGE, charges.stream()
+                .map(charge -> new Object[] {charge.getId(), Timestamp.from(charge.getCreatedAt())})
+                .toList());
+        return charges.size();
+    }
+
+    private Path write(List<Charge> charges) {
+        var name = "charges-" + FILE_TIMESTAMP.format(Instant.now()) + "-" + UUID.randomUUID() + ".seg";
+        var directory = chargeArchive.directory();
+        var temporary = directory.resolve(name + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            ChargeSegment.write(temporary, charges);
+            return Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            delete(temporary);
+            throw new UncheckedIOException("Could not write archive segment " + name, ex);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Could not delete archive segment {}", path, ex);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package io.github.lcmdev.desafio.payment.service.archive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable file of archived charges, sorted newest first by {@code (created_at, id)}. Rows are stored in groups of
+ * {@value #GROUP_SIZE}, each laid out column by column and deflated as a whole; the group directory keeps the key of
+ * the first row of every group so a bound can be located by inflating a single group. The per-user index lists, for
+ * every user, the row numbers of the charges sent and received in the same order. The file is memory-mapped and read
+ * with absolute gets only, so one instance is shared by all readers.
+ */
+final class ChargeSegment {
+    static final int GROUP_SIZE = 4096;
+    static final Comparator<Charge> NEWEST_FIRST = Comparator.comparing(Charge::getCreatedAt)
+            .thenComparing(Charge::getId)
+            .reversed();
+    private static final int MAGIC = 0x43485347;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 8 + 8 * 2;
+    private static final int GROUP_ENTRY_SIZE = 8 + 4 + 4 + 8 + 8;
+    private static final int USER_ENTRY_SIZE = 8 + 4 * 4;
+
+    private final String name;
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int groupCount;
+    private final int userCount;
+    private final int groupsOffset;
+    private final int usersOffset;
+    private final int postingsOffset;
+    private final long minCreatedAt;
+    private final long maxCreatedAt;
+
+    private ChargeSegment(String name, ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a charge archive segment: " + name);
+        }
+        this.name = name;
+        this.buffer = buffer;
+        this.rowCount = buffer.getInt(8);
+        this.groupCount = buffer.getInt(12);
+        this.userCount = buffer.getInt(16);
+        this.groupsOffset = buffer.getInt(20);
+        this.usersOffset = buffer.getInt(24);
+        this.postingsOffset = buffer.getInt(28);
+        this.minCreatedAt = buffer.getLong(32);
+        this.maxCreatedAt = buffer.getLong(40);
+    }
+
+    static ChargeSegment open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            return new ChargeSegment(path.getFileName().toString(), channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes {@code charges} to a new file at {@code path}, which must not exist, and forces it to disk. The
+     * charges only need their ids, users' ids, amount, description, status, payment method and timestamps.
+     */
+    static void write(Path path, List<Charge> charges) throws IOException {
+        var rows = new ArrayList<>(charges);
+        rows.sort(NEWEST_FIRST);
+
+        var groups = new ArrayList<byte[]>();
+        var rawLengths = new ArrayList<Integer>();
+        for (int first = 0; first < rows.size(); first += GROUP_SIZE) {
+            var raw = encodeGroup(rows.subList(first, Math.min(first + GROUP_SIZE, rows.size())));
+            groups.add(deflate(raw));
+            rawLengths.add(raw.length);
+        }
+
+        var users = new TreeMap<Long, UserRows>();
+        for (int row = 0; row < rows.size(); row++) {
+            users.computeIfAbsent(rows.get(row).getOrigin().getId(), id -> new UserRows()).sent.add(row);
+            users.computeIfAbsent(rows.get(row).getDestination().getId(), id -> new UserRows()).received.add(row);
+        }
+
+        var groupsOffset = HEADER_SIZE;
+        var usersOffset = groupsOffset + groups.size() * GROUP_ENTRY_SIZE;
+        var postingsOffset = usersOffset + users.size() * USER_ENTRY_SIZE;
+        var dataOffset = (long) postingsOffset + 2L * rows.size() * 4;
+        var size = dataOffset + groups.stream().mapToLong(group -> group.length).sum();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment too large: " + rows.size() + " charges");
+        }
+
+        var buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(groups.size()).putInt(users.size())
+                .putInt(groupsOffset).putInt(usersOffset).putInt(postingsOffset)
+                .putLong(micros(rows.getLast().getCreatedAt())).putLong(micros(rows.getFirst().getCreatedAt()));
+
+        var offset = dataOffset;
+        for (int group = 0; group < groups.size(); group++) {
+            var first = rows.get(group * GROUP_SIZE);
+            buffer.putLong(offset).putInt(groups.get(group).length).putInt(rawLengths.get(group))
+                    .putLong(micros(first.getCreatedAt())).putLong(first.getId());
+            offset += groups.get(group).length;
+        }
+
+        var posting = 0;
+        for (var user : users.entrySet()) {
+            var sent = user.getValue().sent;
+            var received = user.getValue().received;
+            buffer.putLong(user.getKey()).putInt(posting).putInt(sent.size())
+                    .putInt(posting + sent.size()).putInt(received.size());
+            posting += sent.size() + received.size();
+        }
+        for (var user : users.values()) {
+            user.sent.forEach(buffer::putInt);
+            user.received.forEach(buffer::putInt);
+        }
+        groups.forEach(buffer::put);
+
+        try (var channel = FileChannel.open(path, CREATE_NEW, WRITE)) {
+            channel.write(buffer.flip());
+            channel.force(true);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    Instant minCreatedAt() {
+        return instant(minCreatedAt);
+    }
+
+    Instant maxCreatedAt() {
+        return instant(maxCreatedAt);
+    }
+
+    /**
+     * Returns the first row whose key is strictly below {@code (createdAt, id)}, or {@link #rowCount()} if there is
+     * none. Only the group holding the boundary is inflated, through {@code groups}.
+     */
+    int firstRowBelow(long createdAt, long id, GroupReader groups) {
+        int low = 0;
+        int high = groupCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            var entry = groupsOffset + middle * GROUP_ENTRY_SIZE;
+            if (below(buffer.getLong(entry + 16), buffer.getLong(entry + 24), createdAt, id)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        var group = groups.read(this, low - 1);
+        for (int i = 0; i < group.size(); i++) {
+            if (below(group.createdAt[i], group.ids[i], createdAt, id)) {
+                return (low - 1) * GROUP_SIZE + i;
+            }
+        }
+        return Math.min(low * GROUP_SIZE, rowCount);
+    }
+
+    /** Range of postings listing the rows of {@code userId} in {@code direction}, newest first. */
+    Postings postings(long userId, ChargeDirectionEnum direction) {
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            var entry = usersOffset + middle * USER_ENTRY_SIZE;
+            var candidate = buffer.getLong(entry);
+            if (candidate < userId) {
+                low = middle + 1;
+            } else if (candidate > userId) {
+                high = middle - 1;
+            } else {
+                var start = entry + (direction == ChargeDirectionEnum.SENT ? 8 : 16);
+                var first = buffer.getInt(start);
+                return new Postings(first, first + buffer.getInt(start + 4));
+            }
+        }
+        return Postings.EMPTY;
+    }
+
+    /** First posting in {@code postings} whose row is at or after {@code row}. */
+    int firstPostingFrom(Postings postings, int row) {
+        int low = postings.start();
+        int high = postings.end();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (row(middle) < row) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    int row(int posting) {
+        return buffer.getInt(postingsOffset + posting * 4);
+    }
+
+    Group readGroup(int index) {
+        var entry = groupsOffset + index * GROUP_ENTRY_SIZE;
+        var raw = new byte[buffer.getInt(entry + 12)];
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) buffer.getLong(entry), buffer.getInt(entry + 8)));
+            var read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+                if (inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (read != raw.length) {
+                throw new IllegalStateException("Truncated group " + index + " in archive segment " + name);
+            }
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupted group " + index + " in archive segment " + name, ex);
+        } finally {
+            inflater.end();
+        }
+        return decodeGroup(ByteBuffer.wrap(raw), Math.min(GROUP_SIZE, rowCount - index * GROUP_SIZE));
+    }
+
+    static long micros(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+        } catch (ArithmeticException ex) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+    }
+
+    private static boolean below(long createdAt, long id, long boundCreatedAt, long boundId) {
+        return createdAt < boundCreatedAt || (createdAt == boundCreatedAt && id < boundId);
+    }
+
+    private static byte[] encodeGroup(List<Charge> rows) {
+        var descriptions = new byte[rows.size()][];
+        var descriptionsLength = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            var description = rows.get(i).getDescription();
+            descriptions[i] = description == null ? null : description.getBytes(UTF_8);
+            descriptionsLength += description == null ? 0 : descriptions[i].length;
+        }
+
+        var raw = ByteBuffer.allocate(rows.size() * (8 * 6 + 2 + 4) + descriptionsLength);
+        rows.forEach(charge -> raw.putLong(charge.getId()));
+        rows.forEach(charge -> raw.putLong(charge.getOrigin().getId()));
+        rows.forEach(charge -> raw.putLong(charge.getDestination().getId()));
+        rows.forEach(charge -> raw.putLong(charge.getAmount().setScale(2, RoundingMode.UNNECESSARY)
+                .unscaledValue().longValueExact()));
+        rows.forEach(charge -> raw.put(statusCode(charge.getStatus())));
+        rows.forEach(charge -> raw.put(methodCode(charge.getPaymentMethod())));
+        rows.forEach(charge -> raw.putLong(micros(charge.getCreatedAt())));
+        rows.forEach(charge -> raw.putLong(micros(charge.getStatusUpdatedAt())));
+        for (var description : descriptions) {
+            raw.putInt(description == null ? -1 : description.length);
+        }
+        for (var description : descriptions) {
+            if (description != null) {
+                raw.put(description);
+            }
+        }
+        return raw.array();
+    }
+
+    private static Group decodeGroup(ByteBuffer raw, int size) {
+        var group = new Group(size);
+        for (int i = 0; i < size; i++) group.ids[i] = raw.getLong();
+        for (int i = 0; i < size; i++) group.origins[i] = raw.getLong();
+        for (int i = 0; i < size; i++) group.destinations[i] = raw.getLong();
+        for (int i = 0; i < size; i++) group.amounts[i] = raw.getLong();
+        raw.get(group.statuses);
+        raw.get(group.methods);
+        for (int i = 0; i < size; i++) group.createdAt[i] = raw.getLong();
+        for (int i = 0; i < size; i++) group.statusUpdatedAt[i] = raw.getLong();
+        var lengths = new int[size];
+        for (int i = 0; i < size; i++) lengths[i] = raw.getInt();
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] >= 0) {
+                var bytes = new byte[lengths[i]];
+                raw.get(bytes);
+                group.descriptions[i] = new String(bytes, UTF_8);
+            }
+        }
+        group.weight = raw.capacity();
+        return group;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        var deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(raw.length / 2);
+            var chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @FunctionalInterface
+    interface GroupReader {
+
+        Group read(ChargeSegment segment, int group);
+    }
+
+    record Postings(int start, int end) {
+        static final Postings EMPTY = new Postings(0, 0);
+    }
+
+    /** One inflated group, column by column. */
+    static final class Group {
+        final long[] ids;
+        final long[] origins;
+        final long[] destinations;
+        final long[] amounts;
+        final byte[] statuses;
+        final byte[] methods;
+        final long[] createdAt;
+        final long[] statusUpdatedAt;
+        final String[] descriptions;
+        int weight;
+
+        private Group(int size) {
+            ids = new long[size];
+            origins = new long[size];
+            destinations = new long[size];
+            amounts = new long[size];
+            statuses = new byte[size];
+            methods = new byte[size];
+            createdAt = new long[size];
+            statusUpdatedAt = new long[size];
+            descriptions = new String[size];
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        ChargeStatusEnum status(int row) {
+            return statusOf(statuses[row]);
+        }
+
+        /** The charge at {@code row}, with origin and destination holding only their ids. */
+        Charge charge(int row) {
+            return Charge.builder()
+                    .id(ids[row])
+                    .origin(User.builder().id(origins[row]).build())
+                    .destination(User.builder().id(destinations[row]).build())
+                    .amount(BigDecimal.valueOf(amounts[row], 2))
+                    .description(descriptions[row])
+                    .status(status(row))
+                    .paymentMethod(methodOf(methods[row]))
+                    .createdAt(instant(createdAt[row]))
+                    .statusUpdatedAt(instant(statusUpdatedAt[row]))
+                    .build();
+        }
+    }
+
+    /**
+     * Stable on-disk codes for status and payment method, independent of the declaration order of the enums. They
+     * keep the values the ordinals had when the format was introduced, so existing segments decode unchanged.
+     */
+    private static byte statusCode(ChargeStatusEnum status) {
+        return switch (status) {
+            case PENDING -> 0;
+            case AUTHORIZING -> 1;
+            case PAID -> 2;
+            case REFUNDING -> 3;
+            case CANCELED -> 4;
+        };
+    }
+
+    private static ChargeStatusEnum statusOf(byte code) {
+        return switch (code) {
+            case 0 -> ChargeStatusEnum.PENDING;
+            case 1 -> ChargeStatusEnum.AUTHORIZING;
+            case 2 -> ChargeStatusEnum.PAID;
+            case 3 -> ChargeStatusEnum.REFUNDING;
+            case 4 -> ChargeStatusEnum.CANCELED;
+            default -> throw new IllegalStateException("Unknown charge status code " + code);
+        };
+    }
+
+    private static byte methodCode(PaymentMethodEnum method) {
+        if (method == null) {
+            return -1;
+        }
+        return switch (method) {
+            case BALANCE -> 0;
+            case CARD -> 1;
+        };
+    }
+
+    private static PaymentMethodEnum methodOf(byte code) {
+        return switch (code) {
+            case -1 -> null;
+            case 0 -> PaymentMethodEnum.BALANCE;
+            case 1 -> PaymentMethodEnum.CARD;
+            default -> throw new IllegalStateException("Unknown payment method code " + code);
+        };
+    }
+
+    private static final class UserRows {
+        final List<Integer> sent = new ArrayList<>();
+        final List<Integer> received = new ArrayList<>();
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Applies balance changes so that concurrent payments to the same account never lose updates.
+ * Managed accounts passed in are left holding the balance actually stored.
+ */
+public interface BalanceMutationStrategy {
+
+    void credit(Account account, BigDecimal amount);
+
+    void debit(Account account, BigDecimal amount, boolean allowOverdraft);
+
+    default BigDecimal balanceOf(Account account) {
+        return account.getBalance();
+    }
+
+    /**
+     * Takes, in the order a transfer from {@code from} to {@code to} would, the locks that transfer waits on and
+     * returns the balance of {@code from} read under them. Until the transaction ends, a debit of {@code from}
+     * within that balance cannot be refused because of a concurrent debit. Strategies that do not lock return
+     * {@link #balanceOf}.
+     */
+    default BigDecimal lockForTransfer(Account from, List<Account> to) {
+        return balanceOf(from);
+    }
+
+    default void transfer(Account from, Account to, BigDecimal amount, boolean allowOverdraft) {
+        if (from.getId() < to.getId()) {
+            debit(from, amount, allowOverdraft);
+            credit(to, amount);
+        } else {
+            credit(to, amount);
+            debit(from, amount, allowOverdraft);
+        }
+    }
+
+    /**
+     * Debits the sum of {@code credits} from one account and credits each receiver, touching all accounts in
+     * ascending id order like the single transfer. Each receiver is expected at most once.
+     */
+    default void transfer(Account from, List<Credit> credits, boolean allowOverdraft) {
+        var total = Credit.total(credits);
+        var debited = false;
+        for (var credit : credits.stream().sorted(Comparator.comparing(credit -> credit.account().getId())).toList()) {
+            if (!debited && from.getId() < credit.account().getId()) {
+                debit(from, total, allowOverdraft);
+                debited = true;
+            }
+            credit(credit.account(), credit.amount());
+        }
+        if (!debited) {
+            debit(from, total, allowOverdraft);
+        }
+    }
+
+    record Credit(Account account, BigDecimal amount) {
+
+        static BigDecimal total(List<Credit> credits) {
+            return credits.stream().map(Credit::amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import static io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum.CONDITIONAL_UPDATE;
+import static io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum.LEDGER;
+
+import io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The reactive profile moves balances with its own conditional updates on {@code tb_accounts} and cannot go
+ * through these strategies, so it refuses to start with any configuration whose balance is not that column.
+ */
+@Configuration
+public class BalanceStrategyConfig {
+
+    @Bean
+    public BalanceMutationStrategy balanceMutationStrategy(
+            @Value("${payment.balance.strategy:CONDITIONAL_UPDATE}") BalanceStrategyEnum strategy,
+            @Value("${payment.balance.optimistic-max-attempts:5}") int optimisticMaxAttempts,
+            @Value("${payment.balance.sharding.enabled:false}") boolean sharding,
+            ApplicationContext applicationContext, AccountRepository accountRepository, EntityManager entityManager,
+            JdbcTemplate jdbcTemplate) {
+        if (applicationContext instanceof ReactiveWebApplicationContext && (strategy != CONDITIONAL_UPDATE || sharding)) {
+            throw new IllegalStateException("The reactive profile only supports the CONDITIONAL_UPDATE balance strategy "
+                    + "without account sharding");
+        }
+        var balanceMutationStrategy = create(strategy, optimisticMaxAttempts, accountRepository, entityManager, jdbcTemplate);
+        if (!sharding) {
+            return balanceMutationStrategy;
+        }
+        if (strategy == LEDGER) {
+            throw new IllegalStateException("Account sharding is not supported with the LEDGER balance strategy");
+        }
+        return new ShardedBalanceStrategy(balanceMutationStrategy, jdbcTemplate, entityManager);
+    }
+
+    public static BalanceMutationStrategy create(BalanceStrategyEnum strategy, int optimisticMaxAttempts,
+            AccountRepository accountRepository, EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        return switch (strategy) {
+            case CONDITIONAL_UPDATE -> new ConditionalUpdateBalanceStrategy(accountRepository, entityManager);
+            case OPTIMISTIC -> new OptimisticBalanceStrategy(accountRepository, entityManager, optimisticMaxAttempts);
+            case PESSIMISTIC -> new PessimisticBalanceStrategy(accountRepository, entityManager);
+            case LEDGER -> new LedgerBalanceStrategy(jdbcTemplate, entityManager);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ConditionalUpdateBalanceStrategy implements BalanceMutationStrategy {
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public void credit(Account account, BigDecimal amount) {
+        accountRepository.addToBalance(account.getId(), amount);
+        reload(account);
+    }
+
+    @Override
+    public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+        var updated = allowOverdraft
+                ? accountRepository.addToBalance(account.getId(), amount.negate())
+                : accountRepository.subtractFromBalanceIfSufficient(account.getId(), amount);
+        if (updated == 0) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        reload(account);
+    }
+
+    @Override
+    public BigDecimal lockForTransfer(Account from, List<Account> to) {
+        ManagedAccounts.inIdOrder(from, to)
+                .forEach(account -> entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE));
+        return from.getBalance();
+    }
+
+    private void reload(Account account) {
+        if (entityManager.contains(account)) {
+            entityManager.refresh(account);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Records every movement as rows in {@code tb_ledger_entries} instead of updating
+ * {@code tb_accounts}. A balance is the latest snapshot plus the entries after it; accounts without a
+ * snapshot start from {@code tb_accounts.balance}. Credits are plain inserts, so a hot receiving
+ * account has no row contention. Debits that must not overdraw take a transaction-scoped advisory
+ * lock on the account, serialising only debits of that same account. Every append also holds a shared
+ * advisory lock until commit, which {@link LedgerCompactor} takes exclusively to find the entries that
+ * can no longer be joined by a lower id.
+ */
+@RequiredArgsConstructor
+public class LedgerBalanceStrategy implements BalanceMutationStrategy {
+    private static final String INSERT_ENTRY = "insert into tb_ledger_entries (transaction_id, account_id, amount) values (?, ?, ?)";
+    private static final String LOCK_ACCOUNT = "select pg_advisory_xact_lock(?)";
+    private static final String LOCK_APPENDS_SHARED = "select pg_advisory_xact_lock_shared(?)";
+    static final long APPEND_LOCK_KEY = 0x4c45444745524150L;
+    private static final String SELECT_BALANCE = """
+            select coalesce(s.balance, a.balance) + coalesce((
+                select sum(e.amount) from tb_ledger_entries e
+                where e.account_id = a.id and e.id > coalesce(s.last_entry_id, 0)), 0)
+            from tb_accounts a
+            left join tb_balance_snapshots s on s.account_id = a.id
+            where a.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public void credit(Account account, BigDecimal amount) {
+        append(List.of(new Leg(account.getId(), amount)));
+        reload(account);
+    }
+
+    @Override
+    public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+        checkFunds(account, amount, allowOverdraft);
+        append(List.of(new Leg(account.getId(), amount.negate())));
+        reload(account);
+    }
+
+    @Override
+    public void transfer(Account from, Account to, BigDecimal amount, boolean allowOverdraft) {
+        checkFunds(from, amount, allowOverdraft);
+        append(List.of(new Leg(from.getId(), amount.negate()), new Leg(to.getId(), amount)));
+        reload(from);
+        reload(to);
+    }
+
+    @Override
+    public void transfer(Account from, List<Credit> credits, boolean allowOverdraft) {
+        var total = Credit.total(credits);
+        checkFunds(from, total, allowOverdraft);
+        var legs = new ArrayList<Leg>(credits.size() + 1);
+        legs.add(new Leg(from.getId(), total.negate()));
+        credits.forEach(credit -> legs.add(new Leg(credit.account().getId(), credit.amount())));
+        append(legs);
+        reload(from);
+        credits.forEach(credit -> reload(credit.account()));
+    }
+
+    @Override
+    public BigDecimal balanceOf(Account account) {
+        return jdbcTemplate.queryForObject(SELECT_BALANCE, BigDecimal.class, account.getId());
+    }
+
+    /**
+     * Credits are plain inserts, so only the advisory lock of {@code from} is taken.
+     */
+    @Override
+    public BigDecimal lockForTransfer(Account from, List<Account> to) {
+        jdbcTemplate.queryForList(LOCK_ACCOUNT, from.getId());
+        return balanceOf(from);
+    }
+
+    private void checkFunds(Account account, BigDecimal amount, boolean allowOverdraft) {
+        if (allowOverdraft) {
+            return;
+        }
+        if (lockForTransfer(account, List.of()).compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+    }
+
+    private void append(List<Leg> legs) {
+        var transactionId = UUID.randomUUID();
+        jdbcTemplate.queryForList(LOCK_APPENDS_SHARED, APPEND_LOCK_KEY);
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, legs.stream()
+                .map(leg -> new Object[]{transactionId, leg.accountId(), leg.amount()})
+                .toList());
+    }
+
+    private void reload(Account account) {
+        ManagedAccounts.showBalance(entityManager, account, balanceOf(account));
+    }
+
+    private record Leg(Long accountId, BigDecimal amount) {
+    }
+}
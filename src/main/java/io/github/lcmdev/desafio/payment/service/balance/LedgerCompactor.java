@@ -0,0 +1,86 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Rolls balance snapshots forward so ledger balance reads only sum the entries since the last run,
+ * and copies the consolidated balance back to {@code tb_accounts.balance}. Ids are assigned at insert
+ * time, so a transaction still in flight may commit an id below ones already visible. Before folding,
+ * a short transaction takes the append lock of {@link LedgerBalanceStrategy} exclusively: it waits
+ * for the appends in flight to finish and holds new ones back only while it reads {@code max(id)},
+ * so every id up to that watermark is final and later entries always get higher ids.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.balance.strategy", havingValue = "LEDGER")
+public class LedgerCompactor {
+    private static final String TRY_LOCK = "select pg_try_advisory_xact_lock(?)";
+    private static final long COMPACTOR_LOCK_KEY = 0x4c454447455200L;
+    private static final String LOCK_APPENDS = "select pg_advisory_xact_lock(?)";
+    private static final String SELECT_WATERMARK = "select max(id) from tb_ledger_entries";
+    private static final String ROLL_EXISTING_SNAPSHOTS = """
+            update tb_balance_snapshots s
+            set balance = s.balance + (
+                    select sum(e.amount) from tb_ledger_entries e
+                    where e.account_id = s.account_id and e.id > s.last_entry_id and e.id <= ?),
+                last_entry_id = (
+                    select max(e.id) from tb_ledger_entries e
+                    where e.account_id = s.account_id and e.id > s.last_entry_id and e.id <= ?),
+                updated_at = ?
+            where exists (
+                select 1 from tb_ledger_entries e
+                where e.account_id = s.account_id and e.id > s.last_entry_id and e.id <= ?)
+            """;
+    private static final String CREATE_MISSING_SNAPSHOTS = """
+            insert into tb_balance_snapshots (account_id, balance, last_entry_id, updated_at)
+            select a.id, a.balance + sum(e.amount), max(e.id), ?
+            from tb_accounts a
+            join tb_ledger_entries e on e.account_id = a.id
+            where e.id <= ?
+              and not exists (select 1 from tb_balance_snapshots s where s.account_id = a.id)
+            group by a.id, a.balance
+            """;
+    private static final String COPY_TO_ACCOUNTS = """
+            update tb_accounts a
+            set balance = (select s.balance from tb_balance_snapshots s where s.account_id = a.id),
+                version = a.version + 1
+            where a.id in (select s.account_id from tb_balance_snapshots s where s.updated_at = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+
+    public LedgerCompactor(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.ledger.compaction-interval:PT1M}")
+    public int compact() {
+        var watermark = transactionOperations.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_APPENDS, LedgerBalanceStrategy.APPEND_LOCK_KEY);
+            return jdbcTemplate.queryForObject(SELECT_WATERMARK, Long.class);
+        });
+        if (watermark == null) {
+            return 0;
+        }
+        return transactionOperations.execute(status -> fold(watermark));
+    }
+
+    private int fold(long watermark) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class, COMPACTOR_LOCK_KEY))) {
+            return 0;
+        }
+        var runAt = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        var compacted = jdbcTemplate.update(ROLL_EXISTING_SNAPSHOTS, watermark, watermark, runAt, watermark)
+                + jdbcTemplate.update(CREATE_MISSING_SNAPSHOTS, runAt, watermark);
+        jdbcTemplate.update(COPY_TO_ACCOUNTS, runAt);
+        return compacted;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.TreeMap;
+import org.hibernate.Session;
+
+/**
+ * Lets strategies whose reported balance is not the {@code tb_accounts.balance} column show it on a
+ * managed account. The entity is made read-only first, so Hibernate never flushes that value back.
+ */
+final class ManagedAccounts {
+
+    private ManagedAccounts() {
+    }
+
+    static void showBalance(EntityManager entityManager, Account account, BigDecimal balance) {
+        if (entityManager.contains(account)) {
+            entityManager.unwrap(Session.class).setReadOnly(account, true);
+        }
+        account.setBalance(balance);
+    }
+
+    /**
+     * Returns {@code from} and {@code to} once each, in ascending id order, which is the order transfers touch them.
+     */
+    static List<Account> inIdOrder(Account from, List<Account> to) {
+        var accounts = new TreeMap<Long, Account>();
+        accounts.put(from.getId(), from);
+        to.forEach(account -> accounts.putIfAbsent(account.getId(), account));
+        return List.copyOf(accounts.values());
+    }
+
+    static void restoreStoredBalance(EntityManager entityManager, Account account) {
+        if (entityManager.contains(account)) {
+            entityManager.unwrap(Session.class).setReadOnly(account, false);
+            entityManager.refresh(account);
+        }
+    }
+}
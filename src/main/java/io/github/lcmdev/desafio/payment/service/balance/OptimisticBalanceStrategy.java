@@ -0,0 +1,53 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compare-and-set on the account version, re-reading the account after each conflict. The CAS is a
+ * plain update instead of a dirty-checked flush so a conflict does not mark the transaction
+ * rollback-only and can be retried in place.
+ */
+@RequiredArgsConstructor
+public class OptimisticBalanceStrategy implements BalanceMutationStrategy {
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final int maxAttempts;
+
+    @Override
+    public void credit(Account account, BigDecimal amount) {
+        apply(account, amount, true);
+    }
+
+    @Override
+    public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+        apply(account, amount.negate(), allowOverdraft);
+    }
+
+    @Override
+    public BigDecimal lockForTransfer(Account from, List<Account> to) {
+        ManagedAccounts.inIdOrder(from, to)
+                .forEach(account -> entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE));
+        return from.getBalance();
+    }
+
+    private void apply(Account account, BigDecimal delta, boolean allowOverdraft) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            var balance = account.getBalance().add(delta);
+            if (!allowOverdraft && balance.signum() < 0) {
+                throw new IllegalArgumentException("Insufficient balance");
+            }
+            var updated = accountRepository.compareAndSetBalance(account.getId(), account.getVersion(), balance);
+            entityManager.refresh(account);
+            if (updated == 1) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Concurrent balance update, try again");
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Locks the account row with {@code SELECT ... FOR UPDATE} before changing it. Transfers lock in
+ * ascending account id order, so two opposite transfers cannot deadlock. The change itself is an
+ * explicit update rather than a dirty-checked flush, like the other strategies, so it also applies
+ * when the entity was made read-only by a decorating strategy.
+ */
+@RequiredArgsConstructor
+public class PessimisticBalanceStrategy implements BalanceMutationStrategy {
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public void credit(Account account, BigDecimal amount) {
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        apply(account, amount);
+    }
+
+    @Override
+    public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        if (!allowOverdraft && account.getBalance().compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        apply(account, amount.negate());
+    }
+
+    @Override
+    public BigDecimal lockForTransfer(Account from, List<Account> to) {
+        ManagedAccounts.inIdOrder(from, to)
+                .forEach(account -> entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE));
+        return from.getBalance();
+    }
+
+    private void apply(Account account, BigDecimal delta) {
+        accountRepository.addToBalance(account.getId(), delta);
+        ManagedAccounts.showBalance(entityManager, account, account.getBalance().add(delta));
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Spreads the credits of promoted accounts over rows in {@code tb_account_shards}, so concurrent
+ * payments to a hot receiver update different rows. A promoted account's balance is its
+ * {@code tb_accounts.balance} plus the sum of its shards. Credits go to a random shard, and debits
+ * lock the shards in order, drain them, then take whatever is left from the account row through the
+ * wrapped strategy. Accounts that are not promoted go straight to the wrapped strategy.
+ *
+ * <p>Promotions made on other instances are picked up by the periodic refresh. Until then those
+ * accounts are treated as unsharded, which is still correct because the shards keep being counted
+ * in the balance.
+ */
+public class ShardedBalanceStrategy implements BalanceMutationStrategy {
+    private static final String SELECT_SHARD_COUNTS = "select account_id, count(*) from tb_account_shards group by account_id";
+    private static final String SELECT_SHARD_COUNT = "select count(*) from tb_account_shards where account_id = ?";
+    private static final String INSERT_SHARD = "insert into tb_account_shards (account_id, shard, balance) values (?, ?, 0) on conflict do nothing";
+    private static final String CREDIT_SHARD = "update tb_account_shards set balance = balance + ? where account_id = ? and shard = ?";
+    private static final String LOCK_SHARDS = "select shard, balance from tb_account_shards where account_id = ? order by shard for update";
+    private static final String DRAIN_SHARD = "update tb_account_shards set balance = balance - ? where account_id = ? and shard = ?";
+    private static final String SELECT_BALANCE = """
+            select a.balance + coalesce((select sum(s.balance) from tb_account_shards s where s.account_id = a.id), 0)
+            from tb_accounts a where a.id = ?
+            """;
+
+    private final BalanceMutationStrategy delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private volatile Map<Long, Integer> shardCounts = Map.of();
+
+    public ShardedBalanceStrategy(BalanceMutationStrategy delegate, JdbcTemplate jdbcTemplate,
+            EntityManager entityManager) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    public void promote(Long accountId, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shards must be positive");
+        }
+        jdbcTemplate.batchUpdate(INSERT_SHARD, IntStream.range(0, shards)
+                .mapToObj(shard -> new Object[]{accountId, shard})
+                .toList());
+        var promoted = new HashMap<>(shardCounts);
+        promoted.put(accountId, jdbcTemplate.queryForObject(SELECT_SHARD_COUNT, Integer.class, accountId));
+        shardCounts = Map.copyOf(promoted);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.balance.sharding.refresh-interval:PT30S}")
+    public void refreshShardCounts() {
+        var counts = new HashMap<Long, Integer>();
+        jdbcTemplate.query(SELECT_SHARD_COUNTS, rs -> {
+            counts.put(rs.getLong(1), rs.getInt(2));
+        });
+        shardCounts = Map.copyOf(counts);
+    }
+
+    @Override
+    public void credit(Account account, BigDecimal amount) {
+        var shards = shardCounts.get(account.getId());
+        if (shards == null) {
+            delegate.credit(account, amount);
+            return;
+        }
+        jdbcTemplate.update(CREDIT_SHARD, amount, account.getId(), ThreadLocalRandom.current().nextInt(shards));
+        ManagedAccounts.showBalance(entityManager, account, balanceOf(account));
+    }
+
+    @Override
+    public void debit(Account account, BigDecimal amount, boolean allowOverdraft) {
+        if (!shardCounts.containsKey(account.getId())) {
+            delegate.debit(account, amount, allowOverdraft);
+            return;
+        }
+        var remaining = amount;
+        for (var shard : jdbcTemplate.queryForList(LOCK_SHARDS, account.getId())) {
+            var shardBalance = (BigDecimal) shard.get("balance");
+            if (remaining.signum() == 0) {
+                break;
+            }
+            if (shardBalance.signum() <= 0) {
+                continue;
+            }
+            var taken = shardBalance.min(remaining);
+            jdbcTemplate.update(DRAIN_SHARD, taken, account.getId(), shard.get("shard"));
+            remaining = remaining.subtract(taken);
+        }
+        if (remaining.signum() > 0) {
+            ManagedAccounts.restoreStoredBalance(entityManager, account);
+            delegate.debit(account, remaining, allowOverdraft);
+        }
+        ManagedAccounts.showBalance(entityManager, account, balanceOf(account));
+    }
+
+    /**
+     * Locks like a transfer: the rows of unpromoted receivers and, at the payer's place in id order, the payer's
+     * shards and then its row. Credits to promoted receivers go to a random shard and are not locked up front.
+     */
+    @Override
+    public BigDecimal lockForTransfer(Account from, List<Account> to) {
+        var unsharded = to.stream().filter(account -> !shardCounts.containsKey(account.getId())).toList();
+        if (!shardCounts.containsKey(from.getId())) {
+            return delegate.lockForTransfer(from, unsharded);
+        }
+        for (var account : ManagedAccounts.inIdOrder(from, unsharded)) {
+            if (account.getId().equals(from.getId())) {
+                jdbcTemplate.queryForList(LOCK_SHARDS, from.getId());
+            }
+            delegate.lockForTransfer(account, List.of());
+        }
+        var balance = jdbcTemplate.queryForObject(SELECT_BALANCE, BigDecimal.class, from.getId());
+        ManagedAccounts.showBalance(entityManager, from, balance);
+        return balance;
+    }
+
+    @Override
+    public BigDecimal balanceOf(Account account) {
+        if (!shardCounts.containsKey(account.getId())) {
+            return delegate.balanceOf(account);
+        }
+        return jdbcTemplate.queryForObject(SELECT_BALANCE, BigDecimal.class, account.getId());
+    }
+}
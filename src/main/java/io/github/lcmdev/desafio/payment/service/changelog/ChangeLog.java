@@ -0,0 +1,295 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Local append-only log of the committed changes made by {@code PaymentService}: charges created, charge status
+ * changes and balance deltas, numbered by a dense offset. The records of a transaction are handed to a bounded queue
+ * after it commits, so the payment never waits for the disk; a single writer thread drains the queue in batches into
+ * {@link ChangeLogSegment} files under {@code app.change-log.directory}, rolling to a new segment when the active one
+ * is full and forcing it to disk every {@code app.change-log.flush-interval}. A crash of the process loses only the
+ * records still in the queue; a crash of the machine also loses those written since the last flush. Offsets follow
+ * the order in which commits hand their records over. Sealed segments older than {@code app.change-log.retention},
+ * or beyond {@code app.change-log.retention-bytes}, are deleted. Disabled unless {@code app.change-log.enabled}.
+ * Writes made through {@code ReactivePaymentService} are not recorded.
+ */
+@Slf4j
+@Service
+public class ChangeLog implements SmartLifecycle {
+    private static final int MAX_BATCH = 1024;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final ChangeLogProperties properties;
+    private final BlockingQueue<ChangeRecord> queue;
+    private final ConcurrentSkipListMap<Long, ChangeLogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Counter dropped;
+    private volatile ChangeLogSegment active;
+    private volatile long endOffset;
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public ChangeLog(ChangeLogProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueSize());
+        this.dropped = meterRegistry.counter("changelog.records.dropped");
+        meterRegistry.gauge("changelog.queue.size", queue, BlockingQueue::size);
+    }
+
+    public void created(Collection<Charge> charges) {
+        appendAfterCommit(charges.stream()
+                .map(charge -> ChangeRecord.charge(ChangeRecord.Type.CHARGE_CREATED, charge, ChargeStatusEnum.PENDING, null))
+                .toList());
+    }
+
+    public void moved(Collection<Charge> charges, ChargeStatusEnum from, ChargeStatusEnum to) {
+        appendAfterCommit(charges.stream()
+                .map(charge -> ChangeRecord.charge(ChangeRecord.Type.CHARGE_STATUS_CHANGED, charge, to, from))
+                .toList());
+    }
+
+    /** Records a balance change of {@code account} by {@code delta}; {@code cause} is null for deposits. */
+    public void balanceChanged(Account account, BigDecimal delta, Charge cause) {
+        appendAfterCommit(List.of(ChangeRecord.balance(account, delta, cause)));
+    }
+
+    public void transferred(Charge cause, Account from, Account to) {
+        appendAfterCommit(List.of(ChangeRecord.balance(from, cause.getAmount().negate(), cause),
+                ChangeRecord.balance(to, cause.getAmount(), cause)));
+    }
+
+    /**
+     * Reads up to {@code limit} records from offset {@code from}. Reading at {@link #endOffset()} returns an empty
+     * batch; offsets removed by retention or not yet written are rejected.
+     */
+    public ChangeLogBatch read(long from, int limit) {
+        if (!properties.enabled()) {
+            throw new IllegalStateException("Change log is disabled");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        var end = endOffset;
+        var start = startOffset();
+        var first = segments.floorKey(from);
+        if (from < start || first == null) {
+            throw new IllegalArgumentException("Offset " + from + " is no longer retained, the log starts at " + start);
+        }
+        if (from > end) {
+            throw new IllegalArgumentException("Offset " + from + " is beyond the end of the log at " + end);
+        }
+        var records = new ArrayList<ChangeRecord>(Math.min(limit, MAX_BATCH));
+        for (var segment : segments.tailMap(first).values()) {
+            if (records.size() == limit) {
+                break;
+            }
+            segment.read(records.isEmpty() ? from : records.getLast().offset() + 1, limit, records);
+        }
+        var next = records.isEmpty() ? from : records.getLast().offset() + 1;
+        return new ChangeLogBatch(start, Math.max(end, next), next, List.copyOf(records));
+    }
+
+    public long startOffset() {
+        var first = segments.firstEntry();
+        return first == null ? 0 : first.getKey();
+    }
+
+    public long endOffset() {
+        return endOffset;
+    }
+
+    @Scheduled(fixedDelayString = "${app.change-log.retention-check-interval:PT5M}")
+    public void enforceRetention() {
+        if (!running) {
+            return;
+        }
+        var cutoff = Instant.now().minus(properties.retention());
+        var total = segments.values().stream().mapToLong(ChangeLogSegment::size).sum();
+        try {
+            for (var segment : segments.values()) {
+                var oversized = properties.retentionBytes() > 0 && total > properties.retentionBytes();
+                if (segment == active || !oversized && !segment.lastModified().isBefore(cutoff)) {
+                    break;
+                }
+                segments.remove(segment.baseOffset());
+                segment.delete();
+                total -= segment.size();
+                log.info("Deleted change log segment starting at offset {}", segment.baseOffset());
+            }
+        } catch (IOException ex) {
+            log.error("Change log retention failed", ex);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            open();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open the change log at " + properties.directory(), ex);
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("change-log-writer").start(this::write);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Starts before and stops after the web server, so requests in flight can still append while it drains. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void open() throws IOException {
+        var directory = Files.createDirectories(properties.directory());
+        List<Long> baseOffsets;
+        try (var files = Files.list(directory)) {
+            baseOffsets = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(ChangeLogSegment.LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - ChangeLogSegment.LOG_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < baseOffsets.size() - 1; i++) {
+            segments.put(baseOffsets.get(i), ChangeLogSegment.open(directory, baseOffsets.get(i), properties.indexIntervalBytes()));
+        }
+        active = baseOffsets.isEmpty()
+                ? ChangeLogSegment.create(directory, 0, properties.segmentBytes(), properties.indexIntervalBytes())
+                : ChangeLogSegment.recover(directory, baseOffsets.getLast(), properties.segmentBytes(), properties.indexIntervalBytes());
+        segments.put(active.baseOffset(), active);
+        endOffset = active.nextOffset();
+        log.info("Change log opened at {} with offsets {} to {}", directory, startOffset(), endOffset);
+    }
+
+    private void write() {
+        var batch = new ArrayList<ChangeRecord>(MAX_BATCH);
+        var flushNanos = properties.flushInterval().toNanos();
+        var lastFlush = System.nanoTime();
+        var dirty = false;
+        try {
+            while (running || !queue.isEmpty()) {
+                var first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (var record : batch) {
+                        if (active.append(record) < 0) {
+                            roll();
+                            active.append(record);
+                        }
+                    }
+                    batch.clear();
+                    active.publish();
+                    endOffset = active.nextOffset();
+                    dirty = true;
+                }
+                if (dirty && System.nanoTime() - lastFlush >= flushNanos) {
+                    active.flush();
+                    lastFlush = System.nanoTime();
+                    dirty = false;
+                }
+            }
+            active.flush();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Change log writer stopped at offset {}; new records will be dropped", endOffset, ex);
+        }
+    }
+
+    private void roll() throws IOException {
+        active.seal();
+        var next = ChangeLogSegment.create(properties.directory(), active.nextOffset(), properties.segmentBytes(),
+                properties.indexIntervalBytes());
+        segments.put(next.baseOffset(), next);
+        active = next;
+    }
+
+    private void appendAfterCommit(List<ChangeRecord> records) {
+        if (!properties.enabled() || records.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(records);
+            }
+        });
+    }
+
+    /** Waits while the queue is full, so a burst slows the callers down instead of losing records. */
+    private void enqueue(List<ChangeRecord> records) {
+        var queued = 0;
+        try {
+            for (var record : records) {
+                var offered = queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                while (!offered && accepting()) {
+                    offered = queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!offered) {
+                    break;
+                }
+                queued++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (queued < records.size()) {
+            drop(records.size() - queued);
+        }
+    }
+
+    private boolean accepting() {
+        var current = writer;
+        return running && current != null && current.isAlive();
+    }
+
+    private void drop(int count) {
+        dropped.increment(count);
+        log.warn("Change log is not accepting records; {} dropped", count);
+    }
+}
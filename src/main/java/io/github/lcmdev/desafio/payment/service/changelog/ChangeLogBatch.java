@@ -0,0 +1,10 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import java.util.List;
+
+/**
+ * Records read from the {@link ChangeLog}. {@code nextOffset} is where the following read should start;
+ * {@code startOffset} and {@code endOffset} are the first retained offset and the offset the next record will get.
+ */
+public record ChangeLogBatch(long startOffset, long endOffset, long nextOffset, List<ChangeRecord> records) {
+}
@@ -0,0 +1,32 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumer side of the {@link ChangeLog} for downstream systems: {@code GET /actuator/changelog?from=&limit=} returns
+ * a batch of records and the offset to ask for next. Like any actuator endpoint it is only reachable once listed in
+ * {@code management.endpoints.web.exposure.include}. The records hold every user's balance deltas, so the endpoint
+ * does not accept end-user JWTs: {@code SecurityConfig} requires the Basic credentials of the
+ * {@code CHANGELOG_READER} service user, and the reactive profile, which does not write to the log, denies it.
+ */
+@Component
+@Endpoint(id = "changelog")
+@ConditionalOnProperty(name = "app.change-log.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ChangeLogEndpoint {
+    static final int DEFAULT_LIMIT = 500;
+    static final int MAX_LIMIT = 5000;
+
+    private final ChangeLog changeLog;
+
+    @ReadOperation
+    public ChangeLogBatch read(@Nullable Long from, @Nullable Integer limit) {
+        return changeLog.read(from == null ? changeLog.startOffset() : from,
+                Math.min(limit == null ? DEFAULT_LIMIT : limit, MAX_LIMIT));
+    }
+}
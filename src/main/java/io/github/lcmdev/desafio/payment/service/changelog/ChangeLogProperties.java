@@ -0,0 +1,41 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.change-log")
+public record ChangeLogProperties(
+        Boolean enabled,
+        Path directory,
+        Integer segmentBytes,
+        Integer indexIntervalBytes,
+        Integer queueSize,
+        Duration flushInterval,
+        Duration retention,
+        Long retentionBytes
+) {
+
+    public ChangeLogProperties {
+        enabled = requireNonNullElse(enabled, false);
+        directory = requireNonNullElse(directory, Path.of("data/change-log"));
+        segmentBytes = requireNonNullElse(segmentBytes, 64 * 1024 * 1024);
+        indexIntervalBytes = requireNonNullElse(indexIntervalBytes, 4096);
+        queueSize = requireNonNullElse(queueSize, 65536);
+        flushInterval = requireNonNullElse(flushInterval, Duration.ofSeconds(1));
+        retention = requireNonNullElse(retention, Duration.ofDays(7));
+        retentionBytes = requireNonNullElse(retentionBytes, 0L);
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("app.change-log.segment-bytes must be at least 4096");
+        }
+        if (indexIntervalBytes < 1) {
+            throw new IllegalArgumentException("app.change-log.index-interval-bytes must be positive");
+        }
+    }
+
+    public static ChangeLogProperties of(Path directory) {
+        return new ChangeLogProperties(true, directory, null, null, null, null, null, null);
+    }
+}
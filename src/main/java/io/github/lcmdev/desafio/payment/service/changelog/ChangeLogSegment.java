@@ -0,0 +1,324 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the {@link ChangeLog}, holding the records from {@code baseOffset} on. {@code <baseOffset>.log} frames
+ * each record as {@code [int length][int crc32c][long offset][payload]}; {@code <baseOffset>.index} is a sparse index
+ * of {@code [int offset - baseOffset][int position]} entries, one every {@code indexIntervalBytes} of log, so a read
+ * scans at most that many bytes to reach its offset. The active segment is memory-mapped at its full capacity and
+ * appended to by the writer thread only; readers see the records below {@link #end}, published after their bytes are
+ * written. When the next record does not fit, the segment is sealed: forced to disk and cut to its used size.
+ */
+final class ChangeLogSegment {
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".index";
+    private static final int PREFIX_SIZE = 4 + 4;
+    private static final int INDEX_ENTRY_SIZE = 4 + 4;
+    private static final int MAX_RECORD_SIZE = 256;
+    private static final long NULL_ID = Long.MIN_VALUE;
+
+    private final long baseOffset;
+    private final Path logPath;
+    private final Path indexPath;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private final int indexInterval;
+    private final ByteBuffer scratch = ByteBuffer.allocate(PREFIX_SIZE + MAX_RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private int position;
+    private int entries;
+    private int lastIndexedPosition;
+    private long nextOffset;
+    private volatile int end;
+    private volatile int publishedEntries;
+
+    private ChangeLogSegment(long baseOffset, Path logPath, Path indexPath, MappedByteBuffer log,
+            MappedByteBuffer index, int indexInterval) {
+        this.baseOffset = baseOffset;
+        this.logPath = logPath;
+        this.indexPath = indexPath;
+        this.log = log;
+        this.index = index;
+        this.indexInterval = indexInterval;
+        this.nextOffset = baseOffset;
+    }
+
+    /** Creates an empty active segment of {@code capacity} bytes. */
+    static ChangeLogSegment create(Path directory, long baseOffset, int capacity, int indexInterval) throws IOException {
+        return map(directory, baseOffset, capacity, indexInterval, CREATE_NEW);
+    }
+
+    /**
+     * Reopens the last segment of the log for appending. The records are checked from the start and the log ends
+     * at the first frame that is torn, fails its checksum or is out of sequence; the bytes after it are zeroed so a
+     * stale frame can never be read back after new records are written over a shorter prefix.
+     */
+    static ChangeLogSegment recover(Path directory, long baseOffset, int capacity, int indexInterval) throws IOException {
+        var size = Files.size(directory.resolve(fileName(baseOffset, LOG_SUFFIX)));
+        var segment = map(directory, baseOffset, (int) Math.max(capacity, size), indexInterval, CREATE);
+        segment.scan();
+        return segment;
+    }
+
+    /** Opens a sealed segment read-only; its files were cut to their used size when it was sealed. */
+    static ChangeLogSegment open(Path directory, long baseOffset, int indexInterval) throws IOException {
+        var logPath = directory.resolve(fileName(baseOffset, LOG_SUFFIX));
+        var indexPath = directory.resolve(fileName(baseOffset, INDEX_SUFFIX));
+        try (var logChannel = FileChannel.open(logPath, READ); var indexChannel = FileChannel.open(indexPath, READ)) {
+            var segment = new ChangeLogSegment(baseOffset, logPath, indexPath,
+                    logChannel.map(MapMode.READ_ONLY, 0, logChannel.size()),
+                    indexChannel.map(MapMode.READ_ONLY, 0, indexChannel.size()), indexInterval);
+            segment.end = (int) logChannel.size();
+            segment.publishedEntries = (int) (indexChannel.size() / INDEX_ENTRY_SIZE);
+            return segment;
+        }
+    }
+
+    static String fileName(long baseOffset, String suffix) {
+        return "%020d%s".formatted(baseOffset, suffix);
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    int size() {
+        return end;
+    }
+
+    Instant lastModified() throws IOException {
+        return Files.getLastModifiedTime(logPath).toInstant();
+    }
+
+    /** Writes {@code record} at the next offset, returning that offset, or -1 when the segment is full. */
+    long append(ChangeRecord record) {
+        var offset = nextOffset;
+        var length = encode(record, offset);
+        if (position + length > log.capacity()) {
+            return -1;
+        }
+        if (position - lastIndexedPosition >= indexInterval) {
+            addIndexEntry(offset, position);
+        }
+        log.put(position, scratch.array(), 0, length);
+        position += length;
+        nextOffset++;
+        return offset;
+    }
+
+    /** Makes the records appended so far visible to readers. */
+    void publish() {
+        publishedEntries = entries;
+        end = position;
+    }
+
+    void flush() {
+        log.force();
+        index.force();
+    }
+
+    void seal() throws IOException {
+        publish();
+        flush();
+        truncate(logPath, position);
+        truncate(indexPath, (long) entries * INDEX_ENTRY_SIZE);
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(indexPath);
+    }
+
+    /**
+     * Adds to {@code out} the published records from offset {@code from} on, up to {@code limit} records in
+     * total. Safe to call from any thread: the buffers are only read with absolute gets.
+     */
+    void read(long from, int limit, List<ChangeRecord> out) {
+        var end = this.end;
+        var position = lookup(from - baseOffset, publishedEntries);
+        while (position < end && out.size() < limit) {
+            var length = log.getInt(position);
+            if (log.getLong(position + PREFIX_SIZE) >= from) {
+                var bytes = new byte[length];
+                log.get(position + PREFIX_SIZE, bytes);
+                out.add(decode(ByteBuffer.wrap(bytes)));
+            }
+            position += PREFIX_SIZE + length;
+        }
+    }
+
+    private static ChangeLogSegment map(Path directory, long baseOffset, int capacity, int indexInterval,
+            OpenOption create) throws IOException {
+        var logPath = directory.resolve(fileName(baseOffset, LOG_SUFFIX));
+        var indexPath = directory.resolve(fileName(baseOffset, INDEX_SUFFIX));
+        var indexCapacity = (capacity / indexInterval + 1) * INDEX_ENTRY_SIZE;
+        try (var logChannel = FileChannel.open(logPath, create, READ, WRITE);
+                var indexChannel = FileChannel.open(indexPath, CREATE, READ, WRITE)) {
+            return new ChangeLogSegment(baseOffset, logPath, indexPath, logChannel.map(MapMode.READ_WRITE, 0, capacity),
+                    indexChannel.map(MapMode.READ_WRITE, 0, indexCapacity), indexInterval);
+        }
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (var channel = FileChannel.open(path, WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private void scan() {
+        var bytes = new byte[MAX_RECORD_SIZE];
+        while (position + PREFIX_SIZE + 8 <= log.capacity()) {
+            var length = log.getInt(position);
+            if (length < 8 || length > MAX_RECORD_SIZE || position + PREFIX_SIZE + length > log.capacity()) {
+                break;
+            }
+            log.get(position + PREFIX_SIZE, bytes, 0, length);
+            crc.reset();
+            crc.update(bytes, 0, length);
+            if ((int) crc.getValue() != log.getInt(position + 4) || log.getLong(position + PREFIX_SIZE) != nextOffset) {
+                break;
+            }
+            if (position - lastIndexedPosition >= indexInterval) {
+                addIndexEntry(nextOffset, position);
+            }
+            position += PREFIX_SIZE + length;
+            nextOffset++;
+        }
+        var tail = position;
+        for (; tail + 8 <= log.capacity(); tail += 8) {
+            if (log.getLong(tail) != 0) {
+                log.putLong(tail, 0);
+            }
+        }
+        for (; tail < log.capacity(); tail++) {
+            log.put(tail, (byte) 0);
+        }
+        publish();
+    }
+
+    private void addIndexEntry(long offset, int position) {
+        index.putInt(entries * INDEX_ENTRY_SIZE, (int) (offset - baseOffset));
+        index.putInt(entries * INDEX_ENTRY_SIZE + 4, position);
+        entries++;
+        lastIndexedPosition = position;
+    }
+
+    /** Position of the last indexed record at or before {@code relativeOffset}, or the start of the log. */
+    private int lookup(long relativeOffset, int entries) {
+        int low = 0;
+        int high = entries - 1;
+        var position = 0;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (index.getInt(middle * INDEX_ENTRY_SIZE) <= relativeOffset) {
+                position = index.getInt(middle * INDEX_ENTRY_SIZE + 4);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return position;
+    }
+
+    private int encode(ChangeRecord record, long offset) {
+        var unscaled = record.amount().unscaledValue().toByteArray();
+        if (unscaled.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount out of range");
+        }
+        scratch.clear().position(PREFIX_SIZE);
+        scratch.putLong(offset)
+                .put(record.type().code())
+                .putLong(record.occurredAt().getEpochSecond())
+                .putInt(record.occurredAt().getNano())
+                .putLong(id(record.chargeId()))
+                .putLong(id(record.originId()))
+                .putLong(id(record.destinationId()))
+                .putLong(id(record.userId()))
+                .putLong(id(record.accountId()))
+                .put(status(record.status()))
+                .put(status(record.previousStatus()))
+                .putInt(record.amount().scale())
+                .put((byte) unscaled.length)
+                .put(unscaled);
+        var length = scratch.position() - PREFIX_SIZE;
+        crc.reset();
+        crc.update(scratch.array(), PREFIX_SIZE, length);
+        scratch.putInt(0, length).putInt(4, (int) crc.getValue());
+        return PREFIX_SIZE + length;
+    }
+
+    private static ChangeRecord decode(ByteBuffer buffer) {
+        var offset = buffer.getLong();
+        var type = ChangeRecord.Type.of(buffer.get());
+        var occurredAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        var chargeId = id(buffer.getLong());
+        var originId = id(buffer.getLong());
+        var destinationId = id(buffer.getLong());
+        var userId = id(buffer.getLong());
+        var accountId = id(buffer.getLong());
+        var status = status(buffer.get());
+        var previousStatus = status(buffer.get());
+        var scale = buffer.getInt();
+        var unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        return new ChangeRecord(offset, type, occurredAt, chargeId, originId, destinationId, userId, accountId,
+                new BigDecimal(new BigInteger(unscaled), scale), status, previousStatus);
+    }
+
+    private static long id(Long id) {
+        return id == null ? NULL_ID : id;
+    }
+
+    private static Long id(long id) {
+        return id == NULL_ID ? null : id;
+    }
+
+    /** Stable on-disk status codes, independent of the declaration order of {@link ChargeStatusEnum}. */
+    private static byte status(ChargeStatusEnum status) {
+        if (status == null) {
+            return 0;
+        }
+        return switch (status) {
+            case PENDING -> 1;
+            case AUTHORIZING -> 2;
+            case PAID -> 3;
+            case REFUNDING -> 4;
+            case CANCELED -> 5;
+        };
+    }
+
+    private static ChargeStatusEnum status(byte status) {
+        return switch (status) {
+            case 0 -> null;
+            case 1 -> ChargeStatusEnum.PENDING;
+            case 2 -> ChargeStatusEnum.AUTHORIZING;
+            case 3 -> ChargeStatusEnum.PAID;
+            case 4 -> ChargeStatusEnum.REFUNDING;
+            case 5 -> ChargeStatusEnum.CANCELED;
+            default -> throw new IllegalStateException("Unknown charge status code " + status);
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One committed change, as stored in the {@link ChangeLog}. Charge records carry the charge, its origin and
+ * destination, its amount and the status it moved to ({@code previousStatus} is null on creation); balance records
+ * carry the user and account whose balance changed, the signed {@code amount} of the change and the charge that
+ * caused it, null for deposits.
+ */
+public record ChangeRecord(
+        long offset,
+        Type type,
+        Instant occurredAt,
+        Long chargeId,
+        Long originId,
+        Long destinationId,
+        Long userId,
+        Long accountId,
+        BigDecimal amount,
+        ChargeStatusEnum status,
+        ChargeStatusEnum previousStatus) {
+
+    /** Record types, each stored on disk by its explicit {@code code}, never by ordinal. */
+    public enum Type {
+        CHARGE_CREATED(0), CHARGE_STATUS_CHANGED(1), BALANCE_CHANGED(2);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        byte code() {
+            return code;
+        }
+
+        static Type of(byte code) {
+            for (var type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalStateException("Unknown change record type " + code);
+        }
+    }
+
+    static ChangeRecord charge(Type type, Charge charge, ChargeStatusEnum status, ChargeStatusEnum previousStatus) {
+        return new ChangeRecord(-1, type, Instant.now(), charge.getId(), charge.getOrigin().getId(),
+                charge.getDestination().getId(), null, null, charge.getAmount(), status, previousStatus);
+    }
+
+    static ChangeRecord balance(Account account, BigDecimal delta, Charge cause) {
+        return new ChangeRecord(-1, Type.BALANCE_CHANGED, Instant.now(), cause == null ? null : cause.getId(), null,
+                null, account.getUser().getId(), account.getId(), delta, null, null);
+    }
+
+    ChangeRecord withOffset(long offset) {
+        return new ChangeRecord(offset, type, occurredAt, chargeId, originId, destinationId, userId, accountId, amount,
+                status, previousStatus);
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.lcmdev.desafio.payment.service.event;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A committed change to a charge, as pushed to the stream of its origin and destination. {@code id} orders the
+ * events of this instance and is assigned when the event is published.
+ */
+public record ChargeEvent(
+        long id,
+        Type type,
+        Long chargeId,
+        Long originId,
+        Long destinationId,
+        BigDecimal amount,
+        ChargeStatusEnum status,
+        ChargeStatusEnum previousStatus,
+        Instant occurredAt) {
+
+    public enum Type {
+        CREATED("charge-created"),
+        STATUS_CHANGED("charge-status-changed");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String eventName() {
+            return eventName;
+        }
+    }
+
+    static ChargeEvent of(Type type, Charge charge, ChargeStatusEnum status, ChargeStatusEnum previousStatus) {
+        return new ChargeEvent(0, type, charge.getId(), charge.getOrigin().getId(), charge.getDestination().getId(),
+                charge.getAmount(), status, previousStatus, Instant.now());
+    }
+
+    ChargeEvent withId(long id) {
+        return new ChargeEvent(id, type, chargeId, originId, destinationId, amount, status, previousStatus, occurredAt);
+    }
+
+    boolean concerns(Long userId) {
+        return userId.equals(originId) || userId.equals(destinationId);
+    }
+}
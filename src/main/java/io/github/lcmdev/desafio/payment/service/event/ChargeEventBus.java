@@ -0,0 +1,239 @@
+package io.github.lcmdev.desafio.payment.service.event;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-process fan-out of charge events to the Server-Sent Events streams of the users involved. Events are published
+ * after the transaction that produced them commits, numbered, kept in a replay buffer of the last
+ * {@code app.charge-events.replay-size} events and offered to each subscriber's bounded queue; a sender per connection
+ * drains it on a virtual thread, so a slow client never blocks the payment that published the event. A client that
+ * falls {@code app.charge-events.queue-size} events behind gets a {@code reset} event and is disconnected, and resumes
+ * from the replay buffer by reconnecting with {@code Last-Event-ID}. When the requested id is no longer in the buffer
+ * (or was issued by another instance) the stream starts with {@code reset}, telling the client to reload the listing.
+ */
+@Slf4j
+@Service
+public class ChargeEventBus {
+    static final String RESET_EVENT = "reset";
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final Object lock = new Object();
+    private final ArrayDeque<ChargeEvent> replay;
+    private final Map<Long, List<Subscription>> subscriptions = new HashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final int replaySize;
+    private final int queueSize;
+    private final Duration timeout;
+    // Ids continue from the startup time, so an id from before a restart falls below the replay buffer.
+    private long lastId = System.currentTimeMillis() * 1000;
+    private long replayFloor = lastId;
+
+    public ChargeEventBus(MeterRegistry meterRegistry,
+            @Value("${app.charge-events.replay-size:10000}") int replaySize,
+            @Value("${app.charge-events.queue-size:256}") int queueSize,
+            @Value("${app.charge-events.stream-timeout:PT30M}") Duration timeout) {
+        this.replay = new ArrayDeque<>(replaySize);
+        this.replaySize = replaySize;
+        this.queueSize = queueSize;
+        this.timeout = timeout;
+        meterRegistry.gauge("charges.stream.connections", connections);
+    }
+
+    public void created(Collection<Charge> charges) {
+        publishAfterCommit(charges.stream()
+                .map(charge -> ChargeEvent.of(ChargeEvent.Type.CREATED, charge, ChargeStatusEnum.PENDING, null))
+                .toList());
+    }
+
+    public void moved(Collection<Charge> charges, ChargeStatusEnum from, ChargeStatusEnum to) {
+        publishAfterCommit(charges.stream()
+                .map(charge -> ChargeEvent.of(ChargeEvent.Type.STATUS_CHANGED, charge, to, from))
+                .toList());
+    }
+
+    /**
+     * Opens a stream of the events of {@code userId}. With {@code lastEventId}, the buffered events after it are sent
+     * first; registration and replay happen under the publishing lock, so no event is missed or sent twice.
+     */
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        var emitter = new SseEmitter(timeout.toMillis());
+        var subscription = new Subscription(userId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(ex -> unsubscribe(subscription));
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                var after = parseId(lastEventId);
+                if (after < replayFloor || after > lastId) {
+                    subscription.offer(Signal.GAP);
+                } else {
+                    for (var event : replay) {
+                        if (event.id() > after && event.concerns(userId)) {
+                            subscription.offer(event);
+                        }
+                    }
+                }
+            }
+            subscriptions.computeIfAbsent(userId, id -> new ArrayList<>()).add(subscription);
+        }
+        connections.incrementAndGet();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.charge-events.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        synchronized (lock) {
+            subscriptions.values().forEach(list -> list.forEach(subscription -> subscription.offer(Signal.HEARTBEAT)));
+        }
+    }
+
+    void publish(List<ChargeEvent> events) {
+        synchronized (lock) {
+            for (var event : events) {
+                var published = event.withId(++lastId);
+                if (replay.size() == replaySize) {
+                    replayFloor = replay.removeFirst().id();
+                }
+                replay.addLast(published);
+                deliver(published.originId(), published);
+                deliver(published.destinationId(), published);
+            }
+        }
+    }
+
+    private void publishAfterCommit(List<ChargeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(events);
+            }
+        });
+    }
+
+    private void deliver(Long userId, ChargeEvent event) {
+        var list = subscriptions.get(userId);
+        if (list != null) {
+            list.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        synchronized (lock) {
+            var list = subscriptions.get(subscription.userId);
+            if (list == null || !list.remove(subscription)) {
+                return;
+            }
+            if (list.isEmpty()) {
+                subscriptions.remove(subscription.userId);
+            }
+        }
+        subscription.closed = true;
+        connections.decrementAndGet();
+    }
+
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private enum Signal {
+        HEARTBEAT, GAP, OVERFLOW
+    }
+
+    private final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueSize + 1);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean overflowed;
+
+        Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /** Called under the publishing lock only; never blocks. */
+        void offer(Object item) {
+            if (closed || overflowed) {
+                return;
+            }
+            if (queue.size() >= queueSize) {
+                overflowed = true;
+                queue.clear();
+                queue.add(Signal.OVERFLOW);
+            } else {
+                queue.add(item);
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Charge event stream of user {} closed: {}", userId, ex.getMessage());
+                unsubscribe(this);
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void send(Object item) throws IOException {
+            if (item instanceof ChargeEvent event) {
+                emitter.send(SseEmitter.event().id(Long.toString(event.id())).name(event.type().eventName()).data(event));
+            } else if (item == Signal.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+            } else if (item == Signal.GAP) {
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data("gap"));
+            } else {
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data("overflow"));
+                unsubscribe(this);
+                emitter.complete();
+            }
+        }
+    }
+}
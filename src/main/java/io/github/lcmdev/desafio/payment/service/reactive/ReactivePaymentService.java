@@ -0,0 +1,276 @@
+package io.github.lcmdev.desafio.payment.service.reactive;
+
+import static io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO.toChargePageResponse;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.AUTHORIZING;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.REFUNDING;
+import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.BALANCE;
+import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.CARD;
+import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type.REACTIVE;
+
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.exception.RequestAppliedException;
+import io.github.lcmdev.desafio.payment.repository.reactive.ReactiveAccountRepository;
+import io.github.lcmdev.desafio.payment.repository.reactive.ReactiveChargeRepository;
+import io.github.lcmdev.desafio.payment.repository.reactive.ReactiveChargeRepository.ChargeRow;
+import io.github.lcmdev.desafio.payment.repository.reactive.ReactiveChargeSummaryRepository;
+import io.github.lcmdev.desafio.payment.repository.reactive.ReactiveUserRepository;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
+import io.github.lcmdev.desafio.payment.util.Identifiers;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@code PaymentService}. Same phases and error messages; balances are moved
+ * with conditional updates on {@code tb_accounts} in account id order, which is why {@code BalanceStrategyConfig}
+ * refuses to start the reactive profile with any other balance strategy or with account sharding. Charge
+ * summaries are kept through {@link ReactiveChargeSummaryRepository}.
+ * Listings merge in the {@link ChargeArchive} like the servlet ones, reading it on the bounded elastic scheduler.
+ * Its writes are not appended to the {@code ChangeLog}, which only covers {@code PaymentService}.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = REACTIVE)
+@RequiredArgsConstructor
+public class ReactivePaymentService {
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveChargeRepository chargeRepository;
+    private final ReactiveChargeSummaryRepository chargeSummaryRepository;
+    private final ChargeArchive chargeArchive;
+    private final AuthorizerClient authorizerClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public Mono<Long> createCharge(Long originId, String destinationCpf, BigDecimal amount, String description) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new IllegalArgumentException("Value must be positive"));
+        }
+        return userRepository.existsById(originId)
+                .flatMap(exists -> exists ? userRepository.findIdByCpf(Identifiers.cpf(destinationCpf))
+                        : Mono.error(new IllegalArgumentException("Origin user not found")))
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Destination user not found")))
+                .flatMap(destinationId -> {
+                    if (originId.equals(destinationId)) {
+                        return Mono.error(new IllegalArgumentException("Origin and destination cannot be the same"));
+                    }
+                    return chargeRepository.insert(originId, destinationId, amount, description)
+                            .flatMap(id -> chargeSummaryRepository.moved(originId, destinationId, amount, null, PENDING)
+                                    .then(touchChargesVersion(originId, destinationId))
+                                    .thenReturn(id));
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<String> chargesETag(Long userId, ChargeDirectionEnum direction, ChargeFilterRequestDTO filter) {
+        return userRepository.findListingVersionById(userId)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("User not found")))
+                .map(version -> filter.eTag(direction, userId, version.chargesVersion(), version.balance()));
+    }
+
+    public Mono<ChargePageResponseDTO> listCharges(Long userId, ChargeDirectionEnum direction, ChargeFilterRequestDTO filter) {
+        var missingUser = direction == SENT ? "Origin user not found" : "Destination user not found";
+        return Mono.defer(() -> {
+            var cursor = cursorOf(filter);
+            var status = filter.chargeStatus();
+            var limit = filter.limitOrDefault() + 1;
+            var archived = Mono.fromCallable(() -> chargeArchive.findPage(direction, userId, status.orElse(null),
+                            filter.fromOrDefault(), filter.toOrDefault(), cursor.createdAt(), cursor.id(), limit))
+                    .subscribeOn(Schedulers.boundedElastic());
+            return userRepository.existsById(userId)
+                    .flatMap(exists -> exists
+                            ? chargeRepository.findPage(direction, userId, status, filter.fromOrDefault(), filter.toOrDefault(),
+                                    cursor, limit).collectList()
+                            : Mono.error(new IllegalArgumentException(missingUser)))
+                    .zipWith(archived, (charges, archivedCharges) -> ChargeArchive.merge(charges, archivedCharges, limit))
+                    .map(charges -> toChargePageResponse(charges, filter.limitOrDefault()));
+        });
+    }
+
+    private ChargeCursor cursorOf(ChargeFilterRequestDTO filter) {
+        return Optional.ofNullable(filter.next())
+                .map(ChargeCursor::decode)
+                .orElseGet(() -> ChargeCursor.first(filter.toOrDefault()));
+    }
+
+    public Mono<ChargeStatusEnum> payByBalance(Long payerId, Long chargeId) {
+        return findPendingCharge(payerId, chargeId)
+                .flatMap(charge -> pay(charge, PENDING, BALANCE)
+                        .then(transfer(charge.destinationId(), charge.originId(), charge.amount(), false))
+                        .then(touchChargesVersion(charge))
+                        .thenReturn(PAID))
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<Boolean> deposit(Long userId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return Mono.error(new IllegalArgumentException("Value must be positive"));
+        }
+        return authorizerClient.authorizeAsync()
+                .flatMap(approved -> approved
+                        ? updated(accountRepository.credit(userId, amount), NoSuchElementException::new).thenReturn(true)
+                        : Mono.just(false));
+    }
+
+    public Mono<Boolean> payByCard(Long payerId, Long chargeId) {
+        return findPendingCharge(payerId, chargeId)
+                .flatMap(charge -> move(charge, PENDING, AUTHORIZING))
+                .as(transactionalOperator::transactional)
+                .flatMap(charge -> authorizerClient.authorizeAsync()
+                        .flatMap(approved -> completeCardPayment(charge, approved)
+                                .flatMap(paid -> approved && !paid
+                                        ? Mono.<Boolean>error(new RequestAppliedException(
+                                                "Charge is no longer pending, the card payment was credited to the payer balance"))
+                                        : Mono.just(approved))));
+    }
+
+    public Mono<ChargeStatusEnum> cancelCharge(Long userId, Long chargeId) {
+        return chargeRepository.findById(chargeId)
+                .switchIfEmpty(Mono.error(NoSuchElementException::new))
+                .flatMap(charge -> {
+                    if (!charge.originId().equals(userId) && !charge.destinationId().equals(userId)) {
+                        return Mono.error(new IllegalStateException("User not authorized to cancel"));
+                    }
+                    return switch (charge.status()) {
+                        case CANCELED -> Mono.just(charge);
+                        case AUTHORIZING, REFUNDING -> Mono.error(new IllegalStateException("Charge authorization in progress"));
+                        case PENDING -> move(charge, PENDING, CANCELED);
+                        case PAID -> cancelPaidCharge(charge);
+                    };
+                })
+                .as(transactionalOperator::transactional)
+                .flatMap(charge -> charge.status() == REFUNDING ? refundCard(charge) : Mono.just(charge.status()));
+    }
+
+    private Mono<ChargeRow> findPendingCharge(Long payerId, Long chargeId) {
+        return chargeRepository.findById(chargeId)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Charge not found")))
+                .flatMap(charge -> {
+                    if (charge.status() != PENDING) {
+                        return Mono.error(notIn(PENDING));
+                    }
+                    if (!charge.destinationId().equals(payerId)) {
+                        return Mono.error(new IllegalStateException("Invalid paying user"));
+                    }
+                    return Mono.just(charge);
+                });
+    }
+
+    /**
+     * Same late-approval handling as {@code PaymentService}: a charge the sweeper moved back to {@code PENDING}
+     * is paid from there, and one settled some other way has the captured amount credited to the payer.
+     */
+    private Mono<Boolean> completeCardPayment(ChargeRow charge, boolean approved) {
+        var completion = approved
+                ? tryPay(charge, AUTHORIZING, CARD)
+                        .flatMap(paid -> paid ? Mono.just(true) : tryPay(charge, PENDING, CARD))
+                        .flatMap(paid -> paid
+                                ? accountRepository.credit(charge.originId(), charge.amount())
+                                        .then(touchChargesVersion(charge))
+                                        .thenReturn(true)
+                                : accountRepository.credit(charge.destinationId(), charge.amount())
+                                        .doOnNext(rows -> log.warn("Card payment of charge {} approved after it left "
+                                                + "AUTHORIZING and PENDING, credited to the payer balance", charge.id()))
+                                        .thenReturn(false))
+                : tryMove(charge, AUTHORIZING, PENDING).thenReturn(false);
+        return completion.as(transactionalOperator::transactional);
+    }
+
+    private Mono<ChargeRow> cancelPaidCharge(ChargeRow charge) {
+        if (charge.paymentMethod() == BALANCE) {
+            return move(charge, PAID, CANCELED)
+                    .flatMap(canceled -> transfer(charge.originId(), charge.destinationId(), charge.amount(), true)
+                            .thenReturn(canceled));
+        } else if (charge.paymentMethod() == CARD) {
+            return move(charge, PAID, REFUNDING);
+        }
+        return touchChargesVersion(charge).thenReturn(charge);
+    }
+
+    private Mono<ChargeStatusEnum> refundCard(ChargeRow charge) {
+        return authorizerClient.authorizeAsync()
+                .flatMap(approved -> approved
+                        ? tryMove(charge, REFUNDING, CANCELED)
+                                .flatMap(canceled -> canceled ? Mono.just(true) : tryMove(charge, PAID, CANCELED))
+                                .flatMap(canceled -> canceled
+                                        ? accountRepository.debit(charge.originId(), charge.amount()).thenReturn(CANCELED)
+                                        : Mono.<ChargeStatusEnum>error(new RequestAppliedException("Charge is not refunding"))
+                                                .doOnError(error -> log.error(
+                                                        "Chargeback of charge {} approved after it left REFUNDING and PAID, "
+                                                                + "reconcile it with the authorizer", charge.id())))
+                                .as(transactionalOperator::transactional)
+                        : tryMove(charge, REFUNDING, PAID)
+                                .as(transactionalOperator::transactional)
+                                .then(Mono.<ChargeStatusEnum>error(new IllegalStateException("Authorizer denied chargeback"))));
+    }
+
+    private Mono<Void> transfer(Long fromUserId, Long toUserId, BigDecimal amount, boolean allowOverdraft) {
+        var debit = allowOverdraft
+                ? accountRepository.debit(fromUserId, amount).then()
+                : updated(accountRepository.debitIfSufficient(fromUserId, amount),
+                        () -> new IllegalArgumentException("Insufficient balance"));
+        var credit = accountRepository.credit(toUserId, amount).then();
+        return accountRepository.findUserIdsInAccountOrder(List.of(fromUserId, toUserId))
+                .next()
+                .switchIfEmpty(Mono.error(NoSuchElementException::new))
+                .flatMap(first -> first.equals(fromUserId) ? debit.then(credit) : credit.then(debit));
+    }
+
+    private Mono<Void> pay(ChargeRow charge, ChargeStatusEnum from, PaymentMethodEnum method) {
+        return tryPay(charge, from, method).flatMap(paid -> paid ? Mono.<Void>empty() : Mono.error(notIn(from)));
+    }
+
+    private Mono<Boolean> tryPay(ChargeRow charge, ChargeStatusEnum from, PaymentMethodEnum method) {
+        return chargeRepository.pay(charge.id(), from, method)
+                .flatMap(rows -> rows == 0 ? Mono.just(false)
+                        : chargeSummaryRepository.moved(charge.originId(), charge.destinationId(), charge.amount(), from, PAID)
+                                .thenReturn(true));
+    }
+
+    private Mono<ChargeRow> move(ChargeRow charge, ChargeStatusEnum from, ChargeStatusEnum to) {
+        return tryMove(charge, from, to)
+                .flatMap(moved -> moved ? Mono.just(charge.withStatus(to)) : Mono.error(notIn(from)));
+    }
+
+    private Mono<Boolean> tryMove(ChargeRow charge, ChargeStatusEnum from, ChargeStatusEnum to) {
+        return chargeRepository.transition(charge.id(), from, to)
+                .flatMap(rows -> rows == 0 ? Mono.just(false)
+                        : chargeSummaryRepository.moved(charge.originId(), charge.destinationId(), charge.amount(), from, to)
+                                .then(touchChargesVersion(charge))
+                                .thenReturn(true));
+    }
+
+    private Mono<Void> touchChargesVersion(ChargeRow charge) {
+        return touchChargesVersion(charge.originId(), charge.destinationId());
+    }
+
+    private Mono<Void> touchChargesVersion(Long originId, Long destinationId) {
+        return userRepository.incrementChargesVersion(List.of(originId, destinationId)).then();
+    }
+
+    private static IllegalStateException notIn(ChargeStatusEnum status) {
+        return new IllegalStateException("Charge is not " + status.name().toLowerCase());
+    }
+
+    private static Mono<Void> updated(Mono<Long> rowsUpdated, Supplier<? extends RuntimeException> error) {
+        return rowsUpdated.flatMap(rows -> rows == 0 ? Mono.<Void>error(error.get()) : Mono.<Void>empty());
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings. Readers never block writers; {@link #isSaturated()} tells the
+ * owner when more values were added than the filter was sized for and it should be rebuilt larger.
+ */
+public final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashFunctions;
+  private final int expectedInsertions;
+  private final AtomicInteger insertions = new AtomicInteger();
+
+  private BloomFilter(long bitCount, int hashFunctions, int expectedInsertions) {
+    this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    this.bitCount = bitCount;
+    this.hashFunctions = hashFunctions;
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  public static BloomFilter create(int expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Invalid bloom filter size");
+    }
+    var bitCount = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2)));
+    var hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+    return new BloomFilter(bitCount, hashFunctions, expectedInsertions);
+  }
+
+  public void put(String value) {
+    var hash = hash(value);
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      var bit = index(h1 + i * h2);
+      var mask = 1L << bit;
+      var word = (int) (bit >>> 6);
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+    insertions.incrementAndGet();
+  }
+
+  public boolean mightContain(String value) {
+    var hash = hash(value);
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      var bit = index(h1 + i * h2);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isSaturated() {
+    return insertions.get() > expectedInsertions;
+  }
+
+  public int expectedInsertions() {
+    return expectedInsertions;
+  }
+
+  private long index(int combined) {
+    return (combined & Integer.MAX_VALUE) % bitCount;
+  }
+
+  private static long hash(String value) {
+    var hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+}
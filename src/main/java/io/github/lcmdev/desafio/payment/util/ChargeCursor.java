@@ -0,0 +1,44 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.github.lcmdev.desafio.payment.model.Charge;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over {@code (created_at, id)}. Charges are listed newest first, so the
+ * cursor points at the last charge returned and the next page starts strictly after it.
+ */
+public record ChargeCursor(Instant createdAt, Long id) {
+
+  private static final String SEPARATOR = ":";
+
+  public static ChargeCursor first(Instant upperBound) {
+    return new ChargeCursor(upperBound, Long.MAX_VALUE);
+  }
+
+  public static ChargeCursor of(Charge charge) {
+    return new ChargeCursor(charge.getCreatedAt(), charge.getId());
+  }
+
+  public static ChargeCursor decode(String value) {
+    try {
+      var parts = new String(Base64.getUrlDecoder().decode(value), UTF_8).split(SEPARATOR);
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return new ChargeCursor(
+          Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+          Long.parseLong(parts[2]));
+    } catch (IllegalArgumentException | DateTimeException ex) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+  }
+
+  public String encode() {
+    var raw = createdAt.getEpochSecond() + SEPARATOR + createdAt.getNano() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+  }
+}
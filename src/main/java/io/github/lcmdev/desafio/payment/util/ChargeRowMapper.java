@@ -0,0 +1,38 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps the {@link #COLUMNS} of {@code tb_charges} to a detached {@code Charge} whose origin and destination carry only
+ * their ids, for the JDBC paths that read charges in bulk without going through Hibernate.
+ */
+public final class ChargeRowMapper implements RowMapper<Charge> {
+    public static final String COLUMNS = """
+            id, origin_id, destination_id, amount, description, status, payment_method, created_at, status_updated_at\
+            """;
+    public static final ChargeRowMapper INSTANCE = new ChargeRowMapper();
+
+    private ChargeRowMapper() {}
+
+    @Override
+    public Charge mapRow(ResultSet rs, int rowNum) throws SQLException {
+        var paymentMethod = rs.getString("payment_method");
+        return Charge.builder()
+                .id(rs.getLong("id"))
+                .origin(User.builder().id(rs.getLong("origin_id")).build())
+                .destination(User.builder().id(rs.getLong("destination_id")).build())
+                .amount(rs.getBigDecimal("amount"))
+                .description(rs.getString("description"))
+                .status(ChargeStatusEnum.valueOf(rs.getString("status")))
+                .paymentMethod(paymentMethod == null ? null : PaymentMethodEnum.valueOf(paymentMethod))
+                .createdAt(rs.getTimestamp("created_at").toInstant())
+                .statusUpdatedAt(rs.getTimestamp("status_updated_at").toInstant())
+                .build();
+    }
+}
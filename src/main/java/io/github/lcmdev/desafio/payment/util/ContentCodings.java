@@ -0,0 +1,47 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static java.util.Objects.isNull;
+
+import java.util.Locale;
+
+/**
+ * Reads an {@code Accept-Encoding} header: a coding is accepted when it is listed with a weight above zero, or when
+ * it is not listed and {@code *} is, and {@code q=0} refuses it.
+ */
+public final class ContentCodings {
+
+    private ContentCodings() {}
+
+    public static boolean accepts(String acceptEncoding, String coding) {
+        if (isNull(acceptEncoding)) {
+            return false;
+        }
+        Double listed = null;
+        Double wildcard = null;
+        for (var element : acceptEncoding.split(",")) {
+            var parameters = element.split(";");
+            var name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals(coding)) {
+                listed = weight(parameters);
+            } else if (name.equals("*")) {
+                wildcard = weight(parameters);
+            }
+        }
+        var accepted = listed != null ? listed : wildcard;
+        return accepted != null && accepted > 0;
+    }
+
+    private static double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            var parameter = parameters[i].trim().toLowerCase(Locale.ROOT);
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
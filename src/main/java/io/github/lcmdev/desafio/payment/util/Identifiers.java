@@ -0,0 +1,31 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static java.util.Objects.isNull;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized forms stored in {@code tb_users}: CPF as digits only and e-mail trimmed and lowercase.
+ */
+public final class Identifiers {
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D");
+
+    private Identifiers() {}
+
+    public static String cpf(String value) {
+        return isNull(value) ? null : NON_DIGITS.matcher(value).replaceAll("");
+    }
+
+    public static String email(String value) {
+        return isNull(value) ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static boolean isEmail(String login) {
+        return !isNull(login) && login.indexOf('@') >= 0;
+    }
+
+    public static String login(String login) {
+        return isEmail(login) ? email(login) : cpf(login);
+    }
+}
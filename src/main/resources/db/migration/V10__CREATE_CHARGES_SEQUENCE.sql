@@ -0,0 +1,7 @@
+-- Sequência de cobranças com incremento 50 (otimizador pooled-lo do Hibernate), permitindo inserts em lote via JDBC;
+-- cada nextval reserva um bloco de 50 ids, então inserts que usam o default da coluna continuam sem colisão
+CREATE SEQUENCE IF NOT EXISTS seq_charges INCREMENT BY 50;
+SELECT setval('seq_charges', (SELECT COALESCE(max(id), 0) + 1 FROM tb_charges), false);
+-->===================================================================================================
+ALTER TABLE tb_charges ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE tb_charges ALTER COLUMN id SET DEFAULT nextval('seq_charges');
@@ -0,0 +1,15 @@
+-- Criando Tabela de Chaves de Idempotência (resposta gravada por usuário e chave; status_code nulo enquanto a
+-- requisição original está em andamento)
+CREATE TABLE IF NOT EXISTS tb_idempotency_keys (
+id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+user_id BIGINT NOT NULL REFERENCES tb_users(id) ON DELETE CASCADE,
+idempotency_key VARCHAR(255) NOT NULL,
+fingerprint VARCHAR(64) NOT NULL,
+status_code INT,
+response_body TEXT,
+created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+completed_at TIMESTAMP WITH TIME ZONE
+);
+-->===================================================================================================
+CREATE UNIQUE INDEX IF NOT EXISTS index_idempotency_user_key ON tb_idempotency_keys(user_id, idempotency_key);
+CREATE INDEX IF NOT EXISTS index_idempotency_created_at ON tb_idempotency_keys(created_at);
@@ -0,0 +1,17 @@
+-- Criando Tabela de Resumo de Cobranças (quantidade e total por usuário, direção e status, atualizada na mesma
+-- transação de cada mudança de status)
+CREATE TABLE IF NOT EXISTS tb_charge_summaries (
+user_id BIGINT NOT NULL REFERENCES tb_users(id) ON DELETE CASCADE,
+direction VARCHAR(10) NOT NULL,
+status VARCHAR(20) NOT NULL,
+charge_count BIGINT NOT NULL DEFAULT 0,
+total_amount NUMERIC(19,2) NOT NULL DEFAULT 0,
+PRIMARY KEY (user_id, direction, status),
+CONSTRAINT chk_charge_summary_direction CHECK (direction IN ('SENT','RECEIVED'))
+);
+-->===================================================================================================
+-- Carga inicial a partir das cobranças existentes
+INSERT INTO tb_charge_summaries (user_id, direction, status, charge_count, total_amount)
+SELECT origin_id, 'SENT', status, count(*), sum(amount) FROM tb_charges GROUP BY origin_id, status;
+INSERT INTO tb_charge_summaries (user_id, direction, status, charge_count, total_amount)
+SELECT destination_id, 'RECEIVED', status, count(*), sum(amount) FROM tb_charges GROUP BY destination_id, status;
@@ -0,0 +1,23 @@
+-- Criando Tabela de Segmentos do Arquivo de Cobranças (arquivos imutáveis em disco local com cobranças liquidadas há
+-- muito tempo; um segmento só passa a valer quando registrado aqui, na mesma transação que remove as linhas de
+-- tb_charges)
+CREATE TABLE IF NOT EXISTS tb_charge_archive_segments (
+id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+file_name VARCHAR(255) NOT NULL UNIQUE,
+row_count INT NOT NULL,
+min_created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+max_created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+-->===================================================================================================
+-- Totais das cobranças arquivadas por usuário, direção e status, somados às linhas de tb_charges na reconstrução de
+-- tb_charge_summaries (a chave estrangeira também impede remover usuários que ainda aparecem no arquivo)
+CREATE TABLE IF NOT EXISTS tb_charge_archive_totals (
+user_id BIGINT NOT NULL REFERENCES tb_users(id),
+direction VARCHAR(10) NOT NULL,
+status VARCHAR(20) NOT NULL,
+charge_count BIGINT NOT NULL DEFAULT 0,
+total_amount NUMERIC(19,2) NOT NULL DEFAULT 0,
+PRIMARY KEY (user_id, direction, status),
+CONSTRAINT chk_charge_archive_total_direction CHECK (direction IN ('SENT','RECEIVED'))
+);
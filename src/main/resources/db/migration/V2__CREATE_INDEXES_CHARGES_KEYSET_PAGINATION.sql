@@ -0,0 +1,11 @@
+-- Índices compostos para paginação por cursor (created_at, id) das cobranças enviadas
+CREATE INDEX IF NOT EXISTS index_origin_created_at_id ON tb_charges(origin_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_origin_status_created_at_id ON tb_charges(origin_id, status, created_at DESC, id DESC);
+-->===================================================================================================
+-- Índices compostos para paginação por cursor (created_at, id) das cobranças recebidas
+CREATE INDEX IF NOT EXISTS index_destination_created_at_id ON tb_charges(destination_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_destination_status_created_at_id ON tb_charges(destination_id, status, created_at DESC, id DESC);
+-->===================================================================================================
+-- Os índices simples passam a ser cobertos pelo prefixo dos índices compostos
+DROP INDEX IF EXISTS index_origin_id;
+DROP INDEX IF EXISTS index_destination_id;
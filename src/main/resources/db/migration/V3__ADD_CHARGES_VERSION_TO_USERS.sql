@@ -0,0 +1,2 @@
+-- Contador de alterações de cobranças por usuário, usado como ETag das listagens
+ALTER TABLE tb_users ADD COLUMN IF NOT EXISTS charges_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Versão da conta, usada no controle otimista de concorrência do saldo
+ALTER TABLE tb_accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,20 @@
+-- Criando Tabela de Lançamentos (diário somente de inclusão, valor positivo para crédito e negativo para débito)
+CREATE TABLE IF NOT EXISTS tb_ledger_entries (
+id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+transaction_id UUID NOT NULL,
+account_id BIGINT NOT NULL REFERENCES tb_accounts(id) ON DELETE RESTRICT,
+amount NUMERIC(19,2) NOT NULL,
+created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+CONSTRAINT chk_ledger_amount CHECK (amount <> 0)
+);
+-->===================================================================================================
+CREATE INDEX IF NOT EXISTS index_ledger_account_id_id ON tb_ledger_entries(account_id, id);
+CREATE INDEX IF NOT EXISTS index_ledger_transaction_id ON tb_ledger_entries(transaction_id);
+-->===================================================================================================
+-- Criando Tabela de Fotografias de Saldo (saldo consolidado até o lançamento last_entry_id)
+CREATE TABLE IF NOT EXISTS tb_balance_snapshots (
+account_id BIGINT PRIMARY KEY REFERENCES tb_accounts(id) ON DELETE CASCADE,
+balance NUMERIC(19,2) NOT NULL,
+last_entry_id BIGINT NOT NULL,
+updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
@@ -0,0 +1,7 @@
+-- Criando Tabela de Sub-saldos de contas quentes (o saldo da conta é tb_accounts.balance somado aos shards)
+CREATE TABLE IF NOT EXISTS tb_account_shards (
+account_id BIGINT NOT NULL REFERENCES tb_accounts(id) ON DELETE CASCADE,
+shard INT NOT NULL,
+balance NUMERIC(19,2) NOT NULL DEFAULT 0,
+PRIMARY KEY (account_id, shard)
+);
@@ -0,0 +1,7 @@
+-- Estados intermediários enquanto o autorizador externo é consultado fora de transação
+ALTER TABLE tb_charges DROP CONSTRAINT IF EXISTS chk_charge_status;
+ALTER TABLE tb_charges ADD CONSTRAINT chk_charge_status CHECK (status IN ('PENDING','AUTHORIZING','PAID','REFUNDING','CANCELED'));
+-->===================================================================================================
+-- Momento da última transição de estado, usado para liberar reservas abandonadas
+ALTER TABLE tb_charges ADD COLUMN IF NOT EXISTS status_updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS index_status_status_updated_at ON tb_charges(status, status_updated_at);
@@ -0,0 +1,10 @@
+-- Criando Tabela de Tokens Revogados (logout); as linhas só precisam existir até o token expirar
+CREATE TABLE IF NOT EXISTS tb_revoked_tokens (
+jti VARCHAR(36) PRIMARY KEY,
+user_id BIGINT NOT NULL REFERENCES tb_users(id) ON DELETE CASCADE,
+expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+revoked_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+-->===================================================================================================
+CREATE INDEX IF NOT EXISTS index_revoked_at ON tb_revoked_tokens(revoked_at);
+CREATE INDEX IF NOT EXISTS index_expires_at ON tb_revoked_tokens(expires_at);
@@ -0,0 +1,24 @@
+-- Normalizando CPF (apenas dígitos) e e-mail (minúsculo) para que index_cpf e index_email garantam unicidade
+-- e o login resolva o identificador com uma única consulta indexada
+-- Antes, aborta se dois usuários passarem a ter o mesmo CPF ou e-mail: a normalização violaria os índices únicos e
+-- não há como escolher automaticamente qual conta (saldo, cobranças) manter. A falha cita a constraint
+-- ck_resolve_duplicated_users_before_v9 e a linha recusada traz o campo e o valor normalizado em conflito; unifique
+-- ou corrija esses cadastros manualmente e rode a migração de novo.
+CREATE TABLE tb_users_normalization_conflicts (
+    field VARCHAR(5),
+    normalized_value VARCHAR(255),
+    CONSTRAINT ck_resolve_duplicated_users_before_v9 CHECK (field IS NULL)
+);
+INSERT INTO tb_users_normalization_conflicts (field, normalized_value)
+SELECT 'cpf', regexp_replace(cpf, '\D', '', 'g') FROM tb_users
+GROUP BY regexp_replace(cpf, '\D', '', 'g') HAVING count(*) > 1;
+INSERT INTO tb_users_normalization_conflicts (field, normalized_value)
+SELECT 'email', lower(trim(email)) FROM tb_users
+GROUP BY lower(trim(email)) HAVING count(*) > 1;
+DROP TABLE tb_users_normalization_conflicts;
+-->===================================================================================================
+UPDATE tb_users SET cpf = regexp_replace(cpf, '\D', '', 'g')
+WHERE cpf <> regexp_replace(cpf, '\D', '', 'g');
+-->===================================================================================================
+UPDATE tb_users SET email = lower(trim(email))
+WHERE email <> lower(trim(email));
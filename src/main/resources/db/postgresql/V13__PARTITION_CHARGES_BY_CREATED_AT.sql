@@ -0,0 +1,56 @@
+-- Particionamento de tb_charges por faixa mensal de created_at (somente PostgreSQL). A tabela atual é anexada, sem
+-- cópia de linhas, como a partição tb_charges_legacy de tudo o que foi criado até o fim do mês corrente; os meses
+-- seguintes ficam em partições tb_charges_pAAAAMM, criadas com antecedência pelo ChargePartitionManager.
+-- Em bases grandes, crie antes, fora da migração, o índice exigido pela chave primária particionada, evitando
+-- bloquear a tabela durante a construção:
+--   CREATE UNIQUE INDEX CONCURRENTLY index_charges_legacy_id_created_at ON tb_charges(id, created_at);
+-- O ATTACH PARTITION abaixo varre a tabela inteira sob ACCESS EXCLUSIVE para validar o limite da partição, a menos
+-- que um CHECK já validado o garanta. No mesmo mês (UTC) em que a migração vai rodar, crie-o e valide-o antes, fora
+-- dela; o VALIDATE varre a tabela sem bloquear escritas. O limite é o primeiro dia do mês seguinte, e se o mês virar
+-- antes da migração as novas cobranças são recusadas, então remova a constraint nesse caso:
+--   ALTER TABLE tb_charges ADD CONSTRAINT ck_charges_legacy_created_at CHECK (created_at < '2026-11-01 00:00:00+00') NOT VALID;
+--   ALTER TABLE tb_charges VALIDATE CONSTRAINT ck_charges_legacy_created_at;
+ALTER TABLE tb_charges RENAME TO tb_charges_legacy;
+ALTER INDEX index_origin_created_at_id RENAME TO index_legacy_origin_created_at_id;
+ALTER INDEX index_origin_status_created_at_id RENAME TO index_legacy_origin_status_created_at_id;
+ALTER INDEX index_destination_created_at_id RENAME TO index_legacy_destination_created_at_id;
+ALTER INDEX index_destination_status_created_at_id RENAME TO index_legacy_destination_status_created_at_id;
+ALTER INDEX index_status_status_updated_at RENAME TO index_legacy_status_status_updated_at;
+CREATE UNIQUE INDEX IF NOT EXISTS index_charges_legacy_id_created_at ON tb_charges_legacy(id, created_at);
+-- A chave primária só por id é substituída pela chave (id, created_at) sustentada pelo índice acima
+ALTER TABLE tb_charges_legacy DROP CONSTRAINT tb_charges_pkey,
+    ADD CONSTRAINT tb_charges_legacy_pkey PRIMARY KEY USING INDEX index_charges_legacy_id_created_at;
+-->===================================================================================================
+-- Tabela particionada com as mesmas colunas, defaults e checks; a chave primária passa a incluir created_at
+CREATE TABLE tb_charges (LIKE tb_charges_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at);
+-- O CHECK opcional do cabeçalho só vale para a partição legada, não para as cobranças novas
+ALTER TABLE tb_charges DROP CONSTRAINT IF EXISTS ck_charges_legacy_created_at;
+ALTER TABLE tb_charges ADD CONSTRAINT tb_charges_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE tb_charges ADD CONSTRAINT tb_charges_origin_id_fkey
+    FOREIGN KEY (origin_id) REFERENCES tb_users(id) ON DELETE RESTRICT;
+ALTER TABLE tb_charges ADD CONSTRAINT tb_charges_destination_id_fkey
+    FOREIGN KEY (destination_id) REFERENCES tb_users(id) ON DELETE RESTRICT;
+-->===================================================================================================
+-- Anexa a tabela antiga até o início do próximo mês (UTC) e cria as partições dos três meses seguintes
+DO $$
+DECLARE
+    next_month TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '1 month';
+    month TIMESTAMP;
+BEGIN
+    EXECUTE format('ALTER TABLE tb_charges ATTACH PARTITION tb_charges_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+        next_month AT TIME ZONE 'UTC');
+    ALTER TABLE tb_charges_legacy DROP CONSTRAINT IF EXISTS ck_charges_legacy_created_at;
+    FOR i IN 0..2 LOOP
+        month := next_month + i * INTERVAL '1 month';
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF tb_charges FOR VALUES FROM (%L) TO (%L)',
+            'tb_charges_p' || to_char(month, 'YYYYMM'), month AT TIME ZONE 'UTC',
+            (month + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    END LOOP;
+END $$;
+-->===================================================================================================
+-- Índices particionados: os equivalentes já existentes em tb_charges_legacy são anexados, não reconstruídos
+CREATE INDEX IF NOT EXISTS index_origin_created_at_id ON tb_charges(origin_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_origin_status_created_at_id ON tb_charges(origin_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_destination_created_at_id ON tb_charges(destination_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_destination_status_created_at_id ON tb_charges(destination_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS index_status_status_updated_at ON tb_charges(status, status_updated_at);
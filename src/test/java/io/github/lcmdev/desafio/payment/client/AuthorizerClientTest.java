@@ -1,94 +1,192 @@
 package io.github.lcmdev.desafio.payment.client;
 
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.when;
-import static org.mockito.MockitoAnnotations.openMocks;
 
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient.Outcome;
+import io.github.lcmdev.desafio.payment.client.AuthorizerProperties.Bulkhead;
+import io.github.lcmdev.desafio.payment.client.AuthorizerProperties.CircuitBreaker;
+import io.github.lcmdev.desafio.payment.mock.AuthorizerStubServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
 class AuthorizerClientTest {
 
-  @Mock
-  private WebClient mockWebClient;
+  private AuthorizerStubServer server;
+  private SimpleMeterRegistry meterRegistry;
+  private AuthorizerClient authorizerClient;
 
-  @Mock
-  private WebClient.RequestHeadersUriSpec<?> mockRequestHeadersUriSpec;
+  @BeforeAll
+  static void warmUp() throws IOException {
+    try (var warmUpServer = new AuthorizerStubServer().respond(200, "AUTHORIZED")) {
+      new AuthorizerClient(AuthorizerProperties.of(warmUpServer.url()), new SimpleMeterRegistry()).authorize();
+    }
+  }
 
-  @Mock
-  private WebClient.RequestHeadersSpec<?> mockRequestHeadersSpec;
+  @BeforeEach
+  void setUp() throws IOException {
+    server = new AuthorizerStubServer();
+    meterRegistry = new SimpleMeterRegistry();
+    authorizerClient = new AuthorizerClient(new AuthorizerProperties(server.url(),
+        Duration.ofMillis(500), Duration.ofMillis(500), null,
+        new Bulkhead(1, Duration.ofMillis(20)),
+        new CircuitBreaker(50f, 4, 4, Duration.ofMillis(300), 1)), meterRegistry);
+  }
 
-  @Mock
-  private WebClient.ResponseSpec mockResponseSpec;
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
 
-  private AuthorizerClient authorizerClient;
+  @Test
+  void shouldAuthorizeReturnsTrueForAuthorizedResponse() {
+    server.respond(200, "{\"status\":\"AUTHORIZED\"}");
 
-  @BeforeEach
-  void setUp() {
-    openMocks(this);
-    authorizerClient = new AuthorizerClient("http://fake-url.com");
-    ReflectionTestUtils.setField(authorizerClient, "webClient", mockWebClient);
+    assertAll(
+        () -> assertTrue(authorizerClient.authorize()),
+        () -> assertEquals(1, count(Outcome.APPROVED))
+    );
   }
 
   @Test
-  void shouldAuthorizeReturnsTrueForAuthorizedResponse() {
-    when(mockWebClient.get()).thenReturn(
-        (WebClient.RequestHeadersUriSpec) mockRequestHeadersUriSpec);
-    when(mockRequestHeadersUriSpec.retrieve()).thenReturn(mockResponseSpec);
-    when(mockResponseSpec.bodyToMono(String.class)).thenReturn(Mono.just("AUTHORIZED"));
+  void shouldAuthorizeReturnsTrueForApprovedResponse() {
+    server.respond(200, "APPROVED");
+
+    assertTrue(authorizerClient.authorize());
+  }
 
-    boolean result = authorizerClient.authorize();
+  @Test
+  void shouldAuthorizeReturnsFalseForEmptyResponse() {
+    server.respond(200, "");
 
-    assertTrue(result);
+    assertAll(
+        () -> assertFalse(authorizerClient.authorize()),
+        () -> assertEquals(1, count(Outcome.DENIED))
+    );
   }
 
   @Test
-  void shouldAuthorizeReturnsTrueForApprovedResponse() {
-    when(mockWebClient.get()).thenReturn(
-        (WebClient.RequestHeadersUriSpec) mockRequestHeadersUriSpec);
-    when(mockRequestHeadersUriSpec.retrieve()).thenReturn(mockResponseSpec);
-    when(mockResponseSpec.bodyToMono(String.class)).thenReturn(Mono.just("APPROVED"));
+  void shouldAuthorizeReturnsFalseForUnexpectedResponse() {
+    server.respond(200, "DECLINED");
 
-    boolean result = authorizerClient.authorize();
+    assertAll(
+        () -> assertFalse(authorizerClient.authorize()),
+        () -> assertEquals(1, count(Outcome.DENIED))
+    );
+  }
+
+  @Test
+  void shouldTreatClientErrorAsDenialWithoutOpeningCircuit() {
+    server.respond(403, "{\"status\":\"fail\"}");
+
+    for (int i = 0; i < 5; i++) {
+      assertFalse(authorizerClient.authorize());
+    }
 
-    assertTrue(result);
+    assertAll(
+        () -> assertEquals(5, count(Outcome.DENIED)),
+        () -> assertEquals(State.CLOSED, authorizerClient.circuitState())
+    );
   }
 
   @Test
-  void shouldAuthorizeReturnsFalseForNullResponse() {
-    when(mockWebClient.get()).thenReturn(
-        (WebClient.RequestHeadersUriSpec) mockRequestHeadersUriSpec);
-    when(mockRequestHeadersUriSpec.retrieve()).thenReturn(mockResponseSpec);
-    when(mockResponseSpec.bodyToMono(String.class)).thenReturn(Mono.justOrEmpty(null));
+  void shouldReturnFalseAndRecordTimeoutWhenAuthorizerIsSlow() {
+    server.respond(200, "AUTHORIZED").delay(1_500);
 
-    boolean result = authorizerClient.authorize();
+    assertAll(
+        () -> assertFalse(authorizerClient.authorize()),
+        () -> assertEquals(1, count(Outcome.TIMEOUT))
+    );
+  }
+
+  @Test
+  void shouldAuthorizeReturnsFalseOnConnectionError() {
+    server.close();
 
-    assertFalse(result);
+    assertAll(
+        () -> assertFalse(authorizerClient.authorize()),
+        () -> assertEquals(1, count(Outcome.ERROR))
+    );
   }
 
   @Test
-  void shouldAuthorizeReturnsFalseForUnexpectedResponse() {
-    when(mockWebClient.get()).thenReturn(
-        (WebClient.RequestHeadersUriSpec) mockRequestHeadersUriSpec);
-    when(mockRequestHeadersUriSpec.retrieve()).thenReturn(mockResponseSpec);
-    when(mockResponseSpec.bodyToMono(String.class)).thenReturn(Mono.just("DECLINED"));
+  void shouldOpenCircuitOnServerErrorsAndCloseAfterHalfOpenProbe() throws InterruptedException {
+    server.respond(500, "boom");
+    for (int i = 0; i < 4; i++) {
+      authorizerClient.authorize();
+    }
+    var requestsWhenOpened = server.requests();
+
+    assertAll(
+        () -> assertEquals(State.OPEN, authorizerClient.circuitState()),
+        () -> assertFalse(authorizerClient.authorize()),
+        () -> assertEquals(requestsWhenOpened, server.requests()),
+        () -> assertEquals(1, count(Outcome.REJECTED))
+    );
+
+    Thread.sleep(400);
+    server.respond(200, "AUTHORIZED");
+
+    assertAll(
+        () -> assertTrue(authorizerClient.authorize()),
+        () -> assertEquals(State.CLOSED, authorizerClient.circuitState())
+    );
+  }
 
-    boolean result = authorizerClient.authorize();
+  @Test
+  void shouldRejectCallsBeyondBulkheadLimit() {
+    server.respond(200, "AUTHORIZED").delay(200);
+
+    var first = CompletableFuture.supplyAsync(authorizerClient::authorize);
+    while (server.requests() == 0) {
+      Thread.onSpinWait();
+    }
+    var second = authorizerClient.authorize();
+
+    assertAll(
+        () -> assertTrue(first.join()),
+        () -> assertFalse(second),
+        () -> assertEquals(1, count(Outcome.REJECTED)),
+        () -> assertEquals(1, server.requests())
+    );
+  }
 
-    assertFalse(result);
+  @Test
+  void shouldAuthorizeAsyncWithoutBlockingCaller() {
+    server.respond(200, "AUTHORIZED");
+
+    var authorization = authorizerClient.authorizeAsync();
+
+    assertAll(
+        () -> assertEquals(0, server.requests()),
+        () -> assertEquals(Boolean.TRUE, authorization.block()),
+        () -> assertEquals(1, count(Outcome.APPROVED))
+    );
   }
 
   @Test
-  void shouldAuthorizeReturnsFalseOnException() {
-    when(mockWebClient.get()).thenThrow(new RuntimeException("Timeout"));
+  void shouldAuthorizeAsyncFallBackToDenialOnTimeout() {
+    server.respond(200, "AUTHORIZED").delay(1_500);
 
-    boolean result = authorizerClient.authorize();
+    assertAll(
+        () -> assertEquals(Boolean.FALSE, authorizerClient.authorizeAsync().block()),
+        () -> assertEquals(1, count(Outcome.TIMEOUT))
+    );
+  }
 
-    assertFalse(result);
+  private long count(Outcome outcome) {
+    return meterRegistry.get(AuthorizerClient.METRIC)
+        .tag("outcome", outcome.name().toLowerCase())
+        .timer()
+        .count();
   }
-}
\ No newline at end of file
+}
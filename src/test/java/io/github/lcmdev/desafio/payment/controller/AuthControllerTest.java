@@ -4,15 +4,19 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.lcmdev.desafio.payment.controller.dto.request.LoginRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.exception.PasswordHashingRejectedException;
 import io.github.lcmdev.desafio.payment.model.User;
 import io.github.lcmdev.desafio.payment.service.AuthService;
 import org.junit.jupiter.api.Test;
@@ -102,4 +106,40 @@ class AuthControllerTest {
         .andExpect(status().isUnauthorized())
         .andExpect(jsonPath("$.error", is("Credenciais inválidas")));
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldLogoutWithBearerToken() throws Exception {
+    mockMvc.perform(post("/api/v1/auth/logout")
+            .header("Authorization", "Bearer jwt-token-123"))
+        .andExpect(status().isNoContent());
+
+    verify(authService).logout("jwt-token-123");
+  }
+
+  @Test
+  void shouldReturnUnauthorizedWhenLogoutTokenIsInvalid() throws Exception {
+    doThrow(new IllegalArgumentException("Invalid token")).when(authService).logout("expired");
+
+    mockMvc.perform(post("/api/v1/auth/logout")
+            .header("Authorization", "Bearer expired"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(jsonPath("$.error", is("Invalid token")));
+  }
+
+  @Test
+  void shouldReturnUnauthorizedWhenLogoutHasNoToken() throws Exception {
+    mockMvc.perform(post("/api/v1/auth/logout"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void shouldReturnServiceUnavailableWhenPasswordHasherIsSaturated() throws Exception {
+    when(authService.login(any(), any())).thenThrow(new PasswordHashingRejectedException());
+
+    mockMvc.perform(post("/api/v1/auth/login")
+            .contentType(APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(new LoginRequestDTO("52998224725", "secret"))))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string("Retry-After", "1"));
+  }
+}
@@ -1,30 +1,64 @@
 package io.github.lcmdev.desafio.payment.controller;
 
 import static io.github.lcmdev.desafio.payment.controller.dto.response.ChargeResponseDTO.toChargeResponse;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
 import static io.github.lcmdev.desafio.payment.mock.PaymentServiceMock.createChargePendingMock;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.lcmdev.desafio.payment.controller.dto.request.CardPaymentRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
 import io.github.lcmdev.desafio.payment.controller.dto.request.DepositRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.PayChargesRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BatchPaymentResultDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResultDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargePageResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.ChargeSummaryResponseDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.StatusSummaryDTO;
 import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
 import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.service.ChargeExportService;
+import io.github.lcmdev.desafio.payment.service.ChargeSummaryService;
+import io.github.lcmdev.desafio.payment.service.IdempotencyService;
 import io.github.lcmdev.desafio.payment.service.PaymentService;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
 import io.github.lcmdev.desafio.payment.util.SecurityUtil;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,11 +67,15 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @SpringBootTest
 @AutoConfigureMockMvc(addFilters = false)
@@ -53,6 +91,23 @@ class ChargeControllerTest {
   @MockitoBean
   private PaymentService paymentService;
 
+  @MockitoBean
+  private ChargeSummaryService chargeSummaryService;
+
+  @MockitoBean
+  private ChargeArchive chargeArchive;
+
+  @MockitoBean
+  private ChargeExportService chargeExportService;
+
+  @MockitoBean
+  private ChargeEventBus chargeEventBus;
+
+  @MockitoSpyBean
+  private IdempotencyService idempotencyService;
+
+  private static final String SENT_ETAG = "\"sent-1-3-0000abcd\"";
+
   private MockedStatic<SecurityUtil> mockedSecurityUtil;
 
   @BeforeEach
@@ -84,11 +139,86 @@ class ChargeControllerTest {
         .andExpect(jsonPath("$.id", notNullValue()));
   }
 
+  @Test
+  void shouldCreateChargesInBulkFromNdjson() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    stubBulkCreation();
+
+    mockMvc.perform(post("/api/v1/charges/bulk")
+            .contentType(APPLICATION_NDJSON_VALUE)
+            .content("""
+                {"destinationCpf":"02345678999","amount":10.00,"description":"a"}
+                {"destinationCpf":"52998224725","amount":0,"description":"b"}
+                {"destinationCpf":"74770769008","amount":20.00}
+                """))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(2)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.results[0].id", is(100)))
+        .andExpect(jsonPath("$.results[1].error", is("Value must be positive")))
+        .andExpect(jsonPath("$.results[2].index", is(2)));
+
+    verify(paymentService, times(1)).createCharges(eq(1L), any(), eq(0));
+  }
+
+  @Test
+  void shouldCreateChargesInBulkFromJsonArray() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    stubBulkCreation();
+
+    mockMvc.perform(post("/api/v1/charges/bulk")
+            .contentType(APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(List.of(
+                new CreateChargeRequestDTO("02345678999", new BigDecimal("10.00"), "a"),
+                new CreateChargeRequestDTO("74770769008", new BigDecimal("20.00"), "b")))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(2)))
+        .andExpect(jsonPath("$.results[1].id", is(101)));
+  }
+
+  @Test
+  void shouldStopBulkCreationAtMalformedItem() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    stubBulkCreation();
+
+    mockMvc.perform(post("/api/v1/charges/bulk")
+            .contentType(APPLICATION_NDJSON_VALUE)
+            .content("""
+                {"destinationCpf":"02345678999","amount":10.00}
+                {"destinationCpf":
+                {"destinationCpf":"74770769008","amount":20.00}
+                """))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(1)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.results.length()", is(2)))
+        .andExpect(jsonPath("$.results[1].error", is("Malformed charge")));
+  }
+
+  @Test
+  void shouldReportChunkRejectedByDatabaseAsFailed() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    when(paymentService.createCharges(eq(1L), any(), anyInt()))
+        .thenThrow(new DataIntegrityViolationException("numeric field overflow"));
+
+    mockMvc.perform(post("/api/v1/charges/bulk")
+            .contentType(APPLICATION_NDJSON_VALUE)
+            .content("""
+                {"destinationCpf":"02345678999","amount":10.00}
+                {"destinationCpf":"74770769008","amount":20.00}
+                """))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(0)))
+        .andExpect(jsonPath("$.failed", is(2)))
+        .andExpect(jsonPath("$.results[1].index", is(1)))
+        .andExpect(jsonPath("$.results[1].error", is("Charge could not be created")));
+  }
+
   @Test
   void shouldReturnNoContentWhenNoSentCharges() throws Exception {
     mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
 
-    when(paymentService.listChargesSent(eq(1L), any())).thenReturn(Collections.emptyList());
+    when(paymentService.listChargesSent(eq(1L), any())).thenReturn(new ChargePageResponseDTO(List.of(), null));
 
     mockMvc.perform(get("/api/v1/charges/sent"))
         .andExpect(status().isNoContent());
@@ -98,17 +228,33 @@ class ChargeControllerTest {
   void shouldReturnOkWhenSentChargesExists() throws Exception {
     mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
 
+    when(paymentService.chargesETag(eq(1L), eq(SENT), any())).thenReturn(SENT_ETAG);
     when(paymentService.listChargesSent(eq(1L), any())).thenReturn(
-        toChargeResponse(List.of(createChargePendingMock())));
+        new ChargePageResponseDTO(toChargeResponse(List.of(createChargePendingMock())), null));
 
     mockMvc.perform(get("/api/v1/charges/sent"))
-        .andExpect(status().isOk());
+        .andExpect(status().isOk())
+        .andExpect(header().string(ETAG, SENT_ETAG));
+
+    verify(paymentService, times(1)).listChargesSent(eq(1L), any());
+  }
+
+  @Test
+  void shouldReturnNotModifiedWithoutListingWhenETagMatches() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    when(paymentService.chargesETag(eq(1L), eq(SENT), any())).thenReturn(SENT_ETAG);
+
+    mockMvc.perform(get("/api/v1/charges/sent").header(IF_NONE_MATCH, SENT_ETAG))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(ETAG, SENT_ETAG));
+
+    verify(paymentService, never()).listChargesSent(any(), any());
   }
 
   @Test
   void shouldReturnNoContentWhenNoReceivedCharges() throws Exception {
     mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
-    when(paymentService.listChargesReceived(eq(2L), any())).thenReturn(Collections.emptyList());
+    when(paymentService.listChargesReceived(eq(2L), any())).thenReturn(new ChargePageResponseDTO(List.of(), null));
 
     mockMvc.perform(get("/api/v1/charges/received").param("status", "PENDING"))
         .andExpect(status().isNoContent());
@@ -117,10 +263,96 @@ class ChargeControllerTest {
   @Test
   void shouldReturnOkWhenReceivedChargesExists() throws Exception {
     mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
-    when(paymentService.listChargesReceived(eq(2L), any())).thenReturn(toChargeResponse(List.of(createChargePendingMock())));
+    when(paymentService.listChargesReceived(eq(2L), any())).thenReturn(
+        new ChargePageResponseDTO(toChargeResponse(List.of(createChargePendingMock())), "next"));
 
     mockMvc.perform(get("/api/v1/charges/received").param("status", "PENDING"))
-        .andExpect(status().isOk());
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.next", is("next")));
+  }
+
+  @Test
+  void shouldReturnChargeSummaryOfCurrentUser() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    when(chargeSummaryService.summaryOf(1L)).thenReturn(new ChargeSummaryResponseDTO(
+        Map.of(ChargeStatusEnum.PENDING, new StatusSummaryDTO(3, new BigDecimal("300.00"))),
+        Map.of(ChargeStatusEnum.PAID, new StatusSummaryDTO(1, new BigDecimal("50.00")))));
+
+    mockMvc.perform(get("/api/v1/charges/summary"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sent.PENDING.count", is(3)))
+        .andExpect(jsonPath("$.sent.PENDING.total", is(300.00)))
+        .andExpect(jsonPath("$.received.PAID.count", is(1)));
+  }
+
+  @Test
+  void shouldStreamGzippedExportWhenClientAcceptsIt() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    doAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(2).write("{\"id\":1}\n".getBytes(UTF_8));
+      return 1L;
+    }).when(chargeExportService).export(eq(1L), any(), any());
+
+    var result = mockMvc.perform(get("/api/v1/charges/export")
+            .param("direction", "received")
+            .param("format", "ndjson")
+            .header(ACCEPT_ENCODING, "gzip, deflate"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    var response = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().string(CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(CONTENT_TYPE, APPLICATION_NDJSON_VALUE))
+        .andExpect(header().string(CONTENT_DISPOSITION, "attachment; filename=\"charges-received.ndjson\""))
+        .andReturn().getResponse();
+    try (var body = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+      assertEquals("{\"id\":1}\n", new String(body.readAllBytes(), UTF_8));
+    }
+  }
+
+  @Test
+  void shouldNotGzipExportWhenClientRefusesIt() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    doAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(2).write("{\"id\":1}\n".getBytes(UTF_8));
+      return 1L;
+    }).when(chargeExportService).export(eq(1L), any(), any());
+
+    var result = mockMvc.perform(get("/api/v1/charges/export")
+            .param("direction", "received")
+            .param("format", "ndjson")
+            .header(ACCEPT_ENCODING, "gzip;q=0, identity"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    var response = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(CONTENT_ENCODING))
+        .andReturn().getResponse();
+    assertEquals("{\"id\":1}\n", response.getContentAsString(UTF_8));
+  }
+
+  @Test
+  void shouldSubscribeCurrentUserToChargeEventsFromLastEventId() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    when(chargeEventBus.subscribe(1L, "42")).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/v1/charges/stream").header("Last-Event-ID", "42"))
+        .andExpect(request().asyncStarted());
+
+    verify(chargeEventBus).subscribe(1L, "42");
+  }
+
+  @Test
+  void shouldRejectExportWithoutDirectionBeforeStreaming() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+
+    mockMvc.perform(get("/api/v1/charges/export").param("format", "csv"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("Direction is required")));
+
+    verify(chargeExportService, never()).export(any(), any(), any());
   }
 
   @Test
@@ -145,6 +377,50 @@ class ChargeControllerTest {
         .andExpect(status().isInternalServerError());
   }
 
+  @Test
+  void shouldPayChargesByBalanceInBatch() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
+    when(paymentService.payByBalance(2L, List.of(1L, 2L), false)).thenReturn(List.of(
+        BatchPaymentResultDTO.paid(1L), BatchPaymentResultDTO.failed(2L, "Insufficient balance")));
+
+    mockMvc.perform(post("/api/v1/charges/pay/balance")
+            .contentType(APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(new PayChargesRequestDTO(List.of(1L, 2L), false))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.paid", is(1)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.results[0].paid", is(true)))
+        .andExpect(jsonPath("$.results[1].error", is("Insufficient balance")));
+  }
+
+  @Test
+  void shouldPayChargesByBalanceAtomicallyByDefault() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
+    when(paymentService.payByBalance(2L, List.of(1L, 2L), true))
+        .thenThrow(new IllegalStateException("Charge is not pending"));
+
+    mockMvc.perform(post("/api/v1/charges/pay/balance")
+            .contentType(APPLICATION_JSON_VALUE)
+            .content("{\"chargeIds\":[1,2]}"))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  void shouldReplayDepositWithSameIdempotencyKey() throws Exception {
+    mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
+    doReturn(ResponseEntity.ok().header(IdempotencyService.REPLAYED_HEADER, "true").body("{\"deposited\":true}"))
+        .when(idempotencyService).execute(eq(1L), eq("retry-1"), eq("deposit DepositRequestDTO[amount=50.00]"), any());
+
+    mockMvc.perform(post("/api/v1/charges/deposit")
+            .header(IdempotencyService.HEADER, "retry-1")
+            .contentType(APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(new DepositRequestDTO(new BigDecimal("50.00")))))
+        .andExpect(status().isOk())
+        .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"));
+
+    verify(paymentService, never()).deposit(any(), any());
+  }
+
   @Test
   void shouldPayByCardWithSuccess() throws Exception {
     mockedSecurityUtil.when(SecurityUtil::getCurrentUserId).thenReturn(3L);
@@ -215,4 +491,16 @@ class ChargeControllerTest {
         .andExpect(status().isPaymentRequired())
         .andExpect(jsonPath("$.deposited", is(false)));
   }
-}
\ No newline at end of file
+
+  private void stubBulkCreation() {
+    when(paymentService.createCharges(eq(1L), any(), anyInt())).thenAnswer(invocation -> {
+      List<CreateChargeRequestDTO> requests = invocation.getArgument(1);
+      int firstIndex = invocation.getArgument(2);
+      return IntStream.range(0, requests.size())
+          .mapToObj(i -> requests.get(i).amount().signum() > 0
+              ? BulkChargeResultDTO.created(firstIndex + i, 100L + firstIndex + i)
+              : BulkChargeResultDTO.failed(firstIndex + i, "Value must be positive"))
+          .toList();
+    });
+  }
+}
@@ -0,0 +1,385 @@
+package io.github.lcmdev.desafio.payment.controller.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.ETAG;
+
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CardPaymentRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.DepositRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.LoginRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reactive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.flyway.enabled=true",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+    "spring.jpa.hibernate.ddl-auto=none",
+    "spring.r2dbc.url=r2dbc:h2:mem:///reactive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.r2dbc.username=sa",
+    "spring.r2dbc.password="
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveChargeControllerTest {
+
+  private static final AtomicInteger USERS = new AtomicInteger();
+  private static final CardPaymentRequestDTO CARD =
+      new CardPaymentRequestDTO("4111111111111111", "12/30", "123");
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @MockitoBean
+  private AuthorizerClient authorizerClient;
+
+  @MockitoBean
+  private ChargeArchive chargeArchive;
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  private String merchantToken;
+  private String merchantCpf;
+  private String customerToken;
+  private String customerCpf;
+
+  @BeforeEach
+  void setUp() {
+    merchantCpf = nextCpf();
+    merchantToken = registerAndLogin(merchantCpf);
+    customerCpf = nextCpf();
+    customerToken = registerAndLogin(customerCpf);
+    when(authorizerClient.authorizeAsync()).thenReturn(Mono.just(true));
+  }
+
+  @Test
+  void shouldPayByBalanceAndCancelThroughReactiveStack() {
+    deposit(customerToken, "100.00");
+    var chargeId = createCharge("40.00");
+
+    var eTag = webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges.length()").isEqualTo(1)
+        .jsonPath("$.charges[0].status").isEqualTo("PENDING")
+        .returnResult().getResponseHeaders().getETag();
+
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus().isNotModified();
+
+    webTestClient.post().uri("/api/v1/charges/{id}/pay/balance", chargeId)
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.status").isEqualTo("PAID");
+
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().exists(ETAG)
+        .expectBody()
+        .jsonPath("$.charges[0].status").isEqualTo("PAID")
+        .jsonPath("$.charges[0].origin.account.balance").isEqualTo(40.0)
+        .jsonPath("$.charges[0].destination.account.balance").isEqualTo(60.0);
+
+    webTestClient.post().uri("/api/v1/charges/{id}/cancel", chargeId)
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.status").isEqualTo("CANCELED");
+
+    webTestClient.get().uri("/api/v1/charges/received?status=canceled")
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges[0].status").isEqualTo("CANCELED")
+        .jsonPath("$.charges[0].origin.account.balance").isEqualTo(0.0)
+        .jsonPath("$.charges[0].destination.account.balance").isEqualTo(100.0);
+  }
+
+  @Test
+  void shouldChangeListingETagWhenOwnBalanceChanges() {
+    createCharge("40.00");
+
+    var eTag = webTestClient.get().uri("/api/v1/charges/received")
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges[0].destination.account.balance").isEqualTo(0.0)
+        .returnResult().getResponseHeaders().getETag();
+
+    deposit(customerToken, "10.00");
+
+    webTestClient.get().uri("/api/v1/charges/received")
+        .header(AUTHORIZATION, bearer(customerToken))
+        .ifNoneMatch(eTag)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges[0].destination.account.balance").isEqualTo(10.0);
+  }
+
+  @Test
+  void shouldRejectBalancePaymentWhenBalanceIsInsufficient() {
+    var chargeId = createCharge("40.00");
+
+    webTestClient.post().uri("/api/v1/charges/{id}/pay/balance", chargeId)
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.error").isEqualTo("Insufficient balance");
+  }
+
+  @Test
+  void shouldReturnChargeToPendingWhenCardIsDenied() {
+    var chargeId = createCharge("25.00");
+    when(authorizerClient.authorizeAsync()).thenReturn(Mono.just(false));
+
+    webTestClient.post().uri("/api/v1/charges/{id}/pay/card", chargeId)
+        .header(AUTHORIZATION, bearer(customerToken))
+        .bodyValue(CARD)
+        .exchange()
+        .expectStatus().isEqualTo(402)
+        .expectBody().jsonPath("$.paid").isEqualTo(false);
+
+    webTestClient.get().uri("/api/v1/charges/received")
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.charges[0].status").isEqualTo("PENDING");
+  }
+
+  @Test
+  void shouldCreditReceiverWhenCardIsApproved() {
+    var chargeId = createCharge("25.00");
+
+    webTestClient.post().uri("/api/v1/charges/{id}/pay/card", chargeId)
+        .header(AUTHORIZATION, bearer(customerToken))
+        .bodyValue(CARD)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.paid").isEqualTo(true);
+
+    webTestClient.get().uri("/api/v1/charges/sent?status=paid")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges[0].paymentMethod").isEqualTo("CARD")
+        .jsonPath("$.charges[0].origin.account.balance").isEqualTo(25.0);
+    assertEquals("AUTHORIZING=0/0.00,PAID=1/25.00,PENDING=0/0.00", summaryOf(merchantCpf, "SENT"));
+    assertEquals("AUTHORIZING=0/0.00,PAID=1/25.00,PENDING=0/0.00", summaryOf(customerCpf, "RECEIVED"));
+  }
+
+  @Test
+  void shouldPayFromPendingWhenCardIsApprovedAfterSweeperReleasedIt() {
+    var chargeId = createCharge("25.00");
+    when(authorizerClient.authorizeAsync()).thenReturn(databaseClient
+        .sql("update tb_charges set status = 'PENDING' where id = :id and status = 'AUTHORIZING'")
+        .bind("id", chargeId)
+        .fetch()
+        .rowsUpdated()
+        .thenReturn(true));
+
+    webTestClient.post().uri("/api/v1/charges/{id}/pay/card", chargeId)
+        .header(AUTHORIZATION, bearer(customerToken))
+        .bodyValue(CARD)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.paid").isEqualTo(true);
+
+    webTestClient.get().uri("/api/v1/charges/sent?status=paid")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.charges[0].id").isEqualTo(chargeId);
+    assertEquals(0, new BigDecimal("25.00").compareTo(balanceOf(merchantCpf)));
+  }
+
+  @Test
+  void shouldMergeArchivedChargesIntoListing() {
+    var liveId = createCharge("10.00");
+    var archived = Charge.builder()
+        .id(-1L)
+        .origin(archivedUser(-10L))
+        .destination(archivedUser(-20L))
+        .amount(new BigDecimal("99.00"))
+        .status(ChargeStatusEnum.PAID)
+        .paymentMethod(PaymentMethodEnum.BALANCE)
+        .createdAt(Instant.parse("2020-01-01T00:00:00Z"))
+        .build();
+    when(chargeArchive.findPage(eq(SENT), any(), any(), any(), any(), any(), any(), anyInt()))
+        .thenReturn(List.of(archived));
+
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.charges.length()").isEqualTo(2)
+        .jsonPath("$.charges[0].id").isEqualTo(liveId)
+        .jsonPath("$.charges[1].id").isEqualTo(-1)
+        .jsonPath("$.charges[1].amount").isEqualTo(99.0);
+  }
+
+  @Test
+  void shouldReturnNoContentWhenThereAreNoCharges() {
+    webTestClient.get().uri("/api/v1/charges/received")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isNoContent();
+  }
+
+  @Test
+  void shouldForbidTokenAfterLogout() {
+    webTestClient.post().uri("/api/v1/auth/logout")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isNoContent();
+
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .exchange()
+        .expectStatus().isForbidden();
+
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .header(AUTHORIZATION, bearer(customerToken))
+        .exchange()
+        .expectStatus().isNoContent();
+  }
+
+  @Test
+  void shouldForbidRequestsWithoutToken() {
+    webTestClient.get().uri("/api/v1/charges/sent")
+        .exchange()
+        .expectStatus().isForbidden();
+  }
+
+  private Long createCharge(String amount) {
+    var response = webTestClient.post().uri("/api/v1/charges")
+        .header(AUTHORIZATION, bearer(merchantToken))
+        .bodyValue(new CreateChargeRequestDTO(customerCpf, new BigDecimal(amount), "charge"))
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(Map.class)
+        .returnResult().getResponseBody();
+    return ((Number) response.get("id")).longValue();
+  }
+
+  private void deposit(String token, String amount) {
+    webTestClient.post().uri("/api/v1/charges/deposit")
+        .header(AUTHORIZATION, bearer(token))
+        .bodyValue(new DepositRequestDTO(new BigDecimal(amount)))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.deposited").isEqualTo(true);
+  }
+
+  private static User archivedUser(Long id) {
+    var account = new Account();
+    account.setId(id);
+    return User.builder().id(id).name("Archived").account(account).build();
+  }
+
+  private BigDecimal balanceOf(String cpf) {
+    return databaseClient.sql("""
+            select a.balance from tb_accounts a join tb_users u on u.id = a.user_id where u.cpf = :cpf
+            """)
+        .bind("cpf", cpf)
+        .map(row -> row.get("balance", BigDecimal.class))
+        .one()
+        .block();
+  }
+
+  private String summaryOf(String cpf, String direction) {
+    return databaseClient.sql("""
+            select s.status, s.charge_count, s.total_amount from tb_charge_summaries s
+            join tb_users u on u.id = s.user_id where u.cpf = :cpf and s.direction = :direction
+            order by s.status
+            """)
+        .bind("cpf", cpf)
+        .bind("direction", direction)
+        .map(row -> row.get("status", String.class) + "=" + row.get("charge_count", Long.class) + "/"
+            + row.get("total_amount", BigDecimal.class).setScale(2))
+        .all()
+        .collectList()
+        .map(rows -> String.join(",", rows))
+        .block();
+  }
+
+  private String registerAndLogin(String cpf) {
+    webTestClient.post().uri("/api/v1/auth/register")
+        .bodyValue(new RegisterRequestDTO("User " + cpf, cpf, cpf + "@mail.com", "secret"))
+        .exchange()
+        .expectStatus().isOk();
+
+    var response = webTestClient.post().uri("/api/v1/auth/login")
+        .bodyValue(new LoginRequestDTO(cpf, "secret"))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(Map.class)
+        .returnResult().getResponseBody();
+    return (String) response.get("token");
+  }
+
+  private static String nextCpf() {
+    var base = String.format("%09d", 100_000_000 + USERS.incrementAndGet());
+    var first = checkDigit(base, 10);
+    return base + first + checkDigit(base + first, 11);
+  }
+
+  private static int checkDigit(String digits, int weight) {
+    var sum = 0;
+    for (var i = 0; i < digits.length(); i++) {
+      sum += (digits.charAt(i) - '0') * (weight - i);
+    }
+    var rest = sum % 11;
+    return rest < 2 ? 0 : 11 - rest;
+  }
+
+  private static String bearer(String token) {
+    return "Bearer " + token;
+  }
+}
@@ -14,7 +14,7 @@ public final class AuthServiceMock {
         .name("Test")
         .cpf("12345678901")
         .email("test@test.com")
-        .account(new Account(1L, BigDecimal.valueOf(5000.00), null))
+        .account(new Account(1L, BigDecimal.valueOf(5000.00), null, 0L))
         .passwordHash("test")
         .createdAt(LocalDateTime.now())
         .build());
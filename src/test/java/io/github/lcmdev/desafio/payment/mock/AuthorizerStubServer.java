@@ -0,0 +1,61 @@
+package io.github.lcmdev.desafio.payment.mock;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AuthorizerStubServer implements AutoCloseable {
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile int status = 200;
+  private volatile String body = "";
+  private volatile long delayMillis;
+
+  public AuthorizerStubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      try (exchange) {
+        Thread.sleep(delayMillis);
+        var response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+        exchange.getResponseBody().write(response);
+      } catch (InterruptedException | IOException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public AuthorizerStubServer respond(int status, String body) {
+    this.status = status;
+    this.body = body;
+    return this;
+  }
+
+  public AuthorizerStubServer delay(long delayMillis) {
+    this.delayMillis = delayMillis;
+    return this;
+  }
+
+  public int requests() {
+    return requests.get();
+  }
+
+  public String url() {
+    return "http://localhost:" + server.getAddress().getPort() + "/authorizer";
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
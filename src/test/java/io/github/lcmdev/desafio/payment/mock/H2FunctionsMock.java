@@ -0,0 +1,21 @@
+package io.github.lcmdev.desafio.payment.mock;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class H2FunctionsMock {
+
+  public static void advisoryXactLock(long key) {
+  }
+
+  public static boolean tryAdvisoryXactLock(long key) {
+    return true;
+  }
+
+  public static long setval(Connection connection, String sequence, long value, boolean called) throws SQLException {
+    try (var statement = connection.createStatement()) {
+      statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (called ? value + 1 : value));
+    }
+    return value;
+  }
+}
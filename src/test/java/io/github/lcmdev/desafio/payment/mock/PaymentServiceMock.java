@@ -19,7 +19,7 @@ public final class PaymentServiceMock {
         .name("Test")
         .cpf("12345678901")
         .email("test@test.com")
-        .account(new Account(1L, BigDecimal.valueOf(5000.00), null))
+        .account(new Account(1L, BigDecimal.valueOf(5000.00), null, 0L))
         .passwordHash("test")
         .createdAt(LocalDateTime.now())
         .build());
@@ -31,7 +31,7 @@ public final class PaymentServiceMock {
         .name("Test")
         .cpf("02345678999")
         .email("test@test.com")
-        .account(new Account(1L, BigDecimal.valueOf(10000.00), null))
+        .account(new Account(1L, BigDecimal.valueOf(10000.00), null, 0L))
         .passwordHash("test")
         .createdAt(LocalDateTime.now())
         .build());
@@ -43,7 +43,7 @@ public final class PaymentServiceMock {
         .name("Test")
         .cpf("02345678999")
         .email("test@test.com")
-        .account(new Account(1L, BigDecimal.valueOf(00.00), null))
+        .account(new Account(1L, BigDecimal.valueOf(00.00), null, 0L))
         .passwordHash("test")
         .createdAt(LocalDateTime.now())
         .build());
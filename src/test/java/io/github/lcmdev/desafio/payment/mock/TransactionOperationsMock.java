@@ -0,0 +1,24 @@
+package io.github.lcmdev.desafio.payment.mock;
+
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+public class TransactionOperationsMock implements TransactionOperations {
+
+  private boolean active;
+
+  @Override
+  public <T> T execute(TransactionCallback<T> action) {
+    active = true;
+    try {
+      return action.doInTransaction(new SimpleTransactionStatus());
+    } finally {
+      active = false;
+    }
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.lcmdev.desafio.payment.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadPinningMonitorTest {
+
+  private final Object monitor = new Object();
+
+  @Test
+  void shouldRecordVirtualThreadPinnedInsideSynchronizedBlock() throws InterruptedException {
+    var meterRegistry = new SimpleMeterRegistry();
+    var pinningMonitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+    pinningMonitor.start();
+    try {
+      Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+
+      var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (meterRegistry.find(VirtualThreadPinningMonitor.METRIC).timer() == null
+          && System.nanoTime() < deadline) {
+        Thread.sleep(100);
+      }
+    } finally {
+      pinningMonitor.stop();
+    }
+
+    var timer = meterRegistry.get(VirtualThreadPinningMonitor.METRIC).timer();
+    assertAll(
+        () -> assertEquals(1, timer.count()),
+        () -> assertTrue(timer.getId().getTag("frame").endsWith("sleepWhileHoldingMonitor"))
+    );
+  }
+
+  private void sleepWhileHoldingMonitor() {
+    synchronized (monitor) {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
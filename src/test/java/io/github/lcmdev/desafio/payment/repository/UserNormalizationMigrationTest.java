@@ -0,0 +1,69 @@
+package io.github.lcmdev.desafio.payment.repository;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class UserNormalizationMigrationTest {
+
+  private static final String URL = "jdbc:h2:mem:user-normalization;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(URL, "sa", "");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("drop all objects");
+    flyway("8").migrate();
+  }
+
+  @Test
+  void shouldKeepOnlyDigitsOfCpfAndLowercaseEmail() {
+    insertUser("529.982.247-25", " Merchant@Test.com ");
+    insertUser("747 707 690/08", "customer@test.com");
+
+    flyway(null).migrate();
+
+    assertAll(
+        () -> assertEquals(1, count("cpf = '52998224725' and email = 'merchant@test.com'")),
+        () -> assertEquals(1, count("cpf = '74770769008' and email = 'customer@test.com'"))
+    );
+  }
+
+  @Test
+  void shouldRefuseToNormalizeWhenTwoUsersWouldCollide() {
+    insertUser("529.982.247-25", "merchant@test.com");
+    insertUser("52998224725", "other@test.com");
+
+    var exception = assertThrows(FlywayException.class, () -> flyway(null).migrate());
+
+    assertAll(
+        () -> assertTrue(exception.getMessage().toLowerCase().contains("ck_resolve_duplicated_users_before_v9")),
+        () -> assertEquals(1, count("cpf = '529.982.247-25'"))
+    );
+  }
+
+  private Flyway flyway(String target) {
+    var configuration = Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2");
+    return (target == null ? configuration : configuration.target(target)).load();
+  }
+
+  private void insertUser(String cpf, String email) {
+    jdbcTemplate.update("insert into tb_users (name, cpf, email, password_hash) values ('User', ?, ?, 'hash')",
+        cpf, email);
+  }
+
+  private int count(String where) {
+    return jdbcTemplate.queryForObject("select count(*) from tb_users where " + where, Integer.class);
+  }
+}
@@ -0,0 +1,82 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JwtUtilTest {
+
+  private static final String SECRET = "test-secret-test-secret-test-secret-test";
+
+  private SimpleMeterRegistry meterRegistry;
+  private JwtUtil jwtUtil;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    jwtUtil = new JwtUtil(SECRET, 60_000L, 100, meterRegistry);
+  }
+
+  @Test
+  void shouldServeRepeatedTokenFromCache() {
+    var token = jwtUtil.generateToken(42L);
+
+    assertAll(
+        () -> assertEquals(42L, jwtUtil.validateAndGetUserId(token)),
+        () -> assertEquals(42L, jwtUtil.validateAndGetUserId(token)),
+        () -> assertEquals(1, gets("hit")),
+        () -> assertEquals(1, gets("miss"))
+    );
+  }
+
+  @Test
+  void shouldIssueTokensWithUniqueIds() {
+    var first = jwtUtil.verify(jwtUtil.generateToken(42L));
+    var second = jwtUtil.verify(jwtUtil.generateToken(42L));
+
+    assertAll(
+        () -> assertNotNull(first.jti()),
+        () -> assertNotEquals(first.jti(), second.jti())
+    );
+  }
+
+  @Test
+  void shouldNotCacheTokenSignedWithAnotherKey() {
+    var token = new JwtUtil("another-secret-another-secret-another", 60_000L, 100,
+        new SimpleMeterRegistry()).generateToken(42L);
+
+    assertAll(
+        () -> assertThrows(SignatureException.class, () -> jwtUtil.validateAndGetUserId(token)),
+        () -> assertThrows(SignatureException.class, () -> jwtUtil.validateAndGetUserId(token)),
+        () -> assertEquals(0, gets("hit")),
+        () -> assertEquals(2, gets("miss"))
+    );
+  }
+
+  @Test
+  void shouldEvictCachedTokenWhenItExpires() throws InterruptedException {
+    var shortLived = new JwtUtil(SECRET, 2_500L, 100, meterRegistry);
+    var token = shortLived.generateToken(42L);
+
+    assertEquals(42L, shortLived.validateAndGetUserId(token));
+    Thread.sleep(3_000);
+
+    assertThrows(ExpiredJwtException.class, () -> shortLived.validateAndGetUserId(token));
+  }
+
+  private double gets(String result) {
+    return meterRegistry.get("cache.gets")
+        .tag("cache", JwtUtil.CACHE_NAME)
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+}
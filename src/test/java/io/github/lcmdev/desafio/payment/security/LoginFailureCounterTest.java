@@ -0,0 +1,69 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class LoginFailureCounterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void shouldBlockAfterMaxFailuresUntilWindowEnds() {
+    var counter = new LoginFailureCounter(3, Duration.ofMinutes(15), 1024, clock::get);
+
+    IntStream.range(0, 2).forEach(i -> counter.recordFailure("alice"));
+    var blockedBeforeLimit = counter.isBlocked("alice");
+    counter.recordFailure("alice");
+    var blockedAtLimit = counter.isBlocked("alice");
+    clock.addAndGet(Duration.ofMinutes(15).toNanos());
+
+    assertAll(
+        () -> assertFalse(blockedBeforeLimit),
+        () -> assertTrue(blockedAtLimit),
+        () -> assertFalse(counter.isBlocked("alice"))
+    );
+  }
+
+  @Test
+  void shouldClearFailuresOnReset() {
+    var counter = new LoginFailureCounter(2, Duration.ofMinutes(15), 1024, clock::get);
+
+    counter.recordFailure("alice");
+    counter.reset("alice");
+    counter.recordFailure("alice");
+
+    assertFalse(counter.isBlocked("alice"));
+  }
+
+  @Test
+  void shouldNotLetAnotherIdentifierEvictALiveStripe() {
+    var counter = new LoginFailureCounter(2, Duration.ofMinutes(15), 1, clock::get);
+
+    counter.recordFailure("alice");
+    IntStream.range(0, 10).forEach(i -> counter.recordFailure("mallory"));
+    counter.reset("mallory");
+    counter.recordFailure("alice");
+
+    assertAll(
+        () -> assertTrue(counter.isBlocked("alice")),
+        () -> assertFalse(counter.isBlocked("mallory"))
+    );
+  }
+
+  @Test
+  void shouldKeepCounterCloseToLimitWhenStripeIsFlooded() {
+    var counter = new LoginFailureCounter(3, Duration.ofMinutes(15), 1, clock::get);
+
+    IntStream.range(0, 2).forEach(i -> counter.recordFailure("alice"));
+    IntStream.range(0, 100).forEach(i -> counter.recordFailure("spray-" + i));
+    counter.recordFailure("alice");
+
+    assertTrue(counter.isBlocked("alice"));
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.lcmdev.desafio.payment.security;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.lcmdev.desafio.payment.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class PasswordHasherTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private PasswordHasher hasher;
+
+  @AfterEach
+  void tearDown() {
+    hasher.destroy();
+  }
+
+  @Test
+  void shouldEncodeAndMatchOnHasherThreads() {
+    hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 4, 1, 1, registry);
+
+    var hash = hasher.encode("secret");
+
+    assertAll(
+        () -> assertTrue(hasher.matches("secret", hash)),
+        () -> assertFalse(hasher.matches("other", hash))
+    );
+  }
+
+  @Test
+  void shouldRejectWhenPoolAndQueueAreFull() throws Exception {
+    var release = new CountDownLatch(1);
+    var started = new CountDownLatch(1);
+    var encoder = new BCryptPasswordEncoder(4) {
+      @Override
+      public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return true;
+      }
+    };
+    hasher = new PasswordHasher(encoder, 4, 1, 1, registry);
+
+    try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+      var running = callers.submit(() -> hasher.matches("a", "hash"));
+      started.await();
+      var queued = callers.submit(() -> hasher.matches("b", "hash"));
+      var queue = registry.get("executor.queued").tag("name", PasswordHasher.EXECUTOR_NAME).gauge();
+      while (queue.value() < 1) {
+        Thread.onSpinWait();
+      }
+
+      try {
+        assertThrows(PasswordHashingRejectedException.class, () -> hasher.matches("c", "hash"));
+      } finally {
+        release.countDown();
+      }
+
+      assertAll(
+          () -> assertTrue(running.get()),
+          () -> assertTrue(queued.get()),
+          () -> assertEquals(1.0, registry.get(PasswordHasher.REJECTED_METRIC).counter().count())
+      );
+    }
+  }
+
+  @Test
+  void shouldAskForRehashWhenCostDiffers() {
+    hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 5, 1, 1, registry);
+    var lowered = new BCryptPasswordEncoder(6).encode("secret");
+
+    assertAll(
+        () -> assertTrue(hasher.needsRehash(hasher.encode("secret"))),
+        () -> assertTrue(hasher.needsRehash(lowered)),
+        () -> assertFalse(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("secret"))),
+        () -> assertFalse(hasher.needsRehash("plain-text"))
+    );
+  }
+}
@@ -6,18 +6,31 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.exception.PasswordHashingRejectedException;
+import io.github.lcmdev.desafio.payment.model.User;
 import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.Credentials;
 import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import io.github.lcmdev.desafio.payment.security.JwtUtil.VerifiedToken;
+import io.github.lcmdev.desafio.payment.security.LoginFailureCounter;
+import io.github.lcmdev.desafio.payment.security.PasswordHasher;
+import io.jsonwebtoken.MalformedJwtException;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.util.Optional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
@@ -30,33 +43,44 @@ class AuthServiceTest {
   private UserRepository userRepository;
 
   @Mock
-  private BCryptPasswordEncoder passwordEncoder;
+  private PasswordHasher passwordEncoder;
+
+  @Mock
+  private LoginFailureCounter loginFailures;
 
   @Mock
   private JwtUtil jwtUtil;
 
+  @Mock
+  private TokenRevocationService tokenRevocationService;
+
+  @Mock
+  private UserIdCache userIdCache;
+
   @Test
   void shouldRegisterUserWithSuccess() {
-    when(userRepository.findByCpf(any())).thenReturn(Optional.empty());
-    when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
     when(passwordEncoder.encode(any())).thenReturn("asdf1234");
     when(userRepository.save(any())).thenReturn(createUserMock().get());
 
     var register = authService.register(
-        new RegisterRequestDTO("test", "74770769008", "test@test.com", "test123"));
+        new RegisterRequestDTO("test", "747.707.690-08", " Test@Test.com", "test123"));
 
+    var saved = ArgumentCaptor.forClass(User.class);
     assertAll(
         () -> assertNotNull(register),
-        () -> verify(userRepository).findByCpf(any()),
-        () -> verify(userRepository).findByEmail(any()),
         () -> verify(passwordEncoder).encode(any()),
-        () -> verify(userRepository).save(any())
+        () -> verify(userRepository).save(saved.capture()),
+        () -> assertEquals("74770769008", saved.getValue().getCpf()),
+        () -> assertEquals("test@test.com", saved.getValue().getEmail()),
+        () -> verify(userRepository, never()).findByCpf(any()),
+        () -> verify(userRepository, never()).findByEmail(any()),
+        () -> verify(userIdCache).evict("74770769008")
     );
   }
 
   @Test
   void shouldExceptionInRegisterWhenCpfIsExists() {
-    when(userRepository.findByCpf(any())).thenReturn(createUserMock());
+    when(userRepository.save(any())).thenThrow(uniqueViolation("PUBLIC.INDEX_CPF ON PUBLIC.TB_USERS(CPF)"));
 
     var exception = assertThrows(IllegalArgumentException.class,
         () -> authService.register(
@@ -67,14 +91,13 @@ class AuthServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("CPF already registered", exception.getMessage()),
-        () -> verify(userRepository).findByCpf(any())
+        () -> verify(userRepository).save(any())
     );
   }
 
   @Test
   void shouldExceptionInRegisterWhenEmailIsExists() {
-    when(userRepository.findByCpf(any())).thenReturn(Optional.empty());
-    when(userRepository.findByEmail(any())).thenReturn(createUserMock());
+    when(userRepository.save(any())).thenThrow(uniqueViolation("index_email"));
 
     var exception = assertThrows(IllegalArgumentException.class,
         () -> authService.register(
@@ -85,31 +108,52 @@ class AuthServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Email already registered", exception.getMessage()),
-        () -> verify(userRepository).findByCpf(any()),
-        () -> verify(userRepository).findByEmail(any())
+        () -> verify(userRepository).save(any())
     );
   }
 
+  @Test
+  void shouldRethrowUnknownIntegrityViolationInRegister() {
+    when(userRepository.save(any())).thenThrow(uniqueViolation("chk_other"));
+
+    assertThrows(DataIntegrityViolationException.class,
+        () -> authService.register(new RegisterRequestDTO("test", "74770769008", "test@test.com", "test123")));
+  }
+
   @Test
   void shouldLoginUserWithSuccess() {
-    when(userRepository.findByCpf(any())).thenReturn(createUserMock());
+    when(userRepository.findCredentialsByCpf("74770769008")).thenReturn(credentials());
     when(passwordEncoder.matches(any(), any())).thenReturn(true);
     when(jwtUtil.generateToken(any())).thenReturn("test");
 
-    var login = authService.login("74770769008", "test123");
+    var login = authService.login("747.707.690-08", "test123");
 
     assertAll(
         () -> assertNotNull(login),
-        () -> verify(userRepository).findByCpf(any()),
+        () -> verify(userRepository).findCredentialsByCpf("74770769008"),
+        () -> verify(userRepository, never()).findCredentialsByEmail(any()),
         () -> verify(passwordEncoder).matches(any(), any()),
-        () -> verify(jwtUtil).generateToken(any())
+        () -> verify(jwtUtil).generateToken(1L)
+    );
+  }
+
+  @Test
+  void shouldLoginByNormalizedEmail() {
+    when(userRepository.findCredentialsByEmail("test@test.com")).thenReturn(credentials());
+    when(passwordEncoder.matches(any(), any())).thenReturn(true);
+    when(jwtUtil.generateToken(any())).thenReturn("test");
+
+    authService.login(" Test@Test.COM ", "test123");
+
+    assertAll(
+        () -> verify(userRepository).findCredentialsByEmail("test@test.com"),
+        () -> verify(userRepository, never()).findCredentialsByCpf(any())
     );
   }
 
   @Test
   void shouldReturnExceptionWhenUserLoginDoesNotExists() {
-    when(userRepository.findByCpf(any())).thenReturn(Optional.empty());
-    when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
+    when(userRepository.findCredentialsByCpf(any())).thenReturn(Optional.empty());
 
     var exception = assertThrows(IllegalArgumentException.class,
         () -> authService.login("74770769008", "test123")
@@ -118,14 +162,14 @@ class AuthServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Invalid credentials", exception.getMessage()),
-        () -> verify(userRepository).findByCpf(any()),
-        () -> verify(userRepository).findByEmail(any())
+        () -> verify(userRepository).findCredentialsByCpf(any()),
+        () -> verify(loginFailures, never()).recordFailure(any())
     );
   }
 
   @Test
   void shouldReturnExceptionWhenMatchesInvalid() {
-    when(userRepository.findByCpf(any())).thenReturn(createUserMock());
+    when(userRepository.findCredentialsByCpf(any())).thenReturn(credentials());
     when(passwordEncoder.matches(any(), any())).thenReturn(false);
 
     var exception = assertThrows(IllegalArgumentException.class,
@@ -135,8 +179,113 @@ class AuthServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Invalid credentials", exception.getMessage()),
-        () -> verify(userRepository).findByCpf(any()),
+        () -> verify(userRepository).findCredentialsByCpf(any()),
         () -> verify(passwordEncoder).matches(any(), any())
     );
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldShortCircuitBlockedLoginBeforeHashing() {
+    when(loginFailures.isBlocked("74770769008")).thenReturn(true);
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> authService.login("74770769008", "test123"));
+
+    assertAll(
+        () -> assertEquals("Invalid credentials", exception.getMessage()),
+        () -> verify(userRepository, never()).findCredentialsByCpf(any()),
+        () -> verify(passwordEncoder, never()).matches(any(), any())
+    );
+  }
+
+  @Test
+  void shouldRecordFailureAndResetOnSuccess() {
+    when(userRepository.findCredentialsByCpf(any())).thenReturn(credentials());
+    when(passwordEncoder.matches("wrong", "test")).thenReturn(false);
+    when(passwordEncoder.matches("test123", "test")).thenReturn(true);
+
+    assertThrows(IllegalArgumentException.class, () -> authService.login("747.707.690-08", "wrong"));
+    authService.login("74770769008", "test123");
+
+    assertAll(
+        () -> verify(loginFailures).recordFailure("74770769008"),
+        () -> verify(loginFailures).reset("74770769008")
+    );
+  }
+
+  @Test
+  void shouldRehashPasswordWhenCostChanged() {
+    when(userRepository.findCredentialsByCpf(any())).thenReturn(credentials());
+    when(passwordEncoder.matches(any(), any())).thenReturn(true);
+    when(passwordEncoder.needsRehash("test")).thenReturn(true);
+    when(passwordEncoder.encode("test123")).thenReturn("rehashed");
+
+    authService.login("74770769008", "test123");
+
+    verify(userRepository).updatePasswordHash(1L, "rehashed");
+  }
+
+  @Test
+  void shouldLoginWhenRehashIsRejected() {
+    when(userRepository.findCredentialsByCpf(any())).thenReturn(credentials());
+    when(passwordEncoder.matches(any(), any())).thenReturn(true);
+    when(passwordEncoder.needsRehash(anyString())).thenReturn(true);
+    when(passwordEncoder.encode(any())).thenThrow(new PasswordHashingRejectedException());
+    when(jwtUtil.generateToken(any())).thenReturn("token");
+
+    assertAll(
+        () -> assertEquals("token", authService.login("74770769008", "test123")),
+        () -> verify(userRepository, never()).updatePasswordHash(any(), any())
+    );
+  }
+
+  @Test
+  void shouldRevokeTokenOnLogout() {
+    var token = new VerifiedToken(1L, "jti-1", Instant.now().plusSeconds(60));
+    when(jwtUtil.verify("token")).thenReturn(token);
+
+    authService.logout("token");
+
+    verify(tokenRevocationService).revoke(token);
+  }
+
+  @Test
+  void shouldRejectLogoutWithInvalidToken() {
+    when(jwtUtil.verify("token")).thenThrow(new MalformedJwtException("bad"));
+
+    var exception = assertThrows(IllegalArgumentException.class, () -> authService.logout("token"));
+
+    assertAll(
+        () -> assertEquals("Invalid token", exception.getMessage()),
+        () -> verify(tokenRevocationService, never()).revoke(any())
+    );
+  }
+
+  @Test
+  void shouldRejectLogoutWithRevokedToken() {
+    when(jwtUtil.verify("token")).thenReturn(new VerifiedToken(1L, "jti-1", Instant.now().plusSeconds(60)));
+    when(tokenRevocationService.isRevoked("jti-1")).thenReturn(true);
+
+    assertThrows(IllegalArgumentException.class, () -> authService.logout("token"));
+  }
+
+  @Test
+  void shouldRejectRevocationOfAnotherUsersToken() {
+    when(jwtUtil.verify("caller")).thenReturn(new VerifiedToken(1L, "jti-1", Instant.now().plusSeconds(60)));
+    when(jwtUtil.verify("other")).thenReturn(new VerifiedToken(2L, "jti-2", Instant.now().plusSeconds(60)));
+
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> authService.revoke("caller", "other")),
+        () -> verify(tokenRevocationService, never()).revoke(any())
+    );
+  }
+
+  private static Optional<Credentials> credentials() {
+    return Optional.of(new Credentials(1L, "test"));
+  }
+
+  private static DataIntegrityViolationException uniqueViolation(String constraint) {
+    return new DataIntegrityViolationException("duplicate",
+        new ConstraintViolationException("duplicate", new SQLException("duplicate"), constraint));
+  }
+}
@@ -0,0 +1,140 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace.NONE;
+
+import io.github.lcmdev.desafio.payment.controller.dto.request.RegisterRequestDTO;
+import io.github.lcmdev.desafio.payment.security.JwtUtil;
+import io.github.lcmdev.desafio.payment.security.LoginFailureCounter;
+import io.github.lcmdev.desafio.payment.security.PasswordHasher;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:auth;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.flyway.enabled=true",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+    "spring.jpa.hibernate.ddl-auto=none",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AuthService.class, LoginFailureCounter.class})
+class AuthStatementCountTest {
+
+  private static final AtomicInteger USERS = new AtomicInteger();
+
+  @Autowired
+  private AuthService authService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @MockitoBean
+  private PasswordHasher passwordHasher;
+
+  @MockitoBean
+  private JwtUtil jwtUtil;
+
+  @MockitoBean
+  private TokenRevocationService tokenRevocationService;
+
+  @MockitoBean
+  private UserIdCache userIdCache;
+
+  private Statistics statistics;
+  private String cpf;
+  private String email;
+
+  @BeforeEach
+  void setUp() {
+    when(passwordHasher.encode(any())).thenReturn("hash");
+    when(passwordHasher.matches(anyString(), anyString())).thenReturn(true);
+    when(jwtUtil.generateToken(any())).thenReturn("token");
+
+    cpf = nextCpf();
+    email = "user" + cpf + "@test.com";
+    authService.register(new RegisterRequestDTO("User", cpf, email, "secret"));
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void shouldLoginByEmailWithSingleQuery() {
+    var token = authService.login(email.toUpperCase(), "secret");
+
+    assertAll(
+        () -> assertEquals("token", token),
+        () -> assertEquals(1, statistics.getPrepareStatementCount())
+    );
+  }
+
+  @Test
+  void shouldLoginByFormattedCpfWithSingleQuery() {
+    var formatted = cpf.substring(0, 3) + "." + cpf.substring(3, 6) + "." + cpf.substring(6, 9) + "-" + cpf.substring(9);
+
+    authService.login(formatted, "secret");
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void shouldRegisterWithUserAndAccountInsertsOnly() {
+    authService.register(new RegisterRequestDTO("Other", nextCpf(), "other" + cpf + "@test.com", "secret"));
+
+    assertAll(
+        () -> assertEquals(2, statistics.getPrepareStatementCount()),
+        () -> assertEquals(0, statistics.getQueryExecutionCount())
+    );
+  }
+
+  @Test
+  void shouldMapDuplicatesFromSingleInsert() {
+    var duplicateCpf = assertThrows(IllegalArgumentException.class,
+        () -> authService.register(new RegisterRequestDTO("Other", cpf, "other" + cpf + "@test.com", "secret")));
+    var statementsForCpf = statistics.getPrepareStatementCount();
+    var duplicateEmail = assertThrows(IllegalArgumentException.class,
+        () -> authService.register(new RegisterRequestDTO("Other", nextCpf(), email.toUpperCase(), "secret")));
+
+    assertAll(
+        () -> assertEquals("CPF already registered", duplicateCpf.getMessage()),
+        () -> assertEquals("Email already registered", duplicateEmail.getMessage()),
+        () -> assertEquals(1, statementsForCpf)
+    );
+  }
+
+  private static String nextCpf() {
+    var base = String.format("%09d", 200_000_000 + USERS.incrementAndGet());
+    var first = checkDigit(base, 10);
+    return base + first + checkDigit(base + first, 11);
+  }
+
+  private static int checkDigit(String digits, int weight) {
+    var sum = 0;
+    for (var i = 0; i < digits.length(); i++) {
+      sum += (digits.charAt(i) - '0') * (weight - i);
+    }
+    var rest = sum % 11;
+    return rest < 2 ? 0 : 11 - rest;
+  }
+}
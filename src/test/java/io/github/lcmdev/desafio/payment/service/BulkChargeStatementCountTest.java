@@ -0,0 +1,135 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CreateChargeRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BulkChargeResultDTO;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({PaymentService.class, UserIdCache.class, SimpleMeterRegistry.class})
+class BulkChargeStatementCountTest {
+
+  private static final int CHARGES = 120;
+
+  @Autowired
+  private PaymentService paymentService;
+
+  @Autowired
+  private ChargeRepository chargeRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @MockitoBean
+  private AuthorizerClient authorizerClient;
+
+  @MockitoBean
+  private BalanceMutationStrategy balanceMutationStrategy;
+
+  @MockitoBean
+  private ChargeSummaryService chargeSummaryService;
+
+  @MockitoBean
+  private ChargeArchive chargeArchive;
+
+  @MockitoBean
+  private ChargeEventBus chargeEventBus;
+
+  @MockitoBean
+  private ChangeLog changeLog;
+
+  private Statistics statistics;
+  private User merchant;
+  private final List<String> payerCpfs = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    merchant = persistUser("Merchant", "52998224725", "merchant@test.com");
+    for (int i = 0; i < CHARGES; i++) {
+      var cpf = String.format("%011d", i + 1);
+      persistUser("Payer " + i, cpf, "payer" + i + "@test.com");
+      payerCpfs.add(cpf);
+    }
+
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void shouldCreateChunkWithSetBasedLookupAndBatchedInserts() {
+    var requests = new ArrayList<CreateChargeRequestDTO>();
+    payerCpfs.forEach(cpf -> requests.add(new CreateChargeRequestDTO(cpf, BigDecimal.TEN, "month end")));
+    requests.add(new CreateChargeRequestDTO("99999999999", BigDecimal.TEN, "unknown"));
+    requests.add(new CreateChargeRequestDTO("529.982.247-25", BigDecimal.TEN, "self"));
+    requests.add(new CreateChargeRequestDTO(payerCpfs.get(0), BigDecimal.ZERO, "zero"));
+    requests.add(new CreateChargeRequestDTO(payerCpfs.get(0), new BigDecimal("10.005"), "fraction of a cent"));
+    requests.add(new CreateChargeRequestDTO(payerCpfs.get(0), new BigDecimal("1E+17"), "too large"));
+
+    var results = paymentService.createCharges(merchant.getId(), requests, 10);
+    entityManager.flush();
+    var statements = statistics.getPrepareStatementCount();
+
+    var ids = results.stream().map(BulkChargeResultDTO::id).filter(Objects::nonNull).toList();
+    assertAll(
+        () -> assertEquals(CHARGES + 5, results.size()),
+        () -> assertEquals(10, results.get(0).index()),
+        () -> assertEquals(CHARGES, ids.size()),
+        () -> assertEquals(CHARGES, ids.stream().distinct().count()),
+        () -> assertNull(results.get(CHARGES).id()),
+        () -> assertEquals("Destination user not found", results.get(CHARGES).error()),
+        () -> assertEquals("Origin and destination cannot be the same", results.get(CHARGES + 1).error()),
+        () -> assertEquals("Value must be positive", results.get(CHARGES + 2).error()),
+        () -> assertEquals("Value must have at most 17 integer digits and 2 decimals", results.get(CHARGES + 3).error()),
+        () -> assertEquals("Value must have at most 17 integer digits and 2 decimals", results.get(CHARGES + 4).error()),
+        () -> assertEquals(CHARGES, chargeRepository.count()),
+        () -> assertTrue(statements <= 12, "statements: " + statements)
+    );
+  }
+
+  private User persistUser(String name, String cpf, String email) {
+    var user = new User();
+    var account = new Account();
+    user.setName(name);
+    user.setCpf(cpf);
+    user.setEmail(email);
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    user.setAccount(account);
+    return entityManager.persist(user);
+  }
+}
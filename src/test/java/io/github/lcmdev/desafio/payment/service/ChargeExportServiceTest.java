@@ -0,0 +1,155 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeExportRequestDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class ChargeExportServiceTest {
+
+  private static final String URL = "jdbc:h2:mem:charge-export;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+  private JdbcTemplate jdbcTemplate;
+  private ChargeArchive chargeArchive;
+  private ChargeExportService chargeExportService;
+  private Long merchantId;
+  private Long customerId;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new DriverManagerDataSource(URL, "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2")
+        .load().migrate();
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("delete from tb_charges");
+    jdbcTemplate.update("delete from tb_users");
+    merchantId = insertUser("52998224725");
+    customerId = insertUser("74770769008");
+    chargeArchive = mock(ChargeArchive.class);
+    chargeExportService = new ChargeExportService(jdbcTemplate, chargeArchive, new ObjectMapper(), 2);
+  }
+
+  @Test
+  void shouldExportCsvNewestFirstMergingArchivedCharges() throws Exception {
+    var newest = insertCharge(merchantId, customerId, "10.00", "plain", PENDING, NOW.minusSeconds(10));
+    var quoted = insertCharge(merchantId, customerId, "20.50", "rent, \"june\"", PAID, NOW.minusSeconds(30));
+    insertCharge(customerId, merchantId, "99.00", null, PENDING, NOW.minusSeconds(20));
+    var archived = Charge.builder()
+        .id(7L)
+        .origin(User.builder().id(merchantId).build())
+        .destination(User.builder().id(customerId).build())
+        .amount(new BigDecimal("5.00"))
+        .status(CANCELED)
+        .createdAt(NOW.minusSeconds(20))
+        .statusUpdatedAt(NOW)
+        .build();
+    when(chargeArchive.findRows(eq(SENT), eq(merchantId), isNull(), any(), any(), any(), anyLong(), anyInt()))
+        .thenReturn(List.of(archived));
+
+    var out = new ByteArrayOutputStream();
+    var exported = chargeExportService.export(merchantId,
+        new ChargeExportRequestDTO("sent", null, null, null, null), out);
+
+    assertAll(
+        () -> assertEquals(3, exported),
+        () -> assertEquals("""
+            id,origin_id,destination_id,amount,description,status,payment_method,created_at,status_updated_at
+            %d,%d,%d,10.00,plain,PENDING,,2026-10-01T11:59:50Z,2026-10-01T12:00:00Z
+            7,%d,%d,5.00,,CANCELED,,2026-10-01T11:59:40Z,2026-10-01T12:00:00Z
+            %d,%d,%d,20.50,"rent, ""june\"\"\",PAID,CARD,2026-10-01T11:59:30Z,2026-10-01T12:00:00Z
+            """.formatted(newest, merchantId, customerId, merchantId, customerId, quoted, merchantId, customerId),
+            out.toString(UTF_8))
+    );
+  }
+
+  @Test
+  void shouldNeutralizeFormulasInCsvDescriptions() throws Exception {
+    var descriptions = List.of("=HYPERLINK(\"http://x\")", "+1", "-2", "@SUM(A1)", "\tcmd", "\rcmd", "a-b");
+    for (var i = 0; i < descriptions.size(); i++) {
+      insertCharge(merchantId, customerId, "1.00", descriptions.get(i), PENDING, NOW.minusSeconds(i));
+    }
+    when(chargeArchive.findRows(any(), any(), any(), any(), any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+
+    var out = new ByteArrayOutputStream();
+    chargeExportService.export(merchantId, new ChargeExportRequestDTO("sent", null, null, null, null), out);
+
+    var csv = out.toString(UTF_8);
+    assertAll(
+        () -> assertTrue(csv.contains(",1.00,\"'=HYPERLINK(\"\"http://x\"\")\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,\"'+1\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,\"'-2\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,\"'@SUM(A1)\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,\"'\tcmd\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,\"'\rcmd\",PENDING,")),
+        () -> assertTrue(csv.contains(",1.00,a-b,PENDING,"))
+    );
+  }
+
+  @Test
+  void shouldExportNdjsonFilteredByStatus() throws Exception {
+    insertCharge(merchantId, customerId, "10.00", "plain", PENDING, NOW.minusSeconds(10));
+    var paid = insertCharge(merchantId, customerId, "20.50", null, PAID, NOW.minusSeconds(30));
+
+    var out = new ByteArrayOutputStream();
+    chargeExportService.export(customerId, new ChargeExportRequestDTO("RECEIVED", "ndjson", "paid", null, null), out);
+
+    var lines = out.toString(UTF_8).lines().toList();
+    var row = new ObjectMapper().readTree(lines.getFirst());
+    assertAll(
+        () -> assertEquals(1, lines.size()),
+        () -> assertEquals(paid, row.get("id").asLong()),
+        () -> assertTrue(lines.getFirst().contains("\"amount\":20.50,")),
+        () -> assertEquals("PAID", row.get("status").asText()),
+        () -> assertEquals("CARD", row.get("paymentMethod").asText()),
+        () -> assertTrue(row.get("description").isNull()),
+        () -> assertEquals("2026-10-01T11:59:30Z", row.get("createdAt").asText())
+    );
+  }
+
+  private Long insertUser(String cpf) {
+    jdbcTemplate.update("insert into tb_users (name, cpf, email, password_hash) values ('User', ?, ?, 'hash')",
+        cpf, cpf + "@test.com");
+    return jdbcTemplate.queryForObject("select id from tb_users where cpf = ?", Long.class, cpf);
+  }
+
+  private Long insertCharge(Long originId, Long destinationId, String amount, String description,
+      ChargeStatusEnum status, Instant createdAt) {
+    jdbcTemplate.update("""
+        insert into tb_charges (origin_id, destination_id, amount, description, status, payment_method, created_at,
+            status_updated_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?)
+        """, originId, destinationId, new BigDecimal(amount), description, status.name(),
+        status == PAID ? PaymentMethodEnum.CARD.name() : null, Timestamp.from(createdAt), Timestamp.from(NOW));
+    return jdbcTemplate.queryForObject("select max(id) from tb_charges", Long.class);
+  }
+}
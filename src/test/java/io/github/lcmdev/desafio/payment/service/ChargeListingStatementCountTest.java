@@ -0,0 +1,133 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({PaymentService.class, UserIdCache.class, SimpleMeterRegistry.class})
+class ChargeListingStatementCountTest {
+
+  private static final int CHARGES = 20;
+
+  @Autowired
+  private PaymentService paymentService;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @MockitoBean
+  private AuthorizerClient authorizerClient;
+
+  @MockitoBean
+  private BalanceMutationStrategy balanceMutationStrategy;
+
+  @MockitoBean
+  private ChargeSummaryService chargeSummaryService;
+
+  @MockitoBean
+  private ChargeArchive chargeArchive;
+
+  @MockitoBean
+  private ChargeEventBus chargeEventBus;
+
+  @MockitoBean
+  private ChangeLog changeLog;
+
+  private Statistics statistics;
+  private User merchant;
+  private User customer;
+
+  @BeforeEach
+  void setUp() {
+    merchant = persistUser("Merchant", "52998224725", "merchant@test.com");
+    customer = persistUser("Customer", "74770769008", "customer@test.com");
+
+    for (int i = 0; i < CHARGES; i++) {
+      var payer = persistUser("Payer " + i, String.format("%011d", i + 1), "payer" + i + "@test.com");
+      persistCharge(merchant, payer);
+      persistCharge(payer, customer);
+    }
+
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void shouldListSentChargesWithExistenceCheckAndSingleQuery() {
+    var page = paymentService.listChargesSent(merchant.getId(), ChargeFilterRequestDTO.empty());
+
+    assertAll(
+        () -> assertEquals(CHARGES, page.charges().size()),
+        () -> assertNotNull(page.charges().get(0).destination().account()),
+        () -> assertEquals(2, statistics.getPrepareStatementCount())
+    );
+  }
+
+  @Test
+  void shouldListReceivedChargesByStatusWithExistenceCheckAndSingleQuery() {
+    var page = paymentService.listChargesReceived(customer.getId(),
+        new ChargeFilterRequestDTO(PENDING.name(), null, null, null, 5));
+
+    assertAll(
+        () -> assertEquals(5, page.charges().size()),
+        () -> assertNotNull(page.next()),
+        () -> assertNotNull(page.charges().get(0).origin().account()),
+        () -> assertEquals(2, statistics.getPrepareStatementCount())
+    );
+  }
+
+  private User persistUser(String name, String cpf, String email) {
+    var user = new User();
+    var account = new Account();
+    user.setName(name);
+    user.setCpf(cpf);
+    user.setEmail(email);
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    user.setAccount(account);
+    return entityManager.persist(user);
+  }
+
+  private void persistCharge(User origin, User destination) {
+    entityManager.persist(Charge.builder()
+        .origin(origin)
+        .destination(destination)
+        .amount(BigDecimal.TEN)
+        .description("charge")
+        .status(PENDING)
+        .build());
+  }
+}
@@ -0,0 +1,129 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ChargePartitionManagerTest {
+
+  private static final YearMonth CURRENT = YearMonth.of(2026, 10);
+
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+        .thenReturn(true);
+    when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Long.class))).thenReturn(1L);
+  }
+
+  @Test
+  void shouldCreateMissingMonthsAfterTheFirstPartition() {
+    partitions("tb_charges_legacy", "tb_charges_p202610", "tb_charges_p202611");
+
+    var changed = manager(3, 0).maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(2, changed),
+        () -> verify(jdbcTemplate).execute("create table if not exists tb_charges_p202612 partition of tb_charges"
+            + " for values from ('2026-12-01 00:00:00+00') to ('2027-01-01 00:00:00+00')"),
+        () -> verify(jdbcTemplate).execute("create table if not exists tb_charges_p202701 partition of tb_charges"
+            + " for values from ('2027-01-01 00:00:00+00') to ('2027-02-01 00:00:00+00')"),
+        () -> verify(jdbcTemplate, never()).execute(contains("detach"))
+    );
+  }
+
+  @Test
+  void shouldNotCreateMonthsStillCoveredByLegacyPartition() {
+    partitions("tb_charges_legacy", "tb_charges_p202611", "tb_charges_p202612", "tb_charges_p202701");
+
+    var changed = manager(3, 0).maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(0, changed),
+        () -> verify(jdbcTemplate, never()).execute(contains("tb_charges_p202610"))
+    );
+  }
+
+  @Test
+  void shouldDetachEmptyPartitionsPastRetention() {
+    partitions("tb_charges_legacy", "tb_charges_p202607", "tb_charges_p202608", "tb_charges_p202609",
+        "tb_charges_p202610", "tb_charges_p202611", "tb_charges_p202612", "tb_charges_p202701");
+    when(jdbcTemplate.queryForObject(contains("select exists"), eq(Boolean.class))).thenReturn(false);
+
+    var changed = manager(3, 2).maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(2, changed),
+        () -> verify(jdbcTemplate).execute("alter table tb_charges detach partition tb_charges_legacy"),
+        () -> verify(jdbcTemplate).execute("alter table tb_charges detach partition tb_charges_p202607"),
+        () -> verify(jdbcTemplate, never()).execute("alter table tb_charges detach partition tb_charges_p202608"),
+        () -> verify(jdbcTemplate, never()).execute(contains("create table"))
+    );
+  }
+
+  @Test
+  void shouldKeepPartitionsPastRetentionThatStillHoldCharges() {
+    partitions("tb_charges_legacy", "tb_charges_p202607", "tb_charges_p202608", "tb_charges_p202609",
+        "tb_charges_p202610", "tb_charges_p202611", "tb_charges_p202612", "tb_charges_p202701");
+    when(jdbcTemplate.queryForObject("select exists (select 1 from tb_charges_legacy)", Boolean.class))
+        .thenReturn(true);
+    when(jdbcTemplate.queryForObject("select exists (select 1 from tb_charges_p202607)", Boolean.class))
+        .thenReturn(false);
+
+    var changed = manager(3, 2).maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(1, changed),
+        () -> verify(jdbcTemplate, never()).execute("alter table tb_charges detach partition tb_charges_legacy"),
+        () -> verify(jdbcTemplate).execute("alter table tb_charges detach partition tb_charges_p202607")
+    );
+  }
+
+  @Test
+  void shouldDoNothingOutsidePostgres() {
+    var manager = new ChargePartitionManager(jdbcTemplate, 3, 2, Duration.ofSeconds(5), () -> false);
+
+    var changed = manager.maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(0, changed),
+        () -> verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class))
+    );
+  }
+
+  @Test
+  void shouldDoNothingWhenChargesAreNotPartitioned() {
+    when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Long.class))).thenReturn(0L);
+
+    var changed = manager(3, 2).maintain(CURRENT);
+
+    assertAll(
+        () -> assertEquals(0, changed),
+        () -> verify(jdbcTemplate, never()).execute(anyString())
+    );
+  }
+
+  private void partitions(String... names) {
+    when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of(names));
+  }
+
+  private ChargePartitionManager manager(int premakeMonths, int retentionMonths) {
+    return new ChargePartitionManager(jdbcTemplate, premakeMonths, retentionMonths, Duration.ofSeconds(5), () -> true);
+  }
+}
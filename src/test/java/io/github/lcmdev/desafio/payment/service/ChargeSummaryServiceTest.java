@@ -0,0 +1,133 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.lcmdev.desafio.payment.controller.dto.response.StatusSummaryDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import java.math.BigDecimal;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ChargeSummaryServiceTest {
+
+  private static final String URL = "jdbc:h2:mem:charge-summaries;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+  private JdbcTemplate jdbcTemplate;
+  private ChargeSummaryService chargeSummaryService;
+  private Long merchantId;
+  private Long customerId;
+  private Long otherId;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new DriverManagerDataSource(URL, "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2")
+        .load().migrate();
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("delete from tb_charge_summaries");
+    jdbcTemplate.update("delete from tb_charges");
+    jdbcTemplate.update("delete from tb_users");
+    merchantId = insertUser("52998224725");
+    customerId = insertUser("74770769008");
+    otherId = insertUser("11144477735");
+    chargeSummaryService = new ChargeSummaryService(jdbcTemplate,
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 1, 2);
+  }
+
+  @Test
+  void shouldApplyCreationsAndTransitionsToBothSides() {
+    var first = charge(merchantId, customerId, "100.00");
+    var second = charge(merchantId, customerId, "30.00");
+    var third = charge(merchantId, otherId, "20.00");
+
+    chargeSummaryService.created(List.of(first, second, third));
+    chargeSummaryService.moved(List.of(first, third), PENDING, PAID);
+    chargeSummaryService.moved(List.of(third), PAID, CANCELED);
+
+    var merchant = chargeSummaryService.summaryOf(merchantId);
+    var customer = chargeSummaryService.summaryOf(customerId);
+    assertAll(
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("30.00")), merchant.sent().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("100.00")), merchant.sent().get(PAID)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("20.00")), merchant.sent().get(CANCELED)),
+        () -> assertEquals(StatusSummaryDTO.EMPTY, merchant.received().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("30.00")), customer.received().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("100.00")), customer.received().get(PAID)),
+        () -> assertEquals(StatusSummaryDTO.EMPTY, customer.received().get(CANCELED)),
+        () -> assertEquals(StatusSummaryDTO.EMPTY, customer.sent().get(PAID))
+    );
+  }
+
+  @Test
+  void shouldRebuildSummariesFromChargesInChunks() {
+    insertCharge(merchantId, customerId, "100.00", PAID);
+    insertCharge(merchantId, customerId, "30.00", PENDING);
+    insertCharge(customerId, otherId, "20.00", PENDING);
+    jdbcTemplate.update("""
+        insert into tb_charge_summaries (user_id, direction, status, charge_count, total_amount)
+        values (?, 'SENT', 'CANCELED', 7, 70)
+        """, merchantId);
+
+    var rebuilt = chargeSummaryService.rebuild();
+
+    var merchant = chargeSummaryService.summaryOf(merchantId);
+    var customer = chargeSummaryService.summaryOf(customerId);
+    var other = chargeSummaryService.summaryOf(otherId);
+    assertAll(
+        () -> assertEquals(6, rebuilt),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("100.00")), merchant.sent().get(PAID)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("30.00")), merchant.sent().get(PENDING)),
+        () -> assertEquals(StatusSummaryDTO.EMPTY, merchant.sent().get(CANCELED)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("30.00")), customer.received().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("20.00")), customer.sent().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("20.00")), other.received().get(PENDING))
+    );
+  }
+
+  @Test
+  void shouldKeepApplyingDeltasAfterRebuild() {
+    var charge = charge(merchantId, customerId, "40.00");
+    insertCharge(merchantId, customerId, "40.00", PENDING);
+    chargeSummaryService.rebuild();
+
+    chargeSummaryService.moved(List.of(charge), PENDING, PAID);
+
+    var merchant = chargeSummaryService.summaryOf(merchantId);
+    assertAll(
+        () -> assertEquals(new StatusSummaryDTO(0, new BigDecimal("0.00")), merchant.sent().get(PENDING)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("40.00")), merchant.sent().get(PAID))
+    );
+  }
+
+  private Long insertUser(String cpf) {
+    jdbcTemplate.update("insert into tb_users (name, cpf, email, password_hash) values ('User', ?, ?, 'hash')",
+        cpf, cpf + "@test.com");
+    return jdbcTemplate.queryForObject("select id from tb_users where cpf = ?", Long.class, cpf);
+  }
+
+  private void insertCharge(Long originId, Long destinationId, String amount, ChargeStatusEnum status) {
+    jdbcTemplate.update("insert into tb_charges (origin_id, destination_id, amount, status) values (?, ?, ?, ?)",
+        originId, destinationId, new BigDecimal(amount), status.name());
+  }
+
+  private static Charge charge(Long originId, Long destinationId, String amount) {
+    return Charge.builder()
+        .origin(User.builder().id(originId).build())
+        .destination(User.builder().id(destinationId).build())
+        .amount(new BigDecimal(amount))
+        .status(PENDING)
+        .build();
+  }
+}
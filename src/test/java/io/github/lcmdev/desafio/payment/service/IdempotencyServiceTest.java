@@ -0,0 +1,234 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lcmdev.desafio.payment.controller.dto.request.CardPaymentRequestDTO;
+import io.github.lcmdev.desafio.payment.exception.GlobalExceptionHandler;
+import io.github.lcmdev.desafio.payment.exception.RequestAppliedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class IdempotencyServiceTest {
+
+  private static final String URL = "jdbc:h2:mem:idempotency;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+  private JdbcTemplate jdbcTemplate;
+  private IdempotencyService idempotencyService;
+  private final AtomicInteger calls = new AtomicInteger();
+  private Long userId;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new DriverManagerDataSource(URL, "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2")
+        .load().migrate();
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("delete from tb_idempotency_keys");
+    jdbcTemplate.update("delete from tb_users");
+    jdbcTemplate.update("""
+        insert into tb_users (name, cpf, email, password_hash) values ('User', '52998224725', 'user@test.com', 'hash')
+        """);
+    userId = jdbcTemplate.queryForObject("select id from tb_users", Long.class);
+    idempotencyService = service();
+  }
+
+  @Test
+  void shouldReplayStoredResponseWithoutRunningAgain() {
+    var first = idempotencyService.execute(userId, "key-1", "deposit 10", this::deposit);
+    var replayed = service().execute(userId, "key-1", "deposit 10", this::deposit);
+
+    assertAll(
+        () -> assertEquals(1, calls.get()),
+        () -> assertEquals(Map.of("deposited", true), first.getBody()),
+        () -> assertEquals(200, replayed.getStatusCode().value()),
+        () -> assertEquals("{\"deposited\":true}", replayed.getBody()),
+        () -> assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER))
+    );
+  }
+
+  @Test
+  void shouldRunEveryRequestWithoutKey() {
+    idempotencyService.execute(userId, null, "deposit 10", this::deposit);
+    idempotencyService.execute(userId, null, "deposit 10", this::deposit);
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void shouldRejectKeyReusedForDifferentRequest() {
+    idempotencyService.execute(userId, "key-1", "deposit 10", this::deposit);
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> idempotencyService.execute(userId, "key-1", "deposit 20", this::deposit));
+
+    assertAll(
+        () -> assertEquals("Idempotency-Key was already used for a different request", exception.getMessage()),
+        () -> assertEquals(1, calls.get())
+    );
+  }
+
+  @Test
+  void shouldFingerprintCardPaymentsWithoutPanOrCvv() {
+    var card = new CardPaymentRequestDTO("4111 1111 1111 1234", "10/30", "999");
+    var sameCardOtherCvv = new CardPaymentRequestDTO("4111111111111234", "10/30", "123");
+
+    idempotencyService.execute(userId, "key-1", "pay/card 7 " + card.fingerprint(), this::deposit);
+    idempotencyService.execute(userId, "key-1", "pay/card 7 " + sameCardOtherCvv.fingerprint(), this::deposit);
+
+    assertAll(
+        () -> assertEquals(1, calls.get()),
+        () -> assertEquals("*1234 10/30", card.fingerprint()),
+        () -> assertFalse(card.toString().contains("4111")),
+        () -> assertFalse(card.toString().contains("999"))
+    );
+  }
+
+  @Test
+  void shouldReleaseKeyWhenRequestFails() {
+    assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(userId, "key-1", "deposit 10",
+        () -> {
+          throw new IllegalArgumentException("Insufficient balance");
+        }));
+
+    idempotencyService.execute(userId, "key-1", "deposit 10", this::deposit);
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void shouldReplayFailureThrownAfterTheRequestWasApplied() {
+    assertThrows(RequestAppliedException.class, () -> idempotencyService.execute(userId, "key-1", "pay card",
+        () -> {
+          calls.incrementAndGet();
+          throw new RequestAppliedException("Charge is no longer pending, the card payment was credited to the payer balance");
+        }));
+
+    var replayed = service().execute(userId, "key-1", "pay card", this::deposit);
+
+    assertAll(
+        () -> assertEquals(1, calls.get()),
+        () -> assertEquals(409, replayed.getStatusCode().value()),
+        () -> assertEquals("{\"error\":\"Charge is no longer pending, the card payment was credited to the payer balance\"}",
+            replayed.getBody()),
+        () -> assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER))
+    );
+  }
+
+  @Test
+  void shouldReplayUnexpectedFailureInsteadOfRunningAgain() {
+    assertThrows(RuntimeException.class, () -> idempotencyService.execute(userId, "key-1", "deposit 10",
+        () -> {
+          calls.incrementAndGet();
+          throw new RuntimeException("Connection reset");
+        }));
+
+    var replayed = idempotencyService.execute(userId, "key-1", "deposit 10", this::deposit);
+
+    assertAll(
+        () -> assertEquals(1, calls.get()),
+        () -> assertEquals(500, replayed.getStatusCode().value())
+    );
+  }
+
+  @Test
+  void shouldMakeConcurrentDuplicatesWaitForTheInFlightRequest() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    try (var executor = Executors.newFixedThreadPool(2)) {
+      var original = executor.submit(() -> idempotencyService.execute(userId, "key-1", "deposit 10", () -> {
+        started.countDown();
+        await(release);
+        return deposit();
+      }));
+      started.await(5, TimeUnit.SECONDS);
+      var sameInstance = executor.submit(() -> idempotencyService.execute(userId, "key-1", "deposit 10", this::deposit));
+      var otherInstance = service().execute(userId, "key-2", "deposit 10", this::deposit);
+      release.countDown();
+
+      assertAll(
+          () -> assertEquals(Map.of("deposited", true), original.get(5, TimeUnit.SECONDS).getBody()),
+          () -> assertEquals("{\"deposited\":true}", sameInstance.get(5, TimeUnit.SECONDS).getBody()),
+          () -> assertEquals(Map.of("deposited", true), otherInstance.getBody()),
+          () -> assertEquals(2, calls.get())
+      );
+    }
+  }
+
+  @Test
+  void shouldMakeDuplicatesOnOtherInstancesPollUntilResponseIsStored() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    try (var executor = Executors.newFixedThreadPool(2)) {
+      var original = executor.submit(() -> idempotencyService.execute(userId, "key-1", "deposit 10", () -> {
+        started.countDown();
+        await(release);
+        return deposit();
+      }));
+      started.await(5, TimeUnit.SECONDS);
+      var duplicate = executor.submit(() -> service().execute(userId, "key-1", "deposit 10", this::deposit));
+      Thread.sleep(100);
+      release.countDown();
+
+      assertAll(
+          () -> assertEquals(Map.of("deposited", true), original.get(5, TimeUnit.SECONDS).getBody()),
+          () -> assertEquals("{\"deposited\":true}", duplicate.get(5, TimeUnit.SECONDS).getBody()),
+          () -> assertEquals(1, calls.get())
+      );
+    }
+  }
+
+  @Test
+  void shouldRunAgainOnceKeyExpiredAndPurgeInBatches() {
+    for (int i = 0; i < 5; i++) {
+      idempotencyService.execute(userId, "key-" + i, "deposit 10", this::deposit);
+    }
+    jdbcTemplate.update("update tb_idempotency_keys set created_at = ?",
+        Timestamp.from(Instant.now().minus(Duration.ofDays(2))));
+
+    service().execute(userId, "key-0", "deposit 20", this::deposit);
+    var purged = idempotencyService.purgeExpired();
+
+    assertAll(
+        () -> assertEquals(6, calls.get()),
+        () -> assertEquals(4, purged),
+        () -> assertEquals("key-0", jdbcTemplate.queryForObject(
+            "select idempotency_key from tb_idempotency_keys where status_code = 200", String.class)),
+        () -> assertEquals(1, jdbcTemplate.queryForObject("select count(*) from tb_idempotency_keys", Integer.class))
+    );
+  }
+
+  private IdempotencyService service() {
+    return new IdempotencyService(jdbcTemplate, new ObjectMapper(), new GlobalExceptionHandler(), new SimpleMeterRegistry(),
+        Duration.ofHours(24), Duration.ofSeconds(5), Duration.ofMinutes(1), Duration.ofMillis(10), 2, 100);
+  }
+
+  private ResponseEntity<?> deposit() {
+    calls.incrementAndGet();
+    return ResponseEntity.ok(Map.of("deposited", true));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,6 +1,12 @@
 package io.github.lcmdev.desafio.payment.service;
 
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.AUTHORIZING;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
 import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.REFUNDING;
 import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.BALANCE;
 import static io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum.CARD;
 import static io.github.lcmdev.desafio.payment.mock.PaymentServiceMock.createChargePaidMock;
@@ -10,25 +16,52 @@ import static io.github.lcmdev.desafio.payment.mock.PaymentServiceMock.destinati
 import static io.github.lcmdev.desafio.payment.mock.PaymentServiceMock.originUserMock;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.github.lcmdev.desafio.payment.client.AuthorizerClient;
+import io.github.lcmdev.desafio.payment.controller.dto.request.ChargeFilterRequestDTO;
+import io.github.lcmdev.desafio.payment.controller.dto.response.BatchPaymentResultDTO;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.mock.TransactionOperationsMock;
+import io.github.lcmdev.desafio.payment.model.Account;
 import io.github.lcmdev.desafio.payment.model.User;
 import io.github.lcmdev.desafio.payment.repository.ChargeRepository;
 import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.ListingVersion;
+import io.github.lcmdev.desafio.payment.service.archive.ChargeArchive;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy;
+import io.github.lcmdev.desafio.payment.service.changelog.ChangeLog;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy.Credit;
+import io.github.lcmdev.desafio.payment.service.event.ChargeEventBus;
+import io.github.lcmdev.desafio.payment.util.ChargeCursor;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
@@ -40,12 +73,38 @@ class PaymentServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private UserIdCache userIdCache;
+
   @Mock
   private ChargeRepository chargeRepository;
 
+  @Mock
+  private ChargeSummaryService chargeSummaryService;
+
+  @Mock
+  private ChargeArchive chargeArchive;
+
+  @Mock
+  private ChargeEventBus chargeEventBus;
+
+  @Mock
+  private ChangeLog changeLog;
+
   @Mock
   private AuthorizerClient authorizerClient;
 
+  @Mock
+  private BalanceMutationStrategy balanceMutationStrategy;
+
+  @Spy
+  private TransactionOperationsMock transactionOperations = new TransactionOperationsMock();
+
+  @BeforeEach
+  void setUp() {
+    when(chargeRepository.transition(any(), any(), any(), any())).thenReturn(1);
+  }
+
   @Test
   void shouldCreateChargeWithSuccessWhenDadaIsOk() {
     var originId = 1L;
@@ -53,15 +112,21 @@ class PaymentServiceTest {
     var amount = 100.00;
     var description = "Test charge";
 
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(userRepository.findByCpf(any())).thenReturn(destinationUserMock());
+    when(userRepository.existsById(1L)).thenReturn(true);
+    when(userIdCache.findIdByCpf(destinationCpf)).thenReturn(Optional.of(2L));
+    when(userRepository.getReferenceById(any())).thenAnswer(
+        invocation -> User.builder().id(invocation.getArgument(0)).build());
     when(chargeRepository.save(any())).thenReturn(createChargePendingMock());
 
     var charge = paymentService.createCharge(originId, destinationCpf, BigDecimal.valueOf(amount),
         description);
 
-    assertAll(() -> assertNotNull(charge), () -> verify(userRepository).findById(any()),
-        () -> verify(userRepository).findByCpf(any()), () -> verify(chargeRepository).save(any()));
+    assertAll(() -> assertNotNull(charge), () -> verify(userRepository).existsById(1L),
+        () -> verify(userRepository, never()).findByCpf(any()), () -> verify(chargeRepository).save(any()),
+        () -> verify(userRepository).incrementChargesVersion(List.of(1L, 2L)),
+        () -> verify(chargeSummaryService).created(List.of(charge)),
+        () -> verify(chargeEventBus).created(List.of(charge)),
+        () -> verify(changeLog).created(List.of(charge)));
   }
 
   @Test
@@ -85,8 +150,8 @@ class PaymentServiceTest {
     var amount = 100.00;
     var description = "Test charge";
 
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(userRepository.findByCpf(any())).thenReturn(Optional.of(User.builder().id(1L).build()));
+    when(userRepository.existsById(1L)).thenReturn(true);
+    when(userIdCache.findIdByCpf(destinationCpf)).thenReturn(Optional.of(1L));
 
     var exception = assertThrows(IllegalArgumentException.class,
         () -> paymentService.createCharge(originId, destinationCpf, BigDecimal.valueOf(amount),
@@ -99,56 +164,56 @@ class PaymentServiceTest {
 
   @Test
   void shouldReturnListChargesSentWithSuccessWhenStatusIsOk() {
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(chargeRepository.findByOriginAndStatus(any(), any())).thenReturn(
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPageByStatus(any(), any(), any(), any(), any(), any(), any())).thenReturn(
         List.of(createChargePendingMock()));
 
-    var charges = paymentService.listChargesSent(1L, Optional.of(PENDING));
+    var charges = paymentService.listChargesSent(1L, new ChargeFilterRequestDTO(PENDING.name(), null, null, null, null));
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(1, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByOriginAndStatus(any(), any())
+        () -> assertEquals(1, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findSentPageByStatus(any(), any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnListChargesSentWithSuccessWhenStatusIsEmpty() {
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(chargeRepository.findByOrigin(any())).thenReturn(List.of(createChargePendingMock()));
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of(createChargePendingMock()));
 
-    var charges = paymentService.listChargesSent(1L, Optional.empty());
+    var charges = paymentService.listChargesSent(1L, ChargeFilterRequestDTO.empty());
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(1, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByOrigin(any())
+        () -> assertEquals(1, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findSentPage(any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnListChargesSentEmptyWhenDoesNotExists() {
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(chargeRepository.findByOrigin(any())).thenReturn(List.of());
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of());
 
-    var charges = paymentService.listChargesSent(1L, Optional.empty());
+    var charges = paymentService.listChargesSent(1L, ChargeFilterRequestDTO.empty());
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(0, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByOrigin(any())
+        () -> assertEquals(0, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findSentPage(any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnExceptionWhenOriginUserDoesNotExistsInListChargesSent() {
-    when(userRepository.findById(any())).thenReturn(Optional.empty());
+    when(userRepository.existsById(any())).thenReturn(false);
 
     var exception = assertThrows(IllegalArgumentException.class,
-        () -> paymentService.listChargesSent(1L, Optional.empty())
+        () -> paymentService.listChargesSent(1L, ChargeFilterRequestDTO.empty())
     );
 
     assertAll(
@@ -157,58 +222,208 @@ class PaymentServiceTest {
     );
   }
 
+  @Test
+  void shouldReturnNextCursorWhenMoreChargesThanLimit() {
+    var newest = createChargePendingMock();
+    var older = createChargePendingMock();
+    older.setId(2L);
+    older.setCreatedAt(newest.getCreatedAt().minusSeconds(60));
+
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(
+        List.of(newest, older));
+
+    var page = paymentService.listChargesSent(1L,
+        new ChargeFilterRequestDTO(null, null, null, null, 1));
+
+    assertAll(
+        () -> assertEquals(1, page.charges().size()),
+        () -> assertEquals(newest.getId(), page.charges().get(0).id()),
+        () -> assertEquals(ChargeCursor.of(newest).encode(), page.next()),
+        () -> verify(chargeRepository).findSentPage(any(), any(), any(), any(), any(),
+            eq(Limit.of(2)))
+    );
+  }
+
+  @Test
+  void shouldResumeListChargesSentFromCursor() {
+    var cursor = new ChargeCursor(Instant.parse("2025-01-10T10:15:30.123456Z"), 10L);
+    var from = Instant.parse("2025-01-01T00:00:00Z");
+
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(
+        List.of());
+
+    var page = paymentService.listChargesSent(1L,
+        new ChargeFilterRequestDTO(null, from, null, cursor.encode(), null));
+
+    assertAll(
+        () -> assertNull(page.next()),
+        () -> verify(chargeRepository).findSentPage(any(), eq(from),
+            eq(ChargeFilterRequestDTO.MAX_CREATED_AT), eq(cursor.createdAt()), eq(10L),
+            eq(Limit.of(ChargeFilterRequestDTO.DEFAULT_LIMIT + 1)))
+    );
+  }
+
+  @Test
+  void shouldMergeArchivedChargesIntoListChargesSent() {
+    var live = createChargePendingMock();
+    var archived = createChargePendingMock();
+    archived.setId(2L);
+    archived.setStatus(PAID);
+    archived.setCreatedAt(live.getCreatedAt().minusSeconds(60));
+    var older = createChargePendingMock();
+    older.setId(3L);
+    older.setStatus(PAID);
+    older.setCreatedAt(live.getCreatedAt().minusSeconds(120));
+
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of(live));
+    when(chargeArchive.findPage(eq(SENT), eq(1L), isNull(), any(), any(), any(), any(), eq(2)))
+        .thenReturn(List.of(archived, older));
+
+    var page = paymentService.listChargesSent(1L, new ChargeFilterRequestDTO(null, null, null, null, 1));
+
+    assertAll(
+        () -> assertEquals(List.of(live.getId()), page.charges().stream().map(c -> c.id()).toList()),
+        () -> assertEquals(ChargeCursor.of(live).encode(), page.next())
+    );
+
+    when(chargeRepository.findSentPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of());
+
+    var next = paymentService.listChargesSent(1L, new ChargeFilterRequestDTO(null, null, null, page.next(), 1));
+
+    assertAll(
+        () -> assertEquals(List.of(archived.getId()), next.charges().stream().map(c -> c.id()).toList()),
+        () -> verify(chargeArchive).findPage(eq(SENT), eq(1L), isNull(), any(), any(),
+            eq(live.getCreatedAt()), eq(live.getId()), eq(2))
+    );
+  }
+
+  @Test
+  void shouldReturnExceptionWhenCursorIsInvalid() {
+    when(userRepository.existsById(any())).thenReturn(true);
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> paymentService.listChargesSent(1L,
+            new ChargeFilterRequestDTO(null, null, null, "not-a-cursor", null))
+    );
+
+    assertEquals("Invalid cursor", exception.getMessage());
+  }
+
+  @Test
+  void shouldBuildChargesETagFromUserChargesVersion() {
+    when(userRepository.findListingVersionById(any())).thenReturn(
+        Optional.of(new ListingVersion(7L, new BigDecimal("10.00"))),
+        Optional.of(new ListingVersion(8L, new BigDecimal("10.00"))));
+
+    var filter = ChargeFilterRequestDTO.empty();
+    var current = paymentService.chargesETag(1L, SENT, filter);
+    var afterChange = paymentService.chargesETag(1L, SENT, filter);
+
+    assertAll(
+        () -> assertTrue(current.startsWith("\"sent-1-7-10-")),
+        () -> assertTrue(current.endsWith("\"")),
+        () -> assertNotEquals(current, afterChange)
+    );
+  }
+
+  @Test
+  void shouldChangeChargesETagWhenBalanceChanges() {
+    when(userRepository.findListingVersionById(any())).thenReturn(
+        Optional.of(new ListingVersion(7L, new BigDecimal("10.00"))),
+        Optional.of(new ListingVersion(7L, new BigDecimal("10.0"))),
+        Optional.of(new ListingVersion(7L, new BigDecimal("15.00"))));
+
+    var filter = ChargeFilterRequestDTO.empty();
+    var current = paymentService.chargesETag(1L, SENT, filter);
+    var sameBalance = paymentService.chargesETag(1L, SENT, filter);
+    var afterDeposit = paymentService.chargesETag(1L, SENT, filter);
+
+    assertAll(
+        () -> assertEquals(current, sameBalance),
+        () -> assertNotEquals(current, afterDeposit)
+    );
+  }
+
+  @Test
+  void shouldBuildChargesETagFromCanonicalFilter() {
+    when(userRepository.findListingVersionById(any())).thenReturn(Optional.of(new ListingVersion(7L, BigDecimal.ZERO)));
+
+    var lowerCase = paymentService.chargesETag(1L, SENT, new ChargeFilterRequestDTO("paid", null, null, null, 500));
+    var upperCase = paymentService.chargesETag(1L, SENT, new ChargeFilterRequestDTO("PAID", null, null, null, 200));
+    var otherLimit = paymentService.chargesETag(1L, SENT, new ChargeFilterRequestDTO("PAID", null, null, null, 10));
+
+    assertAll(
+        () -> assertEquals(lowerCase, upperCase),
+        () -> assertNotEquals(upperCase, otherLimit),
+        () -> assertEquals("\"sent-1-7-0-PAID-1970-01-01T00:00:00Z-9999-12-31T23:59:59Z-10-\"", otherLimit)
+    );
+  }
+
+  @Test
+  void shouldReturnExceptionWhenUserDoesNotExistsInChargesETag() {
+    when(userRepository.findListingVersionById(any())).thenReturn(Optional.empty());
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> paymentService.chargesETag(1L, RECEIVED, ChargeFilterRequestDTO.empty()));
+
+    assertEquals("User not found", exception.getMessage());
+  }
+
   @Test
   void shouldReturnListChargesReceivedWithSuccessWhenStatusIsOk() {
-    when(userRepository.findById(any())).thenReturn(destinationUserMock());
-    when(chargeRepository.findByDestinationAndStatus(any(), any())).thenReturn(
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findReceivedPageByStatus(any(), any(), any(), any(), any(), any(), any())).thenReturn(
         List.of(createChargePendingMock()));
 
-    var charges = paymentService.listChargesReceived(1L, Optional.of(PENDING));
+    var charges = paymentService.listChargesReceived(1L, new ChargeFilterRequestDTO(PENDING.name(), null, null, null, null));
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(1, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByDestinationAndStatus(any(), any())
+        () -> assertEquals(1, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findReceivedPageByStatus(any(), any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnListChargesReceivedWithSuccessWhenStatusIsEmpty() {
-    when(userRepository.findById(any())).thenReturn(originUserMock());
-    when(chargeRepository.findByDestination(any())).thenReturn(List.of(createChargePendingMock()));
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findReceivedPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of(createChargePendingMock()));
 
-    var charges = paymentService.listChargesReceived(1L, Optional.empty());
+    var charges = paymentService.listChargesReceived(1L, ChargeFilterRequestDTO.empty());
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(1, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByDestination(any())
+        () -> assertEquals(1, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findReceivedPage(any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnListChargesReceivedEmptyWhenDoesNotExists() {
-    when(userRepository.findById(any())).thenReturn(destinationUserMock());
-    when(chargeRepository.findByDestination(any())).thenReturn(List.of());
+    when(userRepository.existsById(any())).thenReturn(true);
+    when(chargeRepository.findReceivedPage(any(), any(), any(), any(), any(), any())).thenReturn(List.of());
 
-    var charges = paymentService.listChargesReceived(1L, Optional.empty());
+    var charges = paymentService.listChargesReceived(1L, ChargeFilterRequestDTO.empty());
 
     assertAll(
         () -> assertNotNull(charges),
-        () -> assertEquals(0, charges.size()),
-        () -> verify(userRepository).findById(any()),
-        () -> verify(chargeRepository).findByDestination(any())
+        () -> assertEquals(0, charges.charges().size()),
+        () -> verify(userRepository).existsById(any()),
+        () -> verify(chargeRepository).findReceivedPage(any(), any(), any(), any(), any(), any())
     );
   }
 
   @Test
   void shouldReturnExceptionWhenOriginUserDoesNotExistsInListChargesReceived() {
-    when(userRepository.findById(any())).thenReturn(Optional.empty());
+    when(userRepository.existsById(any())).thenReturn(false);
 
     var exception = assertThrows(IllegalArgumentException.class,
-        () -> paymentService.listChargesReceived(1L, Optional.empty())
+        () -> paymentService.listChargesReceived(1L, ChargeFilterRequestDTO.empty())
     );
 
     assertAll(
@@ -220,6 +435,8 @@ class PaymentServiceTest {
   @Test
   void shouldPayByBalanceWithSuccessWhenDataIsOk() {
     when(chargeRepository.findById(any())).thenReturn(Optional.of(createChargePendingMock()));
+    when(balanceMutationStrategy.balanceOf(any())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
     when(chargeRepository.save(any())).thenReturn(createChargePendingMock());
 
     var charge = paymentService.payByBalance(2L, 1L);
@@ -227,7 +444,30 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(charge),
         () -> verify(chargeRepository).findById(any()),
-        () -> verify(chargeRepository).save(any())
+        () -> verify(chargeRepository).save(any()),
+        () -> verify(balanceMutationStrategy).transfer(any(), any(), eq(BigDecimal.valueOf(100.00)), eq(false)),
+        () -> verify(userRepository).incrementChargesVersion(List.of(1L, 2L)),
+        () -> verify(chargeSummaryService).moved(any(), eq(PENDING), eq(PAID)),
+        () -> verify(chargeEventBus).moved(any(), eq(PENDING), eq(PAID)),
+        () -> verify(changeLog).moved(any(), eq(PENDING), eq(PAID)),
+        () -> verify(changeLog).transferred(any(), any(), any())
+    );
+  }
+
+  @Test
+  void shouldReturnExceptionWhenChargeIsReservedConcurrentlyInPayByBalance() {
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(createChargePendingMock()));
+    when(balanceMutationStrategy.balanceOf(any())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
+    when(chargeRepository.transition(any(), eq(PENDING), eq(PAID), any())).thenReturn(0);
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.payByBalance(2L, 1L));
+
+    assertAll(
+        () -> assertEquals("Charge is not pending", exception.getMessage()),
+        () -> verify(balanceMutationStrategy, never()).transfer(any(), any(), any(), anyBoolean()),
+        () -> verify(chargeRepository, never()).save(any())
     );
   }
 
@@ -277,6 +517,8 @@ class PaymentServiceTest {
   void shouldReturnExceptionWhenUserInsufficientBalanceInPayByBalance() {
     when(chargeRepository.findById(any())).thenReturn(
         Optional.of(createChargeWithInsufficientBalanceMock()));
+    when(balanceMutationStrategy.balanceOf(any())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
 
     var exception = assertThrows(IllegalArgumentException.class,
         () -> paymentService.payByBalance(2L, 1L));
@@ -284,21 +526,156 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Insufficient balance", exception.getMessage()),
-        () -> verify(chargeRepository).findById(any())
+        () -> verify(chargeRepository).findById(any()),
+        () -> verify(balanceMutationStrategy, never()).transfer(any(), any(), any(), anyBoolean())
+    );
+  }
+
+  @Test
+  void shouldPayChargesByBalanceCreditingEachReceiverOnce() {
+    var payer = destinationUserMock().get();
+    var receiver = originUserMock().get();
+    var other = User.builder().id(3L).account(new Account(3L, BigDecimal.ZERO, null, 0L)).build();
+    when(chargeRepository.findWithAccountsByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+        pendingCharge(1L, receiver, payer, "100.00"),
+        pendingCharge(2L, other, payer, "50.00"),
+        pendingCharge(3L, receiver, payer, "30.00")));
+    when(balanceMutationStrategy.lockForTransfer(any(), anyList())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
+    when(chargeRepository.transitionAll(eq(List.of(1L, 2L, 3L)), eq(PENDING), eq(PAID), eq(BALANCE), any())).thenReturn(3);
+
+    var results = paymentService.payByBalance(2L, List.of(1L, 2L, 3L, 1L), true);
+
+    assertAll(
+        () -> assertEquals(3, results.size()),
+        () -> assertTrue(results.stream().allMatch(BatchPaymentResultDTO::paid)),
+        () -> verify(chargeRepository, never()).findById(any()),
+        () -> verify(balanceMutationStrategy).transfer(payer.getAccount(), List.of(
+            new Credit(receiver.getAccount(), new BigDecimal("130.00")),
+            new Credit(other.getAccount(), new BigDecimal("50.00"))), false),
+        () -> verify(userRepository).incrementChargesVersion(Set.of(1L, 2L, 3L)),
+        () -> verify(chargeSummaryService).moved(argThat(charges -> charges.size() == 3), eq(PENDING), eq(PAID))
+    );
+  }
+
+  @Test
+  void shouldFailWholeBatchWhenOneChargeCannotBePaidAndAtomic() {
+    var payer = destinationUserMock().get();
+    var receiver = originUserMock().get();
+    when(chargeRepository.findWithAccountsByIdIn(any())).thenReturn(List.of(
+        pendingCharge(1L, receiver, payer, "100.00")));
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.payByBalance(2L, List.of(1L, 2L), true));
+
+    assertAll(
+        () -> assertEquals("Charge not found", exception.getMessage()),
+        () -> verify(balanceMutationStrategy, never()).lockForTransfer(any(), anyList()),
+        () -> verify(chargeRepository, never()).transitionAll(any(), any(), any(), any(), any()),
+        () -> verify(balanceMutationStrategy, never()).transfer(any(), anyList(), anyBoolean())
+    );
+  }
+
+  @Test
+  void shouldPayWhatTheBalanceCoversAndReportTheRestWhenBestEffort() {
+    var payer = destinationUserMock().get();
+    var receiver = originUserMock().get();
+    var paidCharge = createChargePaidMock();
+    paidCharge.setId(4L);
+    when(chargeRepository.findWithAccountsByIdIn(any())).thenReturn(List.of(
+        pendingCharge(1L, receiver, payer, "6000.00"),
+        pendingCharge(2L, receiver, payer, "5000.00"),
+        pendingCharge(3L, receiver, payer, "4000.00"),
+        paidCharge));
+    when(balanceMutationStrategy.lockForTransfer(any(), anyList())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
+    when(chargeRepository.transitionAll(eq(List.of(1L, 3L)), eq(PENDING), eq(PAID), eq(BALANCE), any())).thenReturn(2);
+
+    var results = paymentService.payByBalance(2L, List.of(1L, 2L, 3L, 4L), false);
+
+    assertAll(
+        () -> assertEquals(List.of(
+            BatchPaymentResultDTO.paid(1L),
+            BatchPaymentResultDTO.failed(2L, "Insufficient balance"),
+            BatchPaymentResultDTO.paid(3L),
+            BatchPaymentResultDTO.failed(4L, "Charge is not pending")), results),
+        () -> verify(balanceMutationStrategy).transfer(payer.getAccount(), List.of(
+            new Credit(receiver.getAccount(), new BigDecimal("10000.00"))), false)
+    );
+  }
+
+  @Test
+  void shouldCheckBatchAgainstBalanceReadUnderTransferLocks() {
+    var payer = destinationUserMock().get();
+    var receiver = originUserMock().get();
+    when(chargeRepository.findWithAccountsByIdIn(any())).thenReturn(List.of(
+        pendingCharge(1L, receiver, payer, "60.00"),
+        pendingCharge(2L, receiver, payer, "50.00")));
+    when(balanceMutationStrategy.lockForTransfer(payer.getAccount(), List.of(receiver.getAccount(), receiver.getAccount())))
+        .thenReturn(new BigDecimal("100.00"));
+    when(chargeRepository.transitionAll(eq(List.of(1L)), eq(PENDING), eq(PAID), eq(BALANCE), any())).thenReturn(1);
+
+    var results = paymentService.payByBalance(2L, List.of(1L, 2L), false);
+
+    assertAll(
+        () -> assertEquals(List.of(
+            BatchPaymentResultDTO.paid(1L),
+            BatchPaymentResultDTO.failed(2L, "Insufficient balance")), results),
+        () -> verify(balanceMutationStrategy, never()).balanceOf(any()),
+        () -> verify(balanceMutationStrategy).transfer(payer.getAccount(), List.of(
+            new Credit(receiver.getAccount(), new BigDecimal("60.00"))), false)
+    );
+  }
+
+  @Test
+  void shouldReturnExceptionWhenChargeIsPaidConcurrentlyInBatchPayByBalance() {
+    var payer = destinationUserMock().get();
+    when(chargeRepository.findWithAccountsByIdIn(any())).thenReturn(List.of(
+        pendingCharge(1L, originUserMock().get(), payer, "100.00")));
+    when(balanceMutationStrategy.lockForTransfer(any(), anyList())).thenAnswer(
+        invocation -> invocation.<Account>getArgument(0).getBalance());
+    when(chargeRepository.transitionAll(any(), any(), any(), any(), any())).thenReturn(0);
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.payByBalance(2L, List.of(1L), false));
+
+    assertAll(
+        () -> assertEquals("Charge is not pending", exception.getMessage()),
+        () -> verify(balanceMutationStrategy, never()).transfer(any(), anyList(), anyBoolean())
     );
   }
 
   @Test
   void shouldDepositWithSuccessWhenDataIsOk() {
-    when(authorizerClient.authorize()).thenReturn(true);
+    var authorizedInTransaction = new boolean[1];
+    when(authorizerClient.authorize()).thenAnswer(invocation -> {
+      authorizedInTransaction[0] = transactionOperations.isActive();
+      return true;
+    });
     when(userRepository.findById(any())).thenReturn(originUserMock());
 
     var deposited = paymentService.deposit(1L, BigDecimal.valueOf(100.00));
 
     assertAll(
         () -> assertTrue(deposited),
+        () -> assertFalse(authorizedInTransaction[0]),
         () -> verify(authorizerClient).authorize(),
-        () -> verify(userRepository).findById(any())
+        () -> verify(userRepository).findById(any()),
+        () -> verify(balanceMutationStrategy).credit(any(), eq(BigDecimal.valueOf(100.00))),
+        () -> verify(changeLog).balanceChanged(any(), eq(BigDecimal.valueOf(100.00)), isNull())
+    );
+  }
+
+  @Test
+  void shouldNotCreditWhenAuthorizerDeniesDeposit() {
+    when(authorizerClient.authorize()).thenReturn(false);
+
+    var deposited = paymentService.deposit(1L, BigDecimal.valueOf(100.00));
+
+    assertAll(
+        () -> assertFalse(deposited),
+        () -> verify(transactionOperations, never()).execute(any()),
+        () -> verify(balanceMutationStrategy, never()).credit(any(), any())
     );
   }
 
@@ -316,22 +693,99 @@ class PaymentServiceTest {
 
   @Test
   void shouldPayByCardWithSuccessWhenDataIsOk() {
-    when(authorizerClient.authorize()).thenReturn(true);
+    var authorizedInTransaction = new boolean[1];
+    when(authorizerClient.authorize()).thenAnswer(invocation -> {
+      authorizedInTransaction[0] = transactionOperations.isActive();
+      return true;
+    });
     when(chargeRepository.findById(any())).thenReturn(Optional.of(createChargePendingMock()));
-    when(userRepository.save(any())).thenReturn(originUserMock().get());
     when(chargeRepository.save(any())).thenReturn(createChargePendingMock());
 
     var paid = paymentService.payByCard(2L, 1L, "1234567890123456", "1", "124");
 
     assertAll(
         () -> assertTrue(paid),
+        () -> assertFalse(authorizedInTransaction[0]),
         () -> verify(authorizerClient).authorize(),
-        () -> verify(chargeRepository).findById(any()),
-        () -> verify(userRepository).save(any()),
+        () -> verify(transactionOperations, times(2)).execute(any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(PENDING), eq(AUTHORIZING), any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(AUTHORIZING), eq(PAID), any()),
+        () -> verify(balanceMutationStrategy).credit(any(), any()),
         () -> verify(chargeRepository).save(any())
     );
   }
 
+  @Test
+  void shouldReleaseReservationWhenAuthorizerDeniesPayByCard() {
+    when(authorizerClient.authorize()).thenReturn(false);
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(createChargePendingMock()));
+
+    var paid = paymentService.payByCard(2L, 1L, "1234567890123456", "1", "124");
+
+    assertAll(
+        () -> assertFalse(paid),
+        () -> verify(chargeRepository).transition(eq(1L), eq(PENDING), eq(AUTHORIZING), any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(AUTHORIZING), eq(PENDING), any()),
+        () -> verify(chargeSummaryService).moved(any(), eq(PENDING), eq(AUTHORIZING)),
+        () -> verify(chargeSummaryService).moved(any(), eq(AUTHORIZING), eq(PENDING)),
+        () -> verify(balanceMutationStrategy, never()).credit(any(), any()),
+        () -> verify(chargeRepository, never()).save(any())
+    );
+  }
+
+  @Test
+  void shouldPayFromPendingWhenCardIsApprovedAfterReservationWasReleased() {
+    var chargeMock = createChargePendingMock();
+    when(authorizerClient.authorize()).thenReturn(true);
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
+    when(chargeRepository.transition(any(), eq(AUTHORIZING), eq(PAID), any())).thenReturn(0);
+
+    var paid = paymentService.payByCard(2L, 1L, "1234567890123456", "1", "124");
+
+    assertAll(
+        () -> assertTrue(paid),
+        () -> verify(chargeRepository).transition(eq(1L), eq(PENDING), eq(PAID), any()),
+        () -> verify(chargeSummaryService).moved(any(), eq(PENDING), eq(PAID)),
+        () -> verify(balanceMutationStrategy).credit(same(chargeMock.getOrigin().getAccount()), any()),
+        () -> verify(chargeRepository).save(argThat(charge -> charge.getStatus() == PAID
+            && charge.getPaymentMethod() == CARD))
+    );
+  }
+
+  @Test
+  void shouldCreditPayerWhenCardIsApprovedAfterChargeWasSettledElsewhere() {
+    var chargeMock = createChargePendingMock();
+    when(authorizerClient.authorize()).thenReturn(true);
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
+    when(chargeRepository.transition(any(), eq(AUTHORIZING), eq(PAID), any())).thenReturn(0);
+    when(chargeRepository.transition(any(), eq(PENDING), eq(PAID), any())).thenReturn(0);
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.payByCard(2L, 1L, "1234567890123456", "1", "124"));
+
+    assertAll(
+        () -> assertEquals("Charge is no longer pending, the card payment was credited to the payer balance",
+            exception.getMessage()),
+        () -> verify(balanceMutationStrategy).credit(same(chargeMock.getDestination().getAccount()), any()),
+        () -> verify(chargeRepository, never()).save(any())
+    );
+  }
+
+  @Test
+  void shouldReturnExceptionInPayByCardWhenChargeIsReservedConcurrently() {
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(createChargePendingMock()));
+    when(chargeRepository.transition(any(), eq(PENDING), eq(AUTHORIZING), any())).thenReturn(0);
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.payByCard(2L, 1L, "1234567890123456", "1", "124")
+    );
+
+    assertAll(
+        () -> assertEquals("Charge is not pending", exception.getMessage()),
+        () -> verify(authorizerClient, never()).authorize()
+    );
+  }
+
   @Test
   void shouldReturnExceptionInPayByCardWhenChardDoesNotExists() {
     when(authorizerClient.authorize()).thenReturn(true);
@@ -344,7 +798,7 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Charge not found", exception.getMessage()),
-        () -> verify(authorizerClient).authorize(),
+        () -> verify(authorizerClient, never()).authorize(),
         () -> verify(chargeRepository).findById(any())
     );
   }
@@ -361,7 +815,7 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Invalid paying user", exception.getMessage()),
-        () -> verify(authorizerClient).authorize(),
+        () -> verify(authorizerClient, never()).authorize(),
         () -> verify(chargeRepository).findById(any())
     );
   }
@@ -378,7 +832,7 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Charge is not pending", exception.getMessage()),
-        () -> verify(authorizerClient).authorize(),
+        () -> verify(authorizerClient, never()).authorize(),
         () -> verify(chargeRepository).findById(any())
     );
   }
@@ -390,7 +844,6 @@ class PaymentServiceTest {
 
     when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
     when(chargeRepository.save(any())).thenReturn(chargeMock);
-    when(userRepository.save(any())).thenReturn(originUserMock().get());
 
     var charge = paymentService.cancelCharge(1L, 1L);
 
@@ -398,7 +851,7 @@ class PaymentServiceTest {
         () -> assertNotNull(charge),
         () -> verify(chargeRepository).findById(any()),
         () -> verify(chargeRepository, times(1)).save(any()),
-        () -> verify(userRepository, times(2)).save(any())
+        () -> verify(balanceMutationStrategy).transfer(any(), any(), any(), eq(true))
     );
   }
 
@@ -409,19 +862,40 @@ class PaymentServiceTest {
 
     when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
     when(chargeRepository.save(any())).thenReturn(chargeMock);
-    when(userRepository.save(any())).thenReturn(originUserMock().get());
     when(authorizerClient.authorize()).thenReturn(true);
 
     var charge = paymentService.cancelCharge(1L, 1L);
 
     assertAll(
         () -> assertNotNull(charge),
-        () -> verify(chargeRepository).findById(any()),
+        () -> verify(chargeRepository, times(2)).findById(any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(PAID), eq(REFUNDING), any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(REFUNDING), eq(CANCELED), any()),
         () -> verify(chargeRepository, times(1)).save(any()),
-        () -> verify(userRepository, times(1)).save(any()),
+        () -> verify(balanceMutationStrategy).debit(any(), any(), eq(true)),
         () -> verify(authorizerClient).authorize()
     );
   }
+
+  @Test
+  void shouldCancelFromPaidWhenChargebackIsApprovedAfterRefundWasReleased() {
+    var chargeMock = createChargePaidMock();
+    chargeMock.setPaymentMethod(CARD);
+
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
+    when(chargeRepository.save(any())).thenReturn(chargeMock);
+    when(chargeRepository.transition(any(), eq(REFUNDING), eq(CANCELED), any())).thenReturn(0);
+    when(authorizerClient.authorize()).thenReturn(true);
+
+    var charge = paymentService.cancelCharge(1L, 1L);
+
+    assertAll(
+        () -> assertEquals(CANCELED, charge.getStatus()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(PAID), eq(CANCELED), any()),
+        () -> verify(balanceMutationStrategy).debit(any(), any(), eq(true))
+    );
+  }
+
   @Test
   void shouldReturnExceptionCancelChargeCardWhenDoesNotAuthorizer() {
     var chargeMock = createChargePaidMock();
@@ -437,8 +911,60 @@ class PaymentServiceTest {
     assertAll(
         () -> assertNotNull(exception),
         () -> assertEquals("Authorizer denied chargeback", exception.getMessage()),
-        () -> verify(chargeRepository).findById(any()),
+        () -> verify(chargeRepository, times(2)).findById(any()),
+        () -> verify(chargeRepository).transition(eq(1L), eq(REFUNDING), eq(PAID), any()),
+        () -> verify(balanceMutationStrategy, never()).debit(any(), any(), anyBoolean()),
         () -> verify(authorizerClient).authorize()
     );
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldReturnExceptionWhenCancelingChargeBeingAuthorized() {
+    var chargeMock = createChargePendingMock();
+    chargeMock.setStatus(AUTHORIZING);
+
+    when(chargeRepository.findById(any())).thenReturn(Optional.of(chargeMock));
+
+    var exception = assertThrows(IllegalStateException.class,
+        () -> paymentService.cancelCharge(1L, 1L)
+    );
+
+    assertAll(
+        () -> assertEquals("Charge authorization in progress", exception.getMessage()),
+        () -> verify(chargeRepository, never()).transition(any(), any(), any(), any()),
+        () -> verify(authorizerClient, never()).authorize()
+    );
+  }
+
+  @Test
+  void shouldReleaseStaleAuthorizationsBackToPreviousStatus() {
+    var authorizing = createChargePendingMock();
+    authorizing.setStatus(AUTHORIZING);
+    var refunding = createChargePaidMock();
+    refunding.setId(2L);
+    refunding.setStatus(REFUNDING);
+
+    when(chargeRepository.findByStatusInAndStatusUpdatedAtBefore(any(), any()))
+        .thenReturn(List.of(authorizing, refunding));
+
+    var released = paymentService.releaseStaleAuthorizations(Instant.now());
+
+    assertAll(
+        () -> assertEquals(2, released),
+        () -> verify(chargeRepository).transition(eq(1L), eq(AUTHORIZING), eq(PENDING), any()),
+        () -> verify(chargeRepository).transition(eq(2L), eq(REFUNDING), eq(PAID), any()),
+        () -> verify(userRepository, times(2)).incrementChargesVersion(any()),
+        () -> verify(chargeSummaryService).moved(List.of(authorizing), AUTHORIZING, PENDING),
+        () -> verify(chargeSummaryService).moved(List.of(refunding), REFUNDING, PAID)
+    );
+  }
+
+  private static Charge pendingCharge(Long id, User origin, User destination, String amount) {
+    var charge = createChargePendingMock();
+    charge.setId(id);
+    charge.setOrigin(origin);
+    charge.setDestination(destination);
+    charge.setAmount(new BigDecimal(amount));
+    return charge;
+  }
+}
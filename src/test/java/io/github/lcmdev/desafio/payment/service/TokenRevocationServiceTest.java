@@ -0,0 +1,128 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.github.lcmdev.desafio.payment.security.JwtUtil.VerifiedToken;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class TokenRevocationServiceTest {
+
+  private static final String URL = "jdbc:h2:mem:revocation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+  private JdbcTemplate jdbcTemplate;
+  private TokenRevocationService tokenRevocationService;
+  private Long userId;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new DriverManagerDataSource(URL, "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2")
+        .load().migrate();
+    jdbcTemplate = spy(new JdbcTemplate(dataSource));
+    jdbcTemplate.update("delete from tb_revoked_tokens");
+    jdbcTemplate.update("delete from tb_users");
+    jdbcTemplate.update("""
+        insert into tb_users (name, cpf, email, password_hash) values ('User', '52998224725', 'user@test.com', 'hash')
+        """);
+    userId = jdbcTemplate.queryForObject("select id from tb_users", Long.class);
+    tokenRevocationService = new TokenRevocationService(jdbcTemplate, Duration.ofSeconds(30));
+  }
+
+  @Test
+  void shouldCheckDatabaseUntilFilterIsLoaded() {
+    var token = token();
+    insertRevocation(token.jti(), token.expiresAt());
+
+    assertTrue(tokenRevocationService.isRevoked(token.jti()));
+  }
+
+  @Test
+  void shouldAcceptUnrevokedTokenWithoutQueryingDatabase() {
+    tokenRevocationService.refresh();
+    clearInvocations(jdbcTemplate);
+
+    assertAll(
+        () -> assertFalse(tokenRevocationService.isRevoked(token().jti())),
+        () -> verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class))
+    );
+  }
+
+  @Test
+  void shouldRejectTokenRevokedOnThisInstanceImmediately() {
+    tokenRevocationService.refresh();
+    var token = token();
+
+    tokenRevocationService.revoke(token);
+
+    assertTrue(tokenRevocationService.isRevoked(token.jti()));
+  }
+
+  @Test
+  void shouldPickUpTokensRevokedOnOtherInstancesOnRefresh() {
+    tokenRevocationService.refresh();
+    var token = token();
+    insertRevocation(token.jti(), token.expiresAt());
+
+    assertFalse(tokenRevocationService.mightBeRevoked(token.jti()));
+
+    tokenRevocationService.refresh();
+
+    assertTrue(tokenRevocationService.isRevoked(token.jti()));
+  }
+
+  @Test
+  void shouldIgnoreRepeatedRevocationOfSameToken() {
+    tokenRevocationService.refresh();
+    var token = token();
+
+    tokenRevocationService.revoke(token);
+    tokenRevocationService.revoke(token);
+
+    assertEquals(1, jdbcTemplate.queryForObject("select count(*) from tb_revoked_tokens", Long.class));
+  }
+
+  @Test
+  void shouldPurgeExpiredRevocationsOnRebuild() {
+    insertRevocation(UUID.randomUUID().toString(), Instant.now().minusSeconds(1));
+    insertRevocation(UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+
+    tokenRevocationService.rebuild();
+
+    assertEquals(1, jdbcTemplate.queryForObject("select count(*) from tb_revoked_tokens", Long.class));
+  }
+
+  @Test
+  void shouldRejectRevocationOfTokenWithoutId() {
+    var token = new VerifiedToken(userId, null, Instant.now().plusSeconds(60));
+
+    assertThrows(IllegalArgumentException.class, () -> tokenRevocationService.revoke(token));
+  }
+
+  private VerifiedToken token() {
+    return new VerifiedToken(userId, UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+  }
+
+  private void insertRevocation(String jti, Instant expiresAt) {
+    jdbcTemplate.update("insert into tb_revoked_tokens (jti, user_id, expires_at) values (?, ?, ?)",
+        jti, userId, Timestamp.from(expiresAt));
+  }
+}
@@ -0,0 +1,109 @@
+package io.github.lcmdev.desafio.payment.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.repository.UserRepository.IdByCpf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserIdCacheTest {
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private UserIdCache userIdCache;
+
+  @BeforeEach
+  void setUp() {
+    userIdCache = new UserIdCache(userRepository, meterRegistry, 100, Duration.ofMinutes(10));
+  }
+
+  @Test
+  void shouldServeRepeatedLookupsFromCache() {
+    when(userRepository.findIdByCpf("74770769008")).thenReturn(Optional.of(new IdByCpf(2L, "74770769008")));
+
+    userIdCache.findIdByCpf("74770769008");
+    var id = userIdCache.findIdByCpf("74770769008");
+
+    assertAll(
+        () -> assertEquals(Optional.of(2L), id),
+        () -> verify(userRepository, times(1)).findIdByCpf("74770769008"),
+        () -> assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()),
+        () -> assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count())
+    );
+  }
+
+  @Test
+  void shouldNotCacheUnknownCpfAndReloadAfterEviction() {
+    when(userRepository.findIdByCpf("74770769008")).thenReturn(Optional.empty())
+        .thenReturn(Optional.of(new IdByCpf(2L, "74770769008")));
+
+    var unknown = userIdCache.findIdByCpf("74770769008");
+    var registered = userIdCache.findIdByCpf("74770769008");
+    userIdCache.evict("74770769008");
+    userIdCache.findIdByCpf("74770769008");
+
+    assertAll(
+        () -> assertEquals(Optional.empty(), unknown),
+        () -> assertEquals(Optional.of(2L), registered),
+        () -> verify(userRepository, times(3)).findIdByCpf("74770769008")
+    );
+  }
+
+  @Test
+  void shouldLoadConcurrentMissesOnce() throws Exception {
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(userRepository.findIdByCpf("74770769008")).thenAnswer(invocation -> {
+      loading.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return Optional.of(new IdByCpf(2L, "74770769008"));
+    });
+
+    try (var executor = Executors.newFixedThreadPool(3)) {
+      var lookups = List.of(
+          executor.submit(() -> userIdCache.findIdByCpf("74770769008")),
+          executor.submit(() -> userIdCache.findIdByCpf("74770769008")),
+          executor.submit(() -> userIdCache.findIdByCpf("74770769008")));
+      loading.await(5, TimeUnit.SECONDS);
+      Thread.sleep(50);
+      release.countDown();
+
+      for (var lookup : lookups) {
+        assertEquals(Optional.of(2L), lookup.get(5, TimeUnit.SECONDS));
+      }
+    }
+    verify(userRepository, times(1)).findIdByCpf("74770769008");
+  }
+
+  @Test
+  void shouldLoadOnlyMissingCpfsInBulk() {
+    when(userRepository.findIdByCpf("74770769008")).thenReturn(Optional.of(new IdByCpf(2L, "74770769008")));
+    when(userRepository.findIdsByCpfIn(Set.of("02345678999", "99999999999")))
+        .thenReturn(List.of(new IdByCpf(3L, "02345678999")));
+    userIdCache.findIdByCpf("74770769008");
+
+    var ids = userIdCache.findIdsByCpf(Set.of("74770769008", "02345678999", "99999999999"));
+
+    assertAll(
+        () -> assertEquals(Map.of("74770769008", 2L, "02345678999", 3L), ids),
+        () -> verify(userRepository).findIdsByCpfIn(Set.of("02345678999", "99999999999")),
+        () -> verify(userRepository, never()).findIdsByCpfIn(Set.of("74770769008", "02345678999", "99999999999"))
+    );
+  }
+}
@@ -0,0 +1,239 @@
+package io.github.lcmdev.desafio.payment.service.archive;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.RECEIVED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum.SENT;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.CANCELED;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.lcmdev.desafio.payment.controller.dto.response.StatusSummaryDTO;
+import io.github.lcmdev.desafio.payment.enums.ChargeDirectionEnum;
+import io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum;
+import io.github.lcmdev.desafio.payment.enums.PaymentMethodEnum;
+import io.github.lcmdev.desafio.payment.exception.ArchiveUnavailableException;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.UserRepository;
+import io.github.lcmdev.desafio.payment.service.ChargeSummaryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ChargeArchiverTest {
+
+  private static final String URL = "jdbc:h2:mem:charge-archive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+  @TempDir
+  private Path directory;
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+  private ChargeArchive chargeArchive;
+  private ChargeSummaryService chargeSummaryService;
+  private ChargeArchiver chargeArchiver;
+  private Long merchantId;
+  private Long customerId;
+
+  @BeforeEach
+  void setUp() {
+    var dataSource = new DriverManagerDataSource(URL, "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/h2")
+        .load().migrate();
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("delete from tb_charge_archive_totals");
+    jdbcTemplate.update("delete from tb_charge_archive_segments");
+    jdbcTemplate.update("delete from tb_charge_summaries");
+    jdbcTemplate.update("delete from tb_charges");
+    jdbcTemplate.update("delete from tb_users");
+    merchantId = insertUser("52998224725");
+    customerId = insertUser("74770769008");
+
+    var userRepository = mock(UserRepository.class);
+    when(userRepository.findWithAccountsByIdIn(any())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0)
+        .stream()
+        .map(id -> User.builder().id(id).name("User " + id).build())
+        .toList());
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    chargeArchive = new ChargeArchive(jdbcTemplate, userRepository, new SimpleMeterRegistry(), directory, 1 << 20);
+    chargeSummaryService = new ChargeSummaryService(jdbcTemplate, transactionTemplate, 100, 1);
+    chargeArchiver = new ChargeArchiver(jdbcTemplate, transactionTemplate, chargeArchive, chargeSummaryService,
+        Duration.ofDays(180), 100);
+  }
+
+  @Test
+  void shouldMoveSettledChargesToSegmentAndKeepThemListed() {
+    var paid = insertCharge(merchantId, customerId, "100.00", PAID, NOW.minus(Duration.ofDays(200)));
+    var canceled = insertCharge(merchantId, customerId, "30.00", CANCELED, NOW.minus(Duration.ofDays(190)));
+    insertCharge(merchantId, customerId, "20.00", PAID, NOW.minus(Duration.ofDays(10)));
+    insertCharge(merchantId, customerId, "50.00", PENDING, NOW.minus(Duration.ofDays(300)));
+
+    var archived = transactionTemplate.execute(status -> chargeArchiver.archiveBatch(NOW.minus(Duration.ofDays(180))));
+
+    var sent = chargeArchive.findPage(SENT, merchantId, null, Instant.EPOCH, Instant.MAX, Instant.MAX, Long.MAX_VALUE, 10);
+    var received = chargeArchive.findPage(RECEIVED, customerId, PAID, Instant.EPOCH, Instant.MAX, Instant.MAX,
+        Long.MAX_VALUE, 10);
+    assertAll(
+        () -> assertEquals(2, archived),
+        () -> assertEquals(2, jdbcTemplate.queryForObject("select count(*) from tb_charges", Integer.class)),
+        () -> assertEquals(1, jdbcTemplate.queryForObject("select count(*) from tb_charge_archive_segments", Integer.class)),
+        () -> assertEquals(List.of(canceled, paid), sent.stream().map(Charge::getId).toList()),
+        () -> assertEquals(new BigDecimal("30.00"), sent.getFirst().getAmount()),
+        () -> assertEquals(CANCELED, sent.getFirst().getStatus()),
+        () -> assertEquals("User " + customerId, sent.getFirst().getDestination().getName()),
+        () -> assertEquals(List.of(paid), received.stream().map(Charge::getId).toList()),
+        () -> assertEquals(List.of(), chargeArchive.findPage(SENT, merchantId, PENDING, Instant.EPOCH, Instant.MAX,
+            Instant.MAX, Long.MAX_VALUE, 10))
+    );
+
+    chargeSummaryService.rebuild();
+
+    var summary = chargeSummaryService.summaryOf(merchantId);
+    assertAll(
+        () -> assertEquals(new StatusSummaryDTO(2, new BigDecimal("120.00")), summary.sent().get(PAID)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("30.00")), summary.sent().get(CANCELED)),
+        () -> assertEquals(new StatusSummaryDTO(1, new BigDecimal("50.00")), summary.sent().get(PENDING))
+    );
+  }
+
+  @Test
+  void shouldRemoveSegmentWhenTransactionRollsBack() throws Exception {
+    insertCharge(merchantId, customerId, "100.00", PAID, NOW.minus(Duration.ofDays(200)));
+
+    transactionTemplate.executeWithoutResult(status -> {
+      chargeArchiver.archiveBatch(NOW.minus(Duration.ofDays(180)));
+      status.setRollbackOnly();
+    });
+
+    try (var files = Files.list(directory)) {
+      assertAll(
+          () -> assertEquals(0, files.count()),
+          () -> assertEquals(1, jdbcTemplate.queryForObject("select count(*) from tb_charges", Integer.class)),
+          () -> assertEquals(List.of(), chargeArchive.findPage(SENT, merchantId, null, Instant.EPOCH, Instant.MAX,
+              Instant.MAX, Long.MAX_VALUE, 10))
+      );
+    }
+  }
+
+  @Test
+  void shouldRefuseReadsOverlappingSegmentMissingFromDirectory() throws Exception {
+    insertCharge(merchantId, customerId, "100.00", PAID, NOW.minus(Duration.ofDays(200)));
+    transactionTemplate.execute(status -> chargeArchiver.archiveBatch(NOW.minus(Duration.ofDays(180))));
+    try (var files = Files.list(directory)) {
+      Files.delete(files.findFirst().orElseThrow());
+    }
+    var otherInstance = new ChargeArchive(jdbcTemplate, mock(UserRepository.class), new SimpleMeterRegistry(), directory,
+        1 << 20);
+
+    otherInstance.refresh();
+
+    assertAll(
+        () -> assertEquals(Status.DOWN, otherInstance.health().getStatus()),
+        () -> assertThrows(ArchiveUnavailableException.class, () -> otherInstance.findPage(SENT, merchantId, null,
+            Instant.EPOCH, Instant.MAX, Instant.MAX, Long.MAX_VALUE, 10)),
+        () -> assertEquals(List.of(), otherInstance.findPage(SENT, merchantId, null, NOW.minus(Duration.ofDays(30)),
+            Instant.MAX, Instant.MAX, Long.MAX_VALUE, 10)),
+        () -> assertEquals(Status.UP, chargeArchive.health().getStatus())
+    );
+  }
+
+  @Test
+  void shouldPageThroughSegmentLikeTheLiveQuery() throws Exception {
+    var random = new Random(42);
+    var charges = new ArrayList<Charge>();
+    for (long id = 1; id <= 3 * ChargeSegment.GROUP_SIZE + 17; id++) {
+      var origin = 1 + random.nextInt(5);
+      charges.add(Charge.builder()
+          .id(id)
+          .origin(User.builder().id((long) origin).build())
+          .destination(User.builder().id((long) 6 + random.nextInt(3)).build())
+          .amount(BigDecimal.valueOf(random.nextInt(100_000), 2))
+          .description(random.nextBoolean() ? null : "charge " + id)
+          .status(random.nextBoolean() ? PAID : CANCELED)
+          .paymentMethod(random.nextBoolean() ? PaymentMethodEnum.CARD : null)
+          .createdAt(NOW.minusSeconds(random.nextInt(5_000)))
+          .statusUpdatedAt(NOW)
+          .build());
+    }
+    ChargeSegment.write(directory.resolve("charges.seg"), charges);
+    chargeArchive.add(ChargeSegment.open(directory.resolve("charges.seg")));
+
+    var from = NOW.minusSeconds(4_000);
+    for (var direction : ChargeDirectionEnum.values()) {
+      for (var status : new ChargeStatusEnum[] {null, PAID}) {
+        var userId = direction == SENT ? 3L : 7L;
+        var expected = charges.stream()
+            .filter(charge -> (direction == SENT ? charge.getOrigin() : charge.getDestination()).getId() == userId)
+            .filter(charge -> status == null || charge.getStatus() == status)
+            .filter(charge -> !charge.getCreatedAt().isBefore(from))
+            .sorted(Comparator.comparing(Charge::getCreatedAt).thenComparing(Charge::getId).reversed())
+            .toList();
+
+        var listed = new ArrayList<Charge>();
+        var cursorCreatedAt = Instant.MAX;
+        var cursorId = Long.MAX_VALUE;
+        List<Charge> page;
+        do {
+          page = chargeArchive.findPage(direction, userId, status, from, Instant.MAX, cursorCreatedAt, cursorId, 100);
+          listed.addAll(page);
+          if (!page.isEmpty()) {
+            cursorCreatedAt = page.getLast().getCreatedAt();
+            cursorId = page.getLast().getId();
+          }
+        } while (page.size() == 100);
+
+        assertEquals(expected.stream().map(Charge::getId).toList(), listed.stream().map(Charge::getId).toList());
+        var first = expected.getFirst();
+        var read = listed.getFirst();
+        assertAll(
+            () -> assertEquals(first.getAmount(), read.getAmount()),
+            () -> assertEquals(first.getDescription(), read.getDescription()),
+            () -> assertEquals(first.getPaymentMethod(), read.getPaymentMethod()),
+            () -> assertEquals(first.getCreatedAt(), read.getCreatedAt())
+        );
+      }
+    }
+    assertTrue(chargeArchive.findPage(SENT, 99L, null, Instant.EPOCH, Instant.MAX, Instant.MAX, Long.MAX_VALUE, 10)
+        .isEmpty());
+  }
+
+  private Long insertUser(String cpf) {
+    jdbcTemplate.update("insert into tb_users (name, cpf, email, password_hash) values ('User', ?, ?, 'hash')",
+        cpf, cpf + "@test.com");
+    return jdbcTemplate.queryForObject("select id from tb_users where cpf = ?", Long.class, cpf);
+  }
+
+  private Long insertCharge(Long originId, Long destinationId, String amount, ChargeStatusEnum status, Instant settledAt) {
+    jdbcTemplate.update("""
+        insert into tb_charges (origin_id, destination_id, amount, status, created_at, status_updated_at)
+        values (?, ?, ?, ?, ?, ?)
+        """, originId, destinationId, new BigDecimal(amount), status.name(),
+        Timestamp.from(settledAt.minus(Duration.ofDays(1))), Timestamp.from(settledAt));
+    return jdbcTemplate.queryForObject("select max(id) from tb_charges", Long.class);
+  }
+}
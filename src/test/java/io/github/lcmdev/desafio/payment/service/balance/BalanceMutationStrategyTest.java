@@ -0,0 +1,197 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import io.github.lcmdev.desafio.payment.service.balance.BalanceMutationStrategy.Credit;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:balance;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class BalanceMutationStrategyTest {
+
+  @Autowired
+  private AccountRepository accountRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldTransferAndKeepManagedAccountsInSync(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var payer = persistAccount("Payer", "52998224725", "100.00");
+    var receiver = persistAccount("Receiver", "74770769008", "10.00");
+
+    strategy.transfer(payer, receiver, new BigDecimal("40.00"), false);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("60.00"), payer.getBalance()),
+        () -> assertEquals(new BigDecimal("50.00"), receiver.getBalance()),
+        () -> assertEquals(new BigDecimal("60.00"), balanceOf(strategy, payer)),
+        () -> assertEquals(new BigDecimal("50.00"), balanceOf(strategy, receiver))
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldTransferToSeveralReceiversAndKeepManagedAccountsInSync(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var firstReceiver = persistAccount("First receiver", "74770769008", "10.00");
+    var payer = persistAccount("Payer", "52998224725", "100.00");
+    var lastReceiver = persistAccount("Last receiver", "02345678999", "0.00");
+
+    strategy.transfer(payer, List.of(new Credit(lastReceiver, new BigDecimal("25.00")),
+        new Credit(firstReceiver, new BigDecimal("40.00"))), false);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("35.00"), payer.getBalance()),
+        () -> assertEquals(new BigDecimal("50.00"), firstReceiver.getBalance()),
+        () -> assertEquals(new BigDecimal("25.00"), lastReceiver.getBalance()),
+        () -> assertEquals(new BigDecimal("35.00"), balanceOf(strategy, payer)),
+        () -> assertEquals(new BigDecimal("50.00"), balanceOf(strategy, firstReceiver)),
+        () -> assertEquals(new BigDecimal("25.00"), balanceOf(strategy, lastReceiver))
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldRejectDebitWhenBalanceIsInsufficient(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var payer = persistAccount("Payer", "52998224725", "10.00");
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> strategy.debit(payer, new BigDecimal("10.01"), false));
+    entityManager.flush();
+    entityManager.clear();
+
+    assertAll(
+        () -> assertEquals("Insufficient balance", exception.getMessage()),
+        () -> assertEquals(new BigDecimal("10.00"), balanceOf(strategy, payer))
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldAllowOverdraftWhenRequested(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var receiver = persistAccount("Receiver", "74770769008", "10.00");
+
+    strategy.debit(receiver, new BigDecimal("25.00"), true);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertEquals(new BigDecimal("-15.00"), balanceOf(strategy, receiver));
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldNotLoseUpdateCommittedAfterAccountWasLoaded(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var receiver = persistAccount("Receiver", "74770769008", "10.00");
+
+    accountRepository.addToBalance(receiver.getId(), new BigDecimal("5.00"));
+    strategy.credit(receiver, new BigDecimal("1.00"));
+    entityManager.flush();
+    entityManager.clear();
+
+    assertEquals(new BigDecimal("16.00"), balanceOf(strategy, receiver));
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldLockForTransferReadingTheStoredBalance(BalanceStrategyEnum strategyEnum) {
+    var strategy = strategy(strategyEnum);
+    var receiver = persistAccount("Receiver", "74770769008", "10.00");
+    var payer = persistAccount("Payer", "52998224725", "100.00");
+
+    accountRepository.addToBalance(payer.getId(), new BigDecimal("-30.00"));
+    var balance = strategy.lockForTransfer(payer, List.of(receiver));
+    strategy.transfer(payer, receiver, balance, false);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("70.00"), balance),
+        () -> assertEquals(new BigDecimal("0.00"), balanceOf(strategy, payer)),
+        () -> assertEquals(new BigDecimal("80.00"), balanceOf(strategy, receiver))
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceStrategyEnum.class)
+  void shouldOnlyStartReactiveProfileWithUnshardedConditionalUpdates(BalanceStrategyEnum strategyEnum) {
+    var config = new BalanceStrategyConfig();
+    var reactive = mock(ReactiveWebApplicationContext.class);
+
+    var sharded = assertThrows(IllegalStateException.class, () -> config.balanceMutationStrategy(strategyEnum, 5, true,
+        reactive, accountRepository, entityManager, jdbcTemplate));
+
+    assertAll(
+        () -> assertTrue(sharded.getMessage().startsWith("The reactive profile only supports")),
+        () -> {
+          if (strategyEnum == BalanceStrategyEnum.CONDITIONAL_UPDATE) {
+            assertNotNull(config.balanceMutationStrategy(strategyEnum, 5, false, reactive, accountRepository,
+                entityManager, jdbcTemplate));
+          } else {
+            assertThrows(IllegalStateException.class, () -> config.balanceMutationStrategy(strategyEnum, 5, false,
+                reactive, accountRepository, entityManager, jdbcTemplate));
+          }
+        }
+    );
+  }
+
+  private BalanceMutationStrategy strategy(BalanceStrategyEnum strategyEnum) {
+    return BalanceStrategyConfig.create(strategyEnum, 5, accountRepository, entityManager, jdbcTemplate);
+  }
+
+  private BigDecimal balanceOf(BalanceMutationStrategy strategy, Account account) {
+    return strategy.balanceOf(accountRepository.findById(account.getId()).orElseThrow());
+  }
+
+  private Account persistAccount(String name, String cpf, String balance) {
+    var user = new User();
+    var account = new Account();
+    user.setName(name);
+    user.setCpf(cpf);
+    user.setEmail(cpf + "@test.com");
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    account.setBalance(new BigDecimal(balance));
+    user.setAccount(account);
+    entityManager.persist(user);
+    entityManager.flush();
+    return account;
+  }
+}
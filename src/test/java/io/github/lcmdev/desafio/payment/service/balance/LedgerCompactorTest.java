@@ -0,0 +1,129 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.User;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:ledger;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class LedgerCompactorTest {
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionOperations transactionOperations;
+
+  private LedgerBalanceStrategy ledger;
+  private LedgerCompactor compactor;
+
+  @BeforeEach
+  void setUp() {
+    ledger = new LedgerBalanceStrategy(jdbcTemplate, entityManager);
+    compactor = new LedgerCompactor(jdbcTemplate, transactionOperations);
+  }
+
+  @Test
+  void shouldSnapshotLedgerAndCopyBalanceToAccounts() {
+    var payer = persistAccount("Payer", "52998224725", "100.00");
+    var receiver = persistAccount("Receiver", "74770769008", "0.00");
+
+    ledger.transfer(payer, receiver, new BigDecimal("30.00"), false);
+    ledger.credit(receiver, new BigDecimal("5.00"));
+
+    var compacted = compactor.compact();
+
+    assertAll(
+        () -> assertEquals(2, compacted),
+        () -> assertEquals(new BigDecimal("70.00"), snapshotOf(payer)),
+        () -> assertEquals(new BigDecimal("35.00"), snapshotOf(receiver)),
+        () -> assertEquals(new BigDecimal("70.00"), storedBalanceOf(payer)),
+        () -> assertEquals(new BigDecimal("35.00"), storedBalanceOf(receiver)),
+        () -> assertEquals(new BigDecimal("70.00"), ledger.balanceOf(payer)),
+        () -> assertEquals(new BigDecimal("35.00"), ledger.balanceOf(receiver))
+    );
+  }
+
+  @Test
+  void shouldRollExistingSnapshotForwardWithNewEntriesOnly() {
+    var payer = persistAccount("Payer", "52998224725", "100.00");
+    var receiver = persistAccount("Receiver", "74770769008", "0.00");
+    ledger.transfer(payer, receiver, new BigDecimal("30.00"), false);
+    compactor.compact();
+
+    ledger.transfer(payer, receiver, new BigDecimal("20.00"), false);
+    var compacted = compactor.compact();
+
+    assertAll(
+        () -> assertEquals(2, compacted),
+        () -> assertEquals(new BigDecimal("50.00"), snapshotOf(payer)),
+        () -> assertEquals(new BigDecimal("50.00"), snapshotOf(receiver)),
+        () -> assertEquals(0, compactor.compact()),
+        () -> assertEquals(new BigDecimal("50.00"), ledger.balanceOf(payer))
+    );
+  }
+
+  @Test
+  void shouldReadWatermarkOnlyAfterAppendsInFlightFinished() {
+    var jdbc = mock(JdbcTemplate.class);
+    when(jdbc.queryForObject(anyString(), eq(Long.class))).thenReturn(null);
+
+    var compacted = new LedgerCompactor(jdbc, TransactionOperations.withoutTransaction()).compact();
+
+    var inOrder = inOrder(jdbc);
+    assertEquals(0, compacted);
+    inOrder.verify(jdbc).queryForList("select pg_advisory_xact_lock(?)", LedgerBalanceStrategy.APPEND_LOCK_KEY);
+    inOrder.verify(jdbc).queryForObject("select max(id) from tb_ledger_entries", Long.class);
+  }
+
+  private BigDecimal snapshotOf(Account account) {
+    return jdbcTemplate.queryForObject("select balance from tb_balance_snapshots where account_id = ?",
+        BigDecimal.class, account.getId());
+  }
+
+  private BigDecimal storedBalanceOf(Account account) {
+    return jdbcTemplate.queryForObject("select balance from tb_accounts where id = ?",
+        BigDecimal.class, account.getId());
+  }
+
+  private Account persistAccount(String name, String cpf, String balance) {
+    var user = new User();
+    var account = new Account();
+    user.setName(name);
+    user.setCpf(cpf);
+    user.setEmail(cpf + "@test.com");
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    account.setBalance(new BigDecimal(balance));
+    user.setAccount(account);
+    entityManager.persist(user);
+    entityManager.flush();
+    return account;
+  }
+}
@@ -0,0 +1,173 @@
+package io.github.lcmdev.desafio.payment.service.balance;
+
+import static io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum.CONDITIONAL_UPDATE;
+import static io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum.PESSIMISTIC;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.lcmdev.desafio.payment.enums.BalanceStrategyEnum;
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.github.lcmdev.desafio.payment.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shards;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+    "spring.jpa.database=h2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class ShardedBalanceStrategyTest {
+
+  @Autowired
+  private AccountRepository accountRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void shouldSpreadCreditsOverShardsOfPromotedAccount() {
+    var strategy = sharded(CONDITIONAL_UPDATE);
+    var merchant = persistAccount("Merchant", "52998224725", "10.00");
+    strategy.promote(merchant.getId(), 4);
+
+    for (int i = 0; i < 20; i++) {
+      strategy.credit(merchant, new BigDecimal("1.00"));
+    }
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("10.00"), storedBalanceOf(merchant)),
+        () -> assertEquals(new BigDecimal("20.00"), shardsTotalOf(merchant)),
+        () -> assertEquals(new BigDecimal("30.00"), strategy.balanceOf(merchant)),
+        () -> assertEquals(new BigDecimal("30.00"), merchant.getBalance())
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = BalanceStrategyEnum.class, names = {"CONDITIONAL_UPDATE", "OPTIMISTIC", "PESSIMISTIC"})
+  void shouldDrainShardsBeforeAccountRow(BalanceStrategyEnum delegate) {
+    var strategy = sharded(delegate);
+    var merchant = persistAccount("Merchant", "52998224725", "10.00");
+    strategy.promote(merchant.getId(), 2);
+    jdbcTemplate.update("update tb_account_shards set balance = 3 where account_id = ?", merchant.getId());
+
+    strategy.debit(merchant, new BigDecimal("8.00"), false);
+    entityManager.flush();
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("0.00"), shardsTotalOf(merchant)),
+        () -> assertEquals(new BigDecimal("8.00"), storedBalanceOf(merchant)),
+        () -> assertEquals(new BigDecimal("8.00"), strategy.balanceOf(merchant))
+    );
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = BalanceStrategyEnum.class, names = {"CONDITIONAL_UPDATE", "OPTIMISTIC", "PESSIMISTIC"})
+  void shouldLockForTransferCountingShards(BalanceStrategyEnum delegate) {
+    var strategy = sharded(delegate);
+    var receiver = persistAccount("Receiver", "74770769008", "0.00");
+    var merchant = persistAccount("Merchant", "52998224725", "10.00");
+    strategy.promote(merchant.getId(), 2);
+    strategy.credit(merchant, new BigDecimal("5.00"));
+
+    var balance = strategy.lockForTransfer(merchant, List.of(receiver));
+    strategy.transfer(merchant, receiver, balance, false);
+    entityManager.flush();
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("15.00"), balance),
+        () -> assertEquals(new BigDecimal("0.00"), strategy.balanceOf(merchant)),
+        () -> assertEquals(new BigDecimal("15.00"), storedBalanceOf(receiver))
+    );
+  }
+
+  @Test
+  void shouldRejectDebitAboveAccountRowPlusShards() {
+    var strategy = sharded(PESSIMISTIC);
+    var merchant = persistAccount("Merchant", "52998224725", "10.00");
+    strategy.promote(merchant.getId(), 2);
+    strategy.credit(merchant, new BigDecimal("5.00"));
+
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> strategy.debit(merchant, new BigDecimal("15.01"), false));
+
+    assertEquals("Insufficient balance", exception.getMessage());
+  }
+
+  @Test
+  void shouldDelegateAccountsThatAreNotPromoted() {
+    var strategy = sharded(CONDITIONAL_UPDATE);
+    var payer = persistAccount("Payer", "74770769008", "10.00");
+
+    strategy.credit(payer, new BigDecimal("5.00"));
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("15.00"), storedBalanceOf(payer)),
+        () -> assertEquals(new BigDecimal("15.00"), strategy.balanceOf(payer))
+    );
+  }
+
+  @Test
+  void shouldPickUpPromotionsMadeElsewhereOnRefresh() {
+    var strategy = sharded(CONDITIONAL_UPDATE);
+    var merchant = persistAccount("Merchant", "52998224725", "10.00");
+    jdbcTemplate.update("insert into tb_account_shards (account_id, shard, balance) values (?, 0, 0)",
+        merchant.getId());
+
+    strategy.refreshShardCounts();
+    strategy.credit(merchant, new BigDecimal("5.00"));
+
+    assertAll(
+        () -> assertEquals(new BigDecimal("10.00"), storedBalanceOf(merchant)),
+        () -> assertEquals(new BigDecimal("5.00"), shardsTotalOf(merchant))
+    );
+  }
+
+  private ShardedBalanceStrategy sharded(BalanceStrategyEnum delegate) {
+    return new ShardedBalanceStrategy(
+        BalanceStrategyConfig.create(delegate, 5, accountRepository, entityManager, jdbcTemplate),
+        jdbcTemplate, entityManager);
+  }
+
+  private BigDecimal storedBalanceOf(Account account) {
+    return jdbcTemplate.queryForObject("select balance from tb_accounts where id = ?",
+        BigDecimal.class, account.getId());
+  }
+
+  private BigDecimal shardsTotalOf(Account account) {
+    return jdbcTemplate.queryForObject(
+        "select coalesce(sum(balance), 0) from tb_account_shards where account_id = ?",
+        BigDecimal.class, account.getId());
+  }
+
+  private Account persistAccount(String name, String cpf, String balance) {
+    var user = new User();
+    var account = new Account();
+    user.setName(name);
+    user.setCpf(cpf);
+    user.setEmail(cpf + "@test.com");
+    user.setPasswordHash("hash");
+    account.setUser(user);
+    account.setBalance(new BigDecimal(balance));
+    user.setAccount(account);
+    entityManager.persist(user);
+    entityManager.flush();
+    return account;
+  }
+}
@@ -0,0 +1,233 @@
+package io.github.lcmdev.desafio.payment.service.changelog;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.lcmdev.desafio.payment.model.Account;
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ChangeLogTest {
+
+  @TempDir
+  private Path directory;
+
+  private ChangeLog changeLog;
+
+  @AfterEach
+  void tearDown() {
+    changeLog.stop();
+  }
+
+  @Test
+  void shouldReadRecordsFromAnyOffsetAcrossRolledSegments() throws IOException {
+    changeLog = start(Duration.ofDays(7));
+    changeLog.created(charges(1, 500));
+    changeLog.transferred(charge(7L), account(20L, 2L), account(10L, 1L));
+    awaitEnd(502);
+
+    var all = changeLog.read(0, 1000);
+    var middle = changeLog.read(123, 10);
+    var transfer = changeLog.read(500, 10).records();
+    var first = all.records().getFirst();
+    assertAll(
+        () -> assertTrue(logFiles() > 5),
+        () -> assertEquals(LongStream.range(0, 502).boxed().toList(), all.records().stream().map(ChangeRecord::offset).toList()),
+        () -> assertEquals(502, all.nextOffset()),
+        () -> assertEquals(LongStream.range(124, 134).boxed().toList(), middle.records().stream().map(ChangeRecord::chargeId).toList()),
+        () -> assertEquals(133, middle.nextOffset()),
+        () -> assertEquals(ChangeRecord.Type.CHARGE_CREATED, first.type()),
+        () -> assertEquals(1L, first.originId()),
+        () -> assertEquals(2L, first.destinationId()),
+        () -> assertEquals(new BigDecimal("10.00"), first.amount()),
+        () -> assertEquals(PENDING, first.status()),
+        () -> assertNull(first.previousStatus()),
+        () -> assertNull(first.userId()),
+        () -> assertEquals(ChangeRecord.Type.BALANCE_CHANGED, transfer.getFirst().type()),
+        () -> assertEquals(7L, transfer.getFirst().chargeId()),
+        () -> assertEquals(2L, transfer.getFirst().userId()),
+        () -> assertEquals(20L, transfer.getFirst().accountId()),
+        () -> assertEquals(new BigDecimal("-10.00"), transfer.getFirst().amount()),
+        () -> assertEquals(new BigDecimal("10.00"), transfer.getLast().amount()),
+        () -> assertEquals(0, changeLog.read(502, 10).records().size())
+    );
+  }
+
+  @Test
+  void shouldAppendOnlyAfterCommit() {
+    changeLog = start(Duration.ofDays(7));
+    List<TransactionSynchronization> committed;
+    List<TransactionSynchronization> rolledBack;
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      changeLog.moved(List.of(charge(1L)), PENDING, PAID);
+      committed = TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      changeLog.created(List.of(charge(2L)));
+      rolledBack = TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    assertEquals(0, changeLog.endOffset());
+
+    rolledBack.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    committed.forEach(TransactionSynchronization::afterCommit);
+    awaitEnd(1);
+
+    var record = changeLog.read(0, 10).records().getFirst();
+    assertAll(
+        () -> assertEquals(ChangeRecord.Type.CHARGE_STATUS_CHANGED, record.type()),
+        () -> assertEquals(1L, record.chargeId()),
+        () -> assertEquals(PAID, record.status()),
+        () -> assertEquals(PENDING, record.previousStatus()),
+        () -> assertEquals(1, changeLog.endOffset())
+    );
+  }
+
+  @Test
+  void shouldStoreStableTypeAndStatusCodes() throws IOException {
+    changeLog = start(Duration.ofDays(7));
+    changeLog.moved(List.of(charge(1L)), PENDING, PAID);
+    awaitEnd(1);
+    changeLog.stop();
+
+    try (var file = new RandomAccessFile(activeSegment().toFile(), "r")) {
+      file.seek(4 + 4 + 8);
+      var type = file.read();
+      file.seek(4 + 4 + 8 + 1 + 8 + 4 + 5 * 8);
+      var status = file.read();
+      var previousStatus = file.read();
+      assertAll(
+          () -> assertEquals(1, type),
+          () -> assertEquals(3, status),
+          () -> assertEquals(1, previousStatus)
+      );
+    }
+  }
+
+  @Test
+  void shouldRecoverAfterRestartStoppingAtATornRecord() throws IOException {
+    changeLog = start(Duration.ofDays(7));
+    changeLog.created(charges(1, 100));
+    awaitEnd(100);
+    changeLog.stop();
+    var active = activeSegment();
+    try (var file = new RandomAccessFile(active.toFile(), "rw")) {
+      var used = usedBytes(file);
+      file.seek(used - 1);
+      var last = file.read();
+      file.seek(used - 1);
+      file.write(last ^ 0xff);
+    }
+
+    changeLog = start(Duration.ofDays(7));
+    assertEquals(99, changeLog.endOffset());
+    changeLog.created(charges(1000, 2));
+    awaitEnd(101);
+
+    var records = changeLog.read(95, 10).records();
+    assertEquals(List.of(96L, 97L, 98L, 99L, 1000L, 1001L), records.stream().map(ChangeRecord::chargeId).toList());
+  }
+
+  @Test
+  void shouldDeleteSegmentsPastRetentionAndRejectRemovedOffsets() throws IOException {
+    changeLog = start(Duration.ZERO);
+    changeLog.created(charges(1, 300));
+    awaitEnd(300);
+    var before = logFiles();
+
+    changeLog.enforceRetention();
+
+    var start = changeLog.startOffset();
+    assertAll(
+        () -> assertEquals(1, logFiles()),
+        () -> assertTrue(before > 1),
+        () -> assertTrue(start > 0),
+        () -> assertEquals(start, changeLog.read(start, 1).records().getFirst().offset()),
+        () -> assertThrows(IllegalArgumentException.class, () -> changeLog.read(0, 10)),
+        () -> assertThrows(IllegalArgumentException.class, () -> changeLog.read(301, 10))
+    );
+  }
+
+  private ChangeLog start(Duration retention) {
+    var properties = new ChangeLogProperties(true, directory, 4096, 256, 64, Duration.ofMillis(10), retention, 0L);
+    var log = new ChangeLog(properties, new SimpleMeterRegistry());
+    log.start();
+    return log;
+  }
+
+  private void awaitEnd(long offset) {
+    var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (changeLog.endOffset() < offset && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertEquals(offset, changeLog.endOffset());
+  }
+
+  private long logFiles() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(path -> path.toString().endsWith(ChangeLogSegment.LOG_SUFFIX)).count();
+    }
+  }
+
+  private Path activeSegment() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(path -> path.toString().endsWith(ChangeLogSegment.LOG_SUFFIX)).sorted().toList().getLast();
+    }
+  }
+
+  /** Walks the frames of a segment to the first empty length prefix. */
+  private static long usedBytes(RandomAccessFile file) throws IOException {
+    long position = 0;
+    while (position + 4 <= file.length()) {
+      file.seek(position);
+      var length = file.readInt();
+      if (length == 0) {
+        break;
+      }
+      position += 8 + length;
+    }
+    return position;
+  }
+
+  private static List<Charge> charges(long firstId, int count) {
+    return LongStream.range(firstId, firstId + count).mapToObj(ChangeLogTest::charge).toList();
+  }
+
+  private static Charge charge(Long id) {
+    return Charge.builder()
+        .id(id)
+        .origin(User.builder().id(1L).build())
+        .destination(User.builder().id(2L).build())
+        .amount(new BigDecimal("10.00"))
+        .status(PENDING)
+        .build();
+  }
+
+  private static Account account(Long id, Long userId) {
+    return new Account(id, BigDecimal.ZERO, User.builder().id(userId).build(), 0L);
+  }
+}
@@ -0,0 +1,153 @@
+package io.github.lcmdev.desafio.payment.service.event;
+
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PAID;
+import static io.github.lcmdev.desafio.payment.enums.ChargeStatusEnum.PENDING;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import io.github.lcmdev.desafio.payment.model.Charge;
+import io.github.lcmdev.desafio.payment.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class ChargeEventBusTest {
+
+  private static final long MERCHANT = 1L;
+  private static final long CUSTOMER = 2L;
+  private static final long OTHER = 3L;
+
+  @Test
+  void shouldPushEventsOfTheUserOnBothSides() throws Exception {
+    var bus = new ChargeEventBus(new SimpleMeterRegistry(), 100, 100, Duration.ofMinutes(1));
+    var response = open(bus, CUSTOMER, null);
+
+    bus.created(List.of(charge(10L, MERCHANT, CUSTOMER)));
+    bus.created(List.of(charge(11L, MERCHANT, OTHER)));
+    bus.moved(List.of(charge(10L, MERCHANT, CUSTOMER)), PENDING, PAID);
+
+    var content = await(response, body -> body.contains("event:charge-status-changed"));
+    assertAll(
+        () -> assertTrue(content.contains("event:charge-created")),
+        () -> assertTrue(content.contains("\"chargeId\":10")),
+        () -> assertTrue(content.contains("\"previousStatus\":\"PENDING\"")),
+        () -> assertFalse(content.contains("\"chargeId\":11"))
+    );
+  }
+
+  @Test
+  void shouldReplayEventsAfterLastEventId() throws Exception {
+    var bus = new ChargeEventBus(new SimpleMeterRegistry(), 100, 100, Duration.ofMinutes(1));
+    var first = open(bus, MERCHANT, null);
+    bus.created(List.of(charge(10L, MERCHANT, CUSTOMER)));
+    var firstId = eventIds(await(first, body -> body.contains("id:"))).getFirst();
+    bus.created(List.of(charge(11L, MERCHANT, CUSTOMER), charge(12L, CUSTOMER, OTHER), charge(13L, CUSTOMER, MERCHANT)));
+
+    var resumed = await(open(bus, MERCHANT, Long.toString(firstId)), body -> body.contains("\"chargeId\":13"));
+
+    assertAll(
+        () -> assertFalse(resumed.contains("\"chargeId\":10")),
+        () -> assertTrue(resumed.contains("\"chargeId\":11")),
+        () -> assertFalse(resumed.contains("\"chargeId\":12")),
+        () -> assertEquals(List.of(firstId + 1, firstId + 3), eventIds(resumed))
+    );
+  }
+
+  @Test
+  void shouldSendResetWhenLastEventIdIsNoLongerBuffered() throws Exception {
+    var bus = new ChargeEventBus(new SimpleMeterRegistry(), 2, 100, Duration.ofMinutes(1));
+    var first = open(bus, MERCHANT, null);
+    bus.created(List.of(charge(10L, MERCHANT, CUSTOMER)));
+    var firstId = eventIds(await(first, body -> body.contains("id:"))).getFirst();
+    bus.created(List.of(charge(11L, MERCHANT, CUSTOMER), charge(12L, MERCHANT, CUSTOMER), charge(13L, MERCHANT, CUSTOMER)));
+
+    var resumed = await(open(bus, MERCHANT, Long.toString(firstId)), body -> body.contains("event:reset"));
+    var unknown = await(open(bus, MERCHANT, "1"), body -> body.contains("event:reset"));
+
+    assertAll(
+        () -> assertTrue(resumed.contains("data:gap")),
+        () -> assertFalse(resumed.contains("chargeId")),
+        () -> assertTrue(unknown.contains("data:gap"))
+    );
+  }
+
+  @Test
+  void shouldDisconnectSubscriberThatFallsBehind() throws Exception {
+    var bus = new ChargeEventBus(new SimpleMeterRegistry(), 10, 2, Duration.ofMinutes(1));
+    var response = open(bus, MERCHANT, null);
+
+    bus.created(LongStream.range(0, 1000).mapToObj(id -> charge(id, MERCHANT, CUSTOMER)).toList());
+
+    var content = await(response, body -> body.contains("data:overflow"));
+    assertTrue(eventIds(content).size() < 1000);
+  }
+
+  private static MockHttpServletResponse open(ChargeEventBus bus, long userId, String lastEventId) throws Exception {
+    var mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(bus)).build();
+    var request = get("/stream").param("userId", Long.toString(userId));
+    if (lastEventId != null) {
+      request.header("Last-Event-ID", lastEventId);
+    }
+    return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn().getResponse();
+  }
+
+  private static String await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+    var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (true) {
+      var content = response.getContentAsString();
+      if (condition.test(content) || System.nanoTime() > deadline) {
+        return content;
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static List<Long> eventIds(String content) {
+    return content.lines()
+        .filter(line -> line.startsWith("id:"))
+        .map(line -> Long.parseLong(line.substring(3)))
+        .toList();
+  }
+
+  private static Charge charge(Long id, long originId, long destinationId) {
+    return Charge.builder()
+        .id(id)
+        .origin(User.builder().id(originId).build())
+        .destination(User.builder().id(destinationId).build())
+        .amount(new BigDecimal("10.00"))
+        .status(PENDING)
+        .build();
+  }
+
+  @RestController
+  static class StreamController {
+
+    private final ChargeEventBus bus;
+
+    StreamController(ChargeEventBus bus) {
+      this.bus = bus;
+    }
+
+    @GetMapping("/stream")
+    SseEmitter stream(@RequestParam Long userId,
+        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+      return bus.subscribe(userId, lastEventId);
+    }
+  }
+}
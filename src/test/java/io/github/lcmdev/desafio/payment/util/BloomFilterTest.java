@@ -0,0 +1,52 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void shouldNeverReportAddedValueAsAbsent() {
+    var filter = BloomFilter.create(10_000, 0.01);
+    var values = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+    values.forEach(filter::put);
+
+    assertTrue(values.stream().allMatch(filter::mightContain));
+  }
+
+  @Test
+  void shouldKeepFalsePositiveRateNearConfiguredRate() {
+    var filter = BloomFilter.create(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.put(UUID.randomUUID().toString()));
+
+    var falsePositives = IntStream.range(0, 100_000)
+        .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+        .count();
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void shouldReportSaturationOnlyAfterExpectedInsertions() {
+    var filter = BloomFilter.create(2, 0.01);
+    filter.put("a");
+    filter.put("b");
+
+    assertFalse(filter.isSaturated());
+
+    filter.put("c");
+
+    assertTrue(filter.isSaturated());
+  }
+
+  @Test
+  void shouldRejectInvalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+  }
+}
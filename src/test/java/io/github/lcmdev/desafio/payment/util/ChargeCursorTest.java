@@ -0,0 +1,40 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class ChargeCursorTest {
+
+  @Test
+  void shouldDecodeEncodedCursorKeepingMicroseconds() {
+    var cursor = new ChargeCursor(Instant.parse("2025-03-01T12:30:45.123456Z"), 987L);
+
+    var decoded = ChargeCursor.decode(cursor.encode());
+
+    assertEquals(cursor, decoded);
+  }
+
+  @Test
+  void shouldEncodeAsUrlSafeValue() {
+    var encoded = new ChargeCursor(Instant.parse("2025-03-01T12:30:45Z"), Long.MAX_VALUE).encode();
+
+    assertFalse(encoded.contains("=") || encoded.contains("+") || encoded.contains("/"));
+  }
+
+  @Test
+  void shouldThrowWhenCursorIsMalformed() {
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> ChargeCursor.decode("bWFsZm9ybWVk"));
+
+    assertEquals("Invalid cursor", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowWhenCursorIsNotBase64() {
+    assertThrows(IllegalArgumentException.class, () -> ChargeCursor.decode("%%%"));
+  }
+}
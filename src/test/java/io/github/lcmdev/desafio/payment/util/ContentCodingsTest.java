@@ -0,0 +1,31 @@
+package io.github.lcmdev.desafio.payment.util;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ContentCodingsTest {
+
+  @Test
+  void shouldAcceptCodingListedWithPositiveWeight() {
+    assertAll(
+        () -> assertTrue(ContentCodings.accepts("gzip, deflate", "gzip")),
+        () -> assertTrue(ContentCodings.accepts("deflate;q=1.0, GZIP;q=0.5", "gzip")),
+        () -> assertTrue(ContentCodings.accepts("br, *;q=0.1", "gzip"))
+    );
+  }
+
+  @Test
+  void shouldRefuseCodingWithZeroWeightOrNotListed() {
+    assertAll(
+        () -> assertFalse(ContentCodings.accepts(null, "gzip")),
+        () -> assertFalse(ContentCodings.accepts("gzip;q=0", "gzip")),
+        () -> assertFalse(ContentCodings.accepts("gzip; q=0.000, *", "gzip")),
+        () -> assertFalse(ContentCodings.accepts("identity, *;q=0", "gzip")),
+        () -> assertFalse(ContentCodings.accepts("x-gzip-ish, deflate", "gzip")),
+        () -> assertFalse(ContentCodings.accepts("gzip;q=abc", "gzip"))
+    );
+  }
+}
@@ -0,0 +1,4 @@
+-- Funções de advisory lock do PostgreSQL simuladas no H2 (testes executam em uma única conexão)
+CREATE ALIAS IF NOT EXISTS pg_advisory_xact_lock FOR 'io.github.lcmdev.desafio.payment.mock.H2FunctionsMock.advisoryXactLock';
+CREATE ALIAS IF NOT EXISTS pg_advisory_xact_lock_shared FOR 'io.github.lcmdev.desafio.payment.mock.H2FunctionsMock.advisoryXactLock';
+CREATE ALIAS IF NOT EXISTS pg_try_advisory_xact_lock FOR 'io.github.lcmdev.desafio.payment.mock.H2FunctionsMock.tryAdvisoryXactLock';
@@ -0,0 +1,2 @@
+-- setval do PostgreSQL simulado no H2 com ALTER SEQUENCE ... RESTART WITH
+CREATE ALIAS IF NOT EXISTS setval FOR 'io.github.lcmdev.desafio.payment.mock.H2FunctionsMock.setval';